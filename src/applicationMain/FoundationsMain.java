@@ -1,11 +1,16 @@
 package applicationMain;
 	
-import java.sql.SQLException;
+import database.AsyncDatabase;
 import database.Database;
+import javafx.application.Platform;
 import javafx.application.Application;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.layout.Pane;
 import javafx.stage.Stage;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
+import javafx.scene.control.Label;
 
 /*******
  * <p> Title: FoundationsMain Class </p>
@@ -24,9 +29,10 @@ import javafx.scene.control.Alert.AlertType;
  *             sometimes frustrating, if not painful, experimentation until you get it working.
  *             This is especially true when the obvious way to do something does not work!
  *
- * On startup, the application tries to connect with the Foundations in-memory database.  If a
- * connection to the database is currently active, an alert is displayed explaining the situation
- * to the users and the application quits when the user acknowledges the alert.
+ * On startup, the application shows a "starting" page at once and then tries to connect with
+ * the Foundations in-memory database on a worker thread (see StartupPipeline).  If a connection
+ * to the database is currently active, an alert is displayed explaining the situation to the
+ * users and the application quits when the user acknowledges the alert.
  *
  * If the connection is successful, a check is made to see if the database is empty. If so, this
  * must be the first execution of the application and the person running the application is assumed
@@ -74,36 +80,73 @@ public class FoundationsMain extends Application {
 	// application so we do not need to keep passing the reference in parameters to the rest of the
 	// system for other methods that need it can access it.
 	public static Database database = new Database();
+	
+	// The same database for controllers that must not block the JavaFX thread.  Queries run on
+	// worker threads (at most ASYNC_MAX_IN_FLIGHT at once) and their results are handed back on
+	// the JavaFX thread through Platform.runLater.
+	public final static int ASYNC_MAX_IN_FLIGHT = 8;
+	public static AsyncDatabase asyncDatabase = 
+			new AsyncDatabase(database, ASYNC_MAX_IN_FLIGHT, Platform::runLater);
     private Alert databaseInUse = new Alert(AlertType.INFORMATION);
 
 	public static int activeHomePage = 0;		// Which role's home page is currently active?
+	public static String sessionID = null;		// This window's session in database.getSessions()
+	
+	// Times each step of startup; the report is printed once the caches are warm
+	public static StartupPipeline startup = null;
 	
 	@Override
 	public void start(Stage theStage) {
+		startup = new StartupPipeline(asyncDatabase);
+		
+		// Put a window up at once, so the user sees the application while the database opens
+		Label label_Starting = new Label("Opening the database...");
+		label_Starting.setFont(javafx.scene.text.Font.font("Arial", 24));
+		label_Starting.setMinWidth(WINDOW_WIDTH);
+		label_Starting.setAlignment(Pos.CENTER);
+		label_Starting.setLayoutY(WINDOW_HEIGHT / 2 - 20);
+		theStage.setTitle("CSE 360 Foundation Code");
+		Pane startingPane = new Pane();
+		startingPane.getChildren().add(label_Starting);
+		theStage.setScene(new Scene(startingPane, WINDOW_WIDTH, WINDOW_HEIGHT));
+		theStage.show();
+		startup.mark("first window shown");
 		
-		// Connect to the in-memory database
-		try {
-			// Connect to the database
-			database.connectToDatabase();
-		} catch (SQLException e) {
-			// If the connection request fails, it usually means some other app is using it
-			databaseInUse.setTitle("*** ERROR ***");
-			databaseInUse.setHeaderText("Database Is Already Being Used");
-			databaseInUse.setContentText("Please stop the other instance and try again!");
-			databaseInUse.showAndWait();
-			System.exit(0);
-		}
+		// Connect to the database and check for users on a worker thread; the rest of this
+		// method runs on the JavaFX thread when that is done
+		startup.open().whenComplete((isEmpty, error) -> {
+			if (error != null) {
+				// If the connection request fails, it usually means some other app is using it
+				databaseInUse.setTitle("*** ERROR ***");
+				databaseInUse.setHeaderText("Database Is Already Being Used");
+				databaseInUse.setContentText("Please stop the other instance and try again!");
+				databaseInUse.showAndWait();
+				System.exit(0);
+			}
+			
+			// Quit calls System.exit, so close the database (writing any buffered changes)
+			// from a shutdown hook
+			Runtime.getRuntime().addShutdownHook(new Thread(database::closeConnection));
+			
+			// Start taking snapshots and archiving idle threads, if the configuration asks for them
+			database.openBackupService(Platform::runLater);
+			database.openArchiver();
 		
-		// If the database is empty, no users have been established, so this user must be an admin
-		// user doing initial system startup activities and we need to set that admin's username
-		// and password using a special start you page.
-		if (database.isDatabaseEmpty()) {
-			// This is a first use, so have the user set up the admin account
-			guiFirstAdmin.ViewFirstAdmin.displayFirstAdmin(theStage);	
-		}
-		else
-			// This is not a first use, so set up for the user to log in or create a new account
-			guiUserLogin.ViewUserLogin.displayUserLogin(theStage);
+			// If the database is empty, no users have been established, so this user must be an
+			// admin user doing initial system startup activities and we need to set that admin's
+			// username and password using a special start you page.
+			if (isEmpty) {
+				// This is a first use, so have the user set up the admin account
+				guiFirstAdmin.ViewFirstAdmin.displayFirstAdmin(theStage);	
+			}
+			else
+				// This is not a first use, so set up for the user to log in or create a new account
+				guiUserLogin.ViewUserLogin.displayUserLogin(theStage);
+			startup.mark("first page shown");
+			
+			// Fill the caches while the user logs in
+			startup.warmCaches().thenRun(() -> System.out.print(startup.getReport()));
+		});
 		
 		// With the JavaFX pages set up, this thread of the execution comes to an end.
 	}
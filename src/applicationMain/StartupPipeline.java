@@ -0,0 +1,179 @@
+package applicationMain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import database.AsyncDatabase;
+
+/*******
+ * <p> Title: StartupPipeline Class </p>
+ *
+ * <p> Description: The work the application does between launch and its first usable page,
+ * arranged so that none of it runs on the JavaFX thread.  FoundationsMain shows a "starting"
+ * page at once and then calls {@link #open()}, which connects to the database (running no DDL
+ * when the schema version is already current) and checks whether this is the first use, both
+ * on a worker thread.  Once the login or first-admin page is up, {@link #warmCaches()} reads
+ * the start of the post feed, the user profiles, and the word index at the same time on
+ * separate workers, while the user is still typing a username and password.</p>
+ *
+ * <p> Every phase is timed from the moment the pipeline was created, and
+ * {@link #getReport()} lists when each one started and how long it took, so a slow start can
+ * be traced to the phase that caused it.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class StartupPipeline {
+
+	// How much of each cache to fill before the first login
+	public final static int WARM_POST_COUNT = 50;		// The first page of the feed
+	public final static int WARM_PROFILE_COUNT = 100;
+
+	/*
+	 * One timed phase, in milliseconds since the pipeline was created.
+	 */
+	private static class Phase {
+		final String name;
+		final long startMillis;
+		final long durationMillis;
+		final String detail;
+
+		Phase(String name, long startMillis, long durationMillis, String detail) {
+			this.name = name;
+			this.startMillis = startMillis;
+			this.durationMillis = durationMillis;
+			this.detail = detail;
+		}
+	}
+
+	private final AsyncDatabase asyncDatabase;
+	private final long createdNanos = System.nanoTime();
+	private final List<Phase> phases = new ArrayList<>();
+
+
+	/*******
+	 * <p> Method: StartupPipeline(AsyncDatabase asyncDatabase) </p>
+	 *
+	 * @param asyncDatabase is the database to open and warm; its callbacks run on the JavaFX
+	 *		thread
+	 */
+	public StartupPipeline(AsyncDatabase asyncDatabase) {
+		this.asyncDatabase = asyncDatabase;
+	}
+
+
+	/*******
+	 * <p> Method: CompletableFuture&lt;Boolean&gt; open() </p>
+	 *
+	 * <p> Description: Connect to the database and find out whether it has any users, on a
+	 * worker thread.</p>
+	 *
+	 * @return a future that completes on the JavaFX thread with true if the database has no
+	 *		users yet, or exceptionally if the database cannot be opened
+	 */
+	public CompletableFuture<Boolean> open() {
+		return asyncDatabase.submit(db -> {
+			long start = System.nanoTime();
+			db.connectToDatabase();
+			int migrations = db.getMigrationsApplied();
+			record("open database", start, migrations == 0 ? "schema current, no DDL"
+					: migrations + " schema migration(s) applied");
+
+			start = System.nanoTime();
+			boolean empty = db.isDatabaseEmpty();
+			record("first-use check", start, empty ? "no users" : "users present");
+			return empty;
+		});
+	}
+
+
+	/*******
+	 * <p> Method: CompletableFuture&lt;Void&gt; warmCaches() </p>
+	 *
+	 * <p> Description: Fill the post cache, the profile cache, and the word index at the same
+	 * time.  A phase that fails is reported and does not stop the others; the cache it was
+	 * filling simply fills on demand instead.</p>
+	 *
+	 * @return a future that completes on the JavaFX thread when every phase has finished
+	 */
+	public CompletableFuture<Void> warmCaches() {
+		long start = System.nanoTime();
+		CompletableFuture<?> posts = asyncDatabase.submit(db -> {
+			long phaseStart = System.nanoTime();
+			int read = db.warmPostCache(WARM_POST_COUNT);
+			record("warm post cache", phaseStart, read + " posts");
+			return null;
+		});
+		CompletableFuture<?> profiles = asyncDatabase.submit(db -> {
+			long phaseStart = System.nanoTime();
+			int read = db.warmProfileCache(WARM_PROFILE_COUNT);
+			record("warm profile cache", phaseStart, read + " profiles");
+			return null;
+		});
+		CompletableFuture<?> index = asyncDatabase.submit(db -> {
+			long phaseStart = System.nanoTime();
+			db.loadContentIndex();
+			record("load word index", phaseStart, "");
+			return null;
+		});
+		return CompletableFuture.allOf(
+				reportFailure(posts, "warm post cache"),
+				reportFailure(profiles, "warm profile cache"),
+				reportFailure(index, "load word index"))
+				.thenRun(() -> record("warm-up (all phases)", start, ""));
+	}
+
+
+	/*******
+	 * <p> Method: void mark(String name) </p>
+	 *
+	 * <p> Description: Record a moment with no duration, such as a page being shown.</p>
+	 *
+	 * @param name is what happened
+	 */
+	public void mark(String name) {
+		record(name, System.nanoTime(), "");
+	}
+
+
+	/*******
+	 * <p> Method: String getReport() </p>
+	 *
+	 * @return one line per phase, in the order the phases finished
+	 */
+	public synchronized String getReport() {
+		StringBuilder report = new StringBuilder("Startup phases (ms since launch, duration):\n");
+		for (Phase phase : phases) {
+			report.append(String.format("  %6d  %6d ms  %-22s %s%n", phase.startMillis,
+					phase.durationMillis, phase.name, phase.detail));
+		}
+		return report.toString();
+	}
+
+
+	/*
+	 * Record a phase that started at startNanos and ends now.
+	 */
+	private synchronized void record(String name, long startNanos, String detail) {
+		long now = System.nanoTime();
+		phases.add(new Phase(name, (startNanos - createdNanos) / 1_000_000,
+				(now - startNanos) / 1_000_000, detail));
+	}
+
+	/*
+	 * A future that completes normally when the given one completes either way, recording a
+	 * failure as a phase.
+	 */
+	private CompletableFuture<Void> reportFailure(CompletableFuture<?> phase, String name) {
+		return phase.handle((result, error) -> {
+			if (error != null) {
+				record(name + " FAILED", System.nanoTime(), String.valueOf(error.getMessage()));
+			}
+			return null;
+		});
+	}
+}
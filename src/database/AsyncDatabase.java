@@ -0,0 +1,432 @@
+package database;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import entityClasses.Post;
+import entityClasses.PostSummary;
+import entityClasses.Reply;
+import entityClasses.User;
+import entityClasses.UserContext;
+import entityClasses.UserProfile;
+
+/*******
+ * <p> Title: AsyncDatabase Class. </p>
+ *
+ * <p> Description: An asynchronous facade over {@link Database}.  Each method starts the
+ * matching Database operation on a worker thread and returns a CompletableFuture right away, so
+ * a JavaFX controller can ask for data without blocking the FX application thread while the
+ * query runs.  The future is completed (normally or exceptionally) on the callback executor.
+ * The application passes Platform::runLater, so any stage attached with thenAccept, whenComplete,
+ * and so on runs on the FX thread and may touch widgets directly.</p>
+ *
+ * <p> Workers are virtual threads when the Java runtime provides them; otherwise a fixed pool of
+ * daemon threads is used.  Either way no more than maxInFlight operations run against the
+ * database at once; further requests wait for a permit on their worker thread, never on the
+ * caller's thread.</p>
+ *
+ * <p> The typed methods below cover the Database operations the GUI uses.  Anything else can be
+ * run with {@link #submit(DatabaseCall)}, which is also how several calls that must see each
+ * other's results (for example reading a post and then its replies) are run together on one
+ * worker.</p>
+ *
+ * <p> Work submitted while a {@link RoundTrips} scope is open runs inside that scope on its
+ * worker, and so does the completion of its future, so the statements sent by a user action
+ * are counted together however the action splits its work between threads.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class AsyncDatabase {
+
+	/*******
+	 * <p> Interface: DatabaseCall </p>
+	 *
+	 * <p> Description: Work to run against the Database on a worker thread.</p>
+	 *
+	 * @param <T> the type of the result
+	 */
+	@FunctionalInterface
+	public interface DatabaseCall<T> {
+		T call(Database database) throws SQLException;
+	}
+
+	private final Database database;
+	private final Executor callbackExecutor;
+	private final ExecutorService workers;
+	private final Semaphore inFlight;
+	private final boolean virtualThreads;
+
+
+	/*******
+	 * <p> Method: AsyncDatabase </p>
+	 *
+	 * @param database is the Database every operation runs against
+	 *
+	 * @param maxInFlight is the largest number of operations that may run at the same time;
+	 * 		there is no point making it larger than the connection pool
+	 *
+	 * @param callbackExecutor is where futures are completed (Platform::runLater in the GUI,
+	 * 		Runnable::run to complete on the worker thread)
+	 */
+	public AsyncDatabase(Database database, int maxInFlight, Executor callbackExecutor) {
+		if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight must be at least 1");
+		this.database = database;
+		this.callbackExecutor = callbackExecutor;
+		this.inFlight = new Semaphore(maxInFlight, true);
+
+		ExecutorService virtual = newVirtualThreadExecutor();
+		this.virtualThreads = virtual != null;
+		this.workers = virtual != null ? virtual : Executors.newFixedThreadPool(maxInFlight,
+				new java.util.concurrent.ThreadFactory() {
+					private final AtomicInteger count = new AtomicInteger();
+
+					@Override
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "AsyncDatabase-" + count.incrementAndGet());
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+
+	/*
+	 * Executors.newVirtualThreadPerTaskExecutor() is only present on Java 21 and later, so it is
+	 * looked up by name rather than called directly.  Returns null when it is not available.
+	 */
+	private static ExecutorService newVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+					.invoke(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+
+
+	/*******
+	 * <p> Method: CompletableFuture submit(DatabaseCall call) </p>
+	 *
+	 * <p> Description: Run arbitrary work against the Database on a worker thread.  An exception
+	 * thrown by the work completes the future exceptionally with that exception.</p>
+	 *
+	 * @param <T> the type of the result
+	 *
+	 * @param call is the work to run
+	 *
+	 * @return a future completed on the callback executor with the work's result
+	 */
+	public <T> CompletableFuture<T> submit(DatabaseCall<T> call) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		RoundTrips.Scope scope = RoundTrips.current();
+		if (scope != null) scope.hold();
+		try {
+			workers.execute(() -> {
+				T value;
+				try {
+					inFlight.acquire();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					callbackExecutor.execute(() -> completeIn(scope, () -> result.completeExceptionally(e)));
+					return;
+				}
+				RoundTrips.Scope previous = RoundTrips.enter(scope);
+				try {
+					value = call.call(database);
+				} catch (Throwable t) {
+					callbackExecutor.execute(() -> completeIn(scope, () -> result.completeExceptionally(t)));
+					return;
+				} finally {
+					RoundTrips.restore(previous);
+					inFlight.release();
+				}
+				callbackExecutor.execute(() -> completeIn(scope, () -> result.complete(value)));
+			});
+		} catch (RuntimeException e) {
+			// The workers have been shut down
+			completeIn(scope, () -> result.completeExceptionally(e));
+		}
+		return result;
+	}
+
+
+	/*
+	 * Complete a future inside the scope its work was submitted from, so the stages attached
+	 * to it are counted there too, and then let the scope finish.
+	 */
+	private static void completeIn(RoundTrips.Scope scope, Runnable completion) {
+		RoundTrips.Scope previous = RoundTrips.enter(scope);
+		try {
+			completion.run();
+		} finally {
+			RoundTrips.restore(previous);
+			if (scope != null) scope.release();
+		}
+	}
+
+
+	/*******
+	 * <p> Method: CompletableFuture run(DatabaseAction action) </p>
+	 *
+	 * <p> Description: Like submit, for work with no result.</p>
+	 *
+	 * @param action is the work to run
+	 *
+	 * @return a future completed on the callback executor when the work is done
+	 */
+	public CompletableFuture<Void> run(DatabaseAction action) {
+		return submit(db -> {
+			action.run(db);
+			return null;
+		});
+	}
+
+
+	/*******
+	 * <p> Interface: DatabaseAction </p>
+	 *
+	 * <p> Description: Work with no result to run against the Database on a worker thread.</p>
+	 */
+	@FunctionalInterface
+	public interface DatabaseAction {
+		void run(Database database) throws SQLException;
+	}
+
+
+	/*******
+	 * <p> Method: void shutdown() </p>
+	 *
+	 * <p> Description: Stop accepting work and wait briefly for operations already started to
+	 * finish.  Futures requested after this point complete exceptionally.</p>
+	 */
+	public void shutdown() {
+		workers.shutdown();
+		try {
+			workers.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/*******
+	 * <p> Method: boolean isUsingVirtualThreads() </p>
+	 *
+	 * @return true if work runs on virtual threads, false if on the fallback thread pool
+	 */
+	public boolean isUsingVirtualThreads() { return virtualThreads; }
+
+
+	/*******
+	 * <p> Method: int getAvailablePermits() </p>
+	 *
+	 * @return how many more operations could start right now without waiting
+	 */
+	public int getAvailablePermits() { return inFlight.availablePermits(); }
+
+
+	// ===================== Connection =====================
+
+	public CompletableFuture<Void> connectToDatabase() { return run(Database::connectToDatabase); }
+	public CompletableFuture<Boolean> isDatabaseEmpty() { return submit(Database::isDatabaseEmpty); }
+
+
+	// ===================== Posts =====================
+
+	public CompletableFuture<Integer> createPost(String author, String content, String authorRole) {
+		return submit(db -> db.createPost(author, content, authorRole));
+	}
+
+	public CompletableFuture<int[]> createPostsBatch(List<Post> posts) {
+		return submit(db -> db.createPostsBatch(posts));
+	}
+
+	public CompletableFuture<Post> getPost(int postID) { return submit(db -> db.getPost(postID)); }
+	public CompletableFuture<List<Post>> getPosts(List<Integer> postIDs) { return submit(db -> db.getPosts(postIDs)); }
+	public CompletableFuture<List<Post>> getAllPosts() { return submit(Database::getAllPosts); }
+
+	public CompletableFuture<PostPage<Post>> getPostsPage(PostPage.Cursor cursor, int limit) {
+		return submit(db -> db.getPostsPage(cursor, limit));
+	}
+
+	public CompletableFuture<PostPage<PostSummary>> getPostSummariesPage(PostPage.Cursor cursor,
+			int limit) {
+		return submit(db -> db.getPostSummariesPage(cursor, limit));
+	}
+
+	public CompletableFuture<List<Post>> searchPosts(String query, int limit) {
+		return submit(db -> db.searchPosts(query, limit));
+	}
+
+	public CompletableFuture<Void> loadContentIndex() { return run(Database::loadContentIndex); }
+
+	public CompletableFuture<EditResult<Post>> updatePost(int postID, int expectedVersion,
+			String content) {
+		return submit(db -> db.updatePost(postID, expectedVersion, content));
+	}
+
+	public CompletableFuture<Boolean> deletePost(int postID) { return submit(db -> db.deletePost(postID)); }
+
+	public CompletableFuture<Boolean> pinPost(int postID, String pinnedBy) {
+		return submit(db -> db.pinPost(postID, pinnedBy));
+	}
+
+	public CompletableFuture<Boolean> unpinPost(int postID) { return submit(db -> db.unpinPost(postID)); }
+
+	public CompletableFuture<Integer> forEachPost(Database.RowCallback<Post> callback) {
+		return submit(db -> db.forEachPost(callback));
+	}
+
+
+	// ===================== Replies =====================
+
+	public CompletableFuture<Integer> createReply(int postID, String author, String content,
+			String authorRole) {
+		return submit(db -> db.createReply(postID, author, content, authorRole));
+	}
+
+	public CompletableFuture<int[]> createRepliesBatch(List<Reply> replies) {
+		return submit(db -> db.createRepliesBatch(replies));
+	}
+
+	public CompletableFuture<Integer> getUnreadReplyCount(String username) {
+		return submit(db -> db.getUnreadReplyCount(username));
+	}
+
+	public CompletableFuture<Void> markRepliesAsRead(int postID) {
+		return run(db -> db.markRepliesAsRead(postID));
+	}
+
+	public CompletableFuture<Reply> getReply(int replyID) { return submit(db -> db.getReply(replyID)); }
+
+	public CompletableFuture<List<Reply>> getRepliesByPost(int postID) {
+		return submit(db -> db.getRepliesByPost(postID));
+	}
+
+	public CompletableFuture<List<Reply>> getAllReplies() { return submit(Database::getAllReplies); }
+
+	public CompletableFuture<List<Reply>> searchReplies(String query, int limit) {
+		return submit(db -> db.searchReplies(query, limit));
+	}
+
+	public CompletableFuture<EditResult<Reply>> updateReply(int replyID, int expectedVersion,
+			String content) {
+		return submit(db -> db.updateReply(replyID, expectedVersion, content));
+	}
+
+	public CompletableFuture<Boolean> deleteReply(int replyID) { return submit(db -> db.deleteReply(replyID)); }
+	public CompletableFuture<Integer> repairPostCounters() { return submit(Database::repairPostCounters); }
+
+	public CompletableFuture<Integer> forEachReply(Database.RowCallback<Reply> callback) {
+		return submit(db -> db.forEachReply(callback));
+	}
+
+
+	// ===================== Users and invitations =====================
+
+	public CompletableFuture<Integer> getNumberOfUsers() { return submit(Database::getNumberOfUsers); }
+	public CompletableFuture<Void> register(User user) { return run(db -> db.register(user)); }
+	public CompletableFuture<List<String>> getUserList() { return submit(Database::getUserList); }
+	public CompletableFuture<Boolean> loginAdmin(User user) { return submit(db -> db.loginAdmin(user)); }
+	public CompletableFuture<Boolean> loginRole1(User user) { return submit(db -> db.loginRole1(user)); }
+	public CompletableFuture<Boolean> loginRole2(User user) { return submit(db -> db.loginRole2(user)); }
+
+	public CompletableFuture<Boolean> doesUserExist(String userName) {
+		return submit(db -> db.doesUserExist(userName));
+	}
+
+	public CompletableFuture<Integer> getNumberOfRoles(User user) {
+		return submit(db -> db.getNumberOfRoles(user));
+	}
+
+	public CompletableFuture<String> generateInvitationCode(String emailAddress, String role) {
+		return submit(db -> db.generateInvitationCode(emailAddress, role));
+	}
+
+	public CompletableFuture<Integer> getNumberOfInvitations() {
+		return submit(Database::getNumberOfInvitations);
+	}
+
+	public CompletableFuture<Boolean> emailaddressHasBeenUsed(String emailAddress) {
+		return submit(db -> db.emailaddressHasBeenUsed(emailAddress));
+	}
+
+	public CompletableFuture<String> getRoleGivenAnInvitationCode(String code) {
+		return submit(db -> db.getRoleGivenAnInvitationCode(code));
+	}
+
+	public CompletableFuture<String> getEmailAddressUsingCode(String code) {
+		return submit(db -> db.getEmailAddressUsingCode(code));
+	}
+
+	public CompletableFuture<Void> removeInvitationAfterUse(String code) {
+		return run(db -> db.removeInvitationAfterUse(code));
+	}
+
+	public CompletableFuture<UserContext> getUserContext(String username) {
+		return submit(db -> db.getUserContext(username));
+	}
+
+	public CompletableFuture<UserProfile> getUserProfile(String username) {
+		return submit(db -> db.getUserProfile(username));
+	}
+
+	public CompletableFuture<Boolean> updateUserProfile(UserProfile profile) {
+		return submit(db -> db.updateUserProfile(profile));
+	}
+
+	public CompletableFuture<String> getFirstName(String username) {
+		return submit(db -> db.getFirstName(username));
+	}
+
+	public CompletableFuture<Void> updateFirstName(String username, String firstName) {
+		return run(db -> db.updateFirstName(username, firstName));
+	}
+
+	public CompletableFuture<String> getMiddleName(String username) {
+		return submit(db -> db.getMiddleName(username));
+	}
+
+	public CompletableFuture<Void> updateMiddleName(String username, String middleName) {
+		return run(db -> db.updateMiddleName(username, middleName));
+	}
+
+	public CompletableFuture<String> getLastName(String username) {
+		return submit(db -> db.getLastName(username));
+	}
+
+	public CompletableFuture<Void> updateLastName(String username, String lastName) {
+		return run(db -> db.updateLastName(username, lastName));
+	}
+
+	public CompletableFuture<String> getPreferredFirstName(String username) {
+		return submit(db -> db.getPreferredFirstName(username));
+	}
+
+	public CompletableFuture<Void> updatePreferredFirstName(String username, String preferredFirstName) {
+		return run(db -> db.updatePreferredFirstName(username, preferredFirstName));
+	}
+
+	public CompletableFuture<String> getEmailAddress(String username) {
+		return submit(db -> db.getEmailAddress(username));
+	}
+
+	public CompletableFuture<Void> updateEmailAddress(String username, String emailAddress) {
+		return run(db -> db.updateEmailAddress(username, emailAddress));
+	}
+
+	public CompletableFuture<Boolean> updateUserRole(String username, String role, String value) {
+		return submit(db -> db.updateUserRole(username, role, value));
+	}
+}
@@ -0,0 +1,108 @@
+package database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for AsyncDatabase: results arrive through the callback executor, failures complete the
+ * future exceptionally, and no more than maxInFlight calls run at once.
+ *
+ * @author Lynn Robert Carter
+ * @version 1.0 2025-11-10
+ */
+class AsyncDatabaseTest {
+
+    private static final int MAX_IN_FLIGHT = 2;
+
+    private Database db;
+    private AsyncDatabase async;
+    private final AtomicInteger callbacks = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        db = new Database();
+        db.connectToDatabase();
+        db.clearAllTables();
+
+        // Stands in for Platform::runLater: counts each hand-off and runs it straight away
+        Executor countingExecutor = runnable -> {
+            callbacks.incrementAndGet();
+            runnable.run();
+        };
+        async = new AsyncDatabase(db, MAX_IN_FLIGHT, countingExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        async.shutdown();
+        db.closeConnection();
+    }
+
+    /**
+     * A database call runs off the caller's thread and its result comes back through the
+     * callback executor.
+     */
+    @Test
+    void testResultArrivesThroughCallbackExecutor() throws Exception {
+        int postId = db.createPost("async", "Hello", "Role1");
+
+        String content = async.getPost(postId).get(5, TimeUnit.SECONDS).getContent();
+
+        assertEquals("Hello", content);
+        assertEquals(1, callbacks.get(), "The result should be handed over exactly once");
+    }
+
+    /**
+     * An exception thrown by the call completes the future exceptionally with that exception.
+     */
+    @Test
+    void testFailureCompletesExceptionally() {
+        CompletableFuture<Object> future = async.submit(database -> {
+            throw new SQLException("boom");
+        });
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof SQLException, "The original SQLException should be kept");
+    }
+
+    /**
+     * However many calls are submitted, no more than maxInFlight run at the same time.
+     */
+    @Test
+    void testInFlightCallsAreBounded() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger highest = new AtomicInteger();
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 10; i++) {
+            futures.add(async.submit(database -> {
+                int now = running.incrementAndGet();
+                highest.accumulateAndGet(now, Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return database.getNumberOfUsers();
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+
+        assertTrue(highest.get() <= MAX_IN_FLIGHT,
+                "At most " + MAX_IN_FLIGHT + " calls should run at once, saw " + highest.get());
+        assertEquals(MAX_IN_FLIGHT, async.getAvailablePermits(), "Every permit should be returned");
+    }
+}
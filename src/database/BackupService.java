@@ -0,0 +1,320 @@
+package database;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/*******
+ * <p> Title: BackupService Class. </p>
+ *
+ * <p> Description: Takes consistent snapshots of the database while the application keeps
+ * running, either on a schedule or when an admin asks for one, and keeps the newest few.</p>
+ *
+ * <p> A snapshot is the output of H2's SCRIPT command: the SQL that recreates every table,
+ * index, and row, gzipped.  It is read on one pooled connection inside a single REPEATABLE
+ * READ transaction, so it shows the database as it was at one moment even while posts and
+ * replies are being written; H2's multi-version store lets those writes go ahead without
+ * waiting for the snapshot.  Restore one into an empty database with
+ * RUNSCRIPT FROM 'file' COMPRESSION GZIP.  SCRIPT works in every storage mode, in-memory
+ * included.</p>
+ *
+ * <p> Snapshots run one at a time on a single daemon thread, never on the caller's.  The file
+ * is written through a throttle that sleeps whenever the snapshot gets ahead of its
+ * bytes-per-second budget, so a large snapshot is spread out rather than competing with the
+ * application for the disk.  It is written under a temporary name and renamed when complete,
+ * so a crash never leaves a partial snapshot that looks like a good one.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class BackupService {
+
+	// Snapshot files are named PREFIX + timestamp + SUFFIX, so they sort oldest first
+	static final String PREFIX = "snapshot-";
+	static final String SUFFIX = ".sql.gz";
+	private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+	/*******
+	 * <p> Class: Result </p>
+	 *
+	 * <p> Description: What one snapshot produced.</p>
+	 */
+	public static final class Result {
+		private final Path file;
+		private final long bytes;
+		private final long statements;
+		private final long durationMillis;
+
+		Result(Path file, long bytes, long statements, long durationMillis) {
+			this.file = file;
+			this.bytes = bytes;
+			this.statements = statements;
+			this.durationMillis = durationMillis;
+		}
+
+		public Path getFile() { return file; }
+		public long getBytes() { return bytes; }
+		public long getStatements() { return statements; }
+		public long getDurationMillis() { return durationMillis; }
+
+		@Override
+		public String toString() {
+			return file.getFileName() + ": " + bytes + " bytes, " + statements + " statements in "
+					+ durationMillis + " ms";
+		}
+	}
+
+	private final ConnectionPool pool;
+	private final Path directory;
+	private final int generations;
+	private final long bytesPerSecond;
+	private final Executor callbackExecutor;
+	private final ScheduledExecutorService worker;
+	private volatile Result lastResult = null;
+
+
+	/*******
+	 * <p> Method: BackupService(...) </p>
+	 *
+	 * <p> Description: Made by {@link Database#openBackupService(Executor)}.</p>
+	 *
+	 * @param pool is where the snapshot borrows its connection
+	 *
+	 * @param directory is where snapshots are written; it is created if needed
+	 *
+	 * @param generations is the number of snapshots to keep
+	 *
+	 * @param bytesPerSecond is the most a snapshot writes per second; 0 means no limit
+	 *
+	 * @param callbackExecutor is where the futures from backupNow are completed
+	 */
+	BackupService(ConnectionPool pool, Path directory, int generations, long bytesPerSecond,
+			Executor callbackExecutor) {
+		this.pool = pool;
+		this.directory = directory;
+		this.generations = Math.max(1, generations);
+		this.bytesPerSecond = bytesPerSecond;
+		this.callbackExecutor = callbackExecutor;
+		this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "BackupService");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+
+	/*******
+	 * <p> Method: void schedule(int intervalMinutes) </p>
+	 *
+	 * <p> Description: Take a snapshot every intervalMinutes, the first one intervalMinutes
+	 * from now.  A scheduled snapshot that fails is reported and the schedule carries on.</p>
+	 *
+	 * @param intervalMinutes is the time between snapshots; 0 or less schedules nothing
+	 */
+	public void schedule(int intervalMinutes) {
+		if (intervalMinutes <= 0) return;
+		worker.scheduleWithFixedDelay(() -> {
+			try {
+				snapshot();
+			} catch (IOException | SQLException e) {
+				System.err.println("Scheduled backup failed: " + e.getMessage());
+			}
+		}, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+	}
+
+
+	/*******
+	 * <p> Method: CompletableFuture&lt;Result&gt; backupNow() </p>
+	 *
+	 * <p> Description: Take a snapshot as soon as any snapshot already running has finished.</p>
+	 *
+	 * @return a future completed on the callback executor with the result, or exceptionally
+	 *		if the snapshot could not be written
+	 */
+	public CompletableFuture<Result> backupNow() {
+		CompletableFuture<Result> future = new CompletableFuture<>();
+		worker.execute(() -> {
+			try {
+				Result result = snapshot();
+				callbackExecutor.execute(() -> future.complete(result));
+			} catch (IOException | SQLException | RuntimeException e) {
+				callbackExecutor.execute(() -> future.completeExceptionally(e));
+			}
+		});
+		return future;
+	}
+
+
+	/*******
+	 * <p> Method: Result getLastResult() </p>
+	 *
+	 * @return the result of the latest snapshot that succeeded, or null if there is none yet
+	 */
+	public Result getLastResult() {
+		return lastResult;
+	}
+
+
+	/*******
+	 * <p> Method: List&lt;Path&gt; listSnapshots() </p>
+	 *
+	 * @return the snapshots in the backup directory, oldest first
+	 *
+	 * @throws IOException if the directory cannot be read
+	 */
+	public List<Path> listSnapshots() throws IOException {
+		List<Path> snapshots = new ArrayList<>();
+		if (!Files.isDirectory(directory)) return snapshots;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+			for (Path file : files) snapshots.add(file);
+		}
+		Collections.sort(snapshots);
+		return snapshots;
+	}
+
+
+	/*******
+	 * <p> Method: void shutdown() </p>
+	 *
+	 * <p> Description: Cancel the schedule and wait briefly for a snapshot in progress, which
+	 * is abandoned if it does not finish.  Called by Database.closeConnection.</p>
+	 */
+	public void shutdown() {
+		worker.shutdown();
+		try {
+			if (!worker.awaitTermination(5, TimeUnit.SECONDS)) worker.shutdownNow();
+		} catch (InterruptedException e) {
+			worker.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+
+	/*
+	 * Write one snapshot and drop the oldest ones beyond the number of generations kept.  Runs
+	 * on the worker thread.
+	 */
+	private Result snapshot() throws IOException, SQLException {
+		long start = System.nanoTime();
+		Files.createDirectories(directory);
+		Path file = directory.resolve(PREFIX + LocalDateTime.now().format(STAMP) + SUFFIX);
+		Path partial = directory.resolve(file.getFileName() + ".part");
+		long statements = 0;
+		CountingOutputStream counted = null;
+
+		try (Connection connection = pool.getConnection()) {
+			boolean autoCommit = connection.getAutoCommit();
+			int isolation = connection.getTransactionIsolation();
+			connection.setAutoCommit(false);
+			connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+			try (Statement statement = connection.createStatement()) {
+				counted = new CountingOutputStream(Files.newOutputStream(partial), bytesPerSecond);
+				try (Writer out = new BufferedWriter(new OutputStreamWriter(
+						new GZIPOutputStream(counted), StandardCharsets.UTF_8));
+				     ResultSet rs = statement.executeQuery("SCRIPT")) {
+					while (rs.next()) {
+						out.write(rs.getString(1));
+						out.write('\n');
+						statements++;
+					}
+				}
+			} finally {
+				connection.rollback();
+				connection.setTransactionIsolation(isolation);
+				connection.setAutoCommit(autoCommit);
+			}
+			Files.move(partial, file, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(partial);
+		}
+
+		Result result = new Result(file, counted.getCount(), statements,
+				(System.nanoTime() - start) / 1_000_000);
+		lastResult = result;
+		removeOldSnapshots();
+		return result;
+	}
+
+	private void removeOldSnapshots() throws IOException {
+		List<Path> snapshots = listSnapshots();
+		for (int i = 0; i < snapshots.size() - generations; i++) {
+			Files.deleteIfExists(snapshots.get(i));
+		}
+	}
+
+
+	/*
+	 * Counts the bytes written and, given a budget, sleeps whenever the writing has got ahead
+	 * of it.
+	 */
+	private static final class CountingOutputStream extends FilterOutputStream {
+		private final long bytesPerSecond;
+		private final long startNanos = System.nanoTime();
+		private long count = 0;
+
+		CountingOutputStream(OutputStream out, long bytesPerSecond) {
+			super(out);
+			this.bytesPerSecond = bytesPerSecond;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+			throttle();
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+			throttle();
+		}
+
+		long getCount() {
+			return count;
+		}
+
+		private void throttle() throws IOException {
+			if (bytesPerSecond <= 0) return;
+			long dueMillis = count * 1000 / bytesPerSecond;
+			long elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+			if (dueMillis > elapsedMillis) {
+				try {
+					Thread.sleep(dueMillis - elapsedMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new InterruptedIOException("Backup interrupted");
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,567 @@
+package database;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*******
+ * <p> Title: BoardTransfer Class. </p>
+ *
+ * <p> Description: Exports the users, invitation codes, posts, and replies of one install,
+ * archived threads included, to a file and imports them into another, so a term's discussion
+ * can be moved without copying the H2 file.  Neither side holds more than one batch of rows in memory: the export reads each
+ * table through a forward-only cursor, and the import sends rows in JDBC batches of
+ * Database.INSERT_BATCH_SIZE, each committed on its own.</p>
+ *
+ * <p> The file is text, one record per line.  A line "#columns{TAB}post{TAB}id,author,..."
+ * names the columns of the records that follow it; each record is its section name and then
+ * one field per column, separated by tabs.  In a field, backslash, tab, carriage return, and
+ * newline are written as \\, \t, \r, and \n, and SQL NULL is written as \N.  A file whose name
+ * ends in .gz is gzipped; the import recognises gzip by its content, whatever the name.</p>
+ *
+ * <p> Rows are imported with MERGE on their natural key (the id of a post or reply, the
+ * username of a user, the invitation code), so importing a record twice leaves one copy.  That
+ * is what makes both directions resumable.  Each keeps a small progress file next to the
+ * export file while it runs, updated at every checkpoint and deleted when it finishes; if the
+ * run is interrupted, running it again with the same file starts from the last checkpoint
+ * rather than from the beginning.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class BoardTransfer {
+
+	static final String COLUMNS_MARKER = "#columns";
+	static final String NULL_FIELD = "\\N";
+	static final int CHECKPOINT_RECORDS = 5000;		// Export records between checkpoints
+
+	/*******
+	 * <p> Interface: Progress </p>
+	 *
+	 * <p> Description: Told how a transfer is going after every checkpoint or batch.</p>
+	 */
+	@FunctionalInterface
+	public interface Progress {
+		/**
+		 * @param section is the kind of record being transferred: user, invitation, post, reply,
+		 * 		archivedPost, or archivedReply
+		 * @param records is the number of records transferred so far, in every section
+		 * @param bytes is the number of bytes of the file written or read so far
+		 * @param recordsPerSecond is the average rate since the transfer (or its resumption) began
+		 */
+		void update(String section, long records, long bytes, double recordsPerSecond);
+	}
+
+	/*
+	 * One table in the file.  The export pages by keyColumn; the import merges on mergeKey.
+	 */
+	private static final class Section {
+		final String name;
+		final String table;
+		final String columns;
+		final String keyColumn;
+		final String mergeKey;
+
+		Section(String name, String table, String columns, String keyColumn, String mergeKey) {
+			this.name = name;
+			this.table = table;
+			this.columns = columns;
+			this.keyColumn = keyColumn;
+			this.mergeKey = mergeKey;
+		}
+
+		List<String> columnList() {
+			return Arrays.asList(columns.split(",\\s*"));
+		}
+	}
+
+	// In the order they are written and must be imported: a reply needs its post
+	private static final List<Section> SECTIONS = List.of(
+			new Section("user", "userDB", RowMappers.USER_COLUMNS, "id", "userName"),
+			new Section("invitation", "InvitationCodes", "code, emailAddress, role", "code", "code"),
+			new Section("post", "Post", RowMappers.POST_COLUMNS + ", lastActivity", "id", "id"),
+			new Section("reply", "Reply", RowMappers.REPLY_COLUMNS + ", postedOn", "id", "id"),
+			new Section("archivedPost", "PostArchive", RowMappers.POST_COLUMNS + ", lastActivity",
+					"id", "id"),
+			new Section("archivedReply", "ReplyArchive", RowMappers.REPLY_COLUMNS + ", postedOn",
+					"id", "id"));
+
+	/*******
+	 * <p> Class: Summary </p>
+	 *
+	 * <p> Description: The outcome of an export or import.</p>
+	 */
+	public static final class Summary {
+		private final Map<String, Long> records;
+		private final long bytes;
+		private final long durationMillis;
+		private final boolean resumed;
+
+		Summary(Map<String, Long> records, long bytes, long durationMillis, boolean resumed) {
+			this.records = records;
+			this.bytes = bytes;
+			this.durationMillis = durationMillis;
+			this.resumed = resumed;
+		}
+
+		/** @return the records transferred by this run in the given section */
+		public long getRecords(String section) { return records.getOrDefault(section, 0L); }
+		public long getTotalRecords() { return records.values().stream().mapToLong(Long::longValue).sum(); }
+		public long getBytes() { return bytes; }
+		public long getDurationMillis() { return durationMillis; }
+		/** @return true if this run carried on from an interrupted one */
+		public boolean isResumed() { return resumed; }
+
+		@Override
+		public String toString() {
+			return records + ", " + bytes + " bytes in " + durationMillis + " ms"
+					+ (resumed ? " (resumed)" : "");
+		}
+	}
+
+	private final ConnectionPool pool;
+	private final int fetchSize;
+	private final int batchSize;
+
+
+	/*******
+	 * <p> Method: BoardTransfer(...) </p>
+	 *
+	 * <p> Description: Made by {@link Database#exportBoard} and {@link Database#importBoard}.</p>
+	 *
+	 * @param pool is where the transfer borrows its connection
+	 *
+	 * @param fetchSize is the number of rows the export cursor fetches at a time
+	 *
+	 * @param batchSize is the number of rows the import sends and commits at a time
+	 */
+	BoardTransfer(ConnectionPool pool, int fetchSize, int batchSize) {
+		this.pool = pool;
+		this.fetchSize = fetchSize;
+		this.batchSize = batchSize;
+	}
+
+
+	/*******
+	 * <p> Method: Summary export(Path file, Progress progress) </p>
+	 *
+	 * <p> Description: Write the board to the file, gzipped if its name ends in .gz.  If a
+	 * progress file shows that an earlier export to the same file was interrupted, the file is
+	 * cut back to its last checkpoint and the export carries on from there.</p>
+	 *
+	 * @param file is the file to write
+	 *
+	 * @param progress is told how the export is going; may be null
+	 *
+	 * @return how many records of each kind were written by this run
+	 *
+	 * @throws IOException if the file cannot be written
+	 *
+	 * @throws SQLException if the board cannot be read
+	 */
+	public Summary export(Path file, Progress progress) throws IOException, SQLException {
+		long start = System.nanoTime();
+		boolean gzip = file.getFileName().toString().endsWith(".gz");
+		Path progressFile = progressFileFor(file, "export");
+
+		// Where to start: the beginning, or the last checkpoint of an interrupted export
+		int firstSection = 0;
+		String afterKey = null;
+		long keepBytes = 0;
+		Properties checkpoint = readProgress(progressFile);
+		boolean resumed = checkpoint != null && Files.exists(file);
+		if (resumed) {
+			firstSection = Integer.parseInt(checkpoint.getProperty("section"));
+			afterKey = checkpoint.getProperty("afterKey");
+			keepBytes = Long.parseLong(checkpoint.getProperty("bytes"));
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE)) {
+			channel.truncate(keepBytes);
+		}
+
+		Map<String, Long> counts = new HashMap<>();
+		long total = 0;
+		try (Connection connection = pool.getConnection();
+		     CountingOutputStream counted = new CountingOutputStream(
+		    		 new FileOutputStream(file.toFile(), true), keepBytes)) {
+			Writer out = openWriter(counted, gzip);
+			for (int s = firstSection; s < SECTIONS.size(); s++) {
+				Section section = SECTIONS.get(s);
+				if (afterKey == null) {
+					out.write(COLUMNS_MARKER + "\t" + section.name + "\t"
+							+ String.join(",", section.columnList()) + "\n");
+				}
+				String query = "SELECT " + section.columns + ", " + section.keyColumn
+						+ " FROM " + section.table
+						+ (afterKey == null ? "" : " WHERE " + section.keyColumn + " > ?")
+						+ " ORDER BY " + section.keyColumn;
+				try (PreparedStatement pstmt = connection.prepareStatement(query,
+						ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+					pstmt.setFetchSize(fetchSize);
+					if (afterKey != null) pstmt.setString(1, afterKey);
+					try (ResultSet rs = pstmt.executeQuery()) {
+						int width = section.columnList().size();
+						StringBuilder line = new StringBuilder();
+						while (rs.next()) {
+							line.setLength(0);
+							line.append(section.name);
+							for (int i = 1; i <= width; i++) {
+								line.append('\t').append(encode(rs.getString(i)));
+							}
+							out.write(line.append('\n').toString());
+							counts.merge(section.name, 1L, Long::sum);
+							total++;
+
+							// Make everything written so far durable and record where it ends
+							if (total % CHECKPOINT_RECORDS == 0) {
+								out = checkpoint(out, counted, gzip, progressFile, s,
+										rs.getString(width + 1));
+								report(progress, section.name, total, counted.getCount(), start);
+							}
+						}
+					}
+				}
+				afterKey = null;
+				report(progress, section.name, total, counted.getCount(), start);
+			}
+			out.close();
+			Files.deleteIfExists(progressFile);
+			return new Summary(counts, counted.getCount(), (System.nanoTime() - start) / 1_000_000,
+					resumed);
+		}
+	}
+
+
+	/*******
+	 * <p> Method: Summary importFrom(Path file, Progress progress) </p>
+	 *
+	 * <p> Description: Merge the records in the file into the database, one committed batch
+	 * at a time.  If a progress file shows that an earlier import of the same file was
+	 * interrupted, the records it had committed are skipped.</p>
+	 *
+	 * @param file is a file written by export, gzipped or not
+	 *
+	 * @param progress is told how the import is going; may be null
+	 *
+	 * @return how many records of each kind were imported by this run
+	 *
+	 * @throws IOException if the file cannot be read or is not in the export format
+	 *
+	 * @throws SQLException if a batch cannot be written; the batches before it stay committed
+	 */
+	public Summary importFrom(Path file, Progress progress) throws IOException, SQLException {
+		long start = System.nanoTime();
+		Path progressFile = progressFileFor(file, "import");
+		Properties checkpoint = readProgress(progressFile);
+		long skipLines = checkpoint == null ? 0 : Long.parseLong(checkpoint.getProperty("lines"));
+
+		Map<String, Long> counts = new HashMap<>();
+		Map<String, Section> byName = new HashMap<>();
+		for (Section section : SECTIONS) byName.put(section.name, section);
+
+		try (CountingInputStream counted = new CountingInputStream(Files.newInputStream(file));
+		     BufferedReader in = new BufferedReader(new InputStreamReader(
+		    		 maybeGunzip(counted), StandardCharsets.UTF_8));
+		     Connection connection = pool.getConnection()) {
+			boolean autoCommit = connection.getAutoCommit();
+			connection.setAutoCommit(false);
+			PreparedStatement merge = null;
+			Section current = null;
+			int width = 0;
+			int pending = 0;
+			long lineNumber = 0;
+			long total = 0;
+			try {
+				String line;
+				while ((line = in.readLine()) != null) {
+					lineNumber++;
+					String[] fields = line.split("\t", -1);
+
+					// A new section: send what is pending and prepare the section's MERGE
+					if (fields[0].equals(COLUMNS_MARKER)) {
+						if (fields.length != 3 || !byName.containsKey(fields[1])) {
+							throw new IOException("Line " + lineNumber + ": unknown section header");
+						}
+						pending = sendBatch(merge, pending, connection, progressFile, lineNumber - 1);
+						if (merge != null) merge.close();
+						current = byName.get(fields[1]);
+						List<String> columns = checkColumns(current, fields[2], lineNumber);
+						width = columns.size();
+						merge = connection.prepareStatement("MERGE INTO " + current.table + " ("
+								+ String.join(", ", columns) + ") KEY (" + current.mergeKey
+								+ ") VALUES (" + String.join(", ", java.util.Collections.nCopies(width, "?"))
+								+ ")");
+						continue;
+					}
+					if (lineNumber <= skipLines) continue;
+					if (current == null || !fields[0].equals(current.name) || fields.length != width + 1) {
+						throw new IOException("Line " + lineNumber + ": not a "
+								+ (current == null ? "section header" : current.name + " record"));
+					}
+
+					for (int i = 0; i < width; i++) merge.setString(i + 1, decode(fields[i + 1]));
+					merge.addBatch();
+					pending++;
+					counts.merge(current.name, 1L, Long::sum);
+					total++;
+					if (pending == batchSize) {
+						pending = sendBatch(merge, pending, connection, progressFile, lineNumber);
+						report(progress, current.name, total, counted.getCount(), start);
+					}
+				}
+				sendBatch(merge, pending, connection, progressFile, lineNumber);
+				if (current != null) report(progress, current.name, total, counted.getCount(), start);
+			} catch (SQLException | IOException e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				if (merge != null) merge.close();
+				connection.setAutoCommit(autoCommit);
+			}
+			Files.deleteIfExists(progressFile);
+			return new Summary(counts, counted.getCount(), (System.nanoTime() - start) / 1_000_000,
+					checkpoint != null);
+		}
+	}
+
+
+	/*******
+	 * <p> Method: Path progressFileFor(Path file, String direction) </p>
+	 *
+	 * @param file is an export file
+	 *
+	 * @param direction is "export" or "import"
+	 *
+	 * @return the progress file kept next to it while a transfer of it is running
+	 */
+	public static Path progressFileFor(Path file, String direction) {
+		return file.resolveSibling(file.getFileName() + "." + direction + "-progress");
+	}
+
+
+	/*
+	 * Finish what has been written, so the file is readable up to here even if the export
+	 * stops, and record the checkpoint.  A gzipped file gets a new gzip member after each
+	 * checkpoint; readers treat the members as one stream.
+	 */
+	private static Writer checkpoint(Writer out, CountingOutputStream counted, boolean gzip,
+			Path progressFile, int section, String afterKey) throws IOException {
+		if (gzip) out.close();		// Ends the gzip member; the file stays open
+		else out.flush();
+		counted.flush();
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty("section", Integer.toString(section));
+		checkpoint.setProperty("afterKey", afterKey);
+		checkpoint.setProperty("bytes", Long.toString(counted.getCount()));
+		writeProgress(progressFile, checkpoint);
+		return gzip ? openWriter(counted, true) : out;
+	}
+
+	/*
+	 * Execute and commit the pending rows, then record how many lines of the file are in.
+	 */
+	private static int sendBatch(PreparedStatement merge, int pending, Connection connection,
+			Path progressFile, long lines) throws SQLException, IOException {
+		if (merge == null || pending == 0) return 0;
+		merge.executeBatch();
+		connection.commit();
+		Properties checkpoint = new Properties();
+		checkpoint.setProperty("lines", Long.toString(lines));
+		writeProgress(progressFile, checkpoint);
+		return 0;
+	}
+
+	/*
+	 * The columns named in a header, which must all belong to the section.  They are put into
+	 * SQL, so nothing else is allowed through.
+	 */
+	private static List<String> checkColumns(Section section, String header, long lineNumber)
+			throws IOException {
+		List<String> known = section.columnList();
+		List<String> columns = new ArrayList<>();
+		for (String column : header.split(",")) {
+			String name = column.trim();
+			if (known.stream().noneMatch(name::equalsIgnoreCase)) {
+				throw new IOException("Line " + lineNumber + ": " + section.name
+						+ " has no column " + name);
+			}
+			columns.add(name);
+		}
+		if (columns.stream().noneMatch(section.mergeKey::equalsIgnoreCase)) {
+			throw new IOException("Line " + lineNumber + ": " + section.name + " records need "
+					+ section.mergeKey);
+		}
+		return columns;
+	}
+
+	private static void report(Progress progress, String section, long records, long bytes,
+			long startNanos) {
+		if (progress == null) return;
+		double seconds = Math.max(1e-3, (System.nanoTime() - startNanos) / 1e9);
+		progress.update(section, records, bytes, records / seconds);
+	}
+
+	static String encode(String value) {
+		if (value == null) return NULL_FIELD;
+		StringBuilder encoded = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+				case '\\': encoded.append("\\\\"); break;
+				case '\t': encoded.append("\\t"); break;
+				case '\n': encoded.append("\\n"); break;
+				case '\r': encoded.append("\\r"); break;
+				default: encoded.append(c);
+			}
+		}
+		return encoded.toString();
+	}
+
+	static String decode(String field) {
+		if (field.equals(NULL_FIELD)) return null;
+		if (field.indexOf('\\') < 0) return field;
+		StringBuilder decoded = new StringBuilder(field.length());
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			if (c == '\\' && i + 1 < field.length()) {
+				char next = field.charAt(++i);
+				decoded.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+			} else {
+				decoded.append(c);
+			}
+		}
+		return decoded.toString();
+	}
+
+	private static Properties readProgress(Path progressFile) throws IOException {
+		if (!Files.exists(progressFile)) return null;
+		Properties checkpoint = new Properties();
+		try (InputStream in = Files.newInputStream(progressFile)) {
+			checkpoint.load(in);
+		}
+		return checkpoint;
+	}
+
+	/*
+	 * Replace the progress file in one step, so a crash leaves the old checkpoint or the new.
+	 */
+	private static void writeProgress(Path progressFile, Properties checkpoint) throws IOException {
+		Path temporary = progressFile.resolveSibling(progressFile.getFileName() + ".tmp");
+		try (OutputStream out = Files.newOutputStream(temporary)) {
+			checkpoint.store(out, null);
+		}
+		Files.move(temporary, progressFile, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static Writer openWriter(OutputStream out, boolean gzip) throws IOException {
+		OutputStream unclosable = new FilterOutputStream(out) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+			}
+
+			@Override
+			public void close() throws IOException {
+				flush();	// The file is closed by the caller, after the last member
+			}
+		};
+		return new BufferedWriter(new OutputStreamWriter(
+				gzip ? new GZIPOutputStream(unclosable) : unclosable, StandardCharsets.UTF_8));
+	}
+
+	private static InputStream maybeGunzip(InputStream in) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in);
+		buffered.mark(2);
+		int first = buffered.read();
+		int second = buffered.read();
+		buffered.reset();
+		boolean gzip = first == (GZIPInputStream.GZIP_MAGIC & 0xFF)
+				&& second == (GZIPInputStream.GZIP_MAGIC >> 8);
+		return gzip ? new GZIPInputStream(buffered) : buffered;
+	}
+
+	/*
+	 * Counts the bytes that pass through, starting from the given count.
+	 */
+	private static final class CountingOutputStream extends FilterOutputStream {
+		private long count;
+
+		CountingOutputStream(OutputStream out, long initialCount) {
+			super(out);
+			this.count = initialCount;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+
+	private static final class CountingInputStream extends java.io.FilterInputStream {
+		private long count = 0;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b >= 0) count++;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if (n > 0) count += n;
+			return n;
+		}
+
+		long getCount() {
+			return count;
+		}
+	}
+}
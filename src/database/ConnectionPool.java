@@ -0,0 +1,602 @@
+package database;
+
+import java.lang.StackWalker.StackFrame;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*******
+ * <p> Title: ConnectionPool Class. </p>
+ *
+ * <p> Description: A small, bounded pool of JDBC connections to the H2 database.  The Database
+ * class used to hold exactly one Connection and one shared Statement, so every controller, the
+ * statistics calculator, and any background work were serialized on a single session.  This pool
+ * lets each Database method borrow a connection for the duration of one operation and hand it
+ * back when it is done, so reporting queries and post/reply writes can run at the same time.</p>
+ *
+ * <p> The connections handed out by {@link #getConnection()} are thin proxies around the physical
+ * H2 connections.  Calling close() on one of them does not close the physical connection; it
+ * returns it to the pool.  This means the usual try-with-resources pattern is all a caller needs:
+ * </p>
+ *
+ * <pre>
+ * try (Connection connection = pool.getConnection();
+ *      PreparedStatement pstmt = connection.prepareStatement(query)) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p> Each physical connection also keeps a small LRU cache of the prepared statements created
+ * on it, keyed by SQL text.  Database methods call connection.prepareStatement(sql) on every
+ * invocation; with the cache, the second and later calls on the same connection get the
+ * already-parsed statement back instead of making H2 parse and plan the SQL again.  Closing a
+ * cached statement only clears its parameters, so callers keep using try-with-resources as
+ * before.  Because a connection belongs to one borrower at a time, its cache never needs
+ * locking beyond the pool's own checkout.</p>
+ *
+ * <p> Given a {@link QueryStats}, the pool also times every checkout, from getConnection to
+ * close, and reports it under the name of the method that borrowed the connection along with
+ * the SQL prepared or run on it.  The name is found once per checkout by walking the stack to
+ * the outermost method of the class that called getConnection, so a public Database method
+ * that borrows through a private helper is counted under its own name.</p>
+ *
+ * <p> Every statement executed while a {@link RoundTrips} scope is open on the borrowing thread
+ * is reported to that scope, so a user action can be checked for repeated queries.</p>
+ *
+ * <p> The pool is bounded by a maximum size.  When every connection is checked out, a caller
+ * waits up to the checkout timeout for one to be returned and then gets an SQLException.  Idle
+ * connections above the minimum size are closed once they have been idle longer than the idle
+ * timeout.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class ConnectionPool {
+
+	// The JDBC parameters used to open new physical connections
+	private final String url;
+	private final String user;
+	private final String password;
+
+	// Sizing and timeout parameters for the pool
+	private final int minSize;
+	private final int maxSize;
+	private final long idleTimeoutMillis;
+	private final long checkoutTimeoutMillis;
+	private final int statementCacheSize;
+
+	// Idle connections, most recently returned first so the warmest connection is reused
+	private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+
+	// One permit per connection that may be checked out at the same time
+	private final Semaphore permits;
+
+	// The number of physical connections currently open, idle or checked out
+	private final AtomicInteger openCount = new AtomicInteger();
+
+	// Background thread that closes connections that have been idle too long
+	private final ScheduledExecutorService evictor;
+
+	private volatile boolean closed = false;
+
+	// Prepared statement cache counters, summed over every connection in the pool
+	private final AtomicLong statementCacheHits = new AtomicLong();
+	private final AtomicLong statementCacheMisses = new AtomicLong();
+
+	// Where checkouts are timed, or null to leave them untimed
+	private volatile QueryStats queryStats = null;
+	private static final StackWalker STACK = StackWalker.getInstance();
+
+
+	/*******
+	 * <p> Method: ConnectionPool </p>
+	 *
+	 * <p> Description: Establish the pool and open the minimum number of connections.  Opening
+	 * the first connection up front means a database that is locked by another process is
+	 * reported right away, just as it was when the Database opened its single connection.</p>
+	 *
+	 * @param url is the JDBC URL of the database
+	 *
+	 * @param user is the database user name
+	 *
+	 * @param password is the database password
+	 *
+	 * @param minSize is the number of connections kept open even when idle (at least 1)
+	 *
+	 * @param maxSize is the largest number of connections that may be open at once
+	 *
+	 * @param idleTimeoutMillis is how long a connection above the minimum may sit idle
+	 *
+	 * @param checkoutTimeoutMillis is how long getConnection waits when the pool is exhausted
+	 *
+	 * @param statementCacheSize is the number of prepared statements cached per connection
+	 * 		(0 turns the cache off)
+	 *
+	 * @throws SQLException when the first connections cannot be opened
+	 */
+	public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+			long idleTimeoutMillis, long checkoutTimeoutMillis, int statementCacheSize)
+			throws SQLException {
+		if (minSize < 1 || maxSize < minSize) {
+			throw new IllegalArgumentException("Pool sizes must satisfy 1 <= min <= max");
+		}
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.idleTimeoutMillis = idleTimeoutMillis;
+		this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+		this.statementCacheSize = statementCacheSize;
+		this.permits = new Semaphore(maxSize, true);
+
+		try {
+			for (int i = 0; i < minSize; i++) {
+				idle.addLast(openPhysical());
+			}
+		} catch (SQLException e) {
+			closeIdle();
+			throw e;
+		}
+
+		evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "ConnectionPool-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1000, idleTimeoutMillis / 2);
+		evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+	}
+
+
+	/*******
+	 * <p> Method: getConnection </p>
+	 *
+	 * <p> Description: Borrow a connection from the pool.  The caller must close the returned
+	 * connection (ideally with try-with-resources) to hand it back.</p>
+	 *
+	 * @return a pooled connection in auto-commit mode
+	 *
+	 * @throws SQLException if the pool is closed, no connection became available within the
+	 * 		checkout timeout, or a new physical connection could not be opened
+	 */
+	public Connection getConnection() throws SQLException {
+		if (closed) throw new SQLException("Connection pool has been closed");
+		try {
+			if (!permits.tryAcquire(checkoutTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLException("Timed out after " + checkoutTimeoutMillis
+						+ " ms waiting for a database connection");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a database connection", e);
+		}
+
+		try {
+			PooledConnection pooled;
+			while ((pooled = idle.pollFirst()) != null) {
+				if (!pooled.physical.isClosed()) break;
+				discard(pooled);
+			}
+			if (pooled == null) pooled = openPhysical();
+			return pooled.checkOut();
+		} catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+
+	/*
+	 * Hand a connection back to the pool.  A connection left in the middle of a transaction is
+	 * rolled back so the next borrower always starts with a clean, auto-commit session.
+	 */
+	private void release(PooledConnection pooled) {
+		try {
+			if (closed || pooled.physical.isClosed()) {
+				discard(pooled);
+				return;
+			}
+			if (!pooled.physical.getAutoCommit()) {
+				pooled.physical.rollback();
+				pooled.physical.setAutoCommit(true);
+			}
+			pooled.lastReturned = System.currentTimeMillis();
+			idle.addFirst(pooled);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			discard(pooled);
+		} finally {
+			permits.release();
+		}
+	}
+
+
+	/*
+	 * Open a new physical connection and count it.
+	 */
+	private PooledConnection openPhysical() throws SQLException {
+		Connection physical = DriverManager.getConnection(url, user, password);
+		openCount.incrementAndGet();
+		return new PooledConnection(physical);
+	}
+
+
+	/*
+	 * Close a physical connection that is no longer wanted.
+	 */
+	private void discard(PooledConnection pooled) {
+		openCount.decrementAndGet();
+		try {
+			pooled.physical.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+
+	/*
+	 * Close the idle connections that have been unused longer than the idle timeout, keeping at
+	 * least the minimum number of connections open.
+	 */
+	private void evictIdle() {
+		long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+		Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+		while (oldestFirst.hasNext() && openCount.get() > minSize) {
+			PooledConnection pooled = oldestFirst.next();
+			if (pooled.lastReturned < cutoff && idle.removeLastOccurrence(pooled)) {
+				discard(pooled);
+			}
+		}
+	}
+
+
+	/*
+	 * Close every idle connection.
+	 */
+	private void closeIdle() {
+		List<PooledConnection> drained = new ArrayList<>();
+		idle.drainTo(drained);
+		for (PooledConnection pooled : drained) discard(pooled);
+	}
+
+
+	/*******
+	 * <p> Method: close </p>
+	 *
+	 * <p> Description: Shut the pool down.  Idle connections are closed now; connections that are
+	 * still checked out are closed when they are returned.</p>
+	 */
+	public void close() {
+		closed = true;
+		evictor.shutdownNow();
+		closeIdle();
+	}
+
+
+	/*******
+	 * <p> Method: int getOpenCount() </p>
+	 *
+	 * @return the number of physical connections currently open
+	 */
+	public int getOpenCount() { return openCount.get(); }
+
+
+	/*******
+	 * <p> Method: int getIdleCount() </p>
+	 *
+	 * @return the number of open connections waiting in the pool
+	 */
+	public int getIdleCount() { return idle.size(); }
+
+
+	/*******
+	 * <p> Method: int getMaxSize() </p>
+	 *
+	 * @return the largest number of connections this pool will open
+	 */
+	public int getMaxSize() { return maxSize; }
+
+
+	/*******
+	 * <p> Method: long getStatementCacheHits() </p>
+	 *
+	 * @return the number of prepareStatement calls answered from a connection's cache
+	 */
+	public long getStatementCacheHits() { return statementCacheHits.get(); }
+
+
+	/*******
+	 * <p> Method: long getStatementCacheMisses() </p>
+	 *
+	 * @return the number of prepareStatement calls that had to prepare a new statement
+	 */
+	public long getStatementCacheMisses() { return statementCacheMisses.get(); }
+
+
+	/*******
+	 * <p> Method: void setQueryStats(QueryStats queryStats) </p>
+	 *
+	 * <p> Description: Time every checkout from now on into the given statistics.</p>
+	 *
+	 * @param queryStats is where checkouts are reported, or null to stop timing them
+	 */
+	public void setQueryStats(QueryStats queryStats) { this.queryStats = queryStats; }
+
+
+	/*
+	 * The operation that is borrowing a connection: the outermost method of the first class
+	 * on the stack outside the pool, as Class.method.
+	 */
+	static String callerOperation() {
+		return STACK.walk(frames -> {
+			String className = null;
+			String methodName = null;
+			for (Iterator<StackFrame> stack = frames.iterator(); stack.hasNext(); ) {
+				StackFrame frame = stack.next();
+				String name = frame.getClassName();
+				if (name.startsWith(ConnectionPool.class.getName())) continue;
+				if (className == null) className = name;
+				else if (!name.equals(className)) break;
+				methodName = frame.getMethodName();
+			}
+			if (className == null) return "unknown";
+			return className.substring(className.lastIndexOf('.') + 1) + "." + methodName;
+		});
+	}
+
+
+	/*
+	 * A physical connection plus the bookkeeping the pool needs for it.  Each checkout gets a
+	 * fresh proxy so that a caller holding on to a connection after closing it cannot use (or
+	 * return) it a second time.
+	 */
+	private class PooledConnection {
+		final Connection physical;
+		volatile long lastReturned = System.currentTimeMillis();
+
+		// Prepared statements keyed by SQL text; evicted statements are really closed
+		final LruCache<String, CachedStatement> statements;
+
+		PooledConnection(Connection physical) {
+			this.physical = physical;
+			this.statements = statementCacheSize > 0
+					? new LruCache<>(statementCacheSize, (sql, cached) -> cached.closePhysical())
+					: null;
+		}
+
+		Connection checkOut() {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[] { Connection.class }, new Handler(queryStats));
+		}
+
+		/*
+		 * Answer prepareStatement(sql) or prepareStatement(sql, autoGeneratedKeys) from the
+		 * cache.  A statement that is still open from an earlier call on this same checkout
+		 * (for example, a query being iterated while the same SQL runs again) is not shared;
+		 * the caller gets a fresh, uncached statement instead.
+		 */
+		PreparedStatement prepare(Connection proxy, String sql, int autoGeneratedKeys)
+				throws SQLException {
+			if (statements == null) return physical.prepareStatement(sql, autoGeneratedKeys);
+			String key = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS ? "K:" + sql : sql;
+			CachedStatement cached = statements.get(key);
+			if (cached != null && (cached.inUse || cached.physical.isClosed())) {
+				if (!cached.inUse) statements.remove(key);
+				statementCacheMisses.incrementAndGet();
+				return physical.prepareStatement(sql, autoGeneratedKeys);
+			}
+			if (cached == null) {
+				statementCacheMisses.incrementAndGet();
+				cached = new CachedStatement(physical.prepareStatement(sql, autoGeneratedKeys));
+				statements.put(key, cached);
+			} else {
+				statementCacheHits.incrementAndGet();
+			}
+			return cached.borrow(proxy);
+		}
+
+		private class Handler implements InvocationHandler {
+			private boolean returned = false;
+
+			// Timing for QueryStats; stats is null when the pool is not being timed
+			private final QueryStats stats;
+			private final String operation;
+			private final long startNanos;
+			private final List<String> sql;
+
+			Handler(QueryStats stats) {
+				this.stats = stats;
+				this.operation = stats == null ? null : callerOperation();
+				this.sql = stats == null ? null : new ArrayList<>(2);
+				this.startNanos = System.nanoTime();
+			}
+
+			/*
+			 * Remember a statement run on this checkout for the slow-query log.
+			 */
+			void noteSql(Object text) {
+				if (sql != null && text instanceof String && sql.size() < QueryStats.STATEMENTS_PER_CALL
+						&& !sql.contains(text)) {
+					sql.add((String) text);
+				}
+			}
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+				case "close":
+					if (!returned) {
+						returned = true;
+						release(PooledConnection.this);
+						if (stats != null) stats.record(operation, System.nanoTime() - startNanos, sql);
+					}
+					return null;
+				case "isClosed":
+					return returned || physical.isClosed();
+				case "equals":
+					return proxy == args[0];
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled[" + physical + "]";
+				default:
+					if (returned) throw new SQLException("Connection has been returned to the pool");
+					String name = method.getName();
+					if (name.startsWith("prepare")) noteSql(args[0]);
+					Object result;
+					if (name.equals("prepareStatement") && args.length <= 2
+							&& (args.length == 1 || args[1] instanceof Integer)) {
+						int keys = args.length == 2 ? (Integer) args[1]
+								: Statement.NO_GENERATED_KEYS;
+						result = prepare((Connection) proxy, (String) args[0], keys);
+					} else {
+						try {
+							result = method.invoke(physical, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+					if (!(result instanceof Statement)) return result;
+					if (stats == null && RoundTrips.current() == null) return result;
+					return tracked((Statement) result, method.getReturnType(),
+							name.startsWith("prepare") ? (String) args[0] : null);
+				}
+			}
+
+			/*
+			 * A statement that reports each execute to the thread's RoundTrips scope and notes
+			 * the SQL given to a plain statement's execute or addBatch.  preparedSql is the SQL
+			 * of a prepared statement, or null for a plain one.
+			 */
+			private Statement tracked(Statement statement, Class<?> type, String preparedSql) {
+				return (Statement) Proxy.newProxyInstance(type.getClassLoader(),
+						new Class<?>[] { type }, (proxy, method, args) -> {
+					String name = method.getName();
+					String sql = args != null && args.length > 0 && args[0] instanceof String
+							? (String) args[0] : preparedSql;
+					if (name.startsWith("execute")) {
+						noteSql(sql);
+						RoundTrips.statementExecuted(sql);
+					} else if (name.equals("addBatch")) {
+						noteSql(sql);
+					} else if (name.equals("equals")) {
+						return proxy == args[0];
+					} else if (name.equals("hashCode")) {
+						return System.identityHashCode(proxy);
+					}
+					try {
+						return method.invoke(statement, args);
+					} catch (InvocationTargetException e) {
+						throw e.getCause();
+					}
+				});
+			}
+		}
+	}
+
+
+	/*
+	 * A prepared statement kept open in a connection's cache.  Each borrow hands out a proxy
+	 * whose close() puts the statement back as it was prepared (no parameters, no batched rows,
+	 * the original fetch size, row limit, and timeout) and marks it free again rather than
+	 * closing it.
+	 */
+	private static class CachedStatement {
+		final PreparedStatement physical;
+		boolean inUse = false;
+
+		// The settings as prepared, restored on every return
+		private final int fetchSize;
+		private final int maxRows;
+		private final int queryTimeout;
+
+		CachedStatement(PreparedStatement physical) throws SQLException {
+			this.physical = physical;
+			this.fetchSize = physical.getFetchSize();
+			this.maxRows = physical.getMaxRows();
+			this.queryTimeout = physical.getQueryTimeout();
+		}
+
+		/*
+		 * Undo whatever the last borrower left on the statement.  A statement that cannot be
+		 * reset is closed, and prepare() then replaces it.
+		 */
+		private void reset() {
+			try {
+				if (physical.isClosed()) return;
+				physical.clearParameters();
+				physical.clearBatch();
+				physical.setFetchSize(fetchSize);
+				physical.setMaxRows(maxRows);
+				physical.setQueryTimeout(queryTimeout);
+			} catch (SQLException e) {
+				closePhysical();
+			}
+		}
+
+		PreparedStatement borrow(Connection owner) {
+			inUse = true;
+			return (PreparedStatement) Proxy.newProxyInstance(
+					PreparedStatement.class.getClassLoader(),
+					new Class<?>[] { PreparedStatement.class }, new InvocationHandler() {
+				private boolean closed = false;
+
+				@Override
+				public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+					switch (method.getName()) {
+					case "close":
+						if (!closed) {
+							closed = true;
+							reset();
+							inUse = false;
+						}
+						return null;
+					case "isClosed":
+						return closed || physical.isClosed();
+					case "getConnection":
+						return owner;
+					case "equals":
+						return proxy == args[0];
+					case "hashCode":
+						return System.identityHashCode(proxy);
+					default:
+						if (closed) throw new SQLException("Statement has been closed");
+						try {
+							return method.invoke(physical, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+				}
+			});
+		}
+
+		void closePhysical() {
+			try {
+				physical.close();
+			} catch (SQLException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+}
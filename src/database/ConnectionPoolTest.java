@@ -0,0 +1,157 @@
+package database;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.AfterEach;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Tests for ConnectionPool: bounded checkout, return on close, and a clean session for every
+ * borrower.  Uses a private in-memory H2 database so it never touches the application data.
+ *
+ * @author Lynn Robert Carter
+ * @version 1.0 2025-11-10
+ */
+class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:h2:mem:poolTest;DB_CLOSE_DELAY=-1";
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool(URL, "sa", "", 1, 2, 60_000, 200, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    /**
+     * Closing a pooled connection returns it to the pool instead of closing it.
+     */
+    @Test
+    void testCloseReturnsConnectionToPool() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            assertFalse(connection.isClosed(), "Borrowed connection should be open");
+            assertEquals(0, pool.getIdleCount(), "Borrowed connection should leave the pool");
+        }
+        assertEquals(1, pool.getIdleCount(), "Closed connection should be back in the pool");
+        assertEquals(1, pool.getOpenCount(), "No new physical connection should be opened");
+    }
+
+    /**
+     * Once every connection is checked out, the next borrower times out with an SQLException.
+     */
+    @Test
+    void testCheckoutTimesOutWhenExhausted() throws SQLException {
+        try (Connection first = pool.getConnection();
+             Connection second = pool.getConnection()) {
+            assertNotSame(first, second, "Each borrower should get its own connection");
+            assertEquals(2, pool.getOpenCount());
+            assertThrows(SQLException.class, () -> pool.getConnection(),
+                    "Third checkout should time out with a pool of two");
+        }
+        try (Connection again = pool.getConnection()) {
+            assertFalse(again.isClosed(), "Pool should hand out connections again after returns");
+        }
+    }
+
+    /**
+     * A connection returned mid-transaction is rolled back, so the next borrower never sees
+     * uncommitted work and always starts in auto-commit mode.
+     */
+    @Test
+    void testUncommittedWorkIsRolledBackOnReturn() throws SQLException {
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS T (id INT)");
+            statement.execute("DELETE FROM T");
+        }
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            statement.execute("INSERT INTO T VALUES (1)");
+        }
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            assertTrue(connection.getAutoCommit(), "Borrower should start in auto-commit mode");
+            ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM T");
+            rs.next();
+            assertEquals(0, rs.getInt(1), "Uncommitted insert should have been rolled back");
+        }
+    }
+
+    /**
+     * Preparing the same SQL again on the same physical connection reuses the cached statement.
+     */
+    @Test
+    void testPreparedStatementIsCached() throws SQLException {
+        String sql = "SELECT ? + 1";
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = pool.getConnection();
+                 java.sql.PreparedStatement pstmt = connection.prepareStatement(sql)) {
+                pstmt.setInt(1, i);
+                ResultSet rs = pstmt.executeQuery();
+                rs.next();
+                assertEquals(i + 1, rs.getInt(1));
+            }
+        }
+        assertEquals(1, pool.getStatementCacheMisses(), "Only the first prepare should miss");
+        assertEquals(2, pool.getStatementCacheHits(), "Later prepares should hit the cache");
+    }
+
+    /**
+     * A cached statement closed with rows still batched, or with its fetch size and row
+     * limit changed, goes to the next borrower as it was first prepared.
+     */
+    @Test
+    void testCachedStatementIsResetOnReturn() throws SQLException {
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS B (id INT)");
+            statement.execute("DELETE FROM B");
+        }
+        String insert = "INSERT INTO B VALUES (?)";
+        try (Connection connection = pool.getConnection();
+             java.sql.PreparedStatement pstmt = connection.prepareStatement(insert)) {
+            pstmt.setInt(1, 1);
+            pstmt.addBatch();
+            pstmt.setMaxRows(1);
+            pstmt.setFetchSize(7);
+            // Closed without executeBatch, as when the caller fails part way
+        }
+        try (Connection connection = pool.getConnection();
+             java.sql.PreparedStatement pstmt = connection.prepareStatement(insert)) {
+            assertEquals(1, pool.getStatementCacheHits(), "The statement should come from the cache");
+            assertEquals(0, pstmt.getMaxRows(), "Row limit should be reset");
+            assertNotEquals(7, pstmt.getFetchSize(), "Fetch size should be reset");
+            pstmt.setInt(1, 2);
+            pstmt.addBatch();
+            assertEquals(1, pstmt.executeBatch().length, "Only this borrower's row should run");
+        }
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM B");
+            rs.next();
+            assertEquals(1, rs.getInt(1), "The abandoned batch row should never be inserted");
+        }
+    }
+
+    /**
+     * A connection cannot be used after it has been handed back.
+     */
+    @Test
+    void testConnectionUnusableAfterClose() throws SQLException {
+        Connection connection = pool.getConnection();
+        connection.close();
+        assertTrue(connection.isClosed());
+        assertThrows(SQLException.class, () -> connection.createStatement());
+    }
+}
@@ -0,0 +1,183 @@
+package database;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import entityClasses.TextIndex;
+
+/*******
+ * <p> Title: ContentIndex Class. </p>
+ *
+ * <p> Description: An in-memory word index over the content of every post and reply on the
+ * board, so the posts screen can filter as the user types without a database round trip per
+ * keystroke.  It holds only ids and words, not the posts themselves; the caller turns the ids
+ * it returns into posts through the post cache.</p>
+ *
+ * <p> The index is empty until {@link #load(Database)} has read the board once.  After that
+ * the Database reports each create, edit, and delete of a post or reply as it commits, so the
+ * index stays current without reading the board again.  Writes that commit while the board is
+ * being read are held back and replayed once the read finishes; each change puts a document's
+ * new words or removes it, so replaying a change the read already saw does no harm.</p>
+ *
+ * <p> All methods may be called from any thread.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class ContentIndex {
+
+	private volatile TextIndex posts = new TextIndex();
+	private volatile TextIndex replies = new TextIndex();
+	private volatile boolean loaded = false;
+	private List<Runnable> pending = null;		// Changes that arrive while the board is read
+	private final Object loadLock = new Object();
+
+
+	/*******
+	 * <p> Method: void load(Database database) </p>
+	 *
+	 * <p> Description: Read every post and reply into the index, unless that has been done
+	 * already.  A second caller waits for a load in progress rather than starting another.</p>
+	 *
+	 * @param database is the database to read
+	 *
+	 * @throws SQLException if the board cannot be read; the index stays unloaded
+	 */
+	public void load(Database database) throws SQLException {
+		synchronized (loadLock) {
+			if (loaded) return;
+			synchronized (this) {
+				pending = new ArrayList<>();
+			}
+			TextIndex newPosts = new TextIndex();
+			TextIndex newReplies = new TextIndex();
+			boolean read = false;
+			try {
+				database.forEachPost(post -> {
+					newPosts.put(post.getPostID(), post.getContent());
+					return true;
+				});
+				database.forEachReply(reply -> {
+					newReplies.put(reply.getReplyID(), reply.getContent());
+					return true;
+				});
+				read = true;
+			} finally {
+				synchronized (this) {
+					if (read) {
+						posts = newPosts;
+						replies = newReplies;
+						for (Runnable change : pending) change.run();
+						loaded = true;
+					}
+					pending = null;
+				}
+			}
+		}
+	}
+
+
+	/*******
+	 * <p> Method: boolean isLoaded() </p>
+	 *
+	 * @return true once the board has been read and the index answers queries
+	 */
+	public boolean isLoaded() {
+		return loaded;
+	}
+
+
+	/*******
+	 * <p> Method: int[] searchPosts(String query, int limit) </p>
+	 *
+	 * @param query is the words to look for, as described for TextIndex
+	 *
+	 * @param limit is the largest number of ids to return
+	 *
+	 * @return the ids of the matching posts, newest first
+	 */
+	public int[] searchPosts(String query, int limit) {
+		return newestFirst(posts.search(query), limit);
+	}
+
+
+	/*******
+	 * <p> Method: int[] searchReplies(String query, int limit) </p>
+	 *
+	 * @param query is the words to look for, as described for TextIndex
+	 *
+	 * @param limit is the largest number of ids to return
+	 *
+	 * @return the ids of the matching replies, newest first
+	 */
+	public int[] searchReplies(String query, int limit) {
+		return newestFirst(replies.search(query), limit);
+	}
+
+
+	// The Database calls these after each write commits
+	void postWritten(int postID, String content) { apply(() -> posts.put(postID, content)); }
+	void replyWritten(int replyID, String content) { apply(() -> replies.put(replyID, content)); }
+	void replyDeleted(int replyID) { apply(() -> replies.remove(replyID)); }
+
+	void postDeleted(int postID, List<Integer> replyIDs) {
+		apply(() -> {
+			posts.remove(postID);
+			for (int replyID : replyIDs) replies.remove(replyID);
+		});
+	}
+
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Empty the index.  It stays loaded, since an empty board has nothing to
+	 * read.</p>
+	 */
+	public synchronized void clear() {
+		posts.clear();
+		replies.clear();
+		if (pending != null) pending.clear();
+	}
+
+
+	/*******
+	 * <p> Method: void unload() </p>
+	 *
+	 * <p> Description: Empty the index and mark it unloaded, so the next query reads the board
+	 * again.  Used after rows have been written in bulk without reporting each one.</p>
+	 */
+	public void unload() {
+		synchronized (loadLock) {
+			synchronized (this) {
+				loaded = false;
+				posts = new TextIndex();
+				replies = new TextIndex();
+			}
+		}
+	}
+
+
+	/*
+	 * Apply a change now, hold it back while the board is being read, or drop it if the index
+	 * has not been loaded (the load will read the change from the database).
+	 */
+	private synchronized void apply(Runnable change) {
+		if (pending != null) pending.add(change);
+		else if (loaded) change.run();
+	}
+
+	/*
+	 * The last limit ids of an ascending array, largest first.
+	 */
+	private static int[] newestFirst(int[] ids, int limit) {
+		int n = Math.max(0, Math.min(limit, ids.length));
+		int[] result = new int[n];
+		for (int i = 0; i < n; i++) result[i] = ids[ids.length - 1 - i];
+		return result;
+	}
+}
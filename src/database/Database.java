@@ -2,16 +2,21 @@ package database;
 
 import java.sql.*;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import entityClasses.Post;
+import entityClasses.PostSummary;
 import entityClasses.Reply;
 import entityClasses.User;
+import entityClasses.UserContext;
+import entityClasses.UserProfile;
 
 /*******
  * <p> Title: Database Class. </p>
@@ -36,40 +41,256 @@ import entityClasses.User;
  */
 public class Database {
 
-	// JDBC driver name and database URL 
+	// JDBC driver name; the URL and credentials come from the DatabaseConfig
 	static final String JDBC_DRIVER = "org.h2.Driver";   
-	static final String DB_URL = "jdbc:h2:~/FoundationDatabase";  
 
-	//  Database credentials 
-	static final String USER = "sa"; 
-	static final String PASS = ""; 
+	//  Connection pool defaults, used when the DatabaseConfig does not set them.  Every method
+	//  borrows a connection for the duration of one operation, so these bound how many
+	//  operations can run against H2 at the same time.
+	static final int POOL_MIN_SIZE = 2;
+	static final int POOL_MAX_SIZE = 10;
+	static final long POOL_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000;
+	static final long POOL_CHECKOUT_TIMEOUT_MILLIS = 10 * 1000;
+	static final int STATEMENT_CACHE_SIZE = 64;		// Prepared statements kept per connection
+	static final int DEFAULT_STREAM_FETCH_SIZE = 500;	// Rows fetched at a time by the stream* scans
+	static final int DEFAULT_SEARCH_PAGE_SIZE = 1000;	// Full-text hits read at a time by a search
+	static final int INSERT_BATCH_SIZE = 500;			// Rows sent per executeBatch by the *Batch inserts
+	static final long UNREAD_FLUSH_INTERVAL_MILLIS = 500;	// How often unread-reply flags are written
+	static final int POST_CACHE_SIZE = 1000;			// Posts kept in the getPost cache
+	static final int PROFILE_CACHE_SIZE = 500;			// User profiles kept in the profile cache
+	static final long REPLY_CACHE_BUDGET_BYTES = 4 * 1024 * 1024;	// Memory for cached reply lists
+	
+	// Mark a reply's post as active, so an edited reply keeps its thread out of the archive
+	static final String TOUCH_POST_OF_REPLY = "UPDATE Post SET lastActivity = CURRENT_TIMESTAMP "
+			+ "WHERE id = (SELECT postID FROM Reply WHERE id = ?)";
+	
+	// Recompute the reply counters of every post whose stored values have drifted from its replies
+	static final String REPAIR_POST_COUNTERS = "UPDATE Post SET "
+			+ "replyCount = (SELECT COUNT(*) FROM Reply WHERE Reply.postID = Post.id), "
+			+ "uniqueResponderCount = (SELECT COUNT(DISTINCT author) FROM Reply WHERE Reply.postID = Post.id) "
+			+ "WHERE replyCount <> (SELECT COUNT(*) FROM Reply WHERE Reply.postID = Post.id) "
+			+ "OR uniqueResponderCount <> (SELECT COUNT(DISTINCT author) FROM Reply WHERE Reply.postID = Post.id)";
+	
+	// Give every pinned post that has no pin slot one above the highest slot taken, as after an
+	// import.  Slots above db.maxPinnedPosts are kept until those posts are unpinned
+	static final String FILL_PINNED_SLOTS = "INSERT INTO PinnedSlot (slot, postID, pinnedBy) "
+			+ "SELECT (SELECT COALESCE(MAX(slot), 0) FROM PinnedSlot) + ROW_NUMBER() OVER (ORDER BY id), "
+			+ "id, pinnedBy FROM Post WHERE isPinned = TRUE AND id NOT IN (SELECT postID FROM PinnedSlot)";
+	
+	// Free the slots of posts that are no longer pinned
+	static final String RELEASE_STALE_PIN_SLOTS = "DELETE FROM PinnedSlot "
+			+ "WHERE postID IN (SELECT id FROM Post WHERE isPinned = FALSE)";
+	
+	static final String DUPLICATE_KEY = "23505";		// SQLState of a unique or primary key violation
 
 	//  Shared variables used within this class
-	private Connection connection = null;		// Singleton to access the database 
-	private Statement statement = null;			// The H2 Statement is used to construct queries
-	
-	// These are the easily accessible attributes of the currently logged-in user
-	// This is only useful for single user applications
-	private String currentUsername;
-	private String currentPassword;
-	private String currentFirstName;
-	private String currentMiddleName;
-	private String currentLastName;
-	private String currentPreferredFirstName;
-	private String currentEmailAddress;
-	private boolean currentAdminRole;
-	private boolean currentNewRole1;
-	private boolean currentNewRole2;
-
+	private final DatabaseConfig config;		// Where the data lives and how H2 is tuned
+	private ConnectionPool pool = null;			// The pool of connections to the database
+	private int migrationsApplied = 0;			// Schema migrations run by the last connect
+	private BackupService backups = null;		// Online snapshots, once openBackupService is called
+	private PostArchiver archiver = null;		// Moves idle threads out, once openArchiver is called
+	private int streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
+	private int searchPageSize = DEFAULT_SEARCH_PAGE_SIZE;
+	private UnreadFlagWriter unreadFlags = null;	// Write-behind buffer for the unread-reply flags
+	private final PostCache postCache = new PostCache(POST_CACHE_SIZE);	// Read-through cache for getPost
+	private final UserProfileCache profileCache = new UserProfileCache(PROFILE_CACHE_SIZE);	// Profiles by username
+	private final ReplyListCache replyCache = new ReplyListCache(REPLY_CACHE_BUDGET_BYTES);	// Per-thread reply lists
+	private final SessionRegistry sessions = new SessionRegistry();	// The logged-in users
+	private final ContentIndex contentIndex = new ContentIndex();	// Words of every post and reply
+	private final PinnedPosts pinned = new PinnedPosts();		// Ids of the pinned posts
+	private final QueryStats queryStats;		// Latency of every operation that reaches H2
+	
+	/*******
+	 * <p> Interface: RowCallback </p>
+	 * 
+	 * <p> Description: Receives the rows of a forEach scan one at a time.  Returning false stops
+	 * the scan early; the connection is released either way.</p>
+	 * 
+	 * @param <T> the type of row handed to the callback
+	 */
+	@FunctionalInterface
+	public interface RowCallback<T> {
+		boolean accept(T row);
+	}
+	
+	// Rows are read by position; see RowMappers for the column lists that go with each mapper
+	private static final RowMapper<Post> POST_MAPPER = RowMappers.POST;
+	private static final RowMapper<PostSummary> POST_SUMMARY_MAPPER = RowMappers.POST_SUMMARY;
+	private static final RowMapper<Reply> REPLY_MAPPER = RowMappers.REPLY;
+	private static final String POST_COLUMNS = RowMappers.POST_COLUMNS;
+	private static final String REPLY_COLUMNS = RowMappers.REPLY_COLUMNS;
+	
 	/*******
 	 * <p> Method: Database </p>
 	 * 
-	 * <p> Description: The default constructor used to establish this singleton object.</p>
+	 * <p> Description: The default constructor used to establish this singleton object.  The
+	 * storage mode and tuning are read by {@link DatabaseConfig#load()}.</p>
 	 * 
 	 */
 	
 	public Database () {
-		
+		this(DatabaseConfig.load());
+	}
+	
+	
+	/*******
+	 * <p> Method: Database(DatabaseConfig config) </p>
+	 * 
+	 * <p> Description: A database that connects as the given configuration says, for example
+	 * an in-memory one for a load test.</p>
+	 * 
+	 * @param config is the storage mode, location, credentials, and tuning to use
+	 */
+	public Database(DatabaseConfig config) {
+		this.config = config;
+		this.queryStats = new QueryStats(config.getSlowQueryMillis());
+	}
+	
+	
+	/*******
+	 * <p> Method: DatabaseConfig getConfig() </p>
+	 * 
+	 * @return the configuration this database connects with
+	 */
+	public DatabaseConfig getConfig() {
+		return config;
+	}
+	
+	
+	/*******
+	 * <p> Method: QueryStats getQueryStats() </p>
+	 * 
+	 * <p> Description: The latency of each operation since this database was made, named
+	 * Database.getPost and so on, with the recent slow ones.  Every borrow of a pooled
+	 * connection is timed, so an answer served from one of the caches without reaching H2 is
+	 * not counted.  Call report() on the result for a printable table.</p>
+	 * 
+	 * @return the statistics for this database
+	 */
+	public QueryStats getQueryStats() {
+		return queryStats;
+	}
+	
+	
+	/*******
+	 * <p> Method: int getMigrationsApplied() </p>
+	 * 
+	 * @return the number of schema migrations the last connectToDatabase ran; 0 when the
+	 *		schema was already current and no DDL ran at all
+	 */
+	public int getMigrationsApplied() {
+		return migrationsApplied;
+	}
+	
+	
+	/*******
+	 * <p> Method: PostArchiver openArchiver() </p>
+	 * 
+	 * <p> Description: Start archiving threads that have been idle for the configuration's
+	 * db.archive.afterDays, on its schedule.  Calling this again returns the same archiver.  The
+	 * archiver stops when the connection is closed.</p>
+	 * 
+	 * @return the archiver, or null if the configuration does not archive (afterDays is 0) or
+	 * 		the database is read-only
+	 */
+	public synchronized PostArchiver openArchiver() {
+		if (archiver == null && config.getArchiveAfterDays() > 0 && !config.isReadOnly()) {
+			archiver = new PostArchiver(this, config.getArchiveAfterDays(), config.getArchiveBatchSize());
+			archiver.schedule(config.getArchiveIntervalMinutes());
+		}
+		return archiver;
+	}
+	
+	
+	/*******
+	 * <p> Method: BoardTransfer.Summary exportBoard(Path file, BoardTransfer.Progress progress) </p>
+	 * 
+	 * <p> Description: Write every user, invitation code, post, and reply to a file that
+	 * importBoard on another install can read; see BoardTransfer for the format.  Unread flags
+	 * that are still buffered are written first so the file includes them.</p>
+	 * 
+	 * @param file is the file to write, gzipped if its name ends in .gz
+	 * 
+	 * @param progress is told how the export is going; may be null
+	 * 
+	 * @return how many records of each kind were written
+	 * 
+	 * @throws IOException if the file cannot be written
+	 * 
+	 * @throws SQLException if the board cannot be read
+	 */
+	public BoardTransfer.Summary exportBoard(java.nio.file.Path file, BoardTransfer.Progress progress)
+			throws java.io.IOException, SQLException {
+		unreadFlags.flush();
+		return new BoardTransfer(pool, streamFetchSize, INSERT_BATCH_SIZE).export(file, progress);
+	}
+	
+	
+	/*******
+	 * <p> Method: BoardTransfer.Summary importBoard(Path file, BoardTransfer.Progress progress) </p>
+	 * 
+	 * <p> Description: Merge a file written by exportBoard into this database.  Posts and
+	 * replies keep their ids, so afterwards the id counters are moved past the largest id,
+	 * the reply counters are checked, pinned posts are given pin slots, and the caches and word
+	 * index are emptied, since none of them saw the rows arrive.  The import also does all this when it fails part way, so the
+	 * batches it did commit are served correctly.</p>
+	 * 
+	 * @param file is a file written by exportBoard, gzipped or not
+	 * 
+	 * @param progress is told how the import is going; may be null
+	 * 
+	 * @return how many records of each kind were imported
+	 * 
+	 * @throws IOException if the file cannot be read or is not in the export format
+	 * 
+	 * @throws SQLException if a batch cannot be written
+	 */
+	public BoardTransfer.Summary importBoard(java.nio.file.Path file, BoardTransfer.Progress progress)
+			throws java.io.IOException, SQLException {
+		try {
+			return new BoardTransfer(pool, streamFetchSize, INSERT_BATCH_SIZE).importFrom(file, progress);
+		} finally {
+			try (Connection connection = pool.getConnection();
+			     Statement statement = connection.createStatement()) {
+				// Archived ids stay taken, so a restored thread never collides with a new one
+				for (String table : new String[] { "Post", "Reply" }) {
+					ResultSet rs = statement.executeQuery("SELECT GREATEST((SELECT COALESCE(MAX(id), 0) FROM "
+							+ table + "), (SELECT COALESCE(MAX(id), 0) FROM " + table + "Archive)) + 1");
+					rs.next();
+					statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + rs.getInt(1));
+				}
+				statement.executeUpdate(REPAIR_POST_COUNTERS);
+				statement.executeUpdate(RELEASE_STALE_PIN_SLOTS);
+				statement.executeUpdate(FILL_PINNED_SLOTS);
+				pinned.replaceAll(readPinnedPostIDs(connection));
+			}
+			postCache.clear();
+			replyCache.clear();
+			profileCache.clear();
+			contentIndex.unload();
+		}
+	}
+	
+	
+	/*******
+	 * <p> Method: BackupService openBackupService(Executor callbackExecutor) </p>
+	 * 
+	 * <p> Description: Start the backup service described by the configuration's db.backup
+	 * settings, taking snapshots on its schedule if it has one.  Calling this again returns the
+	 * same service.  The service stops when the connection is closed.</p>
+	 * 
+	 * @param callbackExecutor is where the futures from backupNow are completed
+	 * 		(Platform::runLater in the GUI)
+	 * 
+	 * @return the backup service for this database
+	 */
+	public synchronized BackupService openBackupService(java.util.concurrent.Executor callbackExecutor) {
+		if (backups == null) {
+			backups = new BackupService(pool, config.getBackupDirectory(),
+					config.getBackupGenerations(), config.getBackupBytesPerSecond(), callbackExecutor);
+			backups.schedule(config.getBackupIntervalMinutes());
+		}
+		return backups;
 	}
 	
 	
@@ -77,85 +298,55 @@ public class Database {
  * <p> Method: connectToDatabase </p>
  * 
  * <p> Description: Used to establish the in-memory instance of the H2 database from secondary
- *		storage.</p>
+ *		storage.  This opens the connection pool that every other method borrows from.</p>
+ *
+ * <p> A read-only database is never migrated, since it cannot be written; it must already be
+ *		at the latest schema version.</p>
  *
- * @throws SQLException when the DriverManager is unable to establish a connection
+ * @throws SQLException when the connection pool is unable to establish a connection, or a
+ *		read-only database has an older schema
  * 
  */
 	public void connectToDatabase() throws SQLException {
 		try {
 			Class.forName(JDBC_DRIVER); // Load the JDBC driver
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
-			statement = connection.createStatement(); 
+			pool = new ConnectionPool(config.getUrl(), config.getUser(), config.getPassword(),
+					config.getPoolMinSize(), config.getPoolMaxSize(),
+					config.getPoolIdleTimeoutMillis(), config.getPoolCheckoutTimeoutMillis(),
+					config.getStatementCacheSize());
+			pool.setQueryStats(queryStats);
 			
-			//UNCOMMENT TO DELETE DB AND RUN CERTAIN JUNIT TESTS
-			//statement.execute("DROP ALL OBJECTS");
-
-			createTables();  // Create the necessary tables if they don't exist
-			createPostTables();
-			createRepliesTables();
+			migrationsApplied = 0;
+			int staleVersion = -1;		// The version of a read-only database that is out of date
+			try (Connection connection = pool.getConnection()) {
+				//UNCOMMENT TO DELETE DB AND RUN CERTAIN JUNIT TESTS
+				//connection.createStatement().execute("DROP ALL OBJECTS");
+	
+				// Create or upgrade the tables and indexes, skipping all DDL when the schema
+				// version recorded in the database is already the latest one
+				if (!SchemaMigrations.isCurrent(connection)) {
+					if (config.isReadOnly()) {
+						staleVersion = SchemaMigrations.getCurrentVersion(connection);
+					} else {
+						migrationsApplied = SchemaMigrations.migrate(connection);
+					}
+				}
+				if (staleVersion < 0) pinned.replaceAll(readPinnedPostIDs(connection));
+			}
+			if (staleVersion >= 0) {
+				pool.close();
+				pool = null;
+				throw new SQLException("The read-only database at " + config.getPath()
+						+ " is at schema version " + staleVersion + "; version "
+						+ SchemaMigrations.getLatestVersion() + " is needed");
+			}
+			unreadFlags = new UnreadFlagWriter(pool, UNREAD_FLUSH_INTERVAL_MILLIS);
 		} catch (ClassNotFoundException e) {
 			System.err.println("JDBC Driver not found: " + e.getMessage());
 		}
 	}
 
 	
-/*******
- * <p> Method: createTables </p>
- * 
- * <p> Description: Used to create new instances of the two database tables used by this class.</p>
- * 
- */
-	private void createTables() throws SQLException {
-		// Create the user database
-		String userTable = "CREATE TABLE IF NOT EXISTS userDB ("
-				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
-				+ "userName VARCHAR(255) UNIQUE, "
-				+ "password VARCHAR(255), "
-				+ "firstName VARCHAR(255), "
-				+ "middleName VARCHAR(255), "
-				+ "lastName VARCHAR (255), "
-				+ "preferredFirstName VARCHAR(255), "
-				+ "emailAddress VARCHAR(255), "
-				+ "adminRole BOOL DEFAULT FALSE, "
-				+ "newRole1 BOOL DEFAULT FALSE, "
-				+ "newRole2 BOOL DEFAULT FALSE)";
-		statement.execute(userTable);
-		
-		// Create the invitation codes table
-	    String invitationCodesTable = "CREATE TABLE IF NOT EXISTS InvitationCodes ("
-	            + "code VARCHAR(10) PRIMARY KEY, "
-	    		+ "emailAddress VARCHAR(255), "
-	            + "role VARCHAR(10))";
-	    statement.execute(invitationCodesTable);
-	}
-	
-	private void createPostTables() throws SQLException {
-	    String postTable = "CREATE TABLE IF NOT EXISTS Post ("
-	            + "id INT AUTO_INCREMENT PRIMARY KEY, "
-	            + "author VARCHAR(255) NOT NULL, "
-	            + "content VARCHAR(500) NOT NULL, "
-	            + "authorRole VARCHAR(10), "
-	            + "isPinned BOOLEAN DEFAULT FALSE, "
-	            + "pinnedBy VARCHAR(255),"
-	    		+ "hasUnreadReplies BOOLEAN DEFAULT FALSE, "
-	    		+ "lastReplyTimestamp TIMESTAMP)";
-	    
-	    statement.execute(postTable);
-	}
-	
-	private void createRepliesTables() throws SQLException {  
-	    String replyTable = "CREATE TABLE IF NOT EXISTS Reply ("
-	            + "id INT AUTO_INCREMENT PRIMARY KEY, "
-	            + "postID INT NOT NULL, "
-	            + "author VARCHAR(255) NOT NULL, "
-	            + "content VARCHAR(500) NOT NULL, "
-	            + "authorRole VARCHAR(10), " 
-	            + "FOREIGN KEY (postID) REFERENCES Post(id))";
-	    statement.execute(replyTable);
-	}
-
-	
 	 // Method: createPost(String author, String content) </p>
 	
 	public int createPost(String author, String content, String authorRole) throws SQLException {
@@ -164,7 +355,8 @@ public class Database {
 	    
 	    // try-with-resources ensures the PreparedStatement is automatically closed when done
 	    // Statement.RETURN_GENERATED_KEYS tells database to give us back the auto-generated ID
-	    try (PreparedStatement pstmt = connection.prepareStatement(insertPost, 
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(insertPost, 
 	            Statement.RETURN_GENERATED_KEYS)) {
 	        
 	        // Set the first ? to the author parameter (index starts at 1, not 0)
@@ -187,7 +379,9 @@ public class Database {
 	            // If there is a generated key available
 	            if (generatedKeys.next()) {
 	                // Return the generated post ID (column 1 is the first/only key)
-	                return generatedKeys.getInt(1);
+	                int postID = generatedKeys.getInt(1);
+	                contentIndex.postWritten(postID, content);
+	                return postID;
 	            }
 	        }
 	    } catch (SQLException e) {
@@ -198,16 +392,92 @@ public class Database {
 	    // If we get here, something went wrong - return -1 to indicate failure
 	    return -1;
 	}
+	
+	
+	/*******
+	 * <p> Method: int[] createPostsBatch(List&lt;Post&gt; posts) </p>
+	 * 
+	 * <p> Description: Inserts many posts at once, for seeding a course or importing an earlier
+	 * term's discussion.  The rows are sent to the database in JDBC batches of INSERT_BATCH_SIZE
+	 * and committed in a single transaction, so either every post is created or none is.  Only
+	 * the author, content, and author role of each Post are used; ids are generated and every
+	 * other column takes its default.</p>
+	 * 
+	 * @param posts is the posts to create
+	 * 
+	 * @return the generated post ids, in the same order as posts
+	 * 
+	 * @throws SQLException if any insert fails; the whole batch is rolled back
+	 */
+	public int[] createPostsBatch(List<Post> posts) throws SQLException {
+	    String insertPost = "INSERT INTO Post (author, content, authorRole) VALUES (?, ?, ?)";
+	    int[] ids = new int[posts.size()];
+	    
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(insertPost,
+	            Statement.RETURN_GENERATED_KEYS)) {
+	        connection.setAutoCommit(false);
+	        try {
+	            int sent = 0;
+	            for (int i = 0; i < posts.size(); i++) {
+	                Post post = posts.get(i);
+	                pstmt.setString(1, post.getAuthor());
+	                pstmt.setString(2, post.getContent());
+	                pstmt.setString(3, post.getAuthorRole());
+	                pstmt.addBatch();
+	                if ((i + 1) % INSERT_BATCH_SIZE == 0 || i == posts.size() - 1) {
+	                    sent = executeInsertBatch(pstmt, ids, sent);
+	                }
+	            }
+	            connection.commit();
+	            for (int i = 0; i < posts.size(); i++) {
+	                contentIndex.postWritten(ids[i], posts.get(i).getContent());
+	            }
+	        } catch (SQLException | RuntimeException e) {
+	            // A bad element (a null post, say) must not leave the transaction open on a
+	            // pooled connection either
+	            connection.rollback();
+	            throw e;
+	        } finally {
+	            connection.setAutoCommit(true);
+	        }
+	    }
+	    return ids;
+	}
+	
+	
+	/*
+	 * Run the rows added to pstmt since the last call and copy their generated keys into ids,
+	 * starting at index from.  Returns the index just past the last id filled in.
+	 */
+	private static int executeInsertBatch(PreparedStatement pstmt, int[] ids, int from)
+	        throws SQLException {
+	    pstmt.executeBatch();
+	    try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+	        while (generatedKeys.next()) {
+	            ids[from++] = generatedKeys.getInt(1);
+	        }
+	    }
+	    return from;
+	}
 
 	
 	// return a Post object if found, null if not found
 	 
 	public Post getPost(int postID) throws SQLException {
-	    // SQL query to select all columns from Post table where id matches
-	    String query = "SELECT * FROM Post WHERE id = ?";
+	    // Every write to a post also updates the cache, so a cached copy is current
+	    Post cached = postCache.get(postID);
+	    if (cached != null) {
+	        return unreadFlags.applyTo(cached);
+	    }
+	    long changeCount = postCache.getChangeCount();
+	    
+	    // SQL query to select every Post column for the row whose id matches
+	    String query = "SELECT " + POST_COLUMNS + " FROM Post WHERE id = ?";
 	    
 	    // try-with-resources automatically closes PreparedStatement when done
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        
 	        // Set the ? placeholder to the postID we're looking for
 	        pstmt.setInt(1, postID);
@@ -215,18 +485,14 @@ public class Database {
 	        // Execute the query and get back a ResultSet (contains the matching rows)
 	        ResultSet rs = pstmt.executeQuery();
 	        
-	        // Check if we found a matching row (next() returns true if row exists)
-	        if (rs.next()) {
-	            return new Post(
-	                rs.getInt("id"),
-	                rs.getString("author"),
-	                rs.getString("content"),
-	                rs.getString("authorRole"),
-	                rs.getBoolean("isPinned"),           
-	                rs.getString("pinnedBy"),            
-	                rs.getBoolean("hasUnreadReplies"),   
-	                rs.getTimestamp("lastReplyTimestamp") 
-	            );
+	        // Check if we found a matching row (next() returns true if row exists); if not, the
+	        // post may have been archived
+	        Post post = rs.next() ? POST_MAPPER.mapRow(rs) : readArchivedPost(connection, postID);
+	        if (post != null) {
+	            postCache.putIfUnchanged(post, changeCount);
+	            
+	            // Include any unread-flag change that has not been written yet
+	            return unreadFlags.applyTo(post);
 	        }
 	    } catch (SQLException e) {
 	        // Print error details if something goes wrong
@@ -237,10 +503,65 @@ public class Database {
 	    return null;
 	}
 
+	/*******
+	 * <p> Method: List&lt;Post&gt; getPosts(List&lt;Integer&gt; postIDs) </p>
+	 * 
+	 * <p> Description: Reads several posts at once, live or archived, for screens that show a
+	 * list of posts found some other way (search results, filter matches).  Posts in the
+	 * getPost cache are taken from it; the rest are read with one query.</p>
+	 * 
+	 * @param postIDs is the posts to read, in the order they should be returned
+	 * 
+	 * @return the posts that exist, in the order of postIDs, each once
+	 * 
+	 * @throws SQLException if the database query fails
+	 */
+	public List<Post> getPosts(List<Integer> postIDs) throws SQLException {
+	    java.util.Map<Integer, Post> found = new java.util.HashMap<>();
+	    java.util.Set<Integer> missing = new java.util.LinkedHashSet<>();
+	    for (int postID : postIDs) {
+	        Post cached = postCache.get(postID);
+	        if (cached != null) found.put(postID, cached);
+	        else missing.add(postID);
+	    }
+	    
+	    if (!missing.isEmpty()) {
+	        long changeCount = postCache.getChangeCount();
+	        Integer[] ids = missing.toArray(new Integer[0]);
+	        
+	        // The archive branch is skipped for a post that is also still live, as it is
+	        // for a moment while a thread is archived
+	        String query = "SELECT " + POST_COLUMNS + " FROM Post WHERE id = ANY(?) "
+	                + "UNION ALL SELECT " + POST_COLUMNS + " FROM PostArchive a WHERE id = ANY(?) "
+	                + "AND NOT EXISTS (SELECT 1 FROM Post WHERE Post.id = a.id)";
+	        try (Connection connection = pool.getConnection();
+	             PreparedStatement pstmt = connection.prepareStatement(query)) {
+	            pstmt.setObject(1, ids);
+	            pstmt.setObject(2, ids);
+	            ResultSet rs = pstmt.executeQuery();
+	            while (rs.next()) {
+	                Post post = POST_MAPPER.mapRow(rs);
+	                postCache.putIfUnchanged(post, changeCount);
+	                found.put(post.getPostID(), post);
+	            }
+	        }
+	    }
+	    
+	    List<Post> posts = new ArrayList<>();
+	    java.util.Set<Integer> added = new java.util.HashSet<>();
+	    for (int postID : postIDs) {
+	        Post post = found.get(postID);
+	        if (post != null && added.add(postID)) posts.add(unreadFlags.applyTo(post));
+	    }
+	    return posts;
+	}
+
 	/*******
 	 * <p> Method: getAllPosts() </p>
 	 * 
 	 * @return a List of Post objects for all posts
+	 * 
+	 * @see #streamAllPosts()
 	 */
 	public List<Post> getAllPosts() throws SQLException {
 	    // Create a new empty ArrayList to store all the Post objects we'll find
@@ -248,10 +569,11 @@ public class Database {
 	    
 	    // SQL query to select ALL rows and columns from the Post table
 	    // No WHERE clause means we get everything
-	    String query = "SELECT * FROM Post ORDER BY isPinned DESC, id DESC";
+	    String query = "SELECT " + POST_COLUMNS + " FROM Post ORDER BY isPinned DESC, id DESC";
 	    
 	    // try-with-resources ensures PreparedStatement is closed automatically
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        
 	        // Execute the query and get back all matching rows
 	        ResultSet rs = pstmt.executeQuery();
@@ -259,17 +581,7 @@ public class Database {
 	        // Loop through each row in the ResultSet
 	        // next() moves to the next row and returns false when no more rows exist
 	        while (rs.next()) {
-	            Post post = new Post(
-	                rs.getInt("id"),
-	                rs.getString("author"),
-	                rs.getString("content"),
-	                rs.getString("authorRole"),
-	                rs.getBoolean("isPinned"),           
-	                rs.getString("pinnedBy"),            
-	                rs.getBoolean("hasUnreadReplies"),  
-	                rs.getTimestamp("lastReplyTimestamp")
-	            );
-	            posts.add(post);
+	            posts.add(unreadFlags.applyTo(POST_MAPPER.mapRow(rs)));
 	        }
 	    } catch (SQLException e) {
 	        // If anything goes wrong, print the error
@@ -280,43 +592,470 @@ public class Database {
 	    return posts;
 	}
 
-	
 
+	/*******
+	 * <p> Method: getPostsPage(PostPage.Cursor cursor, int limit) </p>
+	 * 
+	 * <p> Description: Returns one page of the post feed in the same order as getAllPosts()
+	 * (pinned first, then newest first).  Pages are found with keyset pagination on
+	 * (isPinned, id): pinned posts below the cursor are read first and, if the page is not yet
+	 * full, unpinned posts below the cursor fill the rest.  Both reads are range scans on the
+	 * feed index, so the cost of a page does not grow with the size of the board.</p>
+	 * 
+	 * @param cursor is the cursor returned with the previous page, or null for the first page
+	 * 
+	 * @param limit is the largest number of posts to return
+	 * 
+	 * @return the page of posts and the cursor for the next page
+	 * 
+	 * @throws SQLException if the database query fails
+	 */
+	public PostPage<Post> getPostsPage(PostPage.Cursor cursor, int limit) throws SQLException {
+	    List<Post> posts = readFeed(POST_COLUMNS, rs -> unreadFlags.applyTo(POST_MAPPER.mapRow(rs)),
+	            cursor, limit);
+	    
+	    // A full page means there may be more; remember where this page stopped
+	    PostPage.Cursor next = null;
+	    if (posts.size() == limit && limit > 0) {
+	        Post last = posts.get(posts.size() - 1);
+	        next = new PostPage.Cursor(last.isPinned(), last.getPostID());
+	    }
+	    return new PostPage<>(posts, next);
+	}
 	
 	/*******
-	 * <p> Method: updatePost(int postID, String content) </p>
+	 * <p> Method: getPostSummariesPage(PostPage.Cursor cursor, int limit) </p>
+	 * 
+	 * <p> Description: Returns the same page of the feed as getPostsPage, as PostSummary
+	 * objects.  Only the columns the posts list shows are read, and the database cuts the
+	 * content down to a preview of PostSummary.PREVIEW_LENGTH characters before sending it, so
+	 * a page costs a fraction of the transfer and allocation of whole posts.  Open a thread
+	 * with getPost to read its full content.</p>
+	 * 
+	 * @param cursor is the cursor returned with the previous page, or null for the first page
+	 * 
+	 * @param limit is the largest number of summaries to return
+	 * 
+	 * @return the page of summaries and the cursor for the next page
+	 * 
+	 * @throws SQLException if the database query fails
 	 */
-	public boolean updatePost(int postID, String content) throws SQLException {
-	    // SQL UPDATE statement - sets content field to new value for specific post
-	    String updatePost = "UPDATE Post SET content = ? WHERE id = ?";
+	public PostPage<PostSummary> getPostSummariesPage(PostPage.Cursor cursor, int limit)
+	        throws SQLException {
+	    List<PostSummary> summaries = readFeed(RowMappers.POST_SUMMARY_COLUMNS,
+	            POST_SUMMARY_MAPPER, cursor, limit);
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(updatePost)) {
-	        // Set first ? to the new content
-	        pstmt.setString(1, content);
-	        
-	        // Set second ? to the ID of the post we're updating
-	        pstmt.setInt(2, postID);
-	        
-	        // Execute the update and get number of rows affected
-	        int rowsUpdated = pstmt.executeUpdate();
+	    PostPage.Cursor next = null;
+	    if (summaries.size() == limit && limit > 0) {
+	        PostSummary last = summaries.get(summaries.size() - 1);
+	        next = new PostPage.Cursor(last.isPinned(), last.getPostID());
+	    }
+	    return new PostPage<>(summaries, next);
+	}
+	
+	/*
+	 * Read up to limit rows of the feed after the cursor, selecting the given columns and
+	 * mapping each row with mapper.  Pinned rows below the cursor are read first and, if the
+	 * page is not yet full, unpinned rows below the cursor fill the rest.
+	 */
+	private <T> List<T> readFeed(String columns, RowMapper<T> mapper, PostPage.Cursor cursor,
+	        int limit) {
+	    List<T> rows = new ArrayList<>();
+	    String query = "SELECT " + columns + " FROM Post WHERE isPinned = ? AND id < ? ORDER BY id DESC LIMIT ?";
+	    
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
+	        // Pinned posts come first, so they are only read while the cursor is still in them,
+	        // and not at all when the in-memory set says nothing is pinned
+	        if ((cursor == null || cursor.isPinned()) && pinned.size() > 0) {
+	            int below = cursor == null ? Integer.MAX_VALUE : cursor.getPostID();
+	            readFeedRange(pstmt, mapper, true, below, Math.min(limit, pinned.size()), rows);
+	        }
 	        
-	        // If at least one row was updated, return true (success)
-	        // If rowsUpdated is 0, the post ID probably doesn't exist
-	        return rowsUpdated > 0;
+	        // Then fill the rest of the page with unpinned posts
+	        if (rows.size() < limit) {
+	            int below = (cursor == null || cursor.isPinned())
+	                    ? Integer.MAX_VALUE : cursor.getPostID();
+	            readFeedRange(pstmt, mapper, false, below, limit - rows.size(), rows);
+	        }
 	    } catch (SQLException e) {
-	        // Print error and fall through to return false
 	        e.printStackTrace();
 	    }
+	    return rows;
+	}
+	
+	/*
+	 * Read up to limit rows with the given pin state and an id below the given id, newest
+	 * first, appending them to rows.
+	 */
+	private static <T> void readFeedRange(PreparedStatement pstmt, RowMapper<T> mapper,
+	        boolean pinned, int belowID, int limit, List<T> rows) throws SQLException {
+	    pstmt.setBoolean(1, pinned);
+	    pstmt.setInt(2, belowID);
+	    pstmt.setInt(3, limit);
+	    ResultSet rs = pstmt.executeQuery();
+	    while (rs.next()) {
+	        rows.add(mapper.mapRow(rs));
+	    }
+	}
+
+
+	/*******
+	 * <p> Method: searchPosts(String query, int limit) </p>
+	 * 
+	 * <p> Description: Returns the posts whose content contains every word of the query, using
+	 * the full-text index over Post.content.  Posts that contain the query as a phrase come
+	 * first, then the rest, newest first within each group.  The index is kept by triggers on
+	 * the Post table, so a post is searchable as soon as the write that made it commits.</p>
+	 * 
+	 * <p> The index is read a page of hits at a time (the search page size), keeping only the
+	 * ids of matching posts, so a common word never makes H2 gather every matching row at
+	 * once.  The posts are then ranked and cut to the limit in one query over those ids.</p>
+	 * 
+	 * @param query is the words to look for; case and punctuation are ignored
+	 * 
+	 * @param limit is the largest number of posts to return
+	 * 
+	 * @return the matching posts, best first; empty for a blank query
+	 * 
+	 * @throws SQLException if the database query fails
+	 */
+	public List<Post> searchPosts(String query, int limit) throws SQLException {
+	    List<Post> posts = new ArrayList<>();
+	    if (query == null || query.isBlank() || limit <= 0) return posts;
 	    
-	    // If we get here, update failed - return false
-	    return false;
+	    String rank = "SELECT " + POST_COLUMNS + " FROM Post WHERE id = ANY(?) "
+	            + "ORDER BY CASE WHEN LOWER(content) LIKE ? THEN 0 ELSE 1 END, id DESC LIMIT ?";
+	    
+	    try (Connection connection = pool.getConnection()) {
+	        Integer[] ids = fullTextMatches(connection, query, "POST");
+	        if (ids.length == 0) return posts;
+	        try (PreparedStatement pstmt = connection.prepareStatement(rank)) {
+	            pstmt.setObject(1, ids);
+	            pstmt.setString(2, phrasePattern(query));
+	            pstmt.setInt(3, limit);
+	            ResultSet rs = pstmt.executeQuery();
+	            while (rs.next()) {
+	                posts.add(unreadFlags.applyTo(POST_MAPPER.mapRow(rs)));
+	            }
+	        }
+	    }
+	    return posts;
+	}
+	
+	/*******
+	 * <p> Method: searchReplies(String query, int limit) </p>
+	 * 
+	 * <p> Description: Returns the replies whose content contains every word of the query, found
+	 * and ranked the same way as searchPosts.  Each reply carries its postID, so the caller can
+	 * open the thread it belongs to.</p>
+	 * 
+	 * @param query is the words to look for; case and punctuation are ignored
+	 * 
+	 * @param limit is the largest number of replies to return
+	 * 
+	 * @return the matching replies, best first; empty for a blank query
+	 * 
+	 * @throws SQLException if the database query fails
+	 */
+	public List<Reply> searchReplies(String query, int limit) throws SQLException {
+	    List<Reply> replies = new ArrayList<>();
+	    if (query == null || query.isBlank() || limit <= 0) return replies;
+	    
+	    String rank = "SELECT " + REPLY_COLUMNS + " FROM Reply WHERE id = ANY(?) "
+	            + "ORDER BY CASE WHEN LOWER(content) LIKE ? THEN 0 ELSE 1 END, id DESC LIMIT ?";
+	    
+	    try (Connection connection = pool.getConnection()) {
+	        Integer[] ids = fullTextMatches(connection, query, "REPLY");
+	        if (ids.length == 0) return replies;
+	        try (PreparedStatement pstmt = connection.prepareStatement(rank)) {
+	            pstmt.setObject(1, ids);
+	            pstmt.setString(2, phrasePattern(query));
+	            pstmt.setInt(3, limit);
+	            ResultSet rs = pstmt.executeQuery();
+	            while (rs.next()) {
+	                replies.add(REPLY_MAPPER.mapRow(rs));
+	            }
+	        }
+	    }
+	    return replies;
+	}
+	
+	/*
+	 * The ids of the rows of one table that the full-text index matches to the query.  The one
+	 * index covers Post and Reply together, so the hits are read a page at a time and those of
+	 * the other table skipped until a page comes back short.
+	 */
+	private Integer[] fullTextMatches(Connection connection, String query, String table)
+	        throws SQLException {
+	    java.util.Set<Integer> ids = new java.util.LinkedHashSet<>();
+	    String scan = "SELECT \"TABLE\", CAST(KEYS[1] AS INT) FROM FT_SEARCH_DATA(?, ?, ?)";
+	    try (PreparedStatement pstmt = connection.prepareStatement(scan)) {
+	        for (int offset = 0; ; offset += searchPageSize) {
+	            pstmt.setString(1, query.trim());
+	            pstmt.setInt(2, searchPageSize);
+	            pstmt.setInt(3, offset);
+	            int hits = 0;
+	            try (ResultSet rs = pstmt.executeQuery()) {
+	                while (rs.next()) {
+	                    hits++;
+	                    if (table.equals(rs.getString(1))) ids.add(rs.getInt(2));
+	                }
+	            }
+	            if (hits < searchPageSize) return ids.toArray(new Integer[0]);
+	        }
+	    }
+	}
+	
+	/*
+	 * A LIKE pattern that matches content containing the whole query as written, ignoring case.
+	 * The LIKE wildcards and the escape character are escaped so they match themselves.
+	 */
+	private static String phrasePattern(String query) {
+	    String escaped = query.trim().toLowerCase()
+	            .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+	    return "%" + escaped + "%";
+	}
+
+	/*******
+	 * <p> Method: filterPosts(String query, int limit) </p>
+	 * 
+	 * <p> Description: Returns the ids of the posts whose content matches the query, answered
+	 * from the in-memory word index without going to the database, for filtering as the user
+	 * types.  All words must match, "OR" separates alternatives, and a word ending in "*"
+	 * matches any word with that prefix.  The first call reads the whole board to build the
+	 * index; call loadContentIndex() ahead of time, off the JavaFX thread, to avoid that wait.</p>
+	 * 
+	 * @param query is the words to look for
+	 * 
+	 * @param limit is the largest number of ids to return
+	 * 
+	 * @return the ids of the matching posts, newest first
+	 * 
+	 * @throws SQLException if the index had to be built and the board could not be read
+	 * 
+	 * @see entityClasses.TextIndex
+	 */
+	public int[] filterPosts(String query, int limit) throws SQLException {
+	    contentIndex.load(this);
+	    return contentIndex.searchPosts(query, limit);
+	}
+	
+	/*******
+	 * <p> Method: filterReplies(String query, int limit) </p>
+	 * 
+	 * <p> Description: The same as filterPosts, for reply content.</p>
+	 * 
+	 * @param query is the words to look for
+	 * 
+	 * @param limit is the largest number of ids to return
+	 * 
+	 * @return the ids of the matching replies, newest first
+	 * 
+	 * @throws SQLException if the index had to be built and the board could not be read
+	 */
+	public int[] filterReplies(String query, int limit) throws SQLException {
+	    contentIndex.load(this);
+	    return contentIndex.searchReplies(query, limit);
+	}
+	
+	/*******
+	 * <p> Method: loadContentIndex() </p>
+	 * 
+	 * <p> Description: Reads the board into the word index used by filterPosts and
+	 * filterReplies, if that has not been done yet.  From then on every write keeps the index
+	 * current.</p>
+	 * 
+	 * @throws SQLException if the board cannot be read
+	 */
+	public void loadContentIndex() throws SQLException {
+	    contentIndex.load(this);
+	}
+	
+	/*******
+	 * <p> Method: isContentIndexLoaded() </p>
+	 * 
+	 * @return true once filterPosts and filterReplies can answer without reading the board
+	 */
+	public boolean isContentIndexLoaded() {
+	    return contentIndex.isLoaded();
+	}
+	
+	/*******
+	 * <p> Method: warmPostCache(int count) </p>
+	 * 
+	 * <p> Description: Reads the first count posts of the feed into the getPost cache in one
+	 * query, so that opening any of the threads a user sees first after logging in needs no
+	 * query of its own.  Used at startup while the login page is showing.</p>
+	 * 
+	 * @param count is the number of feed posts to cache; more than POST_CACHE_SIZE is wasted
+	 * 
+	 * @return the number of posts read
+	 */
+	public int warmPostCache(int count) {
+	    long changeCount = postCache.getChangeCount();
+	    List<Post> posts = readFeed(POST_COLUMNS, POST_MAPPER, null, Math.min(count, POST_CACHE_SIZE));
+	    for (Post post : posts) postCache.putIfUnchanged(post, changeCount);
+	    return posts.size();
+	}
+	
+	/*******
+	 * <p> Method: warmProfileCache(int count) </p>
+	 * 
+	 * <p> Description: Reads the profiles of up to count users into the profile cache in one
+	 * query, oldest accounts first.  Used at startup while the login page is showing.</p>
+	 * 
+	 * @param count is the number of profiles to cache; more than PROFILE_CACHE_SIZE is wasted
+	 * 
+	 * @return the number of profiles read
+	 */
+	public int warmProfileCache(int count) {
+	    long changeCount = profileCache.getChangeCount();
+	    String query = "SELECT " + RowMappers.PROFILE_COLUMNS + " FROM userDB ORDER BY id LIMIT ?";
+	    int read = 0;
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
+	        pstmt.setInt(1, Math.min(count, PROFILE_CACHE_SIZE));
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	            while (rs.next()) {
+	                profileCache.putIfUnchanged(RowMappers.PROFILE.mapRow(rs), changeCount);
+	                read++;
+	            }
+	        }
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	    }
+	    return read;
+	}
+
+	
+
+	
+
+	/*******
+	 * <p> Method: EditResult&lt;Post&gt; updatePost(int postID, int expectedVersion, String content) </p>
+	 * 
+	 * <p> Description: Replaces the content only if the post is still at the version the
+	 * editor read, moving it to the next version.  The check and the write are one UPDATE, so
+	 * no lock is held while the user types.  An archived post is brought back first, as a
+	 * reply to it would bring it back.</p>
+	 * 
+	 * @param postID is the post being edited
+	 * 
+	 * @param expectedVersion is getVersion() of the post the edit was made to
+	 * 
+	 * @param content is the new content
+	 * 
+	 * @return UPDATED with the new version, CONFLICT with the post as it now is, or NOT_FOUND
+	 * 
+	 * @throws SQLException if the database cannot be written
+	 */
+	public EditResult<Post> updatePost(int postID, int expectedVersion, String content) throws SQLException {
+	    String update = "UPDATE Post SET content = ?, lastActivity = CURRENT_TIMESTAMP, "
+	            + "version = version + 1 WHERE id = ? AND version = ?";
+	    
+	    try (Connection connection = pool.getConnection()) {
+	        connection.setAutoCommit(false);
+	        try {
+	            ArchivedThread restored = null;
+	            int updated = updateIfVersion(connection, update, content, postID, expectedVersion);
+	            if (updated == 0 && (restored = restoreThread(connection, postID)) != null) {
+	                updated = updateIfVersion(connection, update, content, postID, expectedVersion);
+	            }
+	            if (updated == 0) {
+	                // Put back anything restored and report what the other editor left
+	                connection.rollback();
+	                Post current = readPostRow(connection, postID);
+	                return current == null ? EditResult.notFound()
+	                        : EditResult.conflict(current.getVersion(), current);
+	            }
+	            connection.commit();
+	            if (restored != null) threadRestored(restored);
+	        } catch (SQLException e) {
+	            connection.rollback();
+	            throw e;
+	        }
+	    }
+	    postCache.update(postID, post -> {
+	        post.setContent(content);
+	        post.setVersion(expectedVersion + 1);
+	    });
+	    contentIndex.postWritten(postID, content);
+	    return EditResult.updated(expectedVersion + 1);
+	}
+	
+	/*
+	 * Run a compare-and-set UPDATE whose parameters are the content, the id, and the version
+	 * the row must still have.
+	 */
+	private static int updateIfVersion(Connection connection, String update, String content,
+	        int id, int expectedVersion) throws SQLException {
+	    try (PreparedStatement pstmt = connection.prepareStatement(update)) {
+	        pstmt.setString(1, content);
+	        pstmt.setInt(2, id);
+	        pstmt.setInt(3, expectedVersion);
+	        return pstmt.executeUpdate();
+	    }
+	}
+	
+	/*
+	 * The post an archived reply belongs to, or 0 if the reply is not archived.
+	 */
+	private static int archivedPostOfReply(Connection connection, int replyID) throws SQLException {
+	    try (PreparedStatement pstmt = connection.prepareStatement(
+	            "SELECT postID FROM ReplyArchive WHERE id = ?")) {
+	        pstmt.setInt(1, replyID);
+	        ResultSet rs = pstmt.executeQuery();
+	        return rs.next() ? rs.getInt(1) : 0;
+	    }
+	}
+	
+	/*
+	 * Read a reply from Reply, or from ReplyArchive if its thread has been archived, bypassing
+	 * the cache.
+	 */
+	private static Reply readReplyRow(Connection connection, int replyID) throws SQLException {
+	    for (String table : new String[] { "Reply", "ReplyArchive" }) {
+	        try (PreparedStatement pstmt = connection.prepareStatement(
+	                "SELECT " + REPLY_COLUMNS + " FROM " + table + " WHERE id = ?")) {
+	            pstmt.setInt(1, replyID);
+	            ResultSet rs = pstmt.executeQuery();
+	            if (rs.next()) return REPLY_MAPPER.mapRow(rs);
+	        }
+	    }
+	    return null;
+	}
+	
+	/*
+	 * Read a post from Post, or from PostArchive if it has been archived, bypassing the cache.
+	 */
+	private static Post readPostRow(Connection connection, int postID) throws SQLException {
+	    try (PreparedStatement pstmt = connection.prepareStatement(
+	            "SELECT " + POST_COLUMNS + " FROM Post WHERE id = ?")) {
+	        pstmt.setInt(1, postID);
+	        ResultSet rs = pstmt.executeQuery();
+	        if (rs.next()) return POST_MAPPER.mapRow(rs);
+	    }
+	    return readArchivedPost(connection, postID);
 	}
 
 	/*******
 	 * <p> Method: deletePost(int postID) </p>
 	 */
 	public boolean deletePost(int postID) throws SQLException {
-	    try {
+	    // Both deletes run on one borrowed connection inside one transaction, so another
+	    // session can never observe the replies gone but the post still present
+	    try (Connection connection = pool.getConnection()) {
+	        connection.setAutoCommit(false);
+	        
+	        // The word index needs the ids of the replies that are about to go
+	        List<Integer> replyIDs = new ArrayList<>();
+	        try (PreparedStatement pstmt = connection.prepareStatement("SELECT id FROM Reply WHERE postID = ?")) {
+	            pstmt.setInt(1, postID);
+	            ResultSet rs = pstmt.executeQuery();
+	            while (rs.next()) replyIDs.add(rs.getInt(1));
+	        }
+	        
 	        // STEP 1: Delete all replies associated with this post
 	        // This must happen first due to foreign key constraints
 	        String deleteReplies = "DELETE FROM Reply WHERE postID = ?";
@@ -340,6 +1079,17 @@ public class Database {
 	            // Execute delete and get number of rows deleted
 	            int rowsDeleted = pstmt.executeUpdate();
 	            
+	            // A post that is not live may be archived; delete it from the archive instead
+	            if (rowsDeleted == 0) {
+	                executeUpdate(connection, "DELETE FROM ReplyArchive WHERE postID = ?", postID);
+	                rowsDeleted = executeUpdate(connection, "DELETE FROM PostArchive WHERE id = ?", postID);
+	            }
+	            connection.commit();
+	            postCache.invalidate(postID);
+	            replyCache.postChanged(postID);
+	            pinned.remove(postID);		// Its pin slot went with it
+	            if (rowsDeleted > 0) contentIndex.postDeleted(postID, replyIDs);
+	            
 	            // If at least one row (the post) was deleted, return true
 	            return rowsDeleted > 0;
 	        }
@@ -356,32 +1106,67 @@ public class Database {
 
 	/*******
 	 * <p> Method: createReply(int postID, String author, String content) </p>
+	 * 
+	 * <p> Description: The reply and the post's replyCount and uniqueResponderCount change in one
+	 * transaction.  The post row is updated first, so its lock is held while this author's
+	 * earlier replies are counted and two replies to the same post cannot miscount.</p>
 	 */
 	
 	public int createReply(int postID, String author, String content, String authorRole) throws SQLException {
-	    String insertReply = "INSERT INTO Reply (postID, author, content, authorRole) VALUES (?, ?, ?, ?)";
+	    String countReply = "UPDATE Post SET replyCount = replyCount + 1, lastActivity = CURRENT_TIMESTAMP, "
+	            + "lastReplyTimestamp = ? WHERE id = ?";
+	    String countByAuthor = "SELECT COUNT(*) FROM Reply WHERE postID = ? AND author = ?";
+	    String insertReply = "INSERT INTO Reply (postID, author, content, authorRole, postedOn) VALUES (?, ?, ?, ?, ?)";
+	    String countResponder = "UPDATE Post SET uniqueResponderCount = uniqueResponderCount + 1 WHERE id = ?";
+	    Timestamp postedOn = new Timestamp(System.currentTimeMillis());
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(insertReply,
-	            Statement.RETURN_GENERATED_KEYS)) {
-	        
-	        pstmt.setInt(1, postID);
-	        pstmt.setString(2, author);
-	        pstmt.setString(3, content);
-	        pstmt.setString(4, authorRole);
-	        
-	        int rowsInserted = pstmt.executeUpdate();
-	        
-	        if (rowsInserted > 0) {
-	            ResultSet generatedKeys = pstmt.getGeneratedKeys();
+	    try (Connection connection = pool.getConnection()) {
+	        connection.setAutoCommit(false);
+	        try {
+	            // No live post to reply to: bring the thread back if it was archived
+	            ArchivedThread restored = null;
+	            if (setLastReply(connection, countReply, postedOn, postID) == 0) {
+	                restored = restoreThread(connection, postID);
+	                if (restored == null || setLastReply(connection, countReply, postedOn, postID) == 0) {
+	                    connection.rollback();
+	                    return -1;
+	                }
+	            }
+	            boolean newResponder = countRepliesBy(connection, countByAuthor, postID, author) == 0;
 	            
-	            if (generatedKeys.next()) {
-	                int replyId = generatedKeys.getInt(1);
-	                
-	                // NEW: Mark the parent post as having unread replies
-	                markPostAsHavingNewReply(postID);
-	                
-	                return replyId;
+	            int replyId = -1;
+	            try (PreparedStatement pstmt = connection.prepareStatement(insertReply,
+	                    Statement.RETURN_GENERATED_KEYS)) {
+	                pstmt.setInt(1, postID);
+	                pstmt.setString(2, author);
+	                pstmt.setString(3, content);
+	                pstmt.setString(4, authorRole);
+	                pstmt.setTimestamp(5, postedOn);
+	                pstmt.executeUpdate();
+	                ResultSet generatedKeys = pstmt.getGeneratedKeys();
+	                if (generatedKeys.next()) replyId = generatedKeys.getInt(1);
 	            }
+	            if (newResponder) executeUpdate(connection, countResponder, postID);
+	            connection.commit();
+	            if (restored != null) threadRestored(restored);
+	            
+	            postCache.update(postID, post -> {
+	                post.setReplyCount(post.getReplyCount() + 1);
+	                if (newResponder) post.setUniqueResponderCount(post.getUniqueResponderCount() + 1);
+	                post.setLastReplyTimestamp(postedOn);
+	            });
+	            
+	            // NEW: Mark the parent post as having unread replies
+	            markPostAsHavingNewReply(postID);
+	            
+	            // Add the reply to the cached thread, if it is cached
+	            replyCache.replyAdded(new Reply(replyId, postID, author, content, authorRole));
+	            contentIndex.replyWritten(replyId, content);
+	            
+	            return replyId;
+	        } catch (SQLException e) {
+	            connection.rollback();
+	            throw e;
 	        }
 	    } catch (SQLException e) {
 	        e.printStackTrace();
@@ -390,22 +1175,132 @@ public class Database {
 	    return -1;
 	}
 	
+	
+	/*
+	 * Run an UPDATE or DELETE whose only parameter is a row id.  Returns the number of rows
+	 * changed.
+	 */
+	private static int executeUpdate(Connection connection, String update, int id)
+	        throws SQLException {
+	    try (PreparedStatement pstmt = connection.prepareStatement(update)) {
+	        pstmt.setInt(1, id);
+	        return pstmt.executeUpdate();
+	    }
+	}
+	
+	
+	/*
+	 * Run an UPDATE of a post whose parameters are its new last-reply time, which may be null,
+	 * and its id.
+	 */
+	private static int setLastReply(Connection connection, String update, Timestamp lastReply,
+	        int postID) throws SQLException {
+	    try (PreparedStatement pstmt = connection.prepareStatement(update)) {
+	        pstmt.setTimestamp(1, lastReply);
+	        pstmt.setInt(2, postID);
+	        return pstmt.executeUpdate();
+	    }
+	}
+	
+	
+	/*
+	 * Count the replies one author has made to a post.
+	 */
+	private static int countRepliesBy(Connection connection, String query, int postID, String author)
+	        throws SQLException {
+	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	        pstmt.setInt(1, postID);
+	        pstmt.setString(2, author);
+	        ResultSet rs = pstmt.executeQuery();
+	        return rs.next() ? rs.getInt(1) : 0;
+	    }
+	}
+	
 	/**
 	 * Marks a post as having new unread replies.
-	 * Called automatically when a reply is created.
+	 * Called automatically when a reply is created.  The UPDATE is left to the
+	 * write-behind buffer, which coalesces it with every other reply to and read
+	 * of the same post before the next flush.  The last-reply time is not
+	 * buffered; createReply has already written it.
 	 * 
 	 * @param postID the ID of the post that received a new reply
-	 * @throws SQLException if database update fails
 	 */
-	private void markPostAsHavingNewReply(int postID) throws SQLException {
-	    String updatePost = "UPDATE Post SET hasUnreadReplies = TRUE, lastReplyTimestamp = CURRENT_TIMESTAMP WHERE id = ?";
+	private void markPostAsHavingNewReply(int postID) {
+	    unreadFlags.recordReply(postID);
+	    postCache.update(postID, post -> post.setHasUnreadReplies(true));
+	}
+	
+	
+	/*******
+	 * <p> Method: int[] createRepliesBatch(List&lt;Reply&gt; replies) </p>
+	 * 
+	 * <p> Description: Inserts many replies at once.  The rows are sent in JDBC batches of
+	 * INSERT_BATCH_SIZE and committed in a single transaction together with the unread-reply
+	 * flags, reply counters, and last-activity times of the posts they answer.  Those are set with one set-based UPDATE
+	 * over the distinct post ids rather than one markPostAsHavingNewReply round trip per reply.  Only the
+	 * post id, author, content, and author role of each Reply are used.</p>
+	 * 
+	 * @param replies is the replies to create
+	 * 
+	 * @return the generated reply ids, in the same order as replies
+	 * 
+	 * @throws SQLException if any insert fails (for example, a reply to a post that does not
+	 * 		exist); the whole batch is rolled back
+	 */
+	public int[] createRepliesBatch(List<Reply> replies) throws SQLException {
+	    String insertReply = "INSERT INTO Reply (postID, author, content, authorRole) VALUES (?, ?, ?, ?)";
+	    String updatePosts = "UPDATE Post SET hasUnreadReplies = TRUE, lastReplyTimestamp = CURRENT_TIMESTAMP, "
+	            + "lastActivity = CURRENT_TIMESTAMP, replyCount = (SELECT COUNT(*) FROM Reply WHERE Reply.postID = Post.id), "
+	            + "uniqueResponderCount = (SELECT COUNT(DISTINCT author) FROM Reply WHERE Reply.postID = Post.id) "
+	            + "WHERE id = ANY(?)";
+	    int[] ids = new int[replies.size()];
+	    java.util.Set<Integer> postIDs = new java.util.LinkedHashSet<>();
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(updatePost)) {
-	        pstmt.setInt(1, postID);
-	        pstmt.executeUpdate();
-	    } catch (SQLException e) {
-	        e.printStackTrace();
+	    // Write any buffered flag changes first so an older pending read cannot later
+	    // clear the flags this batch sets
+	    unreadFlags.flush();
+	    
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(insertReply,
+	            Statement.RETURN_GENERATED_KEYS);
+	         PreparedStatement markPosts = connection.prepareStatement(updatePosts)) {
+	        connection.setAutoCommit(false);
+	        try {
+	            int sent = 0;
+	            for (int i = 0; i < replies.size(); i++) {
+	                Reply reply = replies.get(i);
+	                pstmt.setInt(1, reply.getPostID());
+	                pstmt.setString(2, reply.getAuthor());
+	                pstmt.setString(3, reply.getContent());
+	                pstmt.setString(4, reply.getAuthorRole());
+	                pstmt.addBatch();
+	                postIDs.add(reply.getPostID());
+	                if ((i + 1) % INSERT_BATCH_SIZE == 0 || i == replies.size() - 1) {
+	                    sent = executeInsertBatch(pstmt, ids, sent);
+	                }
+	            }
+	            
+	            // Every affected post now has unread replies and new counts
+	            if (!postIDs.isEmpty()) {
+	                markPosts.setObject(1, postIDs.toArray(new Integer[0]));
+	                markPosts.executeUpdate();
+	            }
+	            connection.commit();
+	            for (int postID : postIDs) {
+	                postCache.invalidate(postID);
+	                replyCache.postChanged(postID);
+	            }
+	            for (int i = 0; i < replies.size(); i++) {
+	                contentIndex.replyWritten(ids[i], replies.get(i).getContent());
+	            }
+	        } catch (SQLException | RuntimeException e) {
+	            connection.rollback();
+	            throw e;
+	        } finally {
+	            connection.setAutoCommit(true);
+	        }
 	    }
+	    return ids;
 	}
 	
 	/**
@@ -418,7 +1313,15 @@ public class Database {
 	public int getUnreadReplyCount(String username) throws SQLException {
 	    String query = "SELECT COUNT(*) FROM Post WHERE author = ? AND hasUnreadReplies = TRUE";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    // Counting needs the flags in the table, so write any that are still buffered
+	    try {
+	        unreadFlags.flush();
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	    }
+	    
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, username);
 	        ResultSet rs = pstmt.executeQuery();
 	        
@@ -434,49 +1337,29 @@ public class Database {
 	
 	/**
 	 * Marks all replies for a specific post as read by clearing the unread flag.
-	 * Called when the post author views the replies.
+	 * Called when the post author views the replies.  Like new replies, the change
+	 * is buffered and written by the write-behind flush.
 	 * 
 	 * @param postID the ID of the post whose replies are being viewed
 	 * @throws SQLException if database update fails
 	 */
 	public void markRepliesAsRead(int postID) throws SQLException {
-	    String updatePost = "UPDATE Post SET hasUnreadReplies = FALSE WHERE id = ?";
-	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(updatePost)) {
-	        pstmt.setInt(1, postID);
-	        pstmt.executeUpdate();
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
+	    unreadFlags.recordRead(postID);
+	    postCache.update(postID, post -> post.setHasUnreadReplies(false));
 	}
 
 	/*******
 	 * <p> Method: getReply(int replyID) </p>
 	 * 
+	 * <p> Description: Like getPost, a reply whose thread has been archived is read from
+	 * ReplyArchive.</p>
+	 * 
 	 * @return a Reply object if found, null if not found
 	 */
 	public Reply getReply(int replyID) throws SQLException {
-	    // SQL query to get all columns for a specific reply
-	    String query = "SELECT * FROM Reply WHERE id = ?";
-	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-	        // Set the reply ID we're looking for
-	        pstmt.setInt(1, replyID);
-	        
-	        // Execute query
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        // If we found the reply
-	        if (rs.next()) {
-	            // Create and return a Reply object with all the data including role
-	            return new Reply(
-	                rs.getInt("id"),              // Reply's unique ID
-	                rs.getInt("postID"),          // ID of post this reply belongs to
-	                rs.getString("author"),       // Username of reply author
-	                rs.getString("content"),      // Reply text
-	                rs.getString("authorRole")    // Role of author
-	            );
-	        }
+	    try (Connection connection = pool.getConnection()) {
+	        // Look in Reply first, then in ReplyArchive
+	        return readReplyRow(connection, replyID);
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -491,33 +1374,41 @@ public class Database {
 	 * @return a List of Reply objects for the post
 	 */
 	public List<Reply> getRepliesByPost(int postID) throws SQLException {
+	    // A thread that has not changed since it was last opened comes from the cache
+	    List<Reply> cached = replyCache.get(postID);
+	    if (cached != null) {
+	        return cached;
+	    }
+	    ReplyListCache.Stamp stamp = replyCache.stamp(postID);
+	    
 	    // Create empty list for replies
 	    List<Reply> replies = new ArrayList<>();
 	    
-	    // SQL query with WHERE clause to filter by post ID
-	    String query = "SELECT * FROM Reply WHERE postID = ?";
+	    // SQL query with WHERE clause to filter by post ID, oldest reply first.  A thread is
+	    // either live or archived, so the archive is only read when the post is not live, and
+	    // in the same round trip
+	    String query = "SELECT " + REPLY_COLUMNS + " FROM Reply WHERE postID = ? "
+	            + "UNION ALL SELECT " + REPLY_COLUMNS + " FROM ReplyArchive WHERE postID = ? "
+	            + "AND NOT EXISTS (SELECT 1 FROM Post WHERE id = ?) ORDER BY id";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        // Set which post's replies we want
 	        pstmt.setInt(1, postID);
+	        pstmt.setInt(2, postID);
+	        pstmt.setInt(3, postID);
 	        
 	        // Execute query
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        // Loop through all replies for this post
 	        while (rs.next()) {
-	            // Create Reply object from database row
-	            Reply reply = new Reply(
-	                rs.getInt("id"),
-	                rs.getInt("postID"),
-	                rs.getString("author"),
-	                rs.getString("content"),
-	                rs.getString("authorRole")
-	            );
-	            
-	            // Add to list
-	            replies.add(reply);
+	            // Create a Reply object from the row and add it to the list
+	            replies.add(REPLY_MAPPER.mapRow(rs));
 	        }
+	        
+	        // Keep the thread for next time, unless a reply was written during the load
+	        replyCache.put(stamp, replies);
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -531,31 +1422,25 @@ public class Database {
 	 * <p> Method: getAllReplies() </p>
 	 * 
 	 * @return a List of Reply objects for all replies
+	 * 
+	 * @see #streamAllReplies()
 	 */
 	public List<Reply> getAllReplies() throws SQLException {
 		// Create empty list to store all replies
 	    List<Reply> replies = new ArrayList<>();
 	    
 	    // SQL query to get ALL replies - no WHERE clause means get everything
-	    String query = "SELECT * FROM Reply";
+	    String query = "SELECT " + REPLY_COLUMNS + " FROM Reply";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        // Execute the query - no parameters to set since we want all replies
 	        ResultSet rs = pstmt.executeQuery();
 	        
 	        // Loop through every reply in the database
 	        while (rs.next()) {
-	            // Create a Reply object from the current row's data
-	            Reply reply = new Reply(
-	                rs.getInt("id"),              // Reply's unique ID
-	                rs.getInt("postID"),          // Which post this reply belongs to
-	                rs.getString("author"),       // Username of reply creator
-	                rs.getString("content"),      // Reply text content
-	                rs.getString("authorRole")    // Role of author when reply was created
-	            );
-	            
-	            // Add this reply to our list
-	            replies.add(reply);
+	            // Create a Reply object from the current row's data and add it to our list
+	            replies.add(REPLY_MAPPER.mapRow(rs));
 	        }
 	    } catch (SQLException e) {
 	        // Print any errors that occur
@@ -568,49 +1453,477 @@ public class Database {
 
 
 	/*******
-	 * <p> Method: updateReply(int replyID, String content) </p>
+	 * <p> Method: Stream&lt;Post&gt; streamAllPosts() </p>
+	 * 
+	 * <p> Description: Streams every post in the same order as getAllPosts() without building a
+	 * list first, fetching getStreamFetchSize() rows at a time.  The stream holds a pooled
+	 * connection until it is closed or fully read, so a caller that may stop early (findFirst,
+	 * limit, an exception) must close it, ideally with try-with-resources:</p>
+	 * 
+	 * <pre>
+	 * try (Stream&lt;Post&gt; posts = database.streamAllPosts()) {
+	 *     posts.filter(...).forEach(...);
+	 * }
+	 * </pre>
+	 * 
+	 * <p> A database error part way through is thrown as an IllegalStateException wrapping the
+	 * SQLException.</p>
+	 * 
+	 * @return a lazily evaluated stream of all posts
+	 * 
+	 * @throws SQLException if the query cannot be started
+	 */
+	public Stream<Post> streamAllPosts() throws SQLException {
+		// Rows are not overlaid one by one, so write any buffered unread flags first
+		unreadFlags.flush();
+		return RowStream.open(pool, "SELECT " + POST_COLUMNS
+				+ " FROM Post ORDER BY isPinned DESC, id DESC", streamFetchSize, POST_MAPPER);
+	}
+	
+	
+	/*******
+	 * <p> Method: Stream&lt;Reply&gt; streamAllReplies() </p>
+	 * 
+	 * <p> Description: Streams every reply, in id order, without building a list first.  The
+	 * same closing rules as streamAllPosts() apply.</p>
+	 * 
+	 * @return a lazily evaluated stream of all replies
+	 * 
+	 * @throws SQLException if the query cannot be started
+	 */
+	public Stream<Reply> streamAllReplies() throws SQLException {
+		return RowStream.open(pool, "SELECT " + REPLY_COLUMNS + " FROM Reply ORDER BY id", streamFetchSize,
+				REPLY_MAPPER);
+	}
+	
+	
+	/*******
+	 * <p> Method: int forEachPost(RowCallback&lt;Post&gt; callback) </p>
+	 * 
+	 * <p> Description: Pushes every post, in feed order, to the callback one at a time until the
+	 * callback returns false.  The connection is always released before this method returns.</p>
+	 * 
+	 * @param callback receives each post and returns false to stop the scan
+	 * 
+	 * @return the number of posts handed to the callback
+	 * 
+	 * @throws SQLException if the query cannot be started
+	 */
+	public int forEachPost(RowCallback<Post> callback) throws SQLException {
+		try (Stream<Post> posts = streamAllPosts()) {
+			return forEachRow(posts, callback);
+		}
+	}
+	
+	
+	/*******
+	 * <p> Method: int forEachReply(RowCallback&lt;Reply&gt; callback) </p>
+	 * 
+	 * <p> Description: Pushes every reply, in id order, to the callback one at a time until the
+	 * callback returns false.  The connection is always released before this method returns.</p>
+	 * 
+	 * @param callback receives each reply and returns false to stop the scan
+	 * 
+	 * @return the number of replies handed to the callback
+	 * 
+	 * @throws SQLException if the query cannot be started
+	 */
+	public int forEachReply(RowCallback<Reply> callback) throws SQLException {
+		try (Stream<Reply> replies = streamAllReplies()) {
+			return forEachRow(replies, callback);
+		}
+	}
+	
+	
+	/*******
+	 * <p> Method: int forEachRepliedPostAuthor(String replyAuthor, RowCallback&lt;String&gt; callback) </p>
+	 * 
+	 * <p> Description: Pushes the author of each post that replyAuthor has replied to, live or
+	 * archived, each author once, until the callback returns false.  Every reply is joined to
+	 * its post in one streamed query, so no post is read on its own.</p>
+	 * 
+	 * @param replyAuthor is the user whose replies are followed
+	 * 
+	 * @param callback receives each post author and returns false to stop the scan
+	 * 
+	 * @return the number of authors handed to the callback
+	 * 
+	 * @throws SQLException if the query cannot be started
+	 */
+	public int forEachRepliedPostAuthor(String replyAuthor, RowCallback<String> callback)
+			throws SQLException {
+		String query = "SELECT p.author FROM Reply r JOIN Post p ON p.id = r.postID WHERE r.author = ? "
+				+ "UNION SELECT p.author FROM ReplyArchive r JOIN PostArchive p ON p.id = r.postID "
+				+ "WHERE r.author = ?";
+		try (Stream<String> authors = RowStream.open(pool, query, streamFetchSize,
+				rs -> rs.getString(1), replyAuthor, replyAuthor)) {
+			return forEachRow(authors, callback);
+		}
+	}
+	
+	
+	/*
+	 * Hand rows to the callback until it returns false or the rows run out.
+	 */
+	private static <T> int forEachRow(Stream<T> rows, RowCallback<T> callback) {
+		int count = 0;
+		java.util.Iterator<T> it = rows.iterator();
+		while (it.hasNext()) {
+			count++;
+			if (!callback.accept(it.next())) break;
+		}
+		return count;
+	}
+	
+	
+	/*******
+	 * <p> Method: void setStreamFetchSize(int fetchSize) </p>
+	 * 
+	 * <p> Description: Set how many rows the stream and forEach scans fetch from the database
+	 * at a time.  Larger values mean fewer round trips; smaller values mean less memory.</p>
+	 * 
+	 * @param fetchSize is the number of rows per fetch (at least 1)
+	 */
+	public void setStreamFetchSize(int fetchSize) {
+		if (fetchSize < 1) throw new IllegalArgumentException("Fetch size must be at least 1");
+		this.streamFetchSize = fetchSize;
+	}
+	
+	
+	/*******
+	 * <p> Method: void setSearchPageSize(int pageSize) </p>
+	 * 
+	 * <p> Description: Set how many full-text hits searchPosts and searchReplies read from the
+	 * index at a time.  Smaller pages hold less at once; larger pages mean fewer queries.</p>
+	 * 
+	 * @param pageSize is the number of hits per page (at least 1)
+	 */
+	public void setSearchPageSize(int pageSize) {
+		if (pageSize < 1) throw new IllegalArgumentException("Page size must be at least 1");
+		this.searchPageSize = pageSize;
+	}
+	
+	
+	/*******
+	 * <p> Method: int getStreamFetchSize() </p>
+	 * 
+	 * @return the number of rows the stream and forEach scans fetch at a time
+	 */
+	public int getStreamFetchSize() {
+		return streamFetchSize;
+	}
+	
+	
+	
+	
+	/*******
+	 * <p> Method: EditResult&lt;Reply&gt; updateReply(int replyID, int expectedVersion, String content) </p>
+	 * 
+	 * <p> Description: Replaces the content only if the reply is still at the version the
+	 * editor read, as {@link #updatePost(int, int, String)} does for posts.  A reply in an
+	 * archived thread brings the thread back first, in the same transaction, as editing its
+	 * post would.</p>
+	 * 
+	 * @param replyID is the reply being edited
+	 * 
+	 * @param expectedVersion is getVersion() of the reply the edit was made to
+	 * 
+	 * @param content is the new content
+	 * 
+	 * @return UPDATED with the new version, CONFLICT with the reply as it now is, or NOT_FOUND
+	 * 
+	 * @throws SQLException if the database cannot be written
 	 */
-	public boolean updateReply(int replyID, String content) throws SQLException {
-	    // SQL UPDATE statement - changes content for a specific reply
-	    String updateReply = "UPDATE Reply SET content = ? WHERE id = ?";
+	public EditResult<Reply> updateReply(int replyID, int expectedVersion, String content) throws SQLException {
+	    String update = "UPDATE Reply SET content = ?, version = version + 1 WHERE id = ? AND version = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(updateReply)) {
-	        // Set first ? to the new content text
-	        pstmt.setString(1, content);
-	        
-	        // Set second ? to the ID of the reply we're updating
-	        pstmt.setInt(2, replyID);
-	        
-	        // Execute the update and get number of rows affected
-	        int rowsUpdated = pstmt.executeUpdate();
-	        
-	        // Return true if at least one row was updated
-	        // If 0 rows updated, the reply ID probably doesn't exist
-	        return rowsUpdated > 0;
+	    try (Connection connection = pool.getConnection()) {
+	        connection.setAutoCommit(false);
+	        try {
+	            ArchivedThread restored = null;
+	            int updated = updateIfVersion(connection, update, content, replyID, expectedVersion);
+	            if (updated == 0) {
+	                int archivedPostID = archivedPostOfReply(connection, replyID);
+	                if (archivedPostID > 0 && (restored = restoreThread(connection, archivedPostID)) != null) {
+	                    updated = updateIfVersion(connection, update, content, replyID, expectedVersion);
+	                }
+	            }
+	            if (updated == 0) {
+	                // Put back anything restored and report what the other editor left
+	                connection.rollback();
+	                Reply current = readReplyRow(connection, replyID);
+	                return current == null ? EditResult.notFound()
+	                        : EditResult.conflict(current.getVersion(), current);
+	            }
+	            executeUpdate(connection, TOUCH_POST_OF_REPLY, replyID);
+	            connection.commit();
+	            if (restored != null) threadRestored(restored);
+	        } catch (SQLException e) {
+	            connection.rollback();
+	            throw e;
+	        }
+	    }
+	    replyCache.replyUpdated(replyID, content);
+	    contentIndex.replyWritten(replyID, content);
+	    return EditResult.updated(expectedVersion + 1);
+	}
+
+	/*******
+	 * <p> Method: int archiveIdlePosts(Timestamp idleSince, int limit) </p>
+	 * 
+	 * <p> Description: Moves up to limit posts that have had no activity since idleSince,
+	 * with their replies, from Post and Reply into PostArchive and ReplyArchive, in one
+	 * transaction.  Pinned posts are never archived.  The live tables then hold only the threads
+	 * people are using, so the feed, the counters, and the caches work on a small, hot set of
+	 * rows.  Archived threads drop out of the feed and the searches, but getPost and
+	 * getRepliesByPost still find them, and a reply to one brings the thread back.</p>
+	 * 
+	 * <p> The posts are locked as they are chosen, so a reply that arrives during the move
+	 * waits for it and then restores the thread.  An unread flag still buffered for a moved
+	 * post is written to PostArchive by the next flush, however close to the move it was
+	 * recorded.</p>
+	 * 
+	 * @param idleSince is the time before which a post's last activity must fall
+	 * 
+	 * @param limit is the most posts to move; the PostArchiver calls this repeatedly
+	 * 
+	 * @return the number of posts archived
+	 * 
+	 * @throws SQLException if the move fails; nothing is moved
+	 */
+	public int archiveIdlePosts(Timestamp idleSince, int limit) throws SQLException {
+	    List<Integer> postIDs = new ArrayList<>();
+	    java.util.Map<Integer, List<Integer>> replyIDs = new java.util.HashMap<>();
+	    try (Connection connection = pool.getConnection()) {
+	        connection.setAutoCommit(false);
+	        try {
+	            try (PreparedStatement pstmt = connection.prepareStatement("SELECT id FROM Post "
+	                    + "WHERE isPinned = FALSE AND lastActivity < ? ORDER BY id LIMIT ? FOR UPDATE")) {
+	                pstmt.setTimestamp(1, idleSince);
+	                pstmt.setInt(2, limit);
+	                ResultSet rs = pstmt.executeQuery();
+	                while (rs.next()) postIDs.add(rs.getInt(1));
+	            }
+	            if (postIDs.isEmpty()) {
+	                connection.rollback();
+	                return 0;
+	            }
+	            
+	            // One array parameter keeps the SQL text, and so the cached statements, the same
+	            // whatever the batch size
+	            Integer[] ids = postIDs.toArray(new Integer[0]);
+	            try (PreparedStatement pstmt = connection.prepareStatement(
+	                    "SELECT id, postID FROM Reply WHERE postID = ANY(?)")) {
+	                pstmt.setObject(1, ids);
+	                ResultSet rs = pstmt.executeQuery();
+	                while (rs.next()) replyIDs.computeIfAbsent(rs.getInt(2), id -> new ArrayList<>()).add(rs.getInt(1));
+	            }
+	            for (String move : new String[] {
+	                    "INSERT INTO ReplyArchive (" + REPLY_COLUMNS + ", postedOn) SELECT " + REPLY_COLUMNS
+	                            + ", postedOn FROM Reply WHERE postID = ANY(?)",
+	                    "DELETE FROM Reply WHERE postID = ANY(?)",
+	                    "INSERT INTO PostArchive (" + POST_COLUMNS + ", lastActivity) SELECT " + POST_COLUMNS
+	                            + ", lastActivity FROM Post WHERE id = ANY(?)",
+	                    "DELETE FROM Post WHERE id = ANY(?)" }) {
+	                try (PreparedStatement pstmt = connection.prepareStatement(move)) {
+	                    pstmt.setObject(1, ids);
+	                    pstmt.executeUpdate();
+	                }
+	            }
+	            connection.commit();
+	        } catch (SQLException e) {
+	            connection.rollback();
+	            throw e;
+	        } finally {
+	            connection.setAutoCommit(true);
+	        }
+	    }
+	    
+	    // The cached copies are of live rows, and the word index covers only the live board
+	    for (int postID : postIDs) {
+	        postCache.invalidate(postID);
+	        replyCache.postChanged(postID);
+	        contentIndex.postDeleted(postID, replyIDs.getOrDefault(postID, List.of()));
+	    }
+	    return postIDs.size();
+	}
+	
+	
+	/*******
+	 * <p> Method: boolean unarchivePost(int postID) </p>
+	 * 
+	 * <p> Description: Moves an archived thread back into the live tables, as if it had just
+	 * been active.</p>
+	 * 
+	 * @param postID is the id of the archived post
+	 * 
+	 * @return true if the post was archived and is now live
+	 */
+	public boolean unarchivePost(int postID) {
+	    try (Connection connection = pool.getConnection()) {
+	        connection.setAutoCommit(false);
+	        try {
+	            ArchivedThread thread = restoreThread(connection, postID);
+	            connection.commit();
+	            if (thread == null) return false;
+	            threadRestored(thread);
+	            return true;
+	        } catch (SQLException e) {
+	            connection.rollback();
+	            throw e;
+	        } finally {
+	            connection.setAutoCommit(true);
+	        }
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
-	    
-	    // Update failed
 	    return false;
 	}
-
+	
+	
+	/*******
+	 * <p> Method: int getArchivedPostCount() </p>
+	 * 
+	 * @return the number of posts in the archive
+	 */
+	public int getArchivedPostCount() {
+	    try (Connection connection = pool.getConnection();
+	         Statement statement = connection.createStatement()) {
+	        ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM PostArchive");
+	        if (rs.next()) return rs.getInt(1);
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	    }
+	    return 0;
+	}
+	
+	
+	/*
+	 * An archived thread that restoreThread has put back, with the content the word index needs.
+	 */
+	private static final class ArchivedThread {
+	    final int postID;
+	    final String content;
+	    final java.util.Map<Integer, String> replies = new java.util.LinkedHashMap<>();
+	    
+	    ArchivedThread(int postID, String content) {
+	        this.postID = postID;
+	        this.content = content;
+	    }
+	}
+	
+	/*
+	 * Move an archived post and its replies back into Post and Reply on the caller's
+	 * transaction.  Returns null, changing nothing, if the post is not archived.
+	 */
+	private ArchivedThread restoreThread(Connection connection, int postID) throws SQLException {
+	    ArchivedThread thread;
+	    try (PreparedStatement pstmt = connection.prepareStatement("SELECT content FROM PostArchive WHERE id = ?")) {
+	        pstmt.setInt(1, postID);
+	        ResultSet rs = pstmt.executeQuery();
+	        if (!rs.next()) return null;
+	        thread = new ArchivedThread(postID, rs.getString(1));
+	    }
+	    try (PreparedStatement pstmt = connection.prepareStatement("SELECT id, content FROM ReplyArchive WHERE postID = ? ORDER BY id")) {
+	        pstmt.setInt(1, postID);
+	        ResultSet rs = pstmt.executeQuery();
+	        while (rs.next()) thread.replies.put(rs.getInt(1), rs.getString(2));
+	    }
+	    executeUpdate(connection, "INSERT INTO Post (" + POST_COLUMNS + ", lastActivity) SELECT "
+	            + POST_COLUMNS + ", CURRENT_TIMESTAMP FROM PostArchive WHERE id = ?", postID);
+	    executeUpdate(connection, "INSERT INTO Reply (" + REPLY_COLUMNS + ", postedOn) SELECT " + REPLY_COLUMNS
+	            + ", postedOn FROM ReplyArchive WHERE postID = ?", postID);
+	    executeUpdate(connection, "DELETE FROM ReplyArchive WHERE postID = ?", postID);
+	    executeUpdate(connection, "DELETE FROM PostArchive WHERE id = ?", postID);
+	    return thread;
+	}
+	
+	/*
+	 * After a restore commits: drop the archived copies from the caches and index the thread.
+	 */
+	private void threadRestored(ArchivedThread thread) {
+	    postCache.invalidate(thread.postID);
+	    replyCache.postChanged(thread.postID);
+	    contentIndex.postWritten(thread.postID, thread.content);
+	    thread.replies.forEach(contentIndex::replyWritten);
+	}
+	
+	/*
+	 * Read an archived post, or return null if it is not archived either.
+	 */
+	private static Post readArchivedPost(Connection connection, int postID) throws SQLException {
+	    try (PreparedStatement pstmt = connection.prepareStatement(
+	            "SELECT " + POST_COLUMNS + " FROM PostArchive WHERE id = ?")) {
+	        pstmt.setInt(1, postID);
+	        ResultSet rs = pstmt.executeQuery();
+	        return rs.next() ? POST_MAPPER.mapRow(rs) : null;
+	    }
+	}
+	
+	
 	/*******
 	 * <p> Method: deleteReply(int replyID) </p>
+	 * 
+	 * <p> Description: The reply is removed, its post's counters are lowered, and the post's
+	 * last-reply time is moved back to its newest remaining reply, in one transaction, holding
+	 * the post row's lock as createReply does.</p>
 	 */
 	public boolean deleteReply(int replyID) throws SQLException {
+	    String findReply = "SELECT postID, author FROM Reply WHERE id = ?";
+	    String latestReply = "SELECT MAX(postedOn) FROM Reply WHERE postID = ?";
+	    String resetLastReply = "UPDATE Post SET lastReplyTimestamp = ? WHERE id = ?";
+	    String uncountReply = "UPDATE Post SET replyCount = replyCount - 1 WHERE id = ?";
 	    // SQL DELETE statement - removes one reply by ID
 	    String deleteReply = "DELETE FROM Reply WHERE id = ?";
+	    String countByAuthor = "SELECT COUNT(*) FROM Reply WHERE postID = ? AND author = ?";
+	    String uncountResponder = "UPDATE Post SET uniqueResponderCount = uniqueResponderCount - 1 WHERE id = ?";
 	    
-	    try (PreparedStatement pstmt = connection.prepareStatement(deleteReply)) {
-	        // Set the ? to the ID of reply we want to delete
-	        pstmt.setInt(1, replyID);
-	        
-	        // Execute the delete and get number of rows deleted
-	        int rowsDeleted = pstmt.executeUpdate();
-	        
-	        // Return true if at least one row (the reply) was deleted
-	        return rowsDeleted > 0;
+	    try (Connection connection = pool.getConnection()) {
+	        connection.setAutoCommit(false);
+	        try {
+	            // Find which post the reply belongs to and who wrote it
+	            int postID;
+	            String author;
+	            try (PreparedStatement pstmt = connection.prepareStatement(findReply)) {
+	                pstmt.setInt(1, replyID);
+	                ResultSet rs = pstmt.executeQuery();
+	                if (!rs.next()) {
+	                    connection.rollback();
+	                    return false;
+	                }
+	                postID = rs.getInt("postID");
+	                author = rs.getString("author");
+	            }
+	            executeUpdate(connection, uncountReply, postID);
+	            
+	            // Another session may have deleted it first
+	            if (executeUpdate(connection, deleteReply, replyID) == 0) {
+	                connection.rollback();
+	                return false;
+	            }
+	            boolean lastFromAuthor = countRepliesBy(connection, countByAuthor, postID, author) == 0;
+	            if (lastFromAuthor) executeUpdate(connection, uncountResponder, postID);
+	            Timestamp lastReply;
+	            try (PreparedStatement pstmt = connection.prepareStatement(latestReply)) {
+	                pstmt.setInt(1, postID);
+	                ResultSet rs = pstmt.executeQuery();
+	                lastReply = rs.next() ? rs.getTimestamp(1) : null;
+	            }
+	            setLastReply(connection, resetLastReply, lastReply, postID);
+	            connection.commit();
+	            
+	            postCache.update(postID, post -> {
+	                post.setReplyCount(post.getReplyCount() - 1);
+	                if (lastFromAuthor) post.setUniqueResponderCount(post.getUniqueResponderCount() - 1);
+	                post.setLastReplyTimestamp(lastReply);
+	            });
+	            replyCache.replyDeleted(replyID);
+	            contentIndex.replyDeleted(replyID);
+	            return true;
+	        } catch (SQLException e) {
+	            connection.rollback();
+	            throw e;
+	        }
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -618,6 +1931,29 @@ public class Database {
 	    // Deletion failed
 	    return false;
 	}
+	
+	
+	/*******
+	 * <p> Method: int repairPostCounters() </p>
+	 * 
+	 * <p> Description: Recompute replyCount and uniqueResponderCount for every post from its
+	 * replies, in one set-based UPDATE, and fix any that do not match.  createReply and
+	 * deleteReply keep the counters right on their own; this is for rows changed outside this
+	 * class, such as a hand-edited database or an import.</p>
+	 * 
+	 * @return the number of posts whose counters were corrected
+	 * 
+	 * @throws SQLException if the update fails
+	 */
+	public int repairPostCounters() throws SQLException {
+	    int repaired;
+	    try (Connection connection = pool.getConnection();
+	         Statement statement = connection.createStatement()) {
+	        repaired = statement.executeUpdate(REPAIR_POST_COUNTERS);
+	    }
+	    if (repaired > 0) postCache.clear();
+	    return repaired;
+	}
 
 	// ========== END OF CRUD OPERATIONS ==========
 
@@ -631,7 +1967,8 @@ public class Database {
  */
 	public boolean isDatabaseEmpty() {
 		String query = "SELECT COUNT(*) AS count FROM userDB";
-		try {
+		try (Connection connection = pool.getConnection();
+		     Statement statement = connection.createStatement()) {
 			ResultSet resultSet = statement.executeQuery(query);
 			if (resultSet.next()) {
 				return resultSet.getInt("count") == 0;
@@ -653,7 +1990,8 @@ public class Database {
  */
 	public int getNumberOfUsers() {
 		String query = "SELECT COUNT(*) AS count FROM userDB";
-		try {
+		try (Connection connection = pool.getConnection();
+		     Statement statement = connection.createStatement()) {
 			ResultSet resultSet = statement.executeQuery(query);
 			if (resultSet.next()) {
 				return resultSet.getInt("count");
@@ -682,36 +2020,18 @@ public class Database {
 		    String insertUser = "INSERT INTO userDB (userName, password, firstName, middleName, "
 		            + "lastName, preferredFirstName, emailAddress, adminRole, newRole1, newRole2) "
 		            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
-			currentUsername = user.getUserName();
-			pstmt.setString(1, currentUsername);
-			
-			currentPassword = user.getPassword();
-			pstmt.setString(2, currentPassword);
-			
-			currentFirstName = user.getFirstName();
-			pstmt.setString(3, currentFirstName);
-			
-			currentMiddleName = user.getMiddleName();			
-			pstmt.setString(4, currentMiddleName);
-			
-			currentLastName = user.getLastName();
-			pstmt.setString(5, currentLastName);
-			
-			currentPreferredFirstName = user.getPreferredFirstName();
-			pstmt.setString(6, currentPreferredFirstName);
-			
-			currentEmailAddress = user.getEmailAddress();
-			pstmt.setString(7, currentEmailAddress);
-			
-			currentAdminRole = user.getAdminRole();
-			pstmt.setBoolean(8, currentAdminRole);
-			
-			currentNewRole1 = user.getNewRole1();
-			pstmt.setBoolean(9, currentNewRole1);
-			
-			currentNewRole2 = user.getNewRole2();
-			pstmt.setBoolean(10, currentNewRole2);
+		try (Connection connection = pool.getConnection();
+		     PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+			pstmt.setString(1, user.getUserName());
+			pstmt.setString(2, user.getPassword());
+			pstmt.setString(3, user.getFirstName());
+			pstmt.setString(4, user.getMiddleName());
+			pstmt.setString(5, user.getLastName());
+			pstmt.setString(6, user.getPreferredFirstName());
+			pstmt.setString(7, user.getEmailAddress());
+			pstmt.setBoolean(8, user.getAdminRole());
+			pstmt.setBoolean(9, user.getNewRole1());
+			pstmt.setBoolean(10, user.getNewRole2());
 			
 			pstmt.executeUpdate();
 		}
@@ -730,7 +2050,8 @@ public class Database {
 		List<String> userList = new ArrayList<String>();
 		userList.add("<Select a User>");
 		String query = "SELECT userName FROM userDB";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = pool.getConnection();
+		     PreparedStatement pstmt = connection.prepareStatement(query)) {
 			ResultSet rs = pstmt.executeQuery();
 			while (rs.next()) {
 				userList.add(rs.getString("userName"));
@@ -755,9 +2076,10 @@ public class Database {
  */
 	public boolean loginAdmin(User user){
 		// Validates an admin user's login credentials so the user can login in as an Admin.
-		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
+		String query = "SELECT 1 FROM userDB WHERE userName = ? AND password = ? AND "
 				+ "adminRole = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = pool.getConnection();
+		     PreparedStatement pstmt = connection.prepareStatement(query)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			ResultSet rs = pstmt.executeQuery();
@@ -782,9 +2104,10 @@ public class Database {
  */
 	public boolean loginRole1(User user) {
 		// Validates a student user's login credentials.
-		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
+		String query = "SELECT 1 FROM userDB WHERE userName = ? AND password = ? AND "
 				+ "newRole1 = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = pool.getConnection();
+		     PreparedStatement pstmt = connection.prepareStatement(query)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			ResultSet rs = pstmt.executeQuery();
@@ -808,9 +2131,10 @@ public class Database {
 	 */
 	// Validates a reviewer user's login credentials.
 	public boolean loginRole2(User user) {
-		String query = "SELECT * FROM userDB WHERE userName = ? AND password = ? AND "
+		String query = "SELECT 1 FROM userDB WHERE userName = ? AND password = ? AND "
 				+ "newRole2 = TRUE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection connection = pool.getConnection();
+		     PreparedStatement pstmt = connection.prepareStatement(query)) {
 			pstmt.setString(1, user.getUserName());
 			pstmt.setString(2, user.getPassword());
 			ResultSet rs = pstmt.executeQuery();
@@ -835,7 +2159,8 @@ public class Database {
 	// Checks if a user already exists in the database based on their userName.
 	public boolean doesUserExist(String userName) {
 	    String query = "SELECT COUNT(*) FROM userDB WHERE userName = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        
 	        pstmt.setString(1, userName);
 	        ResultSet rs = pstmt.executeQuery();
@@ -891,7 +2216,8 @@ public class Database {
 	    String code = UUID.randomUUID().toString().substring(0, 6); // Generate a random 6-character code
 	    String query = "INSERT INTO InvitationCodes (code, emailaddress, role) VALUES (?, ?, ?)";
 
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        pstmt.setString(2, emailAddress);
 	        pstmt.setString(3, role);
@@ -914,7 +2240,8 @@ public class Database {
 	// Number of invitations in the database
 	public int getNumberOfInvitations() {
 		String query = "SELECT COUNT(*) AS count FROM InvitationCodes";
-		try {
+		try (Connection connection = pool.getConnection();
+		     Statement statement = connection.createStatement()) {
 			ResultSet resultSet = statement.executeQuery(query);
 			if (resultSet.next()) {
 				return resultSet.getInt("count");
@@ -939,7 +2266,8 @@ public class Database {
 	// Check to see if an email address is already in the database
 	public boolean emailaddressHasBeenUsed(String emailAddress) {
 	    String query = "SELECT COUNT(*) AS count FROM InvitationCodes WHERE emailAddress = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, emailAddress);
 	        ResultSet rs = pstmt.executeQuery();
 	        System.out.println(rs);
@@ -966,8 +2294,9 @@ public class Database {
 	 */
 	// Obtain the roles associated with an invitation code.
 	public String getRoleGivenAnInvitationCode(String code) {
-	    String query = "SELECT * FROM InvitationCodes WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    String query = "SELECT role FROM InvitationCodes WHERE code = ?";
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -993,7 +2322,8 @@ public class Database {
 	// For a given invitation code, return the associated email address of an empty string
 	public String getEmailAddressUsingCode (String code ) {
 	    String query = "SELECT emailAddress FROM InvitationCodes WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -1017,7 +2347,8 @@ public class Database {
 	// Remove an invitation using an email address once the user account has been setup
 	public void removeInvitationAfterUse(String code) {
 	    String query = "SELECT COUNT(*) AS count FROM InvitationCodes WHERE code = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, code);
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -1036,35 +2367,95 @@ public class Database {
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
-		return;
+		return;
+	}
+	
+	
+	/*******
+	 * <p> Method: UserProfile getUserProfile(String username) </p>
+	 * 
+	 * <p> Description: Get the name and email fields of a user in one query.  Profiles are cached
+	 * by username, and each update below writes through to the cached profile, so showing a
+	 * user's account details normally costs no query at all after the first.</p>
+	 * 
+	 * @param username is the username of the user
+	 * 
+	 * @return the user's profile, or null if there is no such user
+	 *  
+	 */
+	public UserProfile getUserProfile(String username) {
+		UserProfile cached = profileCache.get(username);
+		if (cached != null) return cached;
+		
+		long changeCount = profileCache.getChangeCount();
+		String query = "SELECT " + RowMappers.PROFILE_COLUMNS + " FROM userDB WHERE userName = ?";
+		try (Connection connection = pool.getConnection();
+		     PreparedStatement pstmt = connection.prepareStatement(query)) {
+			pstmt.setString(1, username);
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	        	if (rs.next()) {
+	        		UserProfile profile = RowMappers.PROFILE.mapRow(rs);
+	        		profileCache.putIfUnchanged(profile, changeCount);
+	        		return profile;
+	        	}
+	        }
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	    }
+		return null;
+	}
+	
+	
+	/*******
+	 * <p> Method: boolean updateUserProfile(UserProfile profile) </p>
+	 * 
+	 * <p> Description: Write every name and email field of a profile in one statement and one
+	 * commit.  Use this when several fields are edited together: take the profile from
+	 * getUserProfile, change it with its with... methods, and pass the result here.</p>
+	 * 
+	 * @param profile is the new profile; its username selects the user to update
+	 * 
+	 * @return true if the user exists and was updated, else false
+	 *  
+	 */
+	public boolean updateUserProfile(UserProfile profile) {
+	    String query = "UPDATE userDB SET firstName = ?, middleName = ?, lastName = ?, "
+	    		+ "preferredFirstName = ?, emailAddress = ? WHERE userName = ?";
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
+	        pstmt.setString(1, profile.getFirstName());
+	        pstmt.setString(2, profile.getMiddleName());
+	        pstmt.setString(3, profile.getLastName());
+	        pstmt.setString(4, profile.getPreferredFirstName());
+	        pstmt.setString(5, profile.getEmailAddress());
+	        pstmt.setString(6, profile.getUserName());
+	        boolean updated = pstmt.executeUpdate() > 0;
+	        
+	        // The row now holds exactly this profile
+	        profileCache.update(profile.getUserName(), cached -> profile);
+	        sessions.update(profile.getUserName(), context -> context.withProfile(profile));
+	        return updated;
+	    } catch (SQLException e) {
+	        e.printStackTrace();
+	    }
+	    return false;
 	}
 	
 	
 	/*******
 	 * <p> Method: String getFirstName(String username) </p>
 	 * 
-	 * <p> Description: Get the first name of a user given that user's username.</p>
+	 * <p> Description: Get the first name of a user given that user's username.  This is read
+	 * from the user's profile, see getUserProfile.</p>
 	 * 
 	 * @param username is the username of the user
 	 * 
 	 * @return the first name of a user given that user's username 
 	 *  
 	 */
-	// Get the First Name
 	public String getFirstName(String username) {
-		String query = "SELECT firstName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getString("firstName"); // Return the first name if user exists
-	        }
-			
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
-		return null;
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getFirstName();
 	}
 	
 
@@ -1072,73 +2463,65 @@ public class Database {
 	 * <p> Method: void updateFirstName(String username, String firstName) </p>
 	 * 
 	 * <p> Description: Update the first name of a user given that user's username and the new
-	 *		first name.</p>
+	 *		first name.  The cached profile, if any, is updated too.</p>
 	 * 
 	 * @param username is the username of the user
 	 * 
 	 * @param firstName is the new first name for the user
 	 *  
 	 */
-	// update the first name
 	public void updateFirstName(String username, String firstName) {
 	    String query = "UPDATE userDB SET firstName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, firstName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
-	        currentFirstName = firstName;
+	        profileCache.update(username, profile -> profile.withFirstName(firstName));
+	        sessions.update(username, context -> context.withProfile(context.getProfile().withFirstName(firstName)));
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
 	}
-
+	
 	
 	/*******
 	 * <p> Method: String getMiddleName(String username) </p>
 	 * 
-	 * <p> Description: Get the middle name of a user given that user's username.</p>
+	 * <p> Description: Get the middle name of a user given that user's username.  This is read
+	 * from the user's profile, see getUserProfile.</p>
 	 * 
 	 * @param username is the username of the user
 	 * 
 	 * @return the middle name of a user given that user's username 
 	 *  
 	 */
-	// get the middle name
 	public String getMiddleName(String username) {
-		String query = "SELECT MiddleName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getString("middleName"); // Return the middle name if user exists
-	        }
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
-		return null;
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getMiddleName();
 	}
-
 	
+
 	/*******
 	 * <p> Method: void updateMiddleName(String username, String middleName) </p>
 	 * 
 	 * <p> Description: Update the middle name of a user given that user's username and the new
-	 * 		middle name.</p>
+	 *		middle name.  The cached profile, if any, is updated too.</p>
 	 * 
 	 * @param username is the username of the user
-	 *  
+	 * 
 	 * @param middleName is the new middle name for the user
 	 *  
 	 */
-	// update the middle name
 	public void updateMiddleName(String username, String middleName) {
 	    String query = "UPDATE userDB SET middleName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, middleName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
-	        currentMiddleName = middleName;
+	        profileCache.update(username, profile -> profile.withMiddleName(middleName));
+	        sessions.update(username, context -> context.withProfile(context.getProfile().withMiddleName(middleName)));
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -1148,49 +2531,40 @@ public class Database {
 	/*******
 	 * <p> Method: String getLastName(String username) </p>
 	 * 
-	 * <p> Description: Get the last name of a user given that user's username.</p>
+	 * <p> Description: Get the last name of a user given that user's username.  This is read
+	 * from the user's profile, see getUserProfile.</p>
 	 * 
 	 * @param username is the username of the user
 	 * 
 	 * @return the last name of a user given that user's username 
 	 *  
 	 */
-	// get he last name
 	public String getLastName(String username) {
-		String query = "SELECT LastName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getString("lastName"); // Return last name role if user exists
-	        }
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
-		return null;
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getLastName();
 	}
 	
-	
+
 	/*******
 	 * <p> Method: void updateLastName(String username, String lastName) </p>
 	 * 
-	 * <p> Description: Update the middle name of a user given that user's username and the new
-	 * 		middle name.</p>
+	 * <p> Description: Update the last name of a user given that user's username and the new
+	 *		last name.  The cached profile, if any, is updated too.</p>
 	 * 
 	 * @param username is the username of the user
-	 *  
+	 * 
 	 * @param lastName is the new last name for the user
 	 *  
 	 */
-	// update the last name
 	public void updateLastName(String username, String lastName) {
 	    String query = "UPDATE userDB SET lastName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, lastName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
-	        currentLastName = lastName;
+	        profileCache.update(username, profile -> profile.withLastName(lastName));
+	        sessions.update(username, context -> context.withProfile(context.getProfile().withLastName(lastName)));
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -1200,50 +2574,40 @@ public class Database {
 	/*******
 	 * <p> Method: String getPreferredFirstName(String username) </p>
 	 * 
-	 * <p> Description: Get the preferred first name of a user given that user's username.</p>
+	 * <p> Description: Get the preferred first name of a user given that user's username.  This is read
+	 * from the user's profile, see getUserProfile.</p>
 	 * 
 	 * @param username is the username of the user
 	 * 
 	 * @return the preferred first name of a user given that user's username 
 	 *  
 	 */
-	// get the preferred first name
 	public String getPreferredFirstName(String username) {
-		String query = "SELECT preferredFirstName FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getString("preferredFirstName"); // Return the preferred first name if user exists
-	        }
-			
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
-		return null;
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getPreferredFirstName();
 	}
 	
-	
+
 	/*******
 	 * <p> Method: void updatePreferredFirstName(String username, String preferredFirstName) </p>
 	 * 
-	 * <p> Description: Update the preferred first name of a user given that user's username and
-	 * 		the new preferred first name.</p>
+	 * <p> Description: Update the preferred first name of a user given that user's username and the new
+	 *		preferred first name.  The cached profile, if any, is updated too.</p>
 	 * 
 	 * @param username is the username of the user
-	 *  
+	 * 
 	 * @param preferredFirstName is the new preferred first name for the user
 	 *  
 	 */
-	// update the preferred first name of the user
 	public void updatePreferredFirstName(String username, String preferredFirstName) {
 	    String query = "UPDATE userDB SET preferredFirstName = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, preferredFirstName);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
-	        currentPreferredFirstName = preferredFirstName;
+	        profileCache.update(username, profile -> profile.withPreferredFirstName(preferredFirstName));
+	        sessions.update(username, context -> context.withProfile(context.getProfile().withPreferredFirstName(preferredFirstName)));
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -1253,50 +2617,40 @@ public class Database {
 	/*******
 	 * <p> Method: String getEmailAddress(String username) </p>
 	 * 
-	 * <p> Description: Get the email address of a user given that user's username.</p>
+	 * <p> Description: Get the email address of a user given that user's username.  This is read
+	 * from the user's profile, see getUserProfile.</p>
 	 * 
 	 * @param username is the username of the user
 	 * 
 	 * @return the email address of a user given that user's username 
 	 *  
 	 */
-	// get the email address
 	public String getEmailAddress(String username) {
-		String query = "SELECT emailAddress FROM userDB WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        if (rs.next()) {
-	            return rs.getString("emailAddress"); // Return the email address if user exists
-	        }
-			
-	    } catch (SQLException e) {
-	        e.printStackTrace();
-	    }
-		return null;
+		UserProfile profile = getUserProfile(username);
+		return profile == null ? null : profile.getEmailAddress();
 	}
 	
-	
+
 	/*******
 	 * <p> Method: void updateEmailAddress(String username, String emailAddress) </p>
 	 * 
-	 * <p> Description: Update the email address name of a user given that user's username and
-	 * 		the new email address.</p>
+	 * <p> Description: Update the email address of a user given that user's username and the new
+	 *		email address.  The cached profile, if any, is updated too.</p>
 	 * 
 	 * @param username is the username of the user
-	 *  
-	 * @param emailAddress is the new preferred first name for the user
+	 * 
+	 * @param emailAddress is the new email address for the user
 	 *  
 	 */
-	// update the email address
 	public void updateEmailAddress(String username, String emailAddress) {
 	    String query = "UPDATE userDB SET emailAddress = ? WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, emailAddress);
 	        pstmt.setString(2, username);
 	        pstmt.executeUpdate();
-	        currentEmailAddress = emailAddress;
+	        profileCache.update(username, profile -> profile.withEmailAddress(emailAddress));
+	        sessions.update(username, context -> context.withProfile(context.getProfile().withEmailAddress(emailAddress)));
 	    } catch (SQLException e) {
 	        e.printStackTrace();
 	    }
@@ -1304,50 +2658,60 @@ public class Database {
 	
 	
 	/*******
-	 * <p> Method: boolean getUserAccountDetails(String username) </p>
+	 * <p> Method: UserContext getUserContext(String username) </p>
 	 * 
-	 * <p> Description: Get all the attributes of a user given that user's username.</p>
+	 * <p> Description: Get all the attributes of a user given that user's username, in one
+	 * query.  The account is returned as an immutable UserContext rather than kept in this
+	 * Database, so any number of sessions and worker threads can look users up at once.  The
+	 * name and email fields also refresh the profile cache used by getUserProfile.</p>
 	 * 
 	 * @param username is the username of the user
 	 * 
-	 * @return true of the get is successful, else false
+	 * @return the user's account, or null if there is no such user
 	 *  
 	 */
-	// get the attributes for a specified user
-	public boolean getUserAccountDetails(String username) {
-	    String query = "SELECT * FROM userDB WHERE username = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	public UserContext getUserContext(String username) {
+		long changeCount = profileCache.getChangeCount();
+	    String query = "SELECT " + RowMappers.USER_COLUMNS + " FROM userDB WHERE userName = ?";
+	    try (Connection connection = pool.getConnection();
+	         PreparedStatement pstmt = connection.prepareStatement(query)) {
 	        pstmt.setString(1, username);
-	        ResultSet rs = pstmt.executeQuery();
-	        
-	        // Check if user exists
-	        if (!rs.next()) {
-	            return false;  // User not found
+	        try (ResultSet rs = pstmt.executeQuery()) {
+	        	// Check if user exists
+	        	if (!rs.next()) {
+	        		return null;  // User not found
+	        	}
+	        	UserContext account = RowMappers.USER.mapRow(rs);
+	        	profileCache.putIfUnchanged(account.getProfile(), changeCount);
+	        	return account;
 	        }
-	        
-	        currentUsername = rs.getString(2);
-	        currentPassword = rs.getString(3);
-	        currentFirstName = rs.getString(4);
-	        currentMiddleName = rs.getString(5);
-	        currentLastName = rs.getString(6);
-	        currentPreferredFirstName = rs.getString(7);
-	        currentEmailAddress = rs.getString(8);
-	        currentAdminRole = rs.getBoolean(9);
-	        currentNewRole1 = rs.getBoolean(10);
-	        currentNewRole2 = rs.getBoolean(11);
-	        return true;
 	    } catch (SQLException e) {
-	        e.printStackTrace();  // Add this for debugging
-	        return false;
+	        e.printStackTrace();
+	        return null;
 	    }
 	}
 	
 	
+	/*******
+	 * <p> Method: SessionRegistry getSessions() </p>
+	 * 
+	 * <p> Description: Get the registry of logged-in sessions.  A login opens a session for the
+	 * user's UserContext; each write to a user account below is applied to that user's open
+	 * sessions, so they never show stale roles or names.</p>
+	 * 
+	 * @return the sessions served by this Database
+	 *  
+	 */
+	public SessionRegistry getSessions() {
+		return sessions;
+	}
+	
+	
 	/*******
 	 * <p> Method: boolean updateUserRole(String username, String role, String value) </p>
 	 * 
-	 * <p> Description: Update a specified role for a specified user's and set and update all the
-	 * 		current user attributes.</p>
+	 * <p> Description: Update a specified role for a specified user.  Every open session of
+	 * that user is given the new role.</p>
 	 * 
 	 * @param username is the username of the user
 	 *  
@@ -1360,251 +2724,359 @@ public class Database {
 	 */
 	// Update a users role
 	public boolean updateUserRole(String username, String role, String value) {
-		if (role.compareTo("Admin") == 0) {
-			String query = "UPDATE userDB SET adminRole = ? WHERE username = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				pstmt.setString(1, value);
-				pstmt.setString(2, username);
-				pstmt.executeUpdate();
-				if (value.compareTo("true") == 0)
-					currentAdminRole = true;
-				else
-					currentAdminRole = false;
-				return true;
-			} catch (SQLException e) {
-				return false;
-			}
+		String query;
+		if (role.compareTo("Admin") == 0)
+			query = "UPDATE userDB SET adminRole = ? WHERE username = ?";
+		else if (role.compareTo("Role1") == 0)
+			query = "UPDATE userDB SET newRole1 = ? WHERE username = ?";
+		else if (role.compareTo("Role2") == 0)
+			query = "UPDATE userDB SET newRole2 = ? WHERE username = ?";
+		else
+			return false;
+		
+		try (Connection connection = pool.getConnection();
+		     PreparedStatement pstmt = connection.prepareStatement(query)) {
+			pstmt.setString(1, value);
+			pstmt.setString(2, username);
+			pstmt.executeUpdate();
+			boolean plays = value.compareTo("true") == 0;
+			sessions.update(username, context -> context.withRole(role, plays));
+			return true;
+		} catch (SQLException e) {
+			return false;
 		}
-		if (role.compareTo("Role1") == 0) {
-			String query = "UPDATE userDB SET newRole1 = ? WHERE username = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				pstmt.setString(1, value);
-				pstmt.setString(2, username);
-				pstmt.executeUpdate();
-				if (value.compareTo("true") == 0)
-					currentNewRole1 = true;
-				else
-					currentNewRole1 = false;
-				return true;
-			} catch (SQLException e) {
-				return false;
+	}
+	
+	
+	/*******
+	 * <p> Debugging method</p>
+	 * 
+	 * <p> Description: Debugging method that dumps the database of the console.</p>
+	 * 
+	 * @throws SQLException if there is an issues accessing the database.
+	 * 
+	 */
+	// Dumps the database.
+	public void dump() throws SQLException {
+		String query = "SELECT * FROM userDB";
+		try (Connection connection = pool.getConnection();
+		     Statement statement = connection.createStatement()) {
+			ResultSet resultSet = statement.executeQuery(query);
+			ResultSetMetaData meta = resultSet.getMetaData();
+			while (resultSet.next()) {
+			for (int i = 0; i < meta.getColumnCount(); i++) {
+			System.out.println(
+			meta.getColumnLabel(i + 1) + ": " +
+					resultSet.getString(i + 1));
 			}
-		}
-		if (role.compareTo("Role2") == 0) {
-			String query = "UPDATE userDB SET newRole2 = ? WHERE username = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-				pstmt.setString(1, value);
-				pstmt.setString(2, username);
-				pstmt.executeUpdate();
-				if (value.compareTo("true") == 0)
-					currentNewRole2 = true;
-				else
-					currentNewRole2 = false;
-				return true;
-			} catch (SQLException e) {
-				return false;
+			System.out.println();
 			}
+			resultSet.close();
 		}
-		return false;
 	}
 	
+	/**
+	 * Method to clear all data from all tables for testing
+	 */
+	public void clearAllTables() throws SQLException {
+	    // Buffered flag changes, cached rows, and sessions refer to rows that are about to be deleted
+	    if (unreadFlags != null) unreadFlags.discardPending();
+	    postCache.clear();
+	    profileCache.clear();
+	    replyCache.clear();
+	    contentIndex.clear();
+	    sessions.clear();
+	    pinned.clear();
+	    try (Connection connection = pool.getConnection();
+	         Statement statement = connection.createStatement()) {
+	        statement.execute("DELETE FROM Reply");
+	        statement.execute("DELETE FROM Post");
+	        statement.execute("DELETE FROM userDB");
+	        statement.execute("DELETE FROM InvitationCodes");
+	        statement.execute("DELETE FROM ReplyArchive");
+	        statement.execute("DELETE FROM PostArchive");
+	    } catch (SQLException e) {
+	        // Ignore errors if tables don't exist yet
+	    }
+	}
 	
-	// Attribute getters for the current user
 	/*******
-	 * <p> Method: String getCurrentUsername() </p>
+	 * <p> Method: pinPost(int postID, String pinnedBy) </p>
 	 * 
-	 * <p> Description: Get the current user's username.</p>
+	 * <p> Description: Pins a post if fewer than db.maxPinnedPosts are pinned.  A pin claims
+	 * one of the numbered rows of the PinnedSlot table, 1 to the limit, and the slot's primary
+	 * key is what enforces the limit: when two admins pin at once and pick the same free slot,
+	 * H2 lets only one insert it and the other moves on to the next free slot, or fails if
+	 * there is none.  No count of the Post table is taken, and no lock is held on anything but
+	 * the post being pinned and the slot it takes.</p>
 	 * 
-	 * @return the username value is returned
-	 *  
+	 * @param postID is the post to pin
+	 * 
+	 * @param pinnedBy is the admin pinning it
+	 * 
+	 * @return true if the post is now pinned (or already was, even if this Database had not
+	 * 		seen it pinned), false if it does not exist or every slot is taken
+	 * 
+	 * @throws SQLException if the database cannot be written
 	 */
-	public String getCurrentUsername() { return currentUsername;};
-
+	public boolean pinPost(int postID, String pinnedBy) throws SQLException {
+	    if (pinned.contains(postID)) return true;
+	    String update = "UPDATE Post SET isPinned = TRUE, pinnedBy = ? WHERE id = ?";
+	    
+	    try (Connection connection = pool.getConnection()) {
+	        connection.setAutoCommit(false);
+	        try {
+	            // Mark the post first; its row lock also keeps two pins of the same post apart
+	            int rowsUpdated;
+	            try (PreparedStatement pstmt = connection.prepareStatement(update)) {
+	                pstmt.setString(1, pinnedBy);
+	                pstmt.setInt(2, postID);
+	                rowsUpdated = pstmt.executeUpdate();
+	            }
+	            // Another Database may have pinned it; its slot row is what counts
+	            if (rowsUpdated > 0 && hasPinSlot(connection, postID)) {
+	                connection.rollback();
+	                pinned.add(postID);
+	                return true;
+	            }
+	            boolean claimed = false;
+	            if (rowsUpdated > 0) {
+	                for (int slot : freePinSlots(connection)) {
+	                    claimed = claimPinSlot(connection, slot, postID, pinnedBy);
+	                    if (claimed) break;
+	                }
+	            }
+	            if (!claimed) {
+	                connection.rollback();
+	                return false;
+	            }
+	            connection.commit();
+	        } catch (SQLException e) {
+	            connection.rollback();
+	            throw e;
+	        }
+	    }
+	    pinned.add(postID);
+	    postCache.update(postID, post -> {
+	        post.setPinned(true);
+	        post.setPinnedBy(pinnedBy);
+	    });
+	    return true;
+	}
+	
+	/*
+	 * The slots, lowest first, that no pin had taken when this looked.  None when the limit
+	 * has been reached, even if it was lowered and some pins hold slots above it.
+	 */
+	private List<Integer> freePinSlots(Connection connection) throws SQLException {
+	    int limit = config.getMaxPinnedPosts();
+	    Set<Integer> taken = new HashSet<>();
+	    try (PreparedStatement pstmt = connection.prepareStatement("SELECT slot FROM PinnedSlot")) {
+	        ResultSet rs = pstmt.executeQuery();
+	        while (rs.next()) taken.add(rs.getInt(1));
+	    }
+	    List<Integer> free = new ArrayList<>();
+	    if (taken.size() >= limit) return free;
+	    for (int slot = 1; slot <= limit; slot++) {
+	        if (!taken.contains(slot)) free.add(slot);
+	    }
+	    return free;
+	}
+	
+	/*
+	 * Whether the post already holds a pin slot.
+	 */
+	private static boolean hasPinSlot(Connection connection, int postID) throws SQLException {
+	    try (PreparedStatement pstmt = connection.prepareStatement(
+	            "SELECT 1 FROM PinnedSlot WHERE postID = ?")) {
+	        pstmt.setInt(1, postID);
+	        return pstmt.executeQuery().next();
+	    }
+	}
+	
+	/*
+	 * Take one slot for the post.  False if another pin took the slot first; the failed insert
+	 * is undone on its own and the transaction carries on.  The post cannot already hold a
+	 * slot, since pinPost checked while holding the post's row lock, so a duplicate key here
+	 * is always the slot's.
+	 */
+	private static boolean claimPinSlot(Connection connection, int slot, int postID, String pinnedBy)
+	        throws SQLException {
+	    try (PreparedStatement pstmt = connection.prepareStatement(
+	            "INSERT INTO PinnedSlot (slot, postID, pinnedBy) VALUES (?, ?, ?)")) {
+	        pstmt.setInt(1, slot);
+	        pstmt.setInt(2, postID);
+	        pstmt.setString(3, pinnedBy);
+	        pstmt.executeUpdate();
+	        return true;
+	    } catch (SQLException e) {
+	        if (DUPLICATE_KEY.equals(e.getSQLState())) return false;
+	        throw e;
+	    }
+	}
 	
+	/*
+	 * The ids of the posts holding a pin slot.
+	 */
+	private static List<Integer> readPinnedPostIDs(Connection connection) throws SQLException {
+	    List<Integer> ids = new ArrayList<>();
+	    try (PreparedStatement pstmt = connection.prepareStatement("SELECT postID FROM PinnedSlot")) {
+	        ResultSet rs = pstmt.executeQuery();
+	        while (rs.next()) ids.add(rs.getInt(1));
+	    }
+	    return ids;
+	}
+
 	/*******
-	 * <p> Method: String getCurrentPassword() </p>
+	 * <p> Method: unpinPost(int postID) </p>
 	 * 
-	 * <p> Description: Get the current user's password.</p>
+	 * <p> Description: Unpins a post and frees its pin slot in one transaction.</p>
 	 * 
-	 * @return the password value is returned
-	 *  
+	 * @param postID is the post to unpin
+	 * 
+	 * @return true if the post exists
+	 * 
+	 * @throws SQLException if the database cannot be written
 	 */
-	public String getCurrentPassword() { return currentPassword;};
-
+	public boolean unpinPost(int postID) throws SQLException {
+	    String update = "UPDATE Post SET isPinned = FALSE, pinnedBy = NULL WHERE id = ?";
+	    int rowsUpdated;
+	    try (Connection connection = pool.getConnection()) {
+	        connection.setAutoCommit(false);
+	        try {
+	            // The post row first, in the same order as pinPost takes its locks
+	            rowsUpdated = executeUpdate(connection, update, postID);
+	            executeUpdate(connection, "DELETE FROM PinnedSlot WHERE postID = ?", postID);
+	            connection.commit();
+	        } catch (SQLException e) {
+	            connection.rollback();
+	            throw e;
+	        }
+	    }
+	    pinned.remove(postID);
+	    postCache.update(postID, post -> {
+	        post.setPinned(false);
+	        post.setPinnedBy(null);
+	    });
+	    return rowsUpdated > 0;
+	}
 	
 	/*******
-	 * <p> Method: String getCurrentFirstName() </p>
+	 * <p> Method: List&lt;Integer&gt; getPinnedPostIDs() </p>
 	 * 
-	 * <p> Description: Get the current user's first name.</p>
-	 * 
-	 * @return the first name value is returned
-	 *  
+	 * @return the ids of the pinned posts, newest first, read from memory
 	 */
-	public String getCurrentFirstName() { return currentFirstName;};
-
+	public List<Integer> getPinnedPostIDs() {
+	    return pinned.getIDs();
+	}
 	
 	/*******
-	 * <p> Method: String getCurrentMiddleName() </p>
+	 * <p> Method: int getMaxPinnedPosts() </p>
 	 * 
-	 * <p> Description: Get the current user's middle name.</p>
-	 * 
-	 * @return the middle name value is returned
-	 *  
+	 * @return how many posts may be pinned at once, from db.maxPinnedPosts
 	 */
-	public String getCurrentMiddleName() { return currentMiddleName;};
+	public int getMaxPinnedPosts() {
+	    return config.getMaxPinnedPosts();
+	}
+
 
-	
 	/*******
-	 * <p> Method: String getCurrentLastName() </p>
+	 * <p> Method: long getPostCacheHits()</p>
 	 * 
-	 * <p> Description: Get the current user's last name.</p>
+	 * <p> Description: Report how many getPost calls were answered without a query.</p>
 	 * 
-	 * @return the last name value is returned
-	 *  
+	 * @return the number of post cache hits since the database was created
 	 */
-	public String getCurrentLastName() { return currentLastName;};
+	public long getPostCacheHits() {
+		return postCache.getHits();
+	}
+
 
-	
 	/*******
-	 * <p> Method: String getCurrentPreferredFirstName( </p>
+	 * <p> Method: long getPostCacheMisses()</p>
 	 * 
-	 * <p> Description: Get the current user's preferred first name.</p>
+	 * <p> Description: Report how many getPost calls had to query the Post table.</p>
 	 * 
-	 * @return the preferred first name value is returned
-	 *  
+	 * @return the number of post cache misses since the database was created
 	 */
-	public String getCurrentPreferredFirstName() { return currentPreferredFirstName;};
+	public long getPostCacheMisses() {
+		return postCache.getMisses();
+	}
+
 
-	
 	/*******
-	 * <p> Method: String getCurrentEmailAddress() </p>
-	 * 
-	 * <p> Description: Get the current user's email address name.</p>
+	 * <p> Method: double getPostCacheHitRate()</p>
 	 * 
-	 * @return the email address value is returned
-	 *  
+	 * @return the fraction of getPost calls answered from the post cache
 	 */
-	public String getCurrentEmailAddress() { return currentEmailAddress;};
+	public double getPostCacheHitRate() {
+		return postCache.getHitRate();
+	}
+
 
-	
 	/*******
-	 * <p> Method: boolean getCurrentAdminRole() </p>
+	 * <p> Method: long getReplyCacheHits()</p>
 	 * 
-	 * <p> Description: Get the current user's Admin role attribute.</p>
+	 * <p> Description: Report how many getRepliesByPost calls were answered without a query.</p>
 	 * 
-	 * @return true if this user plays an Admin role, else false
-	 *  
+	 * @return the number of reply list cache hits since the database was created
 	 */
-	public boolean getCurrentAdminRole() { return currentAdminRole;};
+	public long getReplyCacheHits() {
+		return replyCache.getHits();
+	}
+
 
-	
 	/*******
-	 * <p> Method: boolean getCurrentNewRole1() </p>
+	 * <p> Method: long getReplyCacheMisses()</p>
 	 * 
-	 * <p> Description: Get the current user's Student role attribute.</p>
+	 * <p> Description: Report how many getRepliesByPost calls had to query the Reply table.</p>
 	 * 
-	 * @return true if this user plays a Student role, else false
-	 *  
+	 * @return the number of reply list cache misses since the database was created
 	 */
-	public boolean getCurrentNewRole1() { return currentNewRole1;};
+	public long getReplyCacheMisses() {
+		return replyCache.getMisses();
+	}
+
 
-	
 	/*******
-	 * <p> Method: boolean getCurrentNewRole2() </p>
+	 * <p> Method: long getStatementCacheHits()</p>
 	 * 
-	 * <p> Description: Get the current user's Reviewer role attribute.</p>
+	 * <p> Description: Report how many prepareStatement calls were answered from the
+	 * 		per-connection prepared statement cache.</p>
 	 * 
-	 * @return true if this user plays a Reviewer role, else false
-	 *  
+	 * @return the number of cache hits since the database was connected
 	 */
-	public boolean getCurrentNewRole2() { return currentNewRole2;};
+	public long getStatementCacheHits() {
+		return pool == null ? 0 : pool.getStatementCacheHits();
+	}
+
 
-	
 	/*******
-	 * <p> Debugging method</p>
-	 * 
-	 * <p> Description: Debugging method that dumps the database of the console.</p>
+	 * <p> Method: long getStatementCacheMisses()</p>
 	 * 
-	 * @throws SQLException if there is an issues accessing the database.
+	 * <p> Description: Report how many prepareStatement calls had to prepare a new statement.</p>
 	 * 
+	 * @return the number of cache misses since the database was connected
 	 */
-	// Dumps the database.
-	public void dump() throws SQLException {
-		String query = "SELECT * FROM userDB";
-		ResultSet resultSet = statement.executeQuery(query);
-		ResultSetMetaData meta = resultSet.getMetaData();
-		while (resultSet.next()) {
-		for (int i = 0; i < meta.getColumnCount(); i++) {
-		System.out.println(
-		meta.getColumnLabel(i + 1) + ": " +
-				resultSet.getString(i + 1));
-		}
-		System.out.println();
-		}
-		resultSet.close();
-	}
-	
-	/**
-	 * Method to clear all data from all tables for testing
-	 */
-	public void clearAllTables() throws SQLException {
-	    try {
-	        statement.execute("DELETE FROM Reply");
-	        statement.execute("DELETE FROM Post");
-	        statement.execute("DELETE FROM userDB");
-	        statement.execute("DELETE FROM InvitationCodes");
-	    } catch (SQLException e) {
-	        // Ignore errors if tables don't exist yet
-	    }
-	}
-	
-	public boolean pinPost(int postID, String pinnedBy) throws SQLException {
-	    String countQuery = "SELECT COUNT(*) AS pinnedCount FROM Post WHERE isPinned = TRUE";
-	    try (PreparedStatement countStmt = connection.prepareStatement(countQuery)) {
-	        ResultSet rs = countStmt.executeQuery();
-	        if (rs.next()) {
-	            int pinnedCount = rs.getInt("pinnedCount");
-	            if (pinnedCount >= 3) {
-	                return false;
-	            }
-	        }
-	    }
-	    String update = "UPDATE Post SET isPinned = TRUE, pinnedBy = ? WHERE id = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(update)) {
-	        pstmt.setString(1, pinnedBy);
-	        pstmt.setInt(2, postID);
-	        int rowsUpdated = pstmt.executeUpdate();
-	        return rowsUpdated > 0;
-	    }
-	}
-
-	public boolean unpinPost(int postID) throws SQLException {
-	    String update = "UPDATE Post SET isPinned = FALSE, pinnedBy = NULL WHERE id = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(update)) {
-	        pstmt.setInt(1, postID);
-	        int rowsUpdated = pstmt.executeUpdate();
-	        return rowsUpdated > 0;
-	    }
+	public long getStatementCacheMisses() {
+		return pool == null ? 0 : pool.getStatementCacheMisses();
 	}
 
 
 	/*******
 	 * <p> Method: void closeConnection()</p>
 	 * 
-	 * <p> Description: Closes the database statement and connection.</p>
+	 * <p> Description: Closes the connection pool and with it every connection to the
+	 * 		database.  Any unread-reply flag changes still buffered are written first.</p>
 	 * 
 	 */
-	// Closes the database statement and connection.
+	// Flushes the unread-flag buffer, then closes the connection pool.
 	public void closeConnection() {
-		try{ 
-			if(statement!=null) statement.close(); 
-		} catch(SQLException se2) { 
-			se2.printStackTrace();
-		} 
-		try { 
-			if(connection!=null) connection.close(); 
-		} catch(SQLException se){ 
-			se.printStackTrace(); 
-		} 
+		if (backups != null) backups.shutdown();
+		backups = null;
+		if (archiver != null) archiver.shutdown();
+		archiver = null;
+		if (unreadFlags != null) unreadFlags.close();
+		if (pool != null) pool.close();
 	}
 }
@@ -0,0 +1,454 @@
+package database;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/*******
+ * <p> Title: DatabaseConfig Class. </p>
+ *
+ * <p> Description: Where the Database keeps its data and how H2 is tuned, so that the same
+ * build can run against a throw-away in-memory database for load tests, a tuned file store in
+ * production, or a read-only copy of an earlier database.  A config is immutable; the Database
+ * turns it into a JDBC URL when it connects.</p>
+ *
+ * <p> {@link #load()} reads the properties file named by the system property db.config, or
+ * database.properties in the working directory if there is one, and then lets a system
+ * property of the same name override each setting, so "java -Ddb.mode=memory ..." needs no
+ * file at all.  The settings are:</p>
+ *
+ * <ul>
+ * <li> db.mode: file (the default), memory, or readonly</li>
+ * <li> db.path: the file store, without the .mv.db ending (default ~/FoundationDatabase); for
+ *      memory mode, the name of the in-memory database</li>
+ * <li> db.user and db.password: the credentials (default sa and an empty password)</li>
+ * <li> db.cacheSizeKB: the H2 page cache, in KB</li>
+ * <li> db.writeDelayMillis: how long H2 may hold committed changes before writing them</li>
+ * <li> db.compress: true to compress the MVStore pages</li>
+ * <li> db.lockTimeoutMillis: how long a statement waits for a lock held by another</li>
+ * <li> db.backup.dir: where BackupService writes snapshots (default ~/FoundationDatabase-backups)</li>
+ * <li> db.backup.generations: how many snapshots to keep (default 5)</li>
+ * <li> db.backup.intervalMinutes: how often to take one; 0, the default, means only on demand</li>
+ * <li> db.backup.bytesPerSecond: the most a snapshot may write per second (default 2 MB)</li>
+ * <li> db.archive.afterDays: archive threads idle this many days; 0, the default, never does</li>
+ * <li> db.archive.batchSize: the most threads moved in one transaction (default 200)</li>
+ * <li> db.archive.intervalMinutes: how often to look for idle threads (default 60)</li>
+ * <li> db.slowQueryMillis: how long an operation may take before QueryStats logs it as slow
+ *      (default 100)</li>
+ * <li> db.maxPinnedPosts: how many posts may be pinned at once (default 3)</li>
+ * <li> db.pool.minSize and db.pool.maxSize: the fewest connections kept open and the most
+ *      open at once (default 2 and 10)</li>
+ * <li> db.pool.idleTimeoutMillis: how long a connection above the minimum may sit idle
+ *      before it is closed (default 5 minutes)</li>
+ * <li> db.pool.checkoutTimeoutMillis: how long an operation waits for a connection when all
+ *      are in use (default 10 seconds)</li>
+ * <li> db.pool.statementCacheSize: the prepared statements kept per connection (default 64)</li>
+ * </ul>
+ *
+ * <p> A tuning setting that is not given is left out of the URL, so H2 uses its own
+ * default.  With no settings at all the URL is the one the application has always used.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public final class DatabaseConfig {
+
+	/*******
+	 * <p> Enum: Mode </p>
+	 *
+	 * <p> Description: Where the data lives.</p>
+	 */
+	public enum Mode {
+		/** A file store that is created and migrated as needed */
+		FILE,
+		/** An in-memory database that lasts until the JVM exits; nothing is written to disk */
+		MEMORY,
+		/** An existing file store opened for reading only; every write fails */
+		READ_ONLY
+	}
+
+	// The names of the settings, as used in the properties file and as system properties
+	public static final String CONFIG_FILE_PROPERTY = "db.config";
+	public static final String DEFAULT_CONFIG_FILE = "database.properties";
+	static final String MODE = "db.mode";
+	static final String PATH = "db.path";
+	static final String USER = "db.user";
+	static final String PASSWORD = "db.password";
+	static final String CACHE_SIZE_KB = "db.cacheSizeKB";
+	static final String WRITE_DELAY_MILLIS = "db.writeDelayMillis";
+	static final String COMPRESS = "db.compress";
+	static final String LOCK_TIMEOUT_MILLIS = "db.lockTimeoutMillis";
+	static final String BACKUP_DIR = "db.backup.dir";
+	static final String BACKUP_GENERATIONS = "db.backup.generations";
+	static final String BACKUP_INTERVAL_MINUTES = "db.backup.intervalMinutes";
+	static final String BACKUP_BYTES_PER_SECOND = "db.backup.bytesPerSecond";
+	static final String ARCHIVE_AFTER_DAYS = "db.archive.afterDays";
+	static final String ARCHIVE_BATCH_SIZE = "db.archive.batchSize";
+	static final String ARCHIVE_INTERVAL_MINUTES = "db.archive.intervalMinutes";
+	static final String SLOW_QUERY_MILLIS = "db.slowQueryMillis";
+	static final String MAX_PINNED_POSTS = "db.maxPinnedPosts";
+	static final String POOL_MIN_SIZE = "db.pool.minSize";
+	static final String POOL_MAX_SIZE = "db.pool.maxSize";
+	static final String POOL_IDLE_TIMEOUT_MILLIS = "db.pool.idleTimeoutMillis";
+	static final String POOL_CHECKOUT_TIMEOUT_MILLIS = "db.pool.checkoutTimeoutMillis";
+	static final String STATEMENT_CACHE_SIZE = "db.pool.statementCacheSize";
+
+	static final String DEFAULT_PATH = "~/FoundationDatabase";
+	static final String DEFAULT_BACKUP_DIR = "~/FoundationDatabase-backups";
+
+	// Set only while a config is being made; a finished config is never changed
+	private Mode mode = Mode.FILE;
+	private String path = DEFAULT_PATH;
+	private String user = "sa";
+	private String password = "";
+	private Integer cacheSizeKB = null;			// null means H2's default
+	private Integer writeDelayMillis = null;
+	private Boolean compress = null;
+	private Integer lockTimeoutMillis = null;
+	private String backupDirectory = DEFAULT_BACKUP_DIR;
+	private int backupGenerations = 5;
+	private int backupIntervalMinutes = 0;
+	private long backupBytesPerSecond = 2 * 1024 * 1024;
+	private int archiveAfterDays = 0;
+	private int archiveBatchSize = 200;
+	private int archiveIntervalMinutes = 60;
+	private int slowQueryMillis = 100;
+	private int maxPinnedPosts = 3;
+	private int poolMinSize = Database.POOL_MIN_SIZE;
+	private int poolMaxSize = Database.POOL_MAX_SIZE;
+	private long poolIdleTimeoutMillis = Database.POOL_IDLE_TIMEOUT_MILLIS;
+	private long poolCheckoutTimeoutMillis = Database.POOL_CHECKOUT_TIMEOUT_MILLIS;
+	private int statementCacheSize = Database.STATEMENT_CACHE_SIZE;
+
+
+	private DatabaseConfig() {
+	}
+
+	private DatabaseConfig copy() {
+		DatabaseConfig copy = new DatabaseConfig();
+		copy.mode = mode;
+		copy.path = path;
+		copy.user = user;
+		copy.password = password;
+		copy.cacheSizeKB = cacheSizeKB;
+		copy.writeDelayMillis = writeDelayMillis;
+		copy.compress = compress;
+		copy.lockTimeoutMillis = lockTimeoutMillis;
+		copy.backupDirectory = backupDirectory;
+		copy.backupGenerations = backupGenerations;
+		copy.backupIntervalMinutes = backupIntervalMinutes;
+		copy.backupBytesPerSecond = backupBytesPerSecond;
+		copy.archiveAfterDays = archiveAfterDays;
+		copy.archiveBatchSize = archiveBatchSize;
+		copy.archiveIntervalMinutes = archiveIntervalMinutes;
+		copy.slowQueryMillis = slowQueryMillis;
+		copy.maxPinnedPosts = maxPinnedPosts;
+		copy.poolMinSize = poolMinSize;
+		copy.poolMaxSize = poolMaxSize;
+		copy.poolIdleTimeoutMillis = poolIdleTimeoutMillis;
+		copy.poolCheckoutTimeoutMillis = poolCheckoutTimeoutMillis;
+		copy.statementCacheSize = statementCacheSize;
+		return copy;
+	}
+
+
+	/*******
+	 * <p> Method: DatabaseConfig defaults() </p>
+	 *
+	 * @return the file store at ~/FoundationDatabase with H2's default tuning
+	 */
+	public static DatabaseConfig defaults() {
+		return new DatabaseConfig();
+	}
+
+
+	/*******
+	 * <p> Method: DatabaseConfig inMemory(String name) </p>
+	 *
+	 * @param name is the name of the in-memory database; configs with the same name share it
+	 *
+	 * @return an in-memory config with H2's default tuning
+	 */
+	public static DatabaseConfig inMemory(String name) {
+		return defaults().withMode(Mode.MEMORY).withPath(name);
+	}
+
+
+	/*******
+	 * <p> Method: DatabaseConfig load() </p>
+	 *
+	 * <p> Description: Read the configuration file, if there is one, and apply the system
+	 * properties over it, as described for the class.  A file that cannot be read is reported
+	 * and ignored.</p>
+	 *
+	 * @return the configuration to connect with
+	 *
+	 * @throws IllegalArgumentException if a setting has a value that cannot be used
+	 */
+	public static DatabaseConfig load() {
+		Properties settings = new Properties();
+		String file = System.getProperty(CONFIG_FILE_PROPERTY);
+		Path configFile = Paths.get(file != null ? file : DEFAULT_CONFIG_FILE);
+		if (file != null || Files.exists(configFile)) {
+			try (InputStream in = new FileInputStream(configFile.toFile())) {
+				settings.load(in);
+			} catch (IOException e) {
+				System.err.println("Cannot read database settings from " + configFile + ": "
+						+ e.getMessage());
+			}
+		}
+		for (String name : new String[] { MODE, PATH, USER, PASSWORD, CACHE_SIZE_KB,
+				WRITE_DELAY_MILLIS, COMPRESS, LOCK_TIMEOUT_MILLIS, BACKUP_DIR, BACKUP_GENERATIONS,
+				BACKUP_INTERVAL_MINUTES, BACKUP_BYTES_PER_SECOND, ARCHIVE_AFTER_DAYS,
+				ARCHIVE_BATCH_SIZE, ARCHIVE_INTERVAL_MINUTES, SLOW_QUERY_MILLIS, MAX_PINNED_POSTS,
+				POOL_MIN_SIZE, POOL_MAX_SIZE, POOL_IDLE_TIMEOUT_MILLIS, POOL_CHECKOUT_TIMEOUT_MILLIS,
+				STATEMENT_CACHE_SIZE }) {
+			String value = System.getProperty(name);
+			if (value != null) settings.setProperty(name, value);
+		}
+		return fromProperties(settings);
+	}
+
+
+	/*******
+	 * <p> Method: DatabaseConfig fromProperties(Properties settings) </p>
+	 *
+	 * @param settings holds any of the settings described for the class; the rest take their
+	 *		defaults
+	 *
+	 * @return the configuration the settings describe
+	 *
+	 * @throws IllegalArgumentException if a setting has a value that cannot be used
+	 */
+	public static DatabaseConfig fromProperties(Properties settings) {
+		DatabaseConfig config = new DatabaseConfig();
+		config.mode = parseMode(settings.getProperty(MODE));
+		config.path = settings.getProperty(PATH, config.path).trim();
+		config.user = settings.getProperty(USER, config.user);
+		config.password = settings.getProperty(PASSWORD, config.password);
+		config.cacheSizeKB = parseCount(settings, CACHE_SIZE_KB);
+		config.writeDelayMillis = parseCount(settings, WRITE_DELAY_MILLIS);
+		config.compress = parseFlag(settings, COMPRESS);
+		config.lockTimeoutMillis = parseCount(settings, LOCK_TIMEOUT_MILLIS);
+		config.backupDirectory = settings.getProperty(BACKUP_DIR, config.backupDirectory).trim();
+		Integer generations = parseCount(settings, BACKUP_GENERATIONS);
+		if (generations != null) config.backupGenerations = Math.max(1, generations);
+		Integer interval = parseCount(settings, BACKUP_INTERVAL_MINUTES);
+		if (interval != null) config.backupIntervalMinutes = interval;
+		Integer rate = parseCount(settings, BACKUP_BYTES_PER_SECOND);
+		if (rate != null) config.backupBytesPerSecond = rate;
+		Integer afterDays = parseCount(settings, ARCHIVE_AFTER_DAYS);
+		if (afterDays != null) config.archiveAfterDays = afterDays;
+		Integer batchSize = parseCount(settings, ARCHIVE_BATCH_SIZE);
+		if (batchSize != null) config.archiveBatchSize = Math.max(1, batchSize);
+		Integer archiveInterval = parseCount(settings, ARCHIVE_INTERVAL_MINUTES);
+		if (archiveInterval != null) config.archiveIntervalMinutes = Math.max(1, archiveInterval);
+		Integer slowMillis = parseCount(settings, SLOW_QUERY_MILLIS);
+		if (slowMillis != null) config.slowQueryMillis = slowMillis;
+		Integer maxPinned = parseCount(settings, MAX_PINNED_POSTS);
+		if (maxPinned != null) config.maxPinnedPosts = maxPinned;
+		Integer minSize = parseCount(settings, POOL_MIN_SIZE);
+		if (minSize != null) config.poolMinSize = minSize;
+		Integer maxSize = parseCount(settings, POOL_MAX_SIZE);
+		if (maxSize != null) config.poolMaxSize = maxSize;
+		if (config.poolMinSize < 1 || config.poolMaxSize < config.poolMinSize) {
+			throw new IllegalArgumentException(POOL_MIN_SIZE + " must be at least 1 and no more than "
+					+ POOL_MAX_SIZE + ", not " + config.poolMinSize + " and " + config.poolMaxSize);
+		}
+		Integer idleMillis = parseCount(settings, POOL_IDLE_TIMEOUT_MILLIS);
+		if (idleMillis != null) config.poolIdleTimeoutMillis = idleMillis;
+		Integer checkoutMillis = parseCount(settings, POOL_CHECKOUT_TIMEOUT_MILLIS);
+		if (checkoutMillis != null) config.poolCheckoutTimeoutMillis = checkoutMillis;
+		Integer statements = parseCount(settings, STATEMENT_CACHE_SIZE);
+		if (statements != null) config.statementCacheSize = statements;
+		return config;
+	}
+
+
+	/*******
+	 * <p> Method: String getUrl() </p>
+	 *
+	 * <p> Description: The JDBC URL for this configuration.  An in-memory database is kept
+	 * open until the JVM exits, so closing and reconnecting (as the tests do) finds the same
+	 * data.  A read-only store is opened with ACCESS_MODE_DATA=r, which H2 enforces for every
+	 * connection.</p>
+	 *
+	 * @return the URL to give the connection pool
+	 */
+	public String getUrl() {
+		StringBuilder url = new StringBuilder("jdbc:h2:");
+		if (mode == Mode.MEMORY) {
+			url.append("mem:").append(path).append(";DB_CLOSE_DELAY=-1");
+		} else {
+			url.append(path);
+			if (mode == Mode.READ_ONLY) url.append(";ACCESS_MODE_DATA=r");
+		}
+		if (cacheSizeKB != null) url.append(";CACHE_SIZE=").append(cacheSizeKB);
+		if (writeDelayMillis != null) url.append(";WRITE_DELAY=").append(writeDelayMillis);
+		if (compress != null) url.append(";COMPRESS=").append(compress ? "TRUE" : "FALSE");
+		if (lockTimeoutMillis != null) url.append(";LOCK_TIMEOUT=").append(lockTimeoutMillis);
+		return url.toString();
+	}
+
+
+	public Mode getMode() { return mode; }
+	public String getPath() { return path; }
+	public String getUser() { return user; }
+	public String getPassword() { return password; }
+	public boolean isReadOnly() { return mode == Mode.READ_ONLY; }
+	public int getBackupGenerations() { return backupGenerations; }
+	public int getBackupIntervalMinutes() { return backupIntervalMinutes; }
+	public long getBackupBytesPerSecond() { return backupBytesPerSecond; }
+	public int getArchiveAfterDays() { return archiveAfterDays; }
+	public int getArchiveBatchSize() { return archiveBatchSize; }
+	public int getArchiveIntervalMinutes() { return archiveIntervalMinutes; }
+	public int getSlowQueryMillis() { return slowQueryMillis; }
+	public int getMaxPinnedPosts() { return maxPinnedPosts; }
+	public int getPoolMinSize() { return poolMinSize; }
+	public int getPoolMaxSize() { return poolMaxSize; }
+	public long getPoolIdleTimeoutMillis() { return poolIdleTimeoutMillis; }
+	public long getPoolCheckoutTimeoutMillis() { return poolCheckoutTimeoutMillis; }
+	public int getStatementCacheSize() { return statementCacheSize; }
+
+	/*******
+	 * <p> Method: Path getBackupDirectory() </p>
+	 *
+	 * @return where snapshots are written, with a leading ~ replaced by the home directory
+	 */
+	public Path getBackupDirectory() {
+		String directory = backupDirectory;
+		if (directory.startsWith("~")) {
+			directory = System.getProperty("user.home") + directory.substring(1);
+		}
+		return Paths.get(directory);
+	}
+
+
+	public DatabaseConfig withMode(Mode mode) {
+		DatabaseConfig copy = copy();
+		copy.mode = mode;
+		return copy;
+	}
+
+	public DatabaseConfig withPath(String path) {
+		DatabaseConfig copy = copy();
+		copy.path = path;
+		return copy;
+	}
+
+	public DatabaseConfig withCacheSizeKB(int cacheSizeKB) {
+		DatabaseConfig copy = copy();
+		copy.cacheSizeKB = cacheSizeKB;
+		return copy;
+	}
+
+	public DatabaseConfig withWriteDelayMillis(int writeDelayMillis) {
+		DatabaseConfig copy = copy();
+		copy.writeDelayMillis = writeDelayMillis;
+		return copy;
+	}
+
+	public DatabaseConfig withCompression(boolean compress) {
+		DatabaseConfig copy = copy();
+		copy.compress = compress;
+		return copy;
+	}
+
+	public DatabaseConfig withLockTimeoutMillis(int lockTimeoutMillis) {
+		DatabaseConfig copy = copy();
+		copy.lockTimeoutMillis = lockTimeoutMillis;
+		return copy;
+	}
+
+	public DatabaseConfig withBackups(String directory, int generations, int intervalMinutes,
+			long bytesPerSecond) {
+		DatabaseConfig copy = copy();
+		copy.backupDirectory = directory;
+		copy.backupGenerations = Math.max(1, generations);
+		copy.backupIntervalMinutes = Math.max(0, intervalMinutes);
+		copy.backupBytesPerSecond = bytesPerSecond;
+		return copy;
+	}
+
+	public DatabaseConfig withArchiving(int afterDays, int batchSize, int intervalMinutes) {
+		DatabaseConfig copy = copy();
+		copy.archiveAfterDays = Math.max(0, afterDays);
+		copy.archiveBatchSize = Math.max(1, batchSize);
+		copy.archiveIntervalMinutes = Math.max(1, intervalMinutes);
+		return copy;
+	}
+
+	public DatabaseConfig withSlowQueryMillis(int slowQueryMillis) {
+		DatabaseConfig copy = copy();
+		copy.slowQueryMillis = Math.max(0, slowQueryMillis);
+		return copy;
+	}
+
+	public DatabaseConfig withMaxPinnedPosts(int maxPinnedPosts) {
+		DatabaseConfig copy = copy();
+		copy.maxPinnedPosts = Math.max(0, maxPinnedPosts);
+		return copy;
+	}
+
+	public DatabaseConfig withPool(int minSize, int maxSize, long idleTimeoutMillis,
+			long checkoutTimeoutMillis, int statementCacheSize) {
+		DatabaseConfig copy = copy();
+		copy.poolMinSize = Math.max(1, minSize);
+		copy.poolMaxSize = Math.max(copy.poolMinSize, maxSize);
+		copy.poolIdleTimeoutMillis = Math.max(0, idleTimeoutMillis);
+		copy.poolCheckoutTimeoutMillis = Math.max(0, checkoutTimeoutMillis);
+		copy.statementCacheSize = Math.max(0, statementCacheSize);
+		return copy;
+	}
+
+
+	@Override
+	public String toString() {
+		// The password is left out so a config can be logged
+		return mode + " " + getUrl() + " as " + user;
+	}
+
+
+	/*
+	 * Accept the mode in any case, with or without the underscore of READ_ONLY.
+	 */
+	private static Mode parseMode(String value) {
+		if (value == null || value.isBlank()) return Mode.FILE;
+		String name = value.trim().toUpperCase().replace("-", "_");
+		if (name.equals("READONLY")) return Mode.READ_ONLY;
+		try {
+			return Mode.valueOf(name);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException(MODE + " must be file, memory, or readonly, not "
+					+ value);
+		}
+	}
+
+	private static Integer parseCount(Properties settings, String name) {
+		String value = settings.getProperty(name);
+		if (value == null || value.isBlank()) return null;
+		try {
+			int count = Integer.parseInt(value.trim());
+			if (count >= 0) return count;
+		} catch (NumberFormatException e) {
+			// Reported below
+		}
+		throw new IllegalArgumentException(name + " must be a whole number of at least 0, not "
+				+ value);
+	}
+
+	private static Boolean parseFlag(Properties settings, String name) {
+		String value = settings.getProperty(name);
+		if (value == null || value.isBlank()) return null;
+		if (value.trim().equalsIgnoreCase("true")) return true;
+		if (value.trim().equalsIgnoreCase("false")) return false;
+		throw new IllegalArgumentException(name + " must be true or false, not " + value);
+	}
+}
@@ -139,12 +139,13 @@ class DatabaseTest {
         assertTrue(db.doesUserExist("testuser"), "User should be registered");
         
         // Verify details are correct
-        db.getUserAccountDetails("testuser");
-        assertEquals("testuser", db.getCurrentUsername());
-        assertEquals("Test123!", db.getCurrentPassword());
-        assertEquals("John", db.getCurrentFirstName());
-        assertEquals("M", db.getCurrentMiddleName());
-        assertEquals("Doe", db.getCurrentLastName());
+        entityClasses.UserContext account = db.getUserContext("testuser");
+        assertEquals("testuser", account.getUserName());
+        assertEquals("Test123!", account.getPassword());
+        assertEquals("John", account.getProfile().getFirstName());
+        assertEquals("M", account.getProfile().getMiddleName());
+        assertEquals("Doe", account.getProfile().getLastName());
+        assertTrue(account.getNewRole1());
         
         System.out.println("CV-1 PASSED: Successful registration with all fields");
         System.out.println("  All 10 user fields inserted correctly");
@@ -297,8 +298,7 @@ class DatabaseTest {
         }
         
         // CRITICAL: Verify victim's password was NOT changed
-        db.getUserAccountDetails("victim");
-        String victimPassword = db.getCurrentPassword();
+        String victimPassword = db.getUserContext("victim").getPassword();
         
         assertEquals("Original123!", victimPassword,
                     "Victim password should not be changed by SQL injection");
@@ -372,4 +372,992 @@ class DatabaseTest {
         System.out.println("  Reply table still exists");
         System.out.println("  Malicious reply stored as literal text");
     }
+    
+    // ==================== FEED PAGING TESTS ====================
+    
+    /**
+     * PG-1: Walking the feed page by page returns every post exactly once,
+     * pinned posts first and then newest first
+     */
+    @Test
+    void testPG1_FeedPagesCoverEveryPostInOrder() throws SQLException {
+        int[] ids = new int[7];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = db.createPost("pager", "Post " + i, "Role1");
+        }
+        db.pinPost(ids[2], "admin");
+        
+        java.util.List<Integer> seen = new java.util.ArrayList<>();
+        PostPage.Cursor cursor = null;
+        int pages = 0;
+        do {
+            PostPage<entityClasses.Post> page = db.getPostsPage(cursor, 3);
+            assertTrue(page.getPosts().size() <= 3, "A page should never exceed the limit");
+            for (entityClasses.Post post : page.getPosts()) seen.add(post.getPostID());
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null && pages < 10);
+        
+        assertEquals(java.util.List.of(ids[2], ids[6], ids[5], ids[4], ids[3], ids[1], ids[0]), seen,
+                    "Feed should list the pinned post first, then the rest newest first");
+        
+        System.out.println("PG-1 PASSED: " + seen.size() + " posts over " + pages + " pages");
+    }
+    
+    /**
+     * PS-1: The summary feed lists the same posts in the same order as the full
+     * feed and carries only a preview of long content
+     */
+    @Test
+    void testPS1_SummaryFeedCarriesPreviews() throws SQLException {
+        String longContent = "x".repeat(entityClasses.PostSummary.PREVIEW_LENGTH + 20);
+        int longId = db.createPost("pager", longContent, "Role1");
+        int shortId = db.createPost("pager", "Short post", "Role1");
+        db.createReply(longId, "student", "A reply", "Role1");
+        
+        PostPage<entityClasses.Post> full = db.getPostsPage(null, 10);
+        PostPage<entityClasses.PostSummary> summaries = db.getPostSummariesPage(null, 10);
+        assertEquals(full.getPosts().size(), summaries.getPosts().size(), "Both feeds should list the same posts");
+        for (int i = 0; i < full.getPosts().size(); i++) {
+            assertEquals(full.getPosts().get(i).getPostID(), summaries.getPosts().get(i).getPostID(),
+                        "Both feeds should use the same order");
+        }
+        
+        for (entityClasses.PostSummary summary : summaries.getPosts()) {
+            if (summary.getPostID() == longId) {
+                assertTrue(summary.isTruncated(), "Long content should be cut");
+                assertEquals(longContent.substring(0, entityClasses.PostSummary.PREVIEW_LENGTH), summary.getPreview());
+                assertEquals(1, summary.getReplyCount(), "The reply counter should be carried");
+            } else if (summary.getPostID() == shortId) {
+                assertFalse(summary.isTruncated(), "Short content should be whole");
+                assertEquals("Short post", summary.getPreview());
+            }
+        }
+        assertEquals(longContent, db.getPost(longId).getContent(), "Opening the thread should read the whole post");
+        
+        System.out.println("PS-1 PASSED: Summary feed matches the full feed with previews");
+    }
+    
+    // ==================== BATCH INSERT TESTS ====================
+    
+    /**
+     * BT-1: Batch inserts return every generated id in input order and flag
+     * each replied-to post as having unread replies
+     */
+    @Test
+    void testBT1_BatchInsertReturnsIdsAndMarksPosts() throws SQLException {
+        java.util.List<entityClasses.Post> posts = new java.util.ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            posts.add(new entityClasses.Post(0, "seeder", "Seed " + i, "Role1", false, null, false, null));
+        }
+        int[] postIds = db.createPostsBatch(posts);
+        assertEquals(3, postIds.length, "Every post should get an id");
+        for (int i = 0; i < postIds.length; i++) {
+            assertEquals("Seed " + i, db.getPost(postIds[i]).getContent(), "Ids should follow input order");
+        }
+        
+        java.util.List<entityClasses.Reply> replies = new java.util.ArrayList<>();
+        replies.add(new entityClasses.Reply(0, postIds[0], "student", "First", "Role1"));
+        replies.add(new entityClasses.Reply(0, postIds[0], "student", "Second", "Role1"));
+        replies.add(new entityClasses.Reply(0, postIds[2], "student", "Third", "Role1"));
+        int[] replyIds = db.createRepliesBatch(replies);
+        assertEquals(3, replyIds.length, "Every reply should get an id");
+        assertEquals("Third", db.getReply(replyIds[2]).getContent());
+        
+        assertEquals(2, db.getUnreadReplyCount("seeder"), "Both replied-to posts should be unread");
+        
+        // A batch of replies is activity on the thread, as a single reply is
+        java.sql.Timestamp beforeReply;
+        try {
+            Thread.sleep(20);
+            beforeReply = new java.sql.Timestamp(System.currentTimeMillis());
+            Thread.sleep(20);
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        db.createRepliesBatch(java.util.List.of(new entityClasses.Reply(0, postIds[1], "student", "Late", "Role1")));
+        assertEquals(2, db.archiveIdlePosts(beforeReply, 100), "Only the posts without the new reply should be idle");
+        assertEquals("Late", db.getRepliesByPost(postIds[1]).get(0).getContent(), "Replied-to thread should stay live");
+        
+        System.out.println("BT-1 PASSED: Batched posts and replies created");
+    }
+    
+    /**
+     * BT-2: A failing row rolls back the whole batch
+     */
+    @Test
+    void testBT2_FailedBatchIsRolledBack() throws SQLException {
+        int postId = db.createPost("seeder", "Only post", "Role1");
+        
+        java.util.List<entityClasses.Reply> replies = new java.util.ArrayList<>();
+        replies.add(new entityClasses.Reply(0, postId, "student", "Good", "Role1"));
+        replies.add(new entityClasses.Reply(0, postId + 1000, "student", "No such post", "Role1"));
+        
+        assertThrows(SQLException.class, () -> db.createRepliesBatch(replies),
+                    "A reply to a missing post should fail the batch");
+        assertTrue(db.getRepliesByPost(postId).isEmpty(), "No reply from the failed batch should remain");
+        assertEquals(0, db.getUnreadReplyCount("seeder"), "Post should not be flagged by a failed batch");
+        
+        // A bad element part way through rolls back too, and leaves nothing for the next batch
+        entityClasses.Post good = new entityClasses.Post(0, "seeder", "Batched", "Role1", false, null, false, null);
+        assertThrows(NullPointerException.class, () -> db.createPostsBatch(java.util.Arrays.asList(good, null)));
+        assertEquals(1, db.createPostsBatch(java.util.List.of(good)).length, "The next batch should run only its own rows");
+        assertEquals(1, db.searchPosts("batched", 10).size(), "The row before the bad element should be gone");
+        
+        System.out.println("BT-2 PASSED: Failed batch rolled back");
+    }
+    
+    // ==================== UNREAD FLAG WRITE-BEHIND TESTS ====================
+    
+    /**
+     * UF-1: Replies and reads are visible right away and the final state is
+     * written to the table no later than closeConnection()
+     */
+    @Test
+    void testUF1_BufferedFlagsVisibleAndFlushedOnClose() throws SQLException {
+        int postId = db.createPost("author1", "Busy thread", "Role1");
+        
+        db.createReply(postId, "student", "One", "Role1");
+        db.createReply(postId, "student", "Two", "Role1");
+        assertTrue(db.getPost(postId).hasUnreadReplies(), "New replies should show as unread at once");
+        assertNotNull(db.getPost(postId).getLastReplyTimestamp(), "Last reply time should be set");
+        
+        db.markRepliesAsRead(postId);
+        assertFalse(db.getPost(postId).hasUnreadReplies(), "Reading should clear the flag at once");
+        
+        db.createReply(postId, "student", "Three", "Role1");
+        
+        // Reopen the database; whatever was buffered must have been written by closeConnection
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase();
+        
+        assertTrue(db.getPost(postId).hasUnreadReplies(), "Last change (a reply) should be stored");
+        assertEquals(1, db.getUnreadReplyCount("author1"));
+        
+        System.out.println("UF-1 PASSED: Coalesced unread flags written on close");
+    }
+    
+    // ==================== POST CACHE TESTS ====================
+    
+    /**
+     * PC-1: Repeated getPost calls are answered from the cache, every write is
+     * reflected in the cached copy, and callers only ever get copies
+     */
+    @Test
+    void testPC1_PostCacheStaysConsistentWithWrites() throws SQLException {
+        int postId = db.createPost("author1", "Original", "Role1");
+        
+        db.getPost(postId);
+        long hitsBefore = db.getPostCacheHits();
+        entityClasses.Post copy = db.getPost(postId);
+        assertEquals(hitsBefore + 1, db.getPostCacheHits(), "Second lookup should be a cache hit");
+        
+        copy.setContent("Changed by the caller");
+        assertEquals("Original", db.getPost(postId).getContent(), "Callers should get copies");
+        
+        assertTrue(db.updatePost(postId, 0, "Edited").isUpdated());
+        assertEquals("Edited", db.getPost(postId).getContent(), "Update should reach the cache");
+        
+        db.pinPost(postId, "admin");
+        assertTrue(db.getPost(postId).isPinned(), "Pin should reach the cache");
+        db.unpinPost(postId);
+        assertFalse(db.getPost(postId).isPinned(), "Unpin should reach the cache");
+        
+        db.createReply(postId, "student", "Reply", "Role1");
+        assertTrue(db.getPost(postId).hasUnreadReplies(), "New reply should reach the cache");
+        
+        db.deletePost(postId);
+        assertNull(db.getPost(postId), "Deleted post should not be served from the cache");
+        
+        System.out.println("PC-1 PASSED: Post cache hit rate " + db.getPostCacheHitRate());
+    }
+    
+    // ==================== USER PROFILE TESTS ====================
+    
+    /**
+     * UP-1: A profile is read in one query and cached; single-field and multi-field
+     * updates both show up in it and reach the database
+     */
+    @Test
+    void testUP1_UserProfileWriteThrough() throws SQLException {
+        db.register(new User("profiler", "Pass123!", "Ann", "", "Lee", "", "ann@asu.edu",
+                false, true, false));
+        
+        entityClasses.UserProfile profile = db.getUserProfile("profiler");
+        assertEquals("Ann", profile.getFirstName());
+        assertEquals("ann@asu.edu", db.getEmailAddress("profiler"), "Second read should be cached");
+        
+        db.updateLastName("profiler", "Smith");
+        assertEquals("Smith", db.getUserProfile("profiler").getLastName(),
+                "Single-field update should write through to the cached profile");
+        
+        assertTrue(db.updateUserProfile(db.getUserProfile("profiler")
+                .withFirstName("Anna").withPreferredFirstName("Annie")));
+        assertEquals("Annie", db.getPreferredFirstName("profiler"));
+        
+        // A fresh Database has an empty cache, so this read comes from the table
+        Database other = new Database();
+        other.connectToDatabase();
+        try {
+            entityClasses.UserProfile stored = other.getUserProfile("profiler");
+            assertEquals("Anna", stored.getFirstName());
+            assertEquals("Smith", stored.getLastName());
+            assertEquals("Annie", stored.getPreferredFirstName());
+        } finally {
+            other.closeConnection();
+        }
+        assertNull(db.getUserProfile("nobody"), "Unknown user should have no profile");
+        
+        System.out.println("UP-1 PASSED: User profile cache consistent with updates");
+    }
+    
+    // ==================== SESSION TESTS ====================
+    
+    /**
+     * SS-1: Two users logged in at once keep separate contexts, and role and
+     * profile updates reach every open session of the user they change
+     */
+    @Test
+    void testSS1_SessionsAreIndependentAndFollowUpdates() throws SQLException {
+        db.register(new User("alice", "Alice123!", "Alice", "", "", "", "", false, true, false));
+        db.register(new User("bobby", "Bobby123!", "Bob", "", "", "", "", true, false, false));
+        
+        SessionRegistry sessions = db.getSessions();
+        String alice = sessions.open(db.getUserContext("alice"));
+        String bob = sessions.open(db.getUserContext("bobby"));
+        assertEquals(2, sessions.size());
+        assertEquals("alice", sessions.get(alice).getUserName());
+        assertEquals("bobby", sessions.get(bob).getUserName(), "Looking up Alice should not change Bob");
+        
+        assertTrue(db.updateUserRole("alice", "Role2", "true"));
+        db.updateFirstName("alice", "Ally");
+        assertTrue(sessions.get(alice).getNewRole2(), "Role change should reach the open session");
+        assertEquals("Ally", sessions.get(alice).getProfile().getFirstName());
+        assertFalse(sessions.get(bob).getNewRole2(), "Other users' sessions should not change");
+        
+        sessions.close(alice);
+        assertNull(sessions.get(alice), "Closed session should be gone");
+        assertNull(db.getUserContext("nobody"), "Unknown user should have no context");
+        
+        System.out.println("SS-1 PASSED: Sessions are independent and follow account updates");
+    }
+    
+    // ==================== REPLY COUNTER TESTS ====================
+    
+    /**
+     * CT-1: Reply and responder counters follow single and batch creates and
+     * deletes, so the repair job finds nothing to fix
+     */
+    @Test
+    void testCT1_ReplyCountersFollowWritesAndRepair() throws SQLException {
+        int postId = db.createPost("author1", "Counted thread", "Role1");
+        int first = db.createReply(postId, "student", "First", "Role1");
+        db.createReply(postId, "student", "Second", "Role1");
+        int third = db.createReply(postId, "student2", "Third", "Role1");
+        
+        entityClasses.Post post = db.getPost(postId);
+        assertEquals(3, post.getReplyCount());
+        assertEquals(2, post.getUniqueResponderCount());
+        assertNotNull(post.getLastReplyTimestamp(), "A replied post should have a last reply time");
+        
+        db.deleteReply(third);
+        db.deleteReply(first);
+        post = db.getPost(postId);
+        assertEquals(1, post.getReplyCount());
+        assertEquals(1, post.getUniqueResponderCount(), "student still has a reply");
+        assertEquals(-1, db.createReply(Integer.MAX_VALUE, "student", "Orphan", "Role1"),
+                "A reply to a missing post should fail");
+        
+        assertEquals(0, db.repairPostCounters(), "Maintained counters should need no repair");
+        db.createRepliesBatch(java.util.List.of(
+                new entityClasses.Reply(0, postId, "student3", "Bulk", "Role1")));
+        assertEquals(2, db.getPost(postId).getUniqueResponderCount(), "Batch inserts should count too");
+        
+        System.out.println("CT-1 PASSED: Reply counters consistent with writes");
+    }
+    
+    /**
+     * CT-2: The last reply time is in the Post row as soon as createReply
+     * returns, and deleteReply moves it back to the newest remaining reply
+     */
+    @Test
+    void testCT2_LastReplyTimeWrittenWithTheReply() throws Exception {
+        int postId = db.createPost("author1", "Timed thread", "Role1");
+        int first = db.createReply(postId, "student", "First", "Role1");
+        java.sql.Timestamp firstAt = db.getPost(postId).getLastReplyTimestamp();
+        Thread.sleep(20);
+        int second = db.createReply(postId, "student", "Second", "Role1");
+        
+        // The feed reads the rows themselves, with nothing flushed in between
+        entityClasses.Post row = db.getPostsPage(null, 10).getPosts().get(0);
+        assertEquals(db.getPost(postId).getLastReplyTimestamp(), row.getLastReplyTimestamp(),
+                    "The table and the cache should agree");
+        assertTrue(row.getLastReplyTimestamp().after(firstAt), "The newer reply should set the time");
+        
+        assertTrue(db.deleteReply(second));
+        assertEquals(firstAt, db.getPostsPage(null, 10).getPosts().get(0).getLastReplyTimestamp(),
+                    "Deleting the newest reply should go back to the one before");
+        assertEquals(firstAt, db.getPost(postId).getLastReplyTimestamp());
+        assertTrue(db.deleteReply(first));
+        assertNull(db.getPostsPage(null, 10).getPosts().get(0).getLastReplyTimestamp(),
+                    "A post with no replies has no last reply time");
+        
+        System.out.println("CT-2 PASSED: Last reply time kept with the replies");
+    }
+    
+    // ==================== FULL-TEXT SEARCH TESTS ====================
+    
+    /**
+     * FT-1: Search finds posts and replies as soon as they are written, follows
+     * edits and deletes, and ranks an exact phrase ahead of scattered words
+     */
+    @Test
+    void testFT1_SearchFollowsWritesAndRanksPhrases() throws SQLException {
+        int scattered = db.createPost("author1", "Exam review on Friday, bring notes", "Role1");
+        int phrase = db.createPost("author2", "Where are the review notes for the exam?", "Role1");
+        db.createPost("author3", "Unrelated lunch plans", "Role1");
+        
+        java.util.List<entityClasses.Post> found = db.searchPosts("review notes", 10);
+        assertEquals(2, found.size(), "Both posts contain both words");
+        assertEquals(phrase, found.get(0).getPostID(), "Exact phrase should rank first");
+        assertEquals(scattered, found.get(1).getPostID());
+        assertEquals(2, db.searchPosts("REVIEW", 10).size(), "Search should ignore case");
+        assertTrue(db.searchPosts("   ", 10).isEmpty(), "Blank search should find nothing");
+        
+        assertTrue(db.updatePost(scattered, 0, "Exam moved to Monday").isUpdated());
+        assertEquals(1, db.searchPosts("review notes", 10).size(), "Edited post should leave the results");
+        assertEquals(1, db.searchPosts("monday", 10).size(), "Edited post should match its new words");
+        
+        int reply = db.createReply(phrase, "student", "Notes are in the shared folder", "Role1");
+        java.util.List<entityClasses.Reply> replies = db.searchReplies("shared folder", 10);
+        assertEquals(1, replies.size());
+        assertEquals(phrase, replies.get(0).getPostID(), "A reply result should name its post");
+        
+        db.deleteReply(reply);
+        assertTrue(db.searchReplies("shared folder", 10).isEmpty(), "Deleted reply should not be found");
+        assertTrue(db.searchPosts("' OR 1=1 --", 10).isEmpty(), "Search text should never be run as SQL");
+        
+        System.out.println("FT-1 PASSED: Full-text search consistent with writes");
+    }
+    
+    /**
+     * FT-2: The in-memory word index answers prefix, AND and OR filters and
+     * follows creates, edits and deletes made after it was loaded
+     */
+    @Test
+    void testFT2_WordIndexFollowsWrites() throws SQLException {
+        int exam = db.createPost("author1", "Exam review on Friday", "Role1");
+        int quiz = db.createPost("author2", "Quiz answers posted", "Role1");
+        db.loadContentIndex();
+        assertTrue(db.isContentIndexLoaded());
+        
+        int later = db.createPost("author3", "Examples for the review", "Role1");
+        assertArrayEquals(new int[] {later, exam}, db.filterPosts("exam*", 10), "Prefix match, newest first");
+        assertArrayEquals(new int[] {exam}, db.filterPosts("exam review", 10), "All words must match");
+        assertArrayEquals(new int[] {quiz, exam}, db.filterPosts("friday OR quiz", 10));
+        assertArrayEquals(new int[] {later}, db.filterPosts("exam*", 1), "Limit keeps the newest");
+        
+        assertTrue(db.updatePost(exam, 0, "Midterm moved").isUpdated());
+        assertArrayEquals(new int[] {later}, db.filterPosts("exam*", 10), "Edited post should drop out");
+        
+        int reply = db.createReply(quiz, "student", "Thanks for the answers", "Role1");
+        assertArrayEquals(new int[] {reply}, db.filterReplies("thank*", 10));
+        db.deletePost(quiz);
+        assertEquals(0, db.filterPosts("quiz", 10).length, "Deleted post should drop out");
+        assertEquals(0, db.filterReplies("thanks", 10).length, "Its replies should drop out too");
+        
+        System.out.println("FT-2 PASSED: Word index consistent with writes");
+    }
+    
+    /**
+     * FT-3: A search with more matches than its limit returns exactly the
+     * limit, newest first, however small the pages of index hits (posts and
+     * replies mixed) are, and the posts behind the results are read back in
+     * one call, in the order asked
+     */
+    @Test
+    void testFT3_SearchIsCappedAndPostsReadTogether() throws SQLException {
+        int[] ids = new int[15];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = db.createPost("author1", "Capped search post " + i, "Role1");
+            db.createReply(ids[i], "student", "Capped search reply " + i, "Role1");
+        }
+        
+        java.util.List<entityClasses.Post> found = db.searchPosts("capped search", 10);
+        assertEquals(10, found.size(), "Results should stop at the limit");
+        assertEquals(ids[14], found.get(0).getPostID(), "Newest match should come first");
+        assertEquals(10, db.searchReplies("capped search", 10).size(), "Reply results should stop at the limit");
+        
+        // Pages of 4 hits hold posts and replies mixed; every post must still be ranked
+        db.setSearchPageSize(4);
+        java.util.List<entityClasses.Post> paged = db.searchPosts("capped", 6);
+        assertEquals(6, paged.size(), "Small pages should still fill the limit");
+        assertEquals(ids[14], paged.get(0).getPostID(), "Newest match should come first across pages");
+        assertEquals(ids[9], paged.get(5).getPostID(), "The six newest matches should be returned");
+        java.util.List<entityClasses.Reply> pagedReplies = db.searchReplies("capped", 6);
+        assertEquals(6, pagedReplies.size(), "Small pages should still fill the reply limit");
+        assertEquals(ids[14], pagedReplies.get(0).getPostID(), "Newest reply should come first across pages");
+        assertThrows(IllegalArgumentException.class, () -> db.setSearchPageSize(0));
+        
+        java.util.List<entityClasses.Post> posts = db.getPosts(java.util.List.of(ids[3], 999999, ids[1], ids[3]));
+        assertEquals(2, posts.size(), "Missing ids and repeats should be left out");
+        assertEquals(ids[3], posts.get(0).getPostID(), "Posts should come back in the order asked");
+        assertEquals(ids[1], posts.get(1).getPostID());
+        assertTrue(db.getPosts(java.util.List.of()).isEmpty());
+        
+        System.out.println("FT-3 PASSED: Search capped, result posts read in one call");
+    }
+    
+    /**
+     * FT-4: A brand new database, migrated from nothing, can write and search
+     * posts and replies straight away
+     */
+    @Test
+    void testFT4_FreshDatabaseSearches() throws SQLException {
+        Database fresh = new Database(DatabaseConfig.inMemory("ft4"));
+        try {
+            fresh.connectToDatabase();
+            int post = fresh.createPost("author1", "Fresh install lecture notes", "Role1");
+            int reply = fresh.createReply(post, "student", "Fresh install reply", "Role1");
+            
+            assertEquals(1, fresh.searchPosts("lecture notes", 10).size(), "New post should be found");
+            assertEquals(reply, fresh.searchReplies("fresh install", 10).get(0).getReplyID(),
+                        "New reply should be found");
+        } finally {
+            fresh.closeConnection();
+        }
+        
+        System.out.println("FT-4 PASSED: Fresh database searches after migrating");
+    }
+    
+    // ==================== REPLY LIST CACHE TESTS ====================
+    
+    /**
+     * RC-1: Reopening an unchanged thread is a cache hit, and new, edited and
+     * deleted replies all show up in the cached thread
+     */
+    @Test
+    void testRC1_ReplyListCacheFollowsWrites() throws SQLException {
+        int postId = db.createPost("author1", "Popular thread", "Role1");
+        int first = db.createReply(postId, "student", "First", "Role1");
+        
+        assertEquals(1, db.getRepliesByPost(postId).size());
+        long hitsBefore = db.getReplyCacheHits();
+        db.getRepliesByPost(postId);
+        assertEquals(hitsBefore + 1, db.getReplyCacheHits(), "Unchanged thread should be a cache hit");
+        
+        int second = db.createReply(postId, "student2", "Second", "Role1");
+        assertTrue(db.updateReply(first, 0, "First, edited").isUpdated());
+        java.util.List<entityClasses.Reply> replies = db.getRepliesByPost(postId);
+        assertEquals(2, replies.size(), "New reply should be in the cached thread");
+        assertEquals("First, edited", replies.get(0).getContent(), "Edit should be in the cached thread");
+        assertEquals(second, replies.get(1).getReplyID(), "Replies should stay in id order");
+        
+        db.deleteReply(first);
+        assertEquals(1, db.getRepliesByPost(postId).size(), "Deleted reply should leave the cached thread");
+        
+        db.deletePost(postId);
+        assertTrue(db.getRepliesByPost(postId).isEmpty(), "Deleted post should have no cached replies");
+        
+        System.out.println("RC-1 PASSED: Reply list cache consistent with writes");
+    }
+    
+    // ==================== STREAMING SCAN TESTS ====================
+    
+    /**
+     * ST-1: Stopping a scan early releases its connection, so repeated early
+     * stops never exhaust the connection pool
+     */
+    @Test
+    void testST1_EarlyTerminationReleasesConnection() throws SQLException {
+        for (int i = 0; i < 5; i++) {
+            db.createPost("streamer", "Post " + i, "Role1");
+        }
+        db.setStreamFetchSize(2);
+        
+        // More early stops than the pool has connections
+        for (int i = 0; i < Database.POOL_MAX_SIZE * 2; i++) {
+            assertEquals(1, db.forEachPost(post -> false), "Callback scan should stop after one row");
+            try (java.util.stream.Stream<entityClasses.Post> posts = db.streamAllPosts()) {
+                assertTrue(posts.findFirst().isPresent(), "Stream should return the first post");
+            }
+        }
+        
+        try (java.util.stream.Stream<entityClasses.Post> posts = db.streamAllPosts()) {
+            assertEquals(5, posts.count(), "A full scan should still see every post");
+        }
+        
+        System.out.println("ST-1 PASSED: Early termination released every connection");
+    }
+    
+    // ==================== STORAGE MODE TESTS ====================
+    
+    /**
+     * CF-1: Settings become the matching H2 URL, and unset tuning is left to H2
+     */
+    @Test
+    void testCF1_ConfigBuildsUrl() {
+        assertEquals("jdbc:h2:~/FoundationDatabase", DatabaseConfig.defaults().getUrl(),
+                    "No settings should give the original URL");
+        
+        java.util.Properties settings = new java.util.Properties();
+        settings.setProperty("db.mode", "readonly");
+        settings.setProperty("db.path", "/data/snapshot");
+        settings.setProperty("db.cacheSizeKB", "65536");
+        settings.setProperty("db.compress", "true");
+        settings.setProperty("db.lockTimeoutMillis", "2000");
+        assertEquals("jdbc:h2:/data/snapshot;ACCESS_MODE_DATA=r;CACHE_SIZE=65536;COMPRESS=TRUE;LOCK_TIMEOUT=2000",
+                    DatabaseConfig.fromProperties(settings).getUrl());
+        
+        assertEquals("jdbc:h2:mem:load;DB_CLOSE_DELAY=-1;WRITE_DELAY=0",
+                    DatabaseConfig.inMemory("load").withWriteDelayMillis(0).getUrl());
+        
+        java.util.Properties poolSettings = new java.util.Properties();
+        assertEquals(Database.POOL_MAX_SIZE, DatabaseConfig.fromProperties(poolSettings).getPoolMaxSize(),
+                    "An unset pool size should keep the default");
+        poolSettings.setProperty("db.pool.minSize", "4");
+        poolSettings.setProperty("db.pool.maxSize", "20");
+        poolSettings.setProperty("db.pool.checkoutTimeoutMillis", "2500");
+        DatabaseConfig pooled = DatabaseConfig.fromProperties(poolSettings);
+        assertEquals(4, pooled.getPoolMinSize());
+        assertEquals(20, pooled.getPoolMaxSize());
+        assertEquals(2500, pooled.getPoolCheckoutTimeoutMillis());
+        assertEquals(Database.STATEMENT_CACHE_SIZE, pooled.getStatementCacheSize());
+        poolSettings.setProperty("db.pool.maxSize", "3");
+        assertThrows(IllegalArgumentException.class, () -> DatabaseConfig.fromProperties(poolSettings),
+                    "A pool smaller than its minimum should be rejected");
+        
+        settings.setProperty("db.cacheSizeKB", "lots");
+        assertThrows(IllegalArgumentException.class, () -> DatabaseConfig.fromProperties(settings),
+                    "A bad number should be rejected");
+        
+        System.out.println("CF-1 PASSED: Storage settings become H2 URLs and pool sizes");
+    }
+    
+    /**
+     * CF-2: An in-memory database works like the file store, and a read-only
+     * copy of a file store can be read but not written
+     */
+    @Test
+    void testCF2_MemoryAndReadOnlyModes() throws Exception {
+        Database memory = new Database(DatabaseConfig.inMemory("cf2"));
+        memory.connectToDatabase();
+        try {
+            int postId = memory.createPost("loader", "In memory", "Role1");
+            assertEquals("In memory", memory.getPost(postId).getContent());
+        } finally {
+            memory.closeConnection();
+        }
+        
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("cf2");
+        DatabaseConfig file = DatabaseConfig.defaults().withPath(dir.resolve("board").toString());
+        Database writer = new Database(file);
+        writer.connectToDatabase();
+        int postId = writer.createPost("author1", "Kept", "Role1");
+        writer.closeConnection();
+        
+        Database reader = new Database(file.withMode(DatabaseConfig.Mode.READ_ONLY));
+        reader.connectToDatabase();
+        try {
+            assertEquals("Kept", reader.getPost(postId).getContent(), "Snapshot should be readable");
+            assertEquals(-1, reader.createPost("author1", "Not kept", "Role1"), "Snapshot should refuse writes");
+        } finally {
+            reader.closeConnection();
+        }
+        
+        System.out.println("CF-2 PASSED: In-memory and read-only modes");
+    }
+    
+    // ==================== STARTUP TESTS ====================
+    
+    /**
+     * SU-1: Reconnecting to a current schema runs no migrations, and warming
+     * fills the post and profile caches so the first reads are hits
+     */
+    @Test
+    void testSU1_WarmStartSkipsDdlAndFillsCaches() throws SQLException {
+        int postId = db.createPost("author1", "Warm me", "Role1");
+        db.register(new User("warmuser", "Pass123!", "Wes", "", "Arm", "", "wes@asu.edu",
+                false, true, false));
+        
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase();
+        assertEquals(0, db.getMigrationsApplied(), "A current schema should need no DDL");
+        
+        assertTrue(db.warmPostCache(50) >= 1, "The feed should be read into the cache");
+        long hits = db.getPostCacheHits();
+        assertEquals("Warm me", db.getPost(postId).getContent());
+        assertEquals(hits + 1, db.getPostCacheHits(), "The first getPost should be a cache hit");
+        
+        assertTrue(db.warmProfileCache(100) >= 1, "Profiles should be read into the cache");
+        assertEquals("Wes", db.getUserProfile("warmuser").getFirstName());
+        
+        System.out.println("SU-1 PASSED: Warm start with no DDL and filled caches");
+    }
+    
+    // ==================== BACKUP TESTS ====================
+    
+    /**
+     * BK-1: Snapshots are taken while the database is open, only the newest
+     * generations are kept, and a snapshot restores into an empty database
+     */
+    @Test
+    void testBK1_SnapshotsRotateAndRestore() throws Exception {
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("bk1");
+        Database live = new Database(DatabaseConfig.inMemory("bk1")
+                .withBackups(dir.toString(), 2, 0, 1024 * 1024));
+        live.connectToDatabase();
+        try {
+            live.createPost("author1", "Backed up", "Role1");
+            BackupService backups = live.openBackupService(Runnable::run);
+            BackupService.Result result = null;
+            for (int i = 0; i < 3; i++) {
+                result = backups.backupNow().get();
+            }
+            assertTrue(result.getBytes() > 0, "A snapshot should have content");
+            assertEquals(2, backups.listSnapshots().size(), "Only two generations should be kept");
+            assertEquals(result.getFile(), backups.listSnapshots().get(1), "The newest should be kept");
+            
+            try (java.sql.Connection restored = java.sql.DriverManager.getConnection("jdbc:h2:mem:bk1restore", "sa", "");
+                 java.sql.Statement statement = restored.createStatement()) {
+                statement.execute("RUNSCRIPT FROM '" + result.getFile() + "' COMPRESSION GZIP");
+                java.sql.ResultSet rs = statement.executeQuery("SELECT content FROM Post");
+                assertTrue(rs.next());
+                assertEquals("Backed up", rs.getString(1), "The restored post should match");
+            }
+        } finally {
+            live.closeConnection();
+        }
+        
+        System.out.println("BK-1 PASSED: Online snapshots rotate and restore");
+    }
+    
+    // ==================== EXPORT / IMPORT TESTS ====================
+    
+    /**
+     * TR-1: An exported board imports into an empty install with the same
+     * content, importing it again adds nothing, and an interrupted import
+     * carries on from its progress file
+     */
+    @Test
+    void testTR1_ExportImportRoundTripAndResume() throws Exception {
+        Database source = new Database(DatabaseConfig.inMemory("tr1source"));
+        Database target = new Database(DatabaseConfig.inMemory("tr1target"));
+        Database resumed = new Database(DatabaseConfig.inMemory("tr1resumed"));
+        source.connectToDatabase();
+        target.connectToDatabase();
+        resumed.connectToDatabase();
+        try {
+            source.register(new User("mover1", "Pass123!", "Mo", "", "Ver", "", "mo@asu.edu", false, true, false));
+            source.register(new User("mover2", "Pass123!", "Jo", "", "Ver", "", "jo@asu.edu", false, true, false));
+            String code = source.generateInvitationCode("new@asu.edu", "Role1");
+            int postId = source.createPost("mover1", "Tabs\there and\na new line \\ too", "Role1");
+            source.pinPost(postId, "admin");
+            source.createReply(postId, "mover2", "A reply", "Role1");
+            
+            java.nio.file.Path file = java.nio.file.Files.createTempDirectory("tr1").resolve("board.txt.gz");
+            java.util.List<Long> reported = new java.util.ArrayList<>();
+            BoardTransfer.Summary exported = source.exportBoard(file, (section, records, bytes, rate) -> reported.add(records));
+            assertEquals(2, exported.getRecords("user"));
+            assertEquals(5, exported.getTotalRecords(), "Two users, an invitation, a post, and a reply");
+            assertFalse(reported.isEmpty(), "Progress should be reported");
+            
+            BoardTransfer.Summary imported = target.importBoard(file, null);
+            assertEquals(5, imported.getTotalRecords());
+            entityClasses.Post copy = target.getPost(postId);
+            assertEquals(source.getPost(postId).getContent(), copy.getContent(), "Escapes should round-trip");
+            assertTrue(copy.isPinned());
+            assertEquals(1, copy.getReplyCount());
+            assertEquals("Role1", target.getRoleGivenAnInvitationCode(code));
+            assertEquals("Jo", target.getFirstName("mover2"));
+            assertTrue(target.createPost("mover1", "After import", "Role1") > postId,
+                        "New ids should follow the imported ones");
+            
+            target.importBoard(file, null);
+            assertEquals(1, target.getRepliesByPost(postId).size(), "A second import should add nothing");
+            
+            // Pretend an earlier run committed the header and the first user, then stopped
+            java.util.Properties checkpoint = new java.util.Properties();
+            checkpoint.setProperty("lines", "2");
+            try (java.io.OutputStream out = java.nio.file.Files.newOutputStream(
+                    BoardTransfer.progressFileFor(file, "import"))) {
+                checkpoint.store(out, null);
+            }
+            BoardTransfer.Summary rest = resumed.importBoard(file, null);
+            assertTrue(rest.isResumed());
+            assertEquals(1, rest.getRecords("user"), "The committed user should be skipped");
+            assertEquals(1, rest.getRecords("reply"));
+            assertFalse(java.nio.file.Files.exists(BoardTransfer.progressFileFor(file, "import")),
+                        "A finished import should remove its progress file");
+        } finally {
+            source.closeConnection();
+            target.closeConnection();
+            resumed.closeConnection();
+        }
+        
+        System.out.println("TR-1 PASSED: Board export and import round-trip and resume");
+    }
+    
+    // ==================== ARCHIVE TESTS ====================
+    
+    /**
+     * AR-1: Idle unpinned threads move to the archive and leave the feed, reads
+     * fall through to them, and a reply brings a thread back
+     */
+    @Test
+    void testAR1_IdleThreadsArchiveAndFallThrough() throws SQLException {
+        int idle = db.createPost("author1", "Old thread", "Role1");
+        int replyId = db.createReply(idle, "student", "Old reply", "Role1");
+        int other = db.createPost("author1", "Also old", "Role1");
+        int pinned = db.createPost("author1", "Pinned thread", "Role1");
+        db.pinPost(pinned, "admin");
+        
+        java.sql.Timestamp future = new java.sql.Timestamp(System.currentTimeMillis() + 60_000);
+        assertEquals(2, db.archiveIdlePosts(future, 100), "Both unpinned threads should be idle");
+        assertEquals(2, db.getArchivedPostCount());
+        assertEquals(java.util.List.of(pinned),
+                    db.getPostsPage(null, 10).getPosts().stream().map(entityClasses.Post::getPostID).toList(),
+                    "Only the pinned post should stay in the feed");
+        
+        assertEquals("Old thread", db.getPost(idle).getContent(), "getPost should fall through");
+        assertEquals(replyId, db.getRepliesByPost(idle).get(0).getReplyID(), "Replies should fall through");
+        assertEquals("Old reply", db.getReply(replyId).getContent(), "getReply should fall through");
+        
+        assertTrue(db.createReply(idle, "student", "Revived", "Role1") > 0, "A reply should restore the thread");
+        assertEquals(1, db.getArchivedPostCount());
+        assertEquals(2, db.getPost(idle).getReplyCount());
+        assertEquals(2, db.getRepliesByPost(idle).size());
+        assertEquals(0, db.archiveIdlePosts(new java.sql.Timestamp(System.currentTimeMillis() - 60_000), 100),
+                    "A just-revived thread is not idle");
+        
+        assertTrue(db.deletePost(other), "An archived post can be deleted");
+        assertNull(db.getPost(other));
+        assertEquals(0, db.getArchivedPostCount());
+        
+        int flagged = db.createPost("author1", "Flag in flight", "Role1");
+        db.createReply(flagged, "student", "Unread", "Role1");		// Buffered, not yet written
+        db.archiveIdlePosts(future, 100);
+        db.closeConnection();
+        db = new Database();
+        db.connectToDatabase();
+        assertTrue(db.getPost(flagged).hasUnreadReplies(), "A flag buffered over the move should reach the archive");
+        
+        System.out.println("AR-1 PASSED: Idle threads archived with read fall-through");
+    }
+    
+    // ==================== QUERY STATISTICS TESTS ====================
+    
+    /**
+     * QS-1: Every operation that reaches H2 is timed under its Database method
+     * name, and slow calls are logged with their literals redacted
+     */
+    @Test
+    void testQS1_OperationsTimedAndSlowCallsRedacted() throws SQLException {
+        Database timed = new Database(DatabaseConfig.inMemory("qs1").withSlowQueryMillis(0));
+        timed.connectToDatabase();
+        try {
+            timed.getQueryStats().reset();
+            int postId = timed.createPost("author1", "secret content", "Role1");
+            timed.createReply(postId, "student", "another secret", "Role1");
+            
+            QueryStats.OperationStats created = timed.getQueryStats().getOperationStats("Database.createPost");
+            assertNotNull(created, "createPost should be timed under its own name");
+            assertEquals(1, created.getCount());
+            assertTrue(created.getP50Micros() <= created.getP99Micros()
+                    && created.getP99Micros() <= created.getMaxMicros(), "p50 <= p99 <= max");
+            
+            assertFalse(timed.getQueryStats().getSlowQueries().isEmpty(), "A zero threshold logs every call");
+            for (QueryStats.SlowQuery slow : timed.getQueryStats().getSlowQueries()) {
+                assertFalse(slow.toString().contains("secret"), "Bind values must not be logged");
+            }
+            assertTrue(timed.getQueryStats().report().contains("Database.createReply"));
+        } finally {
+            timed.closeConnection();
+        }
+        
+        assertEquals("SELECT * FROM userDB WHERE userName = ? AND id > ? AND col2 = ?",
+                QueryStats.redact("SELECT * FROM userDB WHERE userName = 'it''s me' AND id > 42 AND col2 = -1.5"));
+        
+        QueryStats.Histogram histogram = new QueryStats.Histogram();
+        for (long micros = 1; micros <= 10_000; micros++) histogram.record(micros);
+        assertEquals(5_000, histogram.percentile(50), 5_000 / 16.0, "p50 should be within a bucket");
+        assertEquals(9_900, histogram.percentile(99), 9_900 / 16.0, "p99 should be within a bucket");
+        assertEquals(10_000, histogram.percentile(100));
+        
+        System.out.println("QS-1 PASSED: Per-operation latency and redacted slow-query log");
+    }
+    
+    // ==================== ROUND-TRIP TESTS ====================
+    
+    /**
+     * RT-1: A scope counts the statements of one action by shape, flags a query
+     * run once per row, and follows work handed to the AsyncDatabase
+     */
+    @Test
+    void testRT1_RepeatedStatementsFlaggedPerAction() throws Exception {
+        int[] ids = new int[12];
+        for (int i = 0; i < ids.length; i++) ids[i] = db.createPost("author1", "Post " + i, "Role1");
+        
+        java.util.concurrent.BlockingQueue<RoundTrips.Report> finished = new java.util.concurrent.LinkedBlockingQueue<>();
+        java.util.function.Consumer<RoundTrips.Report> previous = RoundTrips.setListener(finished::add);
+        AsyncDatabase async = new AsyncDatabase(db, 2, Runnable::run);
+        try {
+            RoundTrips.Report loop;
+            try (RoundTrips.Scope scope = RoundTrips.open("one post at a time")) {
+                for (int id : ids) db.getPost(id);
+                loop = scope.getReport();
+            }
+            assertTrue(loop.isSuspect(), "Twelve identical lookups should be flagged");
+            assertEquals(ids.length, loop.getMaxRepeats());
+            assertTrue(loop.getWorstShapes().get(0).getSql().contains("?"), "Shapes should hide the ids");
+            assertThrows(AssertionError.class, () -> loop.assertRepeatsAtMost(1));
+            
+            try (RoundTrips.Scope scope = RoundTrips.open("one page")) {
+                db.getPostsPage(null, ids.length);
+                scope.getReport().assertRepeatsAtMost(2);	// The pinned and unpinned ranges
+            }
+            
+            RoundTrips.Scope action = RoundTrips.open("handed off");
+            async.submit(d -> d.getPostsPage(null, 5));
+            action.close();
+            RoundTrips.Report handedOff = null;
+            for (RoundTrips.Report report; (report = finished.poll(5, java.util.concurrent.TimeUnit.SECONDS)) != null; ) {
+                if (report.getAction().equals("handed off")) handedOff = report;
+                if (handedOff != null) break;
+            }
+            assertNotNull(handedOff, "The scope should finish once its async work has");
+            assertTrue(handedOff.getStatements() >= 1, "Async work should be counted in the scope");
+        } finally {
+            async.shutdown();
+            RoundTrips.setListener(previous);
+        }
+        
+        System.out.println("RT-1 PASSED: Statements counted per action and repeats flagged");
+    }
+    
+    // ==================== OPTIMISTIC CONCURRENCY TESTS ====================
+    
+    /**
+     * OC-1: Edits carry the version they were made against, a stale one is
+     * refused with the current row, and non-overlapping edits merge
+     */
+    @Test
+    void testOC1_StaleEditsConflictAndMerge() throws SQLException {
+        int postId = db.createPost("author1", "Exam on Monday in room 4", "Role1");
+        assertEquals(0, db.getPost(postId).getVersion(), "A new post should start at version 0");
+        
+        EditResult<entityClasses.Post> first = db.updatePost(postId, 0, "Exam on Tuesday in room 4");
+        assertTrue(first.isUpdated());
+        assertEquals(1, first.getVersion());
+        
+        EditResult<entityClasses.Post> stale = db.updatePost(postId, 0, "Exam on Monday in room 12");
+        assertTrue(stale.isConflict(), "An edit of version 0 should not overwrite version 1");
+        assertEquals(1, stale.getVersion());
+        assertEquals("Exam on Tuesday in room 4", stale.getCurrent().getContent());
+        assertEquals("Exam on Tuesday in room 4", db.getPost(postId).getContent(), "The conflict should write nothing");
+        
+        String merged = guiPosts.ModelPosts.mergeEdits("Exam on Monday in room 4",
+                    stale.getCurrent().getContent(), "Exam on Monday in room 12");
+        assertEquals("Exam on Tuesday in room 12", merged, "Edits to different words should merge");
+        assertNull(guiPosts.ModelPosts.mergeEdits("Exam on Monday", "Exam on Tuesday", "Exam on Friday"),
+                    "Edits to the same word should not merge");
+        assertTrue(db.updatePost(postId, stale.getVersion(), merged).isUpdated());
+        
+        assertTrue(db.updatePost(postId, 2, "Moderator wording").isUpdated(), "An edit of the current version saves");
+        assertEquals(3, db.getPost(postId).getVersion(), "Every saved edit should bump the version");
+        assertTrue(db.updatePost(postId, 2, "Lost").isConflict());
+        assertEquals(EditResult.Status.NOT_FOUND, db.updatePost(postId + 1000, 0, "Nobody").getStatus());
+        
+        int replyId = db.createReply(postId, "student", "See you there", "Role1");
+        assertTrue(db.updateReply(replyId, 0, "See you in room 12").isUpdated());
+        EditResult<entityClasses.Reply> staleReply = db.updateReply(replyId, 0, "See you later");
+        assertTrue(staleReply.isConflict());
+        assertEquals("See you in room 12", staleReply.getCurrent().getContent());
+        assertEquals(1, db.getRepliesByPost(postId).get(0).getVersion(), "The reply cache should follow the version");
+        
+        int idle = db.createPost("author1", "Archived thread", "Role1");
+        assertEquals(2, db.archiveIdlePosts(new java.sql.Timestamp(System.currentTimeMillis() + 60_000), 100));
+        EditResult<entityClasses.Reply> archivedStale = db.updateReply(replyId, 0, "Too late");
+        assertTrue(archivedStale.isConflict(), "An archived reply should still be version checked");
+        assertEquals("See you in room 12", archivedStale.getCurrent().getContent());
+        assertEquals(2, db.getArchivedPostCount(), "A refused edit should leave the thread archived");
+        assertTrue(db.updateReply(replyId, 1, "See you in room 14").isUpdated(),
+                    "Editing a reply should restore its thread");
+        assertEquals(1, db.getArchivedPostCount());
+        assertEquals("See you in room 14", db.getRepliesByPost(postId).get(0).getContent());
+        assertTrue(db.updatePost(idle, 0, "Edited after archiving").isUpdated(), "Editing should restore the thread");
+        assertEquals("Edited after archiving", db.getPost(idle).getContent());
+        
+        System.out.println("OC-1 PASSED: Stale edits conflict and disjoint edits merge");
+    }
+    
+    // ==================== PIN LIMIT TESTS ====================
+    
+    /**
+     * PN-1: The configured pin limit holds when many admins pin at once, and a
+     * deleted or unpinned post gives its slot back
+     */
+    @Test
+    void testPN1_PinLimitHoldsUnderConcurrentPins() throws Exception {
+        Database pins = new Database(DatabaseConfig.inMemory("pn1").withMaxPinnedPosts(2));
+        pins.connectToDatabase();
+        java.util.concurrent.ExecutorService admins = java.util.concurrent.Executors.newFixedThreadPool(8);
+        Database other = null;
+        try {
+            pins.clearAllTables();
+            other = new Database(DatabaseConfig.inMemory("pn1").withMaxPinnedPosts(2));
+            other.connectToDatabase();		// Loads an empty pinned set that goes stale
+            assertEquals(2, pins.getMaxPinnedPosts());
+            int[] ids = new int[8];
+            for (int i = 0; i < ids.length; i++) ids[i] = pins.createPost("author1", "Candidate " + i, "Role1");
+            
+            java.util.concurrent.CountDownLatch start = new java.util.concurrent.CountDownLatch(1);
+            java.util.List<java.util.concurrent.Future<Boolean>> attempts = new java.util.ArrayList<>();
+            for (int id : ids) {
+                attempts.add(admins.submit(() -> {
+                    start.await();
+                    return pins.pinPost(id, "admin");
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (java.util.concurrent.Future<Boolean> attempt : attempts) if (attempt.get()) succeeded++;
+            assertEquals(2, succeeded, "Exactly the limit should win");
+            assertEquals(2, pins.getPinnedPostIDs().size());
+            long pinnedInFeed = pins.getPostsPage(null, 20).getPosts().stream()
+                        .filter(entityClasses.Post::isPinned).count();
+            assertEquals(2, pinnedInFeed, "The table should agree with the slots");
+            
+            int first = pins.getPinnedPostIDs().get(0);
+            assertTrue(pins.pinPost(first, "admin"), "Pinning a pinned post changes nothing");
+            assertTrue(other.pinPost(first, "admin2"), "A stale set should still see the post is pinned");
+            assertTrue(other.getPinnedPostIDs().contains(first));
+            int unpinned = java.util.Arrays.stream(ids).filter(id -> !pins.getPinnedPostIDs().contains(id))
+                        .findFirst().getAsInt();
+            assertFalse(pins.pinPost(unpinned, "admin"), "Both slots are taken");
+            
+            assertTrue(pins.deletePost(first));
+            assertTrue(pins.pinPost(unpinned, "admin"), "A deleted post should free its slot");
+            assertTrue(pins.unpinPost(unpinned));
+            assertEquals(1, pins.getPinnedPostIDs().size());
+            assertFalse(pins.getPost(unpinned).isPinned());
+            assertFalse(pins.pinPost(-1, "admin"), "A missing post cannot be pinned");
+        } finally {
+            admins.shutdownNow();
+            if (other != null) other.closeConnection();
+            pins.closeConnection();
+        }
+        
+        Database reopened = new Database(DatabaseConfig.inMemory("pn1"));
+        reopened.connectToDatabase();
+        try {
+            assertEquals(1, reopened.getPinnedPostIDs().size(), "The pinned set should load on connect");
+        } finally {
+            reopened.closeConnection();
+        }
+        
+        System.out.println("PN-1 PASSED: Pin limit enforced atomically");
+    }
 }
\ No newline at end of file
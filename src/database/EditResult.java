@@ -0,0 +1,79 @@
+package database;
+
+/*******
+ * <p> Title: EditResult Class. </p>
+ *
+ * <p> Description: What a compare-and-set edit of a post or reply did.  The edit names the
+ * version of the row it was made against; it is written only if the row is still at that
+ * version, and otherwise reports a conflict together with the row as the other editor left
+ * it, so the caller can merge the two edits or ask the user, and try again against the newer
+ * version.  No row lock is held between reading a post and saving the edit.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ *
+ * @param <T> Post or Reply
+ */
+public final class EditResult<T> {
+
+	/*******
+	 * <p> Enum: Status </p>
+	 */
+	public enum Status {
+		/** The edit was written */
+		UPDATED,
+		/** Someone else edited the row first; nothing was written */
+		CONFLICT,
+		/** There is no such row */
+		NOT_FOUND
+	}
+
+	private final Status status;
+	private final int version;
+	private final T current;
+
+	private EditResult(Status status, int version, T current) {
+		this.status = status;
+		this.version = version;
+		this.current = current;
+	}
+
+	static <T> EditResult<T> updated(int newVersion) {
+		return new EditResult<>(Status.UPDATED, newVersion, null);
+	}
+
+	static <T> EditResult<T> conflict(int currentVersion, T current) {
+		return new EditResult<>(Status.CONFLICT, currentVersion, current);
+	}
+
+	static <T> EditResult<T> notFound() {
+		return new EditResult<>(Status.NOT_FOUND, -1, null);
+	}
+
+	public Status getStatus() { return status; }
+	public boolean isUpdated() { return status == Status.UPDATED; }
+	public boolean isConflict() { return status == Status.CONFLICT; }
+
+	/*******
+	 * <p> Method: int getVersion() </p>
+	 *
+	 * @return the row's version after the edit when it was written, the version the other
+	 *		editor left it at on a conflict, and -1 when there is no row
+	 */
+	public int getVersion() { return version; }
+
+	/*******
+	 * <p> Method: T getCurrent() </p>
+	 *
+	 * @return on a conflict, the row as it now is; otherwise null
+	 */
+	public T getCurrent() { return current; }
+
+	@Override
+	public String toString() {
+		return status + " at version " + version;
+	}
+}
@@ -0,0 +1,194 @@
+package database;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/*******
+ * <p> Title: LruCache Class. </p>
+ *
+ * <p> Description: A small, thread-safe, size-bounded cache that evicts the least recently used
+ * entry when it is full.  It keeps hit and miss counters so callers can report how well the
+ * cache is working.  An optional eviction listener is told about every entry that is pushed out
+ * so that entries holding resources (such as prepared statements) can release them.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class LruCache<K, V> {
+
+	/*******
+	 * <p> Interface: EvictionListener </p>
+	 *
+	 * <p> Description: Told about each entry removed because the cache was full.</p>
+	 *
+	 * @param <K> the key type
+	 * @param <V> the value type
+	 */
+	public interface EvictionListener<K, V> {
+		void evicted(K key, V value);
+	}
+
+	private final int capacity;
+	private final EvictionListener<K, V> listener;
+	private final LinkedHashMap<K, V> map;
+	private long hits = 0;
+	private long misses = 0;
+
+
+	/*******
+	 * <p> Method: LruCache </p>
+	 *
+	 * <p> Description: Establish a cache that holds no more than capacity entries.</p>
+	 *
+	 * @param capacity is the largest number of entries kept
+	 */
+	public LruCache(int capacity) {
+		this(capacity, null);
+	}
+
+
+	/*******
+	 * <p> Method: LruCache </p>
+	 *
+	 * <p> Description: Establish a cache that holds no more than capacity entries and reports
+	 * evictions to the listener.</p>
+	 *
+	 * @param capacity is the largest number of entries kept
+	 *
+	 * @param listener is told about every entry evicted because the cache was full (may be null)
+	 */
+	public LruCache(int capacity, EvictionListener<K, V> listener) {
+		this.capacity = capacity;
+		this.listener = listener;
+		this.map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				if (size() <= LruCache.this.capacity) return false;
+				if (LruCache.this.listener != null) {
+					LruCache.this.listener.evicted(eldest.getKey(), eldest.getValue());
+				}
+				return true;
+			}
+		};
+	}
+
+
+	/*******
+	 * <p> Method: V get(K key) </p>
+	 *
+	 * <p> Description: Look up an entry, counting a hit or a miss and marking the entry as the
+	 * most recently used.</p>
+	 *
+	 * @param key is the key to look up
+	 *
+	 * @return the cached value, or null if the key is not cached
+	 */
+	public synchronized V get(K key) {
+		V value = map.get(key);
+		if (value == null) misses++;
+		else hits++;
+		return value;
+	}
+
+
+	/*******
+	 * <p> Method: void put(K key, V value) </p>
+	 *
+	 * <p> Description: Add or replace an entry, evicting the least recently used entry if the
+	 * cache is now over capacity.</p>
+	 *
+	 * @param key is the key
+	 *
+	 * @param value is the value to cache
+	 */
+	public synchronized void put(K key, V value) {
+		map.put(key, value);
+	}
+
+
+	/*******
+	 * <p> Method: V computeIfPresent(K key, BiFunction remapping) </p>
+	 *
+	 * <p> Description: Replace an entry that is already cached with a new value computed from
+	 * the old one, or drop it if the function returns null.  Nothing happens if the key is not
+	 * cached, and the hit and miss counters are not changed.</p>
+	 *
+	 * @param key is the key of the entry to change
+	 *
+	 * @param remapping computes the new value from the key and the cached value
+	 *
+	 * @return the new value, or null if there is none
+	 */
+	public synchronized V computeIfPresent(K key,
+			BiFunction<? super K, ? super V, ? extends V> remapping) {
+		return map.computeIfPresent(key, remapping);
+	}
+
+
+	/*******
+	 * <p> Method: V remove(K key) </p>
+	 *
+	 * @param key is the key of the entry to drop
+	 *
+	 * @return the value that was cached, or null
+	 */
+	public synchronized V remove(K key) {
+		return map.remove(key);
+	}
+
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Drop every entry.  The hit and miss counters are kept.</p>
+	 */
+	public synchronized void clear() {
+		map.clear();
+	}
+
+
+	/*******
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of entries currently cached
+	 */
+	public synchronized int size() {
+		return map.size();
+	}
+
+
+	/*******
+	 * <p> Method: long getHits() </p>
+	 *
+	 * @return the number of lookups that found an entry
+	 */
+	public synchronized long getHits() { return hits; }
+
+
+	/*******
+	 * <p> Method: long getMisses() </p>
+	 *
+	 * @return the number of lookups that did not find an entry
+	 */
+	public synchronized long getMisses() { return misses; }
+
+
+	/*******
+	 * <p> Method: double getHitRate() </p>
+	 *
+	 * @return the fraction of lookups that were hits, or 0 if there have been none
+	 */
+	public synchronized double getHitRate() {
+		long total = hits + misses;
+		return total == 0 ? 0.0 : (double) hits / total;
+	}
+}
@@ -0,0 +1,92 @@
+package database;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/*******
+ * <p> Title: PinnedPosts Class. </p>
+ *
+ * <p> Description: The ids of the posts that are pinned, held in memory so the feed and the
+ * admin pages can tell which posts are pinned, and how many, without asking H2.  The Database
+ * loads the set from the PinnedSlot table when it connects and changes it after each pin,
+ * unpin, or delete has committed.  The table stays the authority: it is what makes the pin
+ * limit hold when two admins pin at once.</p>
+ *
+ * <p> The set is a small sorted array that is replaced, never changed, on each write, so
+ * reads take no lock.  Pins change rarely and there are only a handful at a time.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class PinnedPosts {
+
+	private volatile int[] ids = new int[0];		// Newest first, as the feed shows them
+
+
+	/*******
+	 * <p> Method: boolean contains(int postID) </p>
+	 *
+	 * @param postID is the post to look for
+	 *
+	 * @return true if the post is pinned
+	 */
+	public boolean contains(int postID) {
+		for (int id : ids) if (id == postID) return true;
+		return false;
+	}
+
+
+	/*******
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of pinned posts
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+
+	/*******
+	 * <p> Method: List&lt;Integer&gt; getIDs() </p>
+	 *
+	 * @return the ids of the pinned posts, newest first
+	 */
+	public List<Integer> getIDs() {
+		return Arrays.stream(ids).boxed().toList();
+	}
+
+
+	synchronized void add(int postID) {
+		if (contains(postID)) return;
+		int[] grown = Arrays.copyOf(ids, ids.length + 1);
+		grown[ids.length] = postID;
+		ids = newestFirst(grown);
+	}
+
+	synchronized void remove(int postID) {
+		if (!contains(postID)) return;
+		ids = Arrays.stream(ids).filter(id -> id != postID).toArray();
+	}
+
+	synchronized void replaceAll(Collection<Integer> postIDs) {
+		ids = newestFirst(postIDs.stream().mapToInt(Integer::intValue).distinct().toArray());
+	}
+
+	synchronized void clear() {
+		ids = new int[0];
+	}
+
+	private static int[] newestFirst(int[] postIDs) {
+		Arrays.sort(postIDs);
+		for (int i = 0, j = postIDs.length - 1; i < j; i++, j--) {
+			int swap = postIDs[i];
+			postIDs[i] = postIDs[j];
+			postIDs[j] = swap;
+		}
+		return postIDs;
+	}
+}
@@ -0,0 +1,132 @@
+package database;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*******
+ * <p> Title: PostArchiver Class. </p>
+ *
+ * <p> Description: Moves threads that have been idle for a configured number of days into the
+ * archive tables, in the background.  Every intervalMinutes it calls
+ * {@link Database#archiveIdlePosts(Timestamp, int)} with one batch at a time, pausing between
+ * batches, until a batch comes back short.  Each batch is a short transaction of its own, so
+ * the first archive of a large board is spread over many small moves rather than one long one
+ * that would hold up posting.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class PostArchiver {
+
+	static final long PAUSE_BETWEEN_BATCHES_MILLIS = 200;
+
+	private final Database database;
+	private final long idleMillis;
+	private final int batchSize;
+	private final ScheduledExecutorService worker;
+	private volatile long archivedTotal = 0;
+
+
+	/*******
+	 * <p> Method: PostArchiver(...) </p>
+	 *
+	 * <p> Description: Made by {@link Database#openArchiver()}.</p>
+	 *
+	 * @param database is the database whose idle threads are archived
+	 *
+	 * @param idleDays is how long a thread must have been idle
+	 *
+	 * @param batchSize is the most threads moved in one transaction
+	 */
+	PostArchiver(Database database, int idleDays, int batchSize) {
+		this.database = database;
+		this.idleMillis = TimeUnit.DAYS.toMillis(idleDays);
+		this.batchSize = batchSize;
+		this.worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "PostArchiver");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+	}
+
+
+	/*******
+	 * <p> Method: void schedule(int intervalMinutes) </p>
+	 *
+	 * <p> Description: Archive idle threads now and then every intervalMinutes.  A pass that
+	 * fails is reported and the schedule carries on.</p>
+	 *
+	 * @param intervalMinutes is the time between passes
+	 */
+	void schedule(int intervalMinutes) {
+		worker.scheduleWithFixedDelay(() -> {
+			try {
+				archiveNow();
+			} catch (SQLException e) {
+				System.err.println("Archiving idle threads failed: " + e.getMessage());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}, 0, intervalMinutes, TimeUnit.MINUTES);
+	}
+
+
+	/*******
+	 * <p> Method: int archiveNow() </p>
+	 *
+	 * <p> Description: Archive every thread that is idle now, one batch at a time, on the
+	 * caller's thread.</p>
+	 *
+	 * @return the number of threads archived
+	 *
+	 * @throws SQLException if a batch fails; the batches before it stay archived
+	 *
+	 * @throws InterruptedException if the pause between batches is interrupted
+	 */
+	public int archiveNow() throws SQLException, InterruptedException {
+		Timestamp idleSince = new Timestamp(System.currentTimeMillis() - idleMillis);
+		int archived = 0;
+		int moved;
+		do {
+			moved = database.archiveIdlePosts(idleSince, batchSize);
+			archived += moved;
+			archivedTotal += moved;
+			if (moved == batchSize) Thread.sleep(PAUSE_BETWEEN_BATCHES_MILLIS);
+		} while (moved == batchSize);
+		return archived;
+	}
+
+
+	/*******
+	 * <p> Method: long getArchivedTotal() </p>
+	 *
+	 * @return the number of threads this archiver has moved since it started
+	 */
+	public long getArchivedTotal() {
+		return archivedTotal;
+	}
+
+
+	/*******
+	 * <p> Method: void shutdown() </p>
+	 *
+	 * <p> Description: Stop the schedule.  A batch in progress is allowed to finish.  Called by
+	 * Database.closeConnection.</p>
+	 */
+	public void shutdown() {
+		worker.shutdown();
+		try {
+			if (!worker.awaitTermination(5, TimeUnit.SECONDS)) worker.shutdownNow();
+		} catch (InterruptedException e) {
+			worker.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+}
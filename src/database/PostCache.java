@@ -0,0 +1,178 @@
+package database;
+
+import java.util.function.Consumer;
+
+import entityClasses.Post;
+
+/*******
+ * <p> Title: PostCache Class. </p>
+ *
+ * <p> Description: A bounded, read-through cache of posts by id, so the repeated getPost calls
+ * made by the controllers (before an edit, a delete, a pin, or opening a thread) and by the
+ * statistics calculator are answered from memory instead of H2.  The least recently used posts
+ * are evicted once the cache is full.</p>
+ *
+ * <p> Post objects are mutable, so the cache only ever stores and returns copies; a caller that
+ * changes a Post it was given cannot change what the next caller sees.  The Database keeps the
+ * cache exact by applying each of its own writes to the cached copy ({@link #update}) or by
+ * dropping it ({@link #invalidate}).</p>
+ *
+ * <p> A read that misses loads the post from H2 and then stores it.  If a write to the same
+ * post lands between that load and the store, the loaded copy may already be out of date, so
+ * every write bumps a change counter and {@link #putIfUnchanged} refuses to store a post loaded
+ * before the latest change.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class PostCache {
+
+	private final LruCache<Integer, Post> posts;
+
+	// Bumped by every write, so a load that raced with a write is not cached
+	private long changeCount = 0;
+
+
+	/*******
+	 * <p> Method: PostCache </p>
+	 *
+	 * @param capacity is the largest number of posts kept
+	 */
+	public PostCache(int capacity) {
+		this.posts = new LruCache<>(capacity);
+	}
+
+
+	/*******
+	 * <p> Method: Post get(int postID) </p>
+	 *
+	 * @param postID is the id of the post to look up
+	 *
+	 * @return a copy of the cached post, or null if it is not cached
+	 */
+	public Post get(int postID) {
+		return copyOf(posts.get(postID));
+	}
+
+
+	/*******
+	 * <p> Method: long getChangeCount() </p>
+	 *
+	 * <p> Description: Read before loading a post from the database and pass to putIfUnchanged.
+	 * </p>
+	 *
+	 * @return the current change counter
+	 */
+	public synchronized long getChangeCount() {
+		return changeCount;
+	}
+
+
+	/*******
+	 * <p> Method: void putIfUnchanged(Post post, long changeCountBeforeLoad) </p>
+	 *
+	 * <p> Description: Cache a copy of a post just loaded from the database, unless some write
+	 * has happened since the load started.</p>
+	 *
+	 * @param post is the loaded post (null is ignored)
+	 *
+	 * @param changeCountBeforeLoad is getChangeCount() as it was before the load
+	 */
+	public synchronized void putIfUnchanged(Post post, long changeCountBeforeLoad) {
+		if (post == null || changeCount != changeCountBeforeLoad) return;
+		posts.put(post.getPostID(), copyOf(post));
+	}
+
+
+	/*******
+	 * <p> Method: void update(int postID, Consumer change) </p>
+	 *
+	 * <p> Description: Apply a write that has just been made to the database to the cached copy
+	 * of the post, if it is cached.</p>
+	 *
+	 * @param postID is the id of the post that was written
+	 *
+	 * @param change makes the same change to a Post that was made to its row
+	 */
+	public synchronized void update(int postID, Consumer<Post> change) {
+		changeCount++;
+		posts.computeIfPresent(postID, (id, cached) -> {
+			change.accept(cached);
+			return cached;
+		});
+	}
+
+
+	/*******
+	 * <p> Method: void invalidate(int postID) </p>
+	 *
+	 * <p> Description: Drop the cached copy of a post that was deleted or changed in a way the
+	 * cache cannot reproduce.</p>
+	 *
+	 * @param postID is the id of the post to drop
+	 */
+	public synchronized void invalidate(int postID) {
+		changeCount++;
+		posts.remove(postID);
+	}
+
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Drop every cached post.</p>
+	 */
+	public synchronized void clear() {
+		changeCount++;
+		posts.clear();
+	}
+
+
+	/*******
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of posts currently cached
+	 */
+	public int size() { return posts.size(); }
+
+
+	/*******
+	 * <p> Method: long getHits() </p>
+	 *
+	 * @return the number of lookups answered from the cache
+	 */
+	public long getHits() { return posts.getHits(); }
+
+
+	/*******
+	 * <p> Method: long getMisses() </p>
+	 *
+	 * @return the number of lookups that had to go to the database
+	 */
+	public long getMisses() { return posts.getMisses(); }
+
+
+	/*******
+	 * <p> Method: double getHitRate() </p>
+	 *
+	 * @return the fraction of lookups answered from the cache
+	 */
+	public double getHitRate() { return posts.getHitRate(); }
+
+
+	/*
+	 * A field-for-field copy of a post.
+	 */
+	private static Post copyOf(Post post) {
+		if (post == null) return null;
+		Post copy = new Post(post.getPostID(), post.getAuthor(), post.getContent(),
+				post.getAuthorRole(), post.isPinned(), post.getPinnedBy(),
+				post.hasUnreadReplies(), post.getLastReplyTimestamp(), post.getReplyCount(),
+				post.getUniqueResponderCount());
+		copy.setVersion(post.getVersion());
+		return copy;
+	}
+}
@@ -0,0 +1,104 @@
+package database;
+
+import java.util.Collections;
+import java.util.List;
+
+/*******
+ * <p> Title: PostPage Class. </p>
+ *
+ * <p> Description: One page of the post feed returned by
+ * {@link Database#getPostsPage(PostPage.Cursor, int)} (whole posts) or
+ * {@link Database#getPostSummariesPage(PostPage.Cursor, int)} (summaries), together with the
+ * cursor that fetches the page after it.  Both feeds are in the same order and take the same
+ * cursors.  The feed is ordered pinned posts first, then newest first within each group
+ * (isPinned DESC, id DESC).  A cursor remembers the (isPinned, id) of the last post on a page, so
+ * the next page starts right after it using the feed index instead of skipping over every earlier
+ * row the way OFFSET would.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ *
+ * @param <T> Post or PostSummary
+ */
+public class PostPage<T> {
+
+	/*******
+	 * <p> Title: Cursor Class. </p>
+	 *
+	 * <p> Description: The feed position just after a given post.  Cursors are immutable and
+	 * may be kept by the GUI between page requests.</p>
+	 */
+	public static class Cursor {
+		private final boolean pinned;
+		private final int postID;
+
+		/*******
+		 * <p> Method: Cursor </p>
+		 *
+		 * @param pinned is the pin state of the last post already shown
+		 *
+		 * @param postID is the id of the last post already shown
+		 */
+		public Cursor(boolean pinned, int postID) {
+			this.pinned = pinned;
+			this.postID = postID;
+		}
+
+		/*******
+		 * <p> Method: boolean isPinned() </p>
+		 *
+		 * @return true if the last post already shown was pinned
+		 */
+		public boolean isPinned() { return pinned; }
+
+		/*******
+		 * <p> Method: int getPostID() </p>
+		 *
+		 * @return the id of the last post already shown
+		 */
+		public int getPostID() { return postID; }
+	}
+
+	private final List<T> posts;
+	private final Cursor nextCursor;
+
+
+	/*******
+	 * <p> Method: PostPage </p>
+	 *
+	 * @param posts is the posts on this page, in feed order
+	 *
+	 * @param nextCursor is the cursor for the following page, or null if this is the last page
+	 */
+	public PostPage(List<T> posts, Cursor nextCursor) {
+		this.posts = Collections.unmodifiableList(posts);
+		this.nextCursor = nextCursor;
+	}
+
+
+	/*******
+	 * <p> Method: List getPosts() </p>
+	 *
+	 * @return the posts on this page, in feed order
+	 */
+	public List<T> getPosts() { return posts; }
+
+
+	/*******
+	 * <p> Method: Cursor getNextCursor() </p>
+	 *
+	 * @return the cursor for the following page, or null if there are no more posts
+	 */
+	public Cursor getNextCursor() { return nextCursor; }
+
+
+	/*******
+	 * <p> Method: boolean hasMore() </p>
+	 *
+	 * @return true if there may be more posts after this page
+	 */
+	public boolean hasMore() { return nextCursor != null; }
+}
@@ -0,0 +1,334 @@
+package database;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/*******
+ * <p> Title: QueryStats Class. </p>
+ *
+ * <p> Description: How long each Database operation takes.  The connection pool reports every
+ * checkout here when it is handed back: the operation that borrowed the connection, how long it
+ * held it, and the SQL it ran.  Each operation has its own latency histogram, from which
+ * {@link #getOperationStats()} reads the count, median, 99th percentile, and maximum on demand,
+ * and {@link #report()} formats them as a table.</p>
+ *
+ * <p> The histograms are kept the way HdrHistogram keeps them: a fixed array of counters,
+ * one per bucket, where the buckets are exact up to 32 microseconds and above that are
+ * sixteen to each power of two.  Every percentile read from one is therefore within about six
+ * percent of the true value, the memory used does not grow with the number of calls, and
+ * recording a call is one array increment with no locking.</p>
+ *
+ * <p> An operation that takes longer than the slow-query threshold is also kept in a ring of
+ * the most recent slow calls, with the SQL it ran.  The SQL is redacted first: string and
+ * number literals become ?, so the log never holds a password, a post, or anything else a
+ * user typed.  Prepared statements keep their bind values out of the SQL text to begin
+ * with.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class QueryStats {
+
+	static final int SLOW_LOG_SIZE = 100;			// Slow calls kept, newest replacing oldest
+	static final int STATEMENTS_PER_CALL = 8;		// SQL texts kept for one slow call
+
+	// A quoted string, with '' standing for a quote inside it, or a number not part of a name
+	private static final Pattern LITERAL =
+			Pattern.compile("'(?:[^']|'')*'|(?<![\\w.$])-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?\\b");
+
+	/*******
+	 * <p> Class: OperationStats </p>
+	 *
+	 * <p> Description: The latency of one operation, read from its histogram at one moment.
+	 * Times are in microseconds.</p>
+	 */
+	public static final class OperationStats {
+		private final String operation;
+		private final long count;
+		private final long p50Micros;
+		private final long p99Micros;
+		private final long maxMicros;
+		private final long meanMicros;
+
+		OperationStats(String operation, long count, long p50Micros, long p99Micros,
+				long maxMicros, long meanMicros) {
+			this.operation = operation;
+			this.count = count;
+			this.p50Micros = p50Micros;
+			this.p99Micros = p99Micros;
+			this.maxMicros = maxMicros;
+			this.meanMicros = meanMicros;
+		}
+
+		public String getOperation() { return operation; }
+		public long getCount() { return count; }
+		public long getP50Micros() { return p50Micros; }
+		public long getP99Micros() { return p99Micros; }
+		public long getMaxMicros() { return maxMicros; }
+		public long getMeanMicros() { return meanMicros; }
+
+		@Override
+		public String toString() {
+			return operation + ": " + count + " calls, p50 " + p50Micros + " us, p99 " + p99Micros
+					+ " us, max " + maxMicros + " us";
+		}
+	}
+
+	/*******
+	 * <p> Class: SlowQuery </p>
+	 *
+	 * <p> Description: One call that took longer than the threshold.</p>
+	 */
+	public static final class SlowQuery {
+		private final Instant finishedAt;
+		private final String operation;
+		private final long micros;
+		private final String thread;
+		private final List<String> statements;
+
+		SlowQuery(Instant finishedAt, String operation, long micros, String thread,
+				List<String> statements) {
+			this.finishedAt = finishedAt;
+			this.operation = operation;
+			this.micros = micros;
+			this.thread = thread;
+			this.statements = statements;
+		}
+
+		public Instant getFinishedAt() { return finishedAt; }
+		public String getOperation() { return operation; }
+		public long getMicros() { return micros; }
+		public String getThread() { return thread; }
+
+		/*******
+		 * <p> Method: List&lt;String&gt; getStatements() </p>
+		 *
+		 * @return the redacted SQL the call ran, in the order it first ran each one
+		 */
+		public List<String> getStatements() { return statements; }
+
+		@Override
+		public String toString() {
+			return finishedAt + " " + operation + " " + micros + " us on " + thread + ": "
+					+ String.join(" | ", statements);
+		}
+	}
+
+	private final long slowThresholdMicros;
+	private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+	private final SlowQuery[] slowLog = new SlowQuery[SLOW_LOG_SIZE];
+	private long slowLogged = 0;					// Guarded by slowLog
+
+
+	/*******
+	 * <p> Method: QueryStats(long slowThresholdMillis) </p>
+	 *
+	 * @param slowThresholdMillis is how long a call may take before it is logged as slow; 0
+	 *		logs every call
+	 */
+	public QueryStats(long slowThresholdMillis) {
+		this.slowThresholdMicros = slowThresholdMillis * 1000;
+	}
+
+
+	/*******
+	 * <p> Method: void record(String operation, long nanos, List&lt;String&gt; statements) </p>
+	 *
+	 * <p> Description: Count one call, and log it if it was slow.</p>
+	 *
+	 * @param operation names what was called, such as Database.getPost
+	 *
+	 * @param nanos is how long it took
+	 *
+	 * @param statements is the SQL it ran, before redaction
+	 */
+	public void record(String operation, long nanos, List<String> statements) {
+		long micros = Math.max(0, nanos / 1000);
+		histograms.computeIfAbsent(operation, name -> new Histogram()).record(micros);
+		if (micros < slowThresholdMicros) return;
+
+		List<String> redacted = new ArrayList<>(statements.size());
+		for (String sql : statements) redacted.add(redact(sql));
+		SlowQuery slow = new SlowQuery(Instant.now(), operation, micros,
+				Thread.currentThread().getName(), Collections.unmodifiableList(redacted));
+		synchronized (slowLog) {
+			slowLog[(int) (slowLogged++ % SLOW_LOG_SIZE)] = slow;
+		}
+	}
+
+
+	/*******
+	 * <p> Method: List&lt;OperationStats&gt; getOperationStats() </p>
+	 *
+	 * @return the latency of every operation called so far, by name
+	 */
+	public List<OperationStats> getOperationStats() {
+		List<OperationStats> all = new ArrayList<>();
+		for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+			all.add(entry.getValue().snapshot(entry.getKey()));
+		}
+		all.sort((a, b) -> a.getOperation().compareTo(b.getOperation()));
+		return all;
+	}
+
+
+	/*******
+	 * <p> Method: OperationStats getOperationStats(String operation) </p>
+	 *
+	 * @param operation names the operation, such as Database.getPost
+	 *
+	 * @return its latency, or null if it has not been called
+	 */
+	public OperationStats getOperationStats(String operation) {
+		Histogram histogram = histograms.get(operation);
+		return histogram == null ? null : histogram.snapshot(operation);
+	}
+
+
+	/*******
+	 * <p> Method: List&lt;SlowQuery&gt; getSlowQueries() </p>
+	 *
+	 * @return the most recent slow calls, oldest first
+	 */
+	public List<SlowQuery> getSlowQueries() {
+		synchronized (slowLog) {
+			int kept = (int) Math.min(slowLogged, SLOW_LOG_SIZE);
+			List<SlowQuery> slow = new ArrayList<>(kept);
+			for (long i = slowLogged - kept; i < slowLogged; i++) {
+				slow.add(slowLog[(int) (i % SLOW_LOG_SIZE)]);
+			}
+			return slow;
+		}
+	}
+
+
+	/*******
+	 * <p> Method: long getSlowThresholdMillis() </p>
+	 *
+	 * @return how long a call may take before it is logged as slow
+	 */
+	public long getSlowThresholdMillis() {
+		return slowThresholdMicros / 1000;
+	}
+
+
+	/*******
+	 * <p> Method: String report() </p>
+	 *
+	 * @return one line per operation with its count, p50, p99, and maximum, followed by the
+	 *		slow calls, ready to print
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder(String.format("%-36s %8s %9s %9s %9s%n",
+				"Operation", "calls", "p50 us", "p99 us", "max us"));
+		for (OperationStats stats : getOperationStats()) {
+			report.append(String.format("%-36s %8d %9d %9d %9d%n", stats.getOperation(),
+					stats.getCount(), stats.getP50Micros(), stats.getP99Micros(),
+					stats.getMaxMicros()));
+		}
+		List<SlowQuery> slow = getSlowQueries();
+		report.append(slow.size()).append(" slow call(s) of ").append(getSlowThresholdMillis())
+				.append(" ms or more").append(slow.isEmpty() ? "" : ":").append('\n');
+		for (SlowQuery query : slow) report.append("  ").append(query).append('\n');
+		return report.toString();
+	}
+
+
+	/*******
+	 * <p> Method: void reset() </p>
+	 *
+	 * <p> Description: Forget every call recorded so far, to measure from a fresh start.</p>
+	 */
+	public void reset() {
+		histograms.clear();
+		synchronized (slowLog) {
+			Arrays.fill(slowLog, null);
+			slowLogged = 0;
+		}
+	}
+
+
+	/*******
+	 * <p> Method: String redact(String sql) </p>
+	 *
+	 * @param sql is a statement as it was run
+	 *
+	 * @return the statement with every string and number literal replaced by ?
+	 */
+	public static String redact(String sql) {
+		return LITERAL.matcher(sql).replaceAll("?");
+	}
+
+
+	/*
+	 * A log-linear histogram of times in microseconds.  Values below 32 have a bucket each;
+	 * above that, each power of two is split into 16 equal buckets, so a bucket is never wider
+	 * than one sixteenth of the values in it.  Values above MAX_MICROS (about 19 hours) are
+	 * counted in the last bucket.
+	 */
+	static final class Histogram {
+		static final int SUB_BUCKETS = 16;
+		static final long MAX_MICROS = (1L << 36) - 1;
+
+		private final AtomicLongArray counts = new AtomicLongArray(bucketOf(MAX_MICROS) + 1);
+		private final AtomicLong count = new AtomicLong();
+		private final LongAdder total = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		void record(long micros) {
+			counts.incrementAndGet(bucketOf(Math.min(micros, MAX_MICROS)));
+			total.add(micros);
+			max.accumulate(micros);
+			count.incrementAndGet();
+		}
+
+		/*
+		 * The value at the given percentile, reported as the top of the bucket it falls in
+		 * (but never more than the largest value recorded), as HdrHistogram does.
+		 */
+		long percentile(double percent) {
+			long recorded = 0;
+			for (int i = 0; i < counts.length(); i++) recorded += counts.get(i);
+			if (recorded == 0) return 0;
+			long rank = Math.max(1, (long) Math.ceil(percent / 100 * recorded));
+			long seen = 0;
+			for (int i = 0; i < counts.length(); i++) {
+				seen += counts.get(i);
+				if (seen >= rank) return Math.min(highestInBucket(i), max.get());
+			}
+			return max.get();
+		}
+
+		OperationStats snapshot(String operation) {
+			long calls = count.get();
+			return new OperationStats(operation, calls, percentile(50), percentile(99), max.get(),
+					calls == 0 ? 0 : total.sum() / calls);
+		}
+
+		static int bucketOf(long micros) {
+			if (micros < 2 * SUB_BUCKETS) return (int) micros;
+			int shift = 63 - Long.numberOfLeadingZeros(micros) - 4;
+			return SUB_BUCKETS * shift + (int) (micros >>> shift);
+		}
+
+		static long highestInBucket(int bucket) {
+			if (bucket < 2 * SUB_BUCKETS) return bucket;
+			int shift = bucket / SUB_BUCKETS - 1;
+			long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+			return lowest + (1L << shift) - 1;
+		}
+	}
+}
@@ -0,0 +1,361 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import entityClasses.Reply;
+
+/*******
+ * <p> Title: ReplyListCache Class. </p>
+ *
+ * <p> Description: Caches the list of replies for each post, so opening a popular thread does not
+ * run getRepliesByPost again when nothing in it has changed.  Each cached list is immutable; a
+ * write to a thread replaces its list with a new one.</p>
+ *
+ * <p> Every post has a version number that goes up with each write to its replies.  A list is
+ * stored together with the version it was loaded at, and is only stored at all if the version
+ * has not moved while the load was running, so a load that raced with a write can never put an
+ * out-of-date list in the cache.  The writes the Database makes itself (a new reply, an edited
+ * reply, a deleted reply) are applied to the cached list directly so the thread stays cached;
+ * deleting a post simply drops its list.</p>
+ *
+ * <p> The cache is bounded by an estimate of the memory its lists use rather than by a count,
+ * since one busy thread can be as large as hundreds of quiet ones.  When the budget is exceeded
+ * the threads that were opened least recently are evicted first.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class ReplyListCache {
+
+	// Rough per-object overheads used by the memory estimate
+	private static final long REPLY_OVERHEAD_BYTES = 64;
+	private static final long LIST_OVERHEAD_BYTES = 48;
+
+	/*
+	 * One cached thread: its replies, the version they were loaded at, and their estimated size.
+	 */
+	private static class Entry {
+		final List<Reply> replies;
+		final long version;
+		final long bytes;
+
+		Entry(List<Reply> replies, long version) {
+			this.replies = Collections.unmodifiableList(replies);
+			this.version = version;
+			long size = LIST_OVERHEAD_BYTES;
+			for (Reply reply : replies) size += estimateBytes(reply);
+			this.bytes = size;
+		}
+	}
+
+	/*******
+	 * <p> Title: Stamp Class. </p>
+	 *
+	 * <p> Description: Taken before a thread is loaded from the database and handed back to
+	 * {@link ReplyListCache#put}, which uses it to tell whether anything changed during the load.
+	 * </p>
+	 */
+	public static class Stamp {
+		private final int postID;
+		private final long version;
+		private final long unattributedWrites;
+
+		private Stamp(int postID, long version, long unattributedWrites) {
+			this.postID = postID;
+			this.version = version;
+			this.unattributedWrites = unattributedWrites;
+		}
+	}
+
+	private final long budgetBytes;
+	private long usedBytes = 0;
+	private long hits = 0;
+	private long misses = 0;
+
+	// Cached threads, least recently opened first
+	private final LinkedHashMap<Integer, Entry> threads = new LinkedHashMap<>(16, 0.75f, true);
+
+	// The current version of each post's replies
+	private final Map<Integer, Long> versions = new HashMap<>();
+
+	// Which cached thread each cached reply is in, for edits and deletes made by reply id
+	private final Map<Integer, Integer> postOfReply = new HashMap<>();
+
+	// Writes to replies that are in no cached thread; any one of them spoils a load in progress
+	private long unattributedWrites = 0;
+
+
+	/*******
+	 * <p> Method: ReplyListCache </p>
+	 *
+	 * @param budgetBytes is roughly how much memory the cached lists may use
+	 */
+	public ReplyListCache(long budgetBytes) {
+		this.budgetBytes = budgetBytes;
+	}
+
+
+	/*******
+	 * <p> Method: List get(int postID) </p>
+	 *
+	 * @param postID is the post whose replies are wanted
+	 *
+	 * @return a copy of the cached replies, in id order, or null if the thread is not cached
+	 */
+	public synchronized List<Reply> get(int postID) {
+		Entry entry = threads.get(postID);
+		if (entry == null || entry.version != versionOf(postID)) {
+			misses++;
+			return null;
+		}
+		hits++;
+		return copyOf(entry.replies);
+	}
+
+
+	/*******
+	 * <p> Method: Stamp stamp(int postID) </p>
+	 *
+	 * @param postID is the post about to be loaded
+	 *
+	 * @return the stamp to pass to put once the load is done
+	 */
+	public synchronized Stamp stamp(int postID) {
+		return new Stamp(postID, versionOf(postID), unattributedWrites);
+	}
+
+
+	/*******
+	 * <p> Method: void put(Stamp stamp, List replies) </p>
+	 *
+	 * <p> Description: Cache the replies just loaded for a post, unless any reply write happened
+	 * that could have changed them since the stamp was taken.</p>
+	 *
+	 * @param stamp is the stamp taken before the load
+	 *
+	 * @param replies is the loaded replies, in id order
+	 */
+	public synchronized void put(Stamp stamp, List<Reply> replies) {
+		if (stamp.version != versionOf(stamp.postID)
+				|| stamp.unattributedWrites != unattributedWrites) {
+			return;
+		}
+		store(stamp.postID, copyOf(replies), stamp.version);
+	}
+
+
+	/*******
+	 * <p> Method: void replyAdded(Reply reply) </p>
+	 *
+	 * <p> Description: A reply has just been inserted.  A cached thread gets it appended.</p>
+	 *
+	 * @param reply is the new reply, with its generated id
+	 */
+	public synchronized void replyAdded(Reply reply) {
+		int postID = reply.getPostID();
+		Entry entry = threads.get(postID);
+		long version = bump(postID);
+		if (entry != null) {
+			List<Reply> replies = new ArrayList<>(entry.replies);
+			replies.add(copyOf(reply));
+			store(postID, replies, version);
+		}
+	}
+
+
+	/*******
+	 * <p> Method: void replyUpdated(int replyID, String content) </p>
+	 *
+	 * <p> Description: A reply's content has just been changed, which also moved it to its
+	 * next version.</p>
+	 *
+	 * @param replyID is the id of the changed reply
+	 *
+	 * @param content is its new content
+	 */
+	public synchronized void replyUpdated(int replyID, String content) {
+		rewrite(replyID, reply -> new Reply(reply.getReplyID(), reply.getPostID(),
+				reply.getAuthor(), content, reply.getAuthorRole(), reply.getVersion() + 1));
+	}
+
+
+	/*******
+	 * <p> Method: void replyDeleted(int replyID) </p>
+	 *
+	 * <p> Description: A reply has just been deleted.</p>
+	 *
+	 * @param replyID is the id of the deleted reply
+	 */
+	public synchronized void replyDeleted(int replyID) {
+		rewrite(replyID, reply -> null);
+		postOfReply.remove(replyID);
+	}
+
+
+	/*******
+	 * <p> Method: void postChanged(int postID) </p>
+	 *
+	 * <p> Description: Drop a thread whose replies were changed in a way the cache does not
+	 * reproduce, such as the post being deleted or replies being inserted in bulk.</p>
+	 *
+	 * @param postID is the post whose replies changed
+	 */
+	public synchronized void postChanged(int postID) {
+		bump(postID);
+		evict(postID);
+	}
+
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Drop every cached thread.</p>
+	 */
+	public synchronized void clear() {
+		for (Integer postID : new ArrayList<>(threads.keySet())) evict(postID);
+		unattributedWrites++;
+	}
+
+
+	/*******
+	 * <p> Method: long getUsedBytes() </p>
+	 *
+	 * @return the estimated memory used by the cached lists
+	 */
+	public synchronized long getUsedBytes() { return usedBytes; }
+
+
+	/*******
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of threads cached
+	 */
+	public synchronized int size() { return threads.size(); }
+
+
+	/*******
+	 * <p> Method: long getHits() </p>
+	 *
+	 * @return the number of lookups answered from the cache
+	 */
+	public synchronized long getHits() { return hits; }
+
+
+	/*******
+	 * <p> Method: long getMisses() </p>
+	 *
+	 * @return the number of lookups that had to go to the database
+	 */
+	public synchronized long getMisses() { return misses; }
+
+
+	/*
+	 * Replace (or, when change returns null, remove) one reply in the thread that holds it.
+	 */
+	private void rewrite(int replyID, UnaryOperator<Reply> change) {
+		Integer postID = postOfReply.get(replyID);
+		Entry entry = postID == null ? null : threads.get(postID);
+		if (entry == null) {
+			// Not in any cached thread, but a thread holding it may be loading right now
+			unattributedWrites++;
+			return;
+		}
+		long version = bump(postID);
+		List<Reply> replies = new ArrayList<>(entry.replies.size());
+		for (Reply reply : entry.replies) {
+			if (reply.getReplyID() != replyID) {
+				replies.add(reply);
+			} else {
+				Reply changed = change.apply(reply);
+				if (changed != null) replies.add(changed);
+			}
+		}
+		store(postID, replies, version);
+	}
+
+
+	/*
+	 * Store a thread's list, then evict the least recently opened threads until the cache is
+	 * back under its budget.  A single thread larger than the whole budget is not kept.
+	 */
+	private void store(int postID, List<Reply> replies, long version) {
+		evict(postID);
+		Entry entry = new Entry(replies, version);
+		threads.put(postID, entry);
+		usedBytes += entry.bytes;
+		for (Reply reply : entry.replies) postOfReply.put(reply.getReplyID(), postID);
+
+		Iterator<Integer> coldestFirst = threads.keySet().iterator();
+		while (usedBytes > budgetBytes && coldestFirst.hasNext()) {
+			Integer coldest = coldestFirst.next();
+			Entry removed = threads.get(coldest);
+			coldestFirst.remove();
+			forget(removed);
+		}
+	}
+
+
+	/*
+	 * Drop one thread and its bookkeeping.
+	 */
+	private void evict(int postID) {
+		Entry removed = threads.remove(postID);
+		if (removed != null) forget(removed);
+	}
+
+
+	private void forget(Entry removed) {
+		usedBytes -= removed.bytes;
+		for (Reply reply : removed.replies) postOfReply.remove(reply.getReplyID());
+	}
+
+
+	private long versionOf(int postID) {
+		return versions.getOrDefault(postID, 0L);
+	}
+
+
+	private long bump(int postID) {
+		long version = versionOf(postID) + 1;
+		versions.put(postID, version);
+		return version;
+	}
+
+
+	/*
+	 * A rough size for one reply: its strings at two bytes per character plus object overhead.
+	 */
+	private static long estimateBytes(Reply reply) {
+		long chars = length(reply.getAuthor()) + length(reply.getContent())
+				+ length(reply.getAuthorRole());
+		return REPLY_OVERHEAD_BYTES + 2 * chars;
+	}
+
+
+	private static int length(String s) {
+		return s == null ? 0 : s.length();
+	}
+
+
+	private static Reply copyOf(Reply reply) {
+		return new Reply(reply.getReplyID(), reply.getPostID(), reply.getAuthor(),
+				reply.getContent(), reply.getAuthorRole(), reply.getVersion());
+	}
+
+
+	private static List<Reply> copyOf(List<Reply> replies) {
+		List<Reply> copies = new ArrayList<>(replies.size());
+		for (Reply reply : replies) copies.add(copyOf(reply));
+		return copies;
+	}
+}
@@ -0,0 +1,351 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/*******
+ * <p> Title: RoundTrips Class. </p>
+ *
+ * <p> Description: Counts the SQL statements sent to H2 on behalf of one user action, to catch
+ * the N+1 pattern: a loop that runs the same query once per row of an earlier one, turning a
+ * single click into hundreds of round trips.  An action opens a scope around its work:</p>
+ *
+ * <pre>
+ * try (RoundTrips.Scope scope = RoundTrips.open("ControllerPosts.performViewReplies")) {
+ *     ...
+ * }
+ * </pre>
+ *
+ * <p> Every statement the connection pool executes on that thread while the scope is open is
+ * counted in it, grouped by shape: the SQL with its literals replaced by ?, so the same query
+ * run for different ids is one shape.  Work handed to {@link AsyncDatabase} from inside a scope
+ * is counted in it too, along with the callbacks that run when that work completes, and the
+ * scope is not finished until the last of them is.  A scope opened inside another counts in
+ * both.</p>
+ *
+ * <p> When a scope finishes its {@link Report} goes to the listener.  A report is suspect when
+ * one shape ran at least the repeat threshold times; the default listener prints suspect
+ * reports, with their worst shapes, to the error stream, and {@link #getSuspects()} keeps the
+ * most recent ones.  A test can instead call {@link Report#assertRepeatsAtMost(int)} or
+ * {@link Report#assertStatementsAtMost(int)} on a scope's report.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public final class RoundTrips {
+
+	public static final int DEFAULT_REPEAT_THRESHOLD = 10;	// Same shape this often is suspect
+	static final int WORST_SHAPES = 5;						// Shapes listed in a report
+	static final int SUSPECTS_KEPT = 20;					// Recent suspect reports kept
+
+	private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+	private static volatile int repeatThreshold = DEFAULT_REPEAT_THRESHOLD;
+	private static volatile Consumer<Report> listener = RoundTrips::printIfSuspect;
+	private static final List<Report> suspects = new ArrayList<>();		// Guarded by itself
+
+	private RoundTrips() {
+	}
+
+
+	/*******
+	 * <p> Class: Shape </p>
+	 *
+	 * <p> Description: One statement shape and the number of times it ran in a scope.</p>
+	 */
+	public static final class Shape {
+		private final String sql;
+		private final long count;
+
+		Shape(String sql, long count) {
+			this.sql = sql;
+			this.count = count;
+		}
+
+		public String getSql() { return sql; }
+		public long getCount() { return count; }
+
+		@Override
+		public String toString() {
+			return count + " x " + sql;
+		}
+	}
+
+
+	/*******
+	 * <p> Class: Report </p>
+	 *
+	 * <p> Description: The statements one scope sent, read at one moment.</p>
+	 */
+	public static final class Report {
+		private final String action;
+		private final long statements;
+		private final List<Shape> shapes;		// Most frequent first
+		private final long durationMillis;
+		private final int threshold;
+
+		Report(String action, long statements, List<Shape> shapes, long durationMillis,
+				int threshold) {
+			this.action = action;
+			this.statements = statements;
+			this.shapes = shapes;
+			this.durationMillis = durationMillis;
+			this.threshold = threshold;
+		}
+
+		public String getAction() { return action; }
+		public long getStatements() { return statements; }
+		public int getDistinctShapes() { return shapes.size(); }
+		public long getDurationMillis() { return durationMillis; }
+
+		/*******
+		 * <p> Method: List&lt;Shape&gt; getWorstShapes() </p>
+		 *
+		 * @return the shapes that ran most often, most frequent first
+		 */
+		public List<Shape> getWorstShapes() {
+			return shapes.subList(0, Math.min(WORST_SHAPES, shapes.size()));
+		}
+
+		/*******
+		 * <p> Method: long getMaxRepeats() </p>
+		 *
+		 * @return the number of times the most frequent shape ran
+		 */
+		public long getMaxRepeats() {
+			return shapes.isEmpty() ? 0 : shapes.get(0).getCount();
+		}
+
+		/*******
+		 * <p> Method: boolean isSuspect() </p>
+		 *
+		 * @return true if one shape ran at least the repeat threshold times
+		 */
+		public boolean isSuspect() {
+			return getMaxRepeats() >= threshold;
+		}
+
+		/*******
+		 * <p> Method: void assertRepeatsAtMost(int maxRepeats) </p>
+		 *
+		 * @param maxRepeats is the most times any one shape may have run
+		 *
+		 * @throws AssertionError naming the worst shapes if one ran more often
+		 */
+		public void assertRepeatsAtMost(int maxRepeats) {
+			if (getMaxRepeats() > maxRepeats) {
+				throw new AssertionError(action + " ran one statement " + getMaxRepeats()
+						+ " times; at most " + maxRepeats + " expected\n" + this);
+			}
+		}
+
+		/*******
+		 * <p> Method: void assertStatementsAtMost(int maxStatements) </p>
+		 *
+		 * @param maxStatements is the most statements the scope may have sent
+		 *
+		 * @throws AssertionError naming the worst shapes if it sent more
+		 */
+		public void assertStatementsAtMost(int maxStatements) {
+			if (statements > maxStatements) {
+				throw new AssertionError(action + " sent " + statements + " statements; at most "
+						+ maxStatements + " expected\n" + this);
+			}
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder text = new StringBuilder(action).append(": ").append(statements)
+					.append(" statement(s), ").append(shapes.size()).append(" shape(s) in ")
+					.append(durationMillis).append(" ms");
+			for (Shape shape : getWorstShapes()) text.append("\n  ").append(shape);
+			return text.toString();
+		}
+	}
+
+
+	/*******
+	 * <p> Class: Scope </p>
+	 *
+	 * <p> Description: The statements of one action, counted until the action and any database
+	 * work it started have finished.</p>
+	 */
+	public static final class Scope implements AutoCloseable {
+		private final String action;
+		private final Scope parent;
+		private final long startNanos = System.nanoTime();
+		private final Map<String, LongAdder> shapes = new ConcurrentHashMap<>();
+		private final LongAdder statements = new LongAdder();
+		private final AtomicInteger holds = new AtomicInteger(1);	// The opener's, until close
+		private boolean closed = false;
+		private volatile Report finalReport = null;
+
+		private Scope(String action, Scope parent) {
+			this.action = action;
+			this.parent = parent;
+		}
+
+		/*******
+		 * <p> Method: Report getReport() </p>
+		 *
+		 * @return what the scope has counted so far, or in all once it has finished
+		 */
+		public Report getReport() {
+			Report done = finalReport;
+			return done != null ? done : snapshot();
+		}
+
+		/*******
+		 * <p> Method: void close() </p>
+		 *
+		 * <p> Description: End the action on this thread.  The scope finishes now unless
+		 * database work it started is still running, in which case it finishes when that work
+		 * does.</p>
+		 */
+		@Override
+		public void close() {
+			if (closed) return;
+			closed = true;
+			if (CURRENT.get() == this) CURRENT.set(parent);
+			release();
+		}
+
+		/*
+		 * Keep the scope from finishing while work it started runs elsewhere.
+		 */
+		void hold() {
+			holds.incrementAndGet();
+		}
+
+		void release() {
+			if (holds.decrementAndGet() == 0) {
+				finalReport = snapshot();
+				Consumer<Report> target = listener;
+				if (target != null) target.accept(finalReport);
+			}
+		}
+
+		private void count(String shape) {
+			statements.increment();
+			shapes.computeIfAbsent(shape, sql -> new LongAdder()).increment();
+		}
+
+		private Report snapshot() {
+			List<Shape> counted = new ArrayList<>();
+			for (Map.Entry<String, LongAdder> entry : shapes.entrySet()) {
+				counted.add(new Shape(entry.getKey(), entry.getValue().sum()));
+			}
+			counted.sort((a, b) -> Long.compare(b.getCount(), a.getCount()));
+			return new Report(action, statements.sum(), Collections.unmodifiableList(counted),
+					(System.nanoTime() - startNanos) / 1_000_000, repeatThreshold);
+		}
+	}
+
+
+	/*******
+	 * <p> Method: Scope open(String action) </p>
+	 *
+	 * @param action names the user action, such as ControllerPosts.performViewReplies
+	 *
+	 * @return a scope counting the statements this thread sends until it is closed
+	 */
+	public static Scope open(String action) {
+		Scope scope = new Scope(action, CURRENT.get());
+		CURRENT.set(scope);
+		return scope;
+	}
+
+
+	/*******
+	 * <p> Method: Scope current() </p>
+	 *
+	 * @return the innermost scope open on this thread, or null
+	 */
+	public static Scope current() {
+		return CURRENT.get();
+	}
+
+
+	/*
+	 * Make the given scope, which may be null, this thread's current one, returning the one it
+	 * replaces.  Used by AsyncDatabase to carry a scope onto its worker and callback threads.
+	 */
+	static Scope enter(Scope scope) {
+		Scope previous = CURRENT.get();
+		CURRENT.set(scope);
+		return previous;
+	}
+
+	static void restore(Scope previous) {
+		CURRENT.set(previous);
+	}
+
+
+	/*
+	 * Called by the connection pool for every statement it executes.
+	 */
+	static void statementExecuted(String sql) {
+		Scope scope = CURRENT.get();
+		if (scope == null || sql == null) return;
+		String shape = QueryStats.redact(sql);
+		for (; scope != null; scope = scope.parent) scope.count(shape);
+	}
+
+
+	/*******
+	 * <p> Method: void setRepeatThreshold(int threshold) </p>
+	 *
+	 * @param threshold is how many times one shape must run in a scope for it to be suspect
+	 */
+	public static void setRepeatThreshold(int threshold) {
+		repeatThreshold = Math.max(2, threshold);
+	}
+
+
+	/*******
+	 * <p> Method: void setListener(Consumer&lt;Report&gt; reportListener) </p>
+	 *
+	 * @param reportListener receives the report of every scope as it finishes, or null to
+	 *		receive none; the default prints the suspect ones
+	 *
+	 * @return the listener it replaces, so a test can put it back
+	 */
+	public static Consumer<Report> setListener(Consumer<Report> reportListener) {
+		Consumer<Report> previous = listener;
+		listener = reportListener;
+		return previous;
+	}
+
+
+	/*******
+	 * <p> Method: List&lt;Report&gt; getSuspects() </p>
+	 *
+	 * @return the most recent suspect reports seen by the default listener, oldest first
+	 */
+	public static List<Report> getSuspects() {
+		synchronized (suspects) {
+			return new ArrayList<>(suspects);
+		}
+	}
+
+
+	/*
+	 * The default listener: keep and print a suspect report, ignore the rest.
+	 */
+	private static void printIfSuspect(Report report) {
+		if (!report.isSuspect()) return;
+		synchronized (suspects) {
+			if (suspects.size() == SUSPECTS_KEPT) suspects.remove(0);
+			suspects.add(report);
+		}
+		System.err.println("Possible N+1 queries in " + report);
+	}
+}
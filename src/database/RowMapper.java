@@ -0,0 +1,33 @@
+package database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/*******
+ * <p> Title: RowMapper Interface. </p>
+ *
+ * <p> Description: Turns the current row of a ResultSet into an object.  The mapper must only
+ * read the current row; it must not call next() or close the ResultSet.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ *
+ * @param <T> the type of object built from each row
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+	/*******
+	 * <p> Method: T mapRow(ResultSet rs) </p>
+	 *
+	 * @param rs is the ResultSet, positioned on the row to map
+	 *
+	 * @return the object for this row
+	 *
+	 * @throws SQLException if a column cannot be read
+	 */
+	T mapRow(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,116 @@
+package database;
+
+import entityClasses.Post;
+import entityClasses.PostSummary;
+import entityClasses.Reply;
+import entityClasses.UserContext;
+import entityClasses.UserProfile;
+
+/*******
+ * <p> Title: RowMappers Class. </p>
+ *
+ * <p> Description: The column lists the Database selects and the mappers that turn one row of
+ * each into an object.  Every query names its columns with one of the lists below instead of
+ * SELECT *, so it reads only what it uses and never depends on the table's column order; the
+ * matching mapper then reads the row by position, which skips the column-name lookup that
+ * rs.getString("author") makes for every column of every row.</p>
+ *
+ * <p> A mapper may only be used with a query that selects its own column list, first and in
+ * the same order.  To add a column, add it to the end of a list and read it at the new
+ * position in the mapper.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public final class RowMappers {
+
+	private RowMappers() {
+	}
+
+	// Every column of a Post row
+	static final String POST_COLUMNS = "id, author, content, authorRole, isPinned, pinnedBy, "
+			+ "hasUnreadReplies, lastReplyTimestamp, replyCount, uniqueResponderCount, version";
+
+	static final RowMapper<Post> POST = rs -> {
+		Post post = new Post(
+				rs.getInt(1),
+				rs.getString(2),
+				rs.getString(3),
+				rs.getString(4),
+				rs.getBoolean(5),
+				rs.getString(6),
+				rs.getBoolean(7),
+				rs.getTimestamp(8),
+				rs.getInt(9),
+				rs.getInt(10));
+		post.setVersion(rs.getInt(11));
+		return post;
+	};
+
+	// What the posts list shows: the content is cut to a preview by the database
+	static final String POST_SUMMARY_COLUMNS = "id, author, authorRole, isPinned, "
+			+ "LEFT(content, " + PostSummary.PREVIEW_LENGTH + "), "
+			+ "CHAR_LENGTH(content) > " + PostSummary.PREVIEW_LENGTH + ", "
+			+ "replyCount, uniqueResponderCount, lastReplyTimestamp";
+
+	static final RowMapper<PostSummary> POST_SUMMARY = rs -> new PostSummary(
+			rs.getInt(1),
+			rs.getString(2),
+			rs.getString(3),
+			rs.getBoolean(4),
+			rs.getString(5),
+			rs.getBoolean(6),
+			rs.getInt(7),
+			rs.getInt(8),
+			rs.getTimestamp(9));
+
+	// Every column of a Reply row
+	static final String REPLY_COLUMNS = "id, postID, author, content, authorRole, version";
+
+	static final RowMapper<Reply> REPLY = rs -> new Reply(
+			rs.getInt(1),
+			rs.getInt(2),
+			rs.getString(3),
+			rs.getString(4),
+			rs.getString(5),
+			rs.getInt(6));
+
+	// The name and email fields of a userDB row
+	static final String PROFILE_COLUMNS = "userName, firstName, middleName, lastName, "
+			+ "preferredFirstName, emailAddress";
+
+	static final RowMapper<UserProfile> PROFILE = rs -> new UserProfile(
+			rs.getString(1),
+			rs.getString(2),
+			rs.getString(3),
+			rs.getString(4),
+			rs.getString(5),
+			rs.getString(6));
+
+	// A whole userDB row except its id: the profile columns first, then password and roles
+	static final String USER_COLUMNS = PROFILE_COLUMNS + ", password, adminRole, newRole1, newRole2";
+
+	static final RowMapper<UserContext> USER = rs -> new UserContext(
+			rs.getString(7),
+			PROFILE.mapRow(rs),
+			rs.getBoolean(8),
+			rs.getBoolean(9),
+			rs.getBoolean(10));
+
+
+	/*******
+	 * <p> Method: String qualified(String columns, String alias) </p>
+	 *
+	 * @param columns is one of the plain column lists above
+	 *
+	 * @param alias is the table alias used in a join
+	 *
+	 * @return the list with every column prefixed by the alias, for example "p.id, p.author"
+	 */
+	static String qualified(String columns, String alias) {
+		return alias + "." + columns.replace(", ", ", " + alias + ".");
+	}
+}
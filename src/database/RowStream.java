@@ -0,0 +1,162 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*******
+ * <p> Title: RowStream Class. </p>
+ *
+ * <p> Description: Runs a query on a borrowed pool connection and hands its rows out one at a
+ * time as a lazily evaluated Stream, so a full-table scan never holds more than one fetch of
+ * rows in memory.  The connection, statement and result set stay open while the stream is
+ * being consumed and are released when the stream is closed, or as soon as the last row has
+ * been read, whichever comes first.</p>
+ *
+ * <p> The session is switched to H2's lazy query execution for the life of the stream.  Without
+ * it an embedded H2 query builds its whole result before returning the first row, and the fetch
+ * size only applies to remote connections.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+class RowStream {
+
+	/*******
+	 * <p> Method: Stream open(ConnectionPool pool, String query, int fetchSize, RowMapper mapper,
+	 * Object... parameters) </p>
+	 *
+	 * <p> Description: Start the query and return a stream over its rows.  The caller must close
+	 * the stream (ideally with try-with-resources) if it may stop before the last row.</p>
+	 *
+	 * @param <T> the type of object built from each row
+	 *
+	 * @param pool is the pool to borrow the connection from
+	 *
+	 * @param query is the SQL query, with a ? for each of the parameters
+	 *
+	 * @param fetchSize is the number of rows the driver is asked to fetch at a time
+	 *
+	 * @param mapper turns each row into an object
+	 *
+	 * @param parameters are bound to the query's placeholders, in order
+	 *
+	 * @return a sequential stream of the mapped rows
+	 *
+	 * @throws SQLException if the query cannot be started; nothing is left open in that case
+	 */
+	static <T> Stream<T> open(ConnectionPool pool, String query, int fetchSize,
+			RowMapper<T> mapper, Object... parameters) throws SQLException {
+		Connection connection = pool.getConnection();
+		PreparedStatement pstmt = null;
+		ResultSet rs = null;
+		try {
+			setLazy(connection, true);
+			pstmt = connection.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			pstmt.setFetchSize(fetchSize);
+			for (int i = 0; i < parameters.length; i++) pstmt.setObject(i + 1, parameters[i]);
+			rs = pstmt.executeQuery();
+		} catch (SQLException | RuntimeException e) {
+			release(connection, pstmt, rs);
+			throw e;
+		}
+
+		RowSpliterator<T> rows = new RowSpliterator<>(connection, pstmt, rs, mapper);
+		return StreamSupport.stream(rows, false).onClose(rows::close);
+	}
+
+
+	/*
+	 * Turn H2's lazy query execution on or off for this session.
+	 */
+	private static void setLazy(Connection connection, boolean lazy) throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("SET LAZY_QUERY_EXECUTION " + (lazy ? "TRUE" : "FALSE"));
+		}
+	}
+
+
+	/*
+	 * Close the result set and statement and hand the connection back, in that order, reporting
+	 * but not throwing any failure so that every resource is released.
+	 */
+	private static void release(Connection connection, Statement statement, ResultSet rs) {
+		try {
+			if (rs != null) rs.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		try {
+			if (statement != null) statement.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		try {
+			if (!connection.isClosed()) setLazy(connection, false);
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+
+	/*
+	 * Reads one row per tryAdvance and releases everything once the rows run out or the stream
+	 * is closed.
+	 */
+	private static class RowSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+		private final Connection connection;
+		private final PreparedStatement pstmt;
+		private final ResultSet rs;
+		private final RowMapper<T> mapper;
+		private boolean closed = false;
+
+		RowSpliterator(Connection connection, PreparedStatement pstmt, ResultSet rs,
+				RowMapper<T> mapper) {
+			super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+			this.connection = connection;
+			this.pstmt = pstmt;
+			this.rs = rs;
+			this.mapper = mapper;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (closed) return false;
+			T row;
+			try {
+				if (!rs.next()) {
+					close();
+					return false;
+				}
+				row = mapper.mapRow(rs);
+			} catch (SQLException e) {
+				close();
+				throw new IllegalStateException("Failed to read the next row", e);
+			}
+			action.accept(row);
+			return true;
+		}
+
+		synchronized void close() {
+			if (closed) return;
+			closed = true;
+			release(connection, pstmt, rs);
+		}
+	}
+}
@@ -0,0 +1,291 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/*******
+ * <p> Title: SchemaMigrations Class. </p>
+ *
+ * <p> Description: Versioned, ordered schema migrations for the H2 database.  The database keeps
+ * a schema_version table with one row per migration that has been applied.  On startup the
+ * Database asks {@link #isCurrent(Connection)} whether the schema is already at the latest
+ * version; if it is, no DDL runs at all.  Otherwise {@link #migrate(Connection)} applies each
+ * pending migration in order and records it.</p>
+ *
+ * <p> Every statement in a migration must be idempotent (CREATE ... IF NOT EXISTS, ALTER TABLE
+ * ... ADD COLUMN IF NOT EXISTS, and so on).  H2 commits DDL as it runs it, so a migration that is
+ * interrupted part way is simply run again from the top the next time the application starts.
+ * </p>
+ *
+ * <p> To change the schema, append a new Migration to the end of MIGRATIONS with the next version
+ * number.  Never edit or reorder a migration that has already shipped.</p>
+ *
+ * <p> A migration that alters Post or Reply must end by rebuilding the full-text index, as
+ * migration 9 does.  H2 rebuilds a table to alter it, and the full-text triggers on it are
+ * left pointing at index state that no longer exists: searches then find nothing and the
+ * next insert fails.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version, replacing the CREATE TABLE calls in Database
+ */
+public class SchemaMigrations {
+
+	/*
+	 * One step in the evolution of the schema.
+	 */
+	private static class Migration {
+		final int version;
+		final String description;
+		final String[] statements;
+
+		Migration(int version, String description, String... statements) {
+			this.version = version;
+			this.description = description;
+			this.statements = statements;
+		}
+	}
+
+	// The table that records which migrations have been applied
+	private static final String VERSION_TABLE = "CREATE TABLE IF NOT EXISTS schema_version ("
+			+ "version INT PRIMARY KEY, "
+			+ "description VARCHAR(255), "
+			+ "appliedOn TIMESTAMP DEFAULT CURRENT_TIMESTAMP)";
+
+	// Every migration, in the order it must be applied
+	private static final List<Migration> MIGRATIONS = List.of(
+
+		new Migration(1, "Baseline user, invitation, post, and reply tables",
+			"CREATE TABLE IF NOT EXISTS userDB ("
+				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "userName VARCHAR(255) UNIQUE, "
+				+ "password VARCHAR(255), "
+				+ "firstName VARCHAR(255), "
+				+ "middleName VARCHAR(255), "
+				+ "lastName VARCHAR (255), "
+				+ "preferredFirstName VARCHAR(255), "
+				+ "emailAddress VARCHAR(255), "
+				+ "adminRole BOOL DEFAULT FALSE, "
+				+ "newRole1 BOOL DEFAULT FALSE, "
+				+ "newRole2 BOOL DEFAULT FALSE)",
+			"CREATE TABLE IF NOT EXISTS InvitationCodes ("
+				+ "code VARCHAR(10) PRIMARY KEY, "
+				+ "emailAddress VARCHAR(255), "
+				+ "role VARCHAR(10))",
+			"CREATE TABLE IF NOT EXISTS Post ("
+				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "author VARCHAR(255) NOT NULL, "
+				+ "content VARCHAR(500) NOT NULL, "
+				+ "authorRole VARCHAR(10), "
+				+ "isPinned BOOLEAN DEFAULT FALSE, "
+				+ "pinnedBy VARCHAR(255),"
+				+ "hasUnreadReplies BOOLEAN DEFAULT FALSE, "
+				+ "lastReplyTimestamp TIMESTAMP)",
+			"CREATE TABLE IF NOT EXISTS Reply ("
+				+ "id INT AUTO_INCREMENT PRIMARY KEY, "
+				+ "postID INT NOT NULL, "
+				+ "author VARCHAR(255) NOT NULL, "
+				+ "content VARCHAR(500) NOT NULL, "
+				+ "authorRole VARCHAR(10), "
+				+ "FOREIGN KEY (postID) REFERENCES Post(id))"),
+
+		// getRepliesByPost (WHERE postID = ?), getUnreadReplyCount (WHERE author = ? AND
+		// hasUnreadReplies = TRUE), getAllPosts (ORDER BY isPinned DESC, id DESC) and the pin
+		// count in pinPost (WHERE isPinned = TRUE) were all full table scans
+		new Migration(2, "Indexes for the post feed, reply lookup, and unread counts",
+			"CREATE INDEX IF NOT EXISTS idx_reply_post ON Reply (postID, id)",
+			"CREATE INDEX IF NOT EXISTS idx_post_author_unread ON Post (author, hasUnreadReplies)",
+			"CREATE INDEX IF NOT EXISTS idx_post_feed ON Post (isPinned DESC, id DESC)"),
+
+		// The feed showed no reply activity because counting a thread meant reading it.  The
+		// counters are kept by createReply and deleteReply; the UPDATE fills them in for
+		// existing posts.  It was Database.REPAIR_POST_COUNTERS when this shipped, and is copied
+		// here so a later change to that statement cannot change this migration
+		new Migration(3, "Reply and responder counters on Post",
+			"ALTER TABLE Post ADD COLUMN IF NOT EXISTS replyCount INT DEFAULT 0 NOT NULL",
+			"ALTER TABLE Post ADD COLUMN IF NOT EXISTS uniqueResponderCount INT DEFAULT 0 NOT NULL",
+			"UPDATE Post SET "
+				+ "replyCount = (SELECT COUNT(*) FROM Reply WHERE Reply.postID = Post.id), "
+				+ "uniqueResponderCount = (SELECT COUNT(DISTINCT author) FROM Reply WHERE Reply.postID = Post.id) "
+				+ "WHERE replyCount <> (SELECT COUNT(*) FROM Reply WHERE Reply.postID = Post.id) "
+				+ "OR uniqueResponderCount <> (SELECT COUNT(DISTINCT author) FROM Reply WHERE Reply.postID = Post.id)"),
+
+		// H2's native full-text index for searchPosts and searchReplies.  FT_CREATE_INDEX adds
+		// triggers that keep the index current inside each write's own transaction.  It fails on
+		// a table that is already indexed, so each index is dropped first to keep this re-runnable
+		new Migration(4, "Full-text index over post and reply content",
+			"CREATE ALIAS IF NOT EXISTS FT_INIT FOR 'org.h2.fulltext.FullText.init'",
+			"CALL FT_INIT()",
+			"CALL FT_DROP_INDEX('PUBLIC', 'POST')",
+			"CALL FT_CREATE_INDEX('PUBLIC', 'POST', 'CONTENT')",
+			"CALL FT_DROP_INDEX('PUBLIC', 'REPLY')",
+			"CALL FT_CREATE_INDEX('PUBLIC', 'REPLY', 'CONTENT')"),
+
+		// Threads nobody has touched for a while are moved out of Post and Reply by
+		// Database.archiveIdlePosts so the live tables, and every feed query, stay small.
+		// lastActivity is when the post was written, edited, or last replied to
+		new Migration(5, "Last-activity time on Post and archive tables for idle threads",
+			"ALTER TABLE Post ADD COLUMN IF NOT EXISTS lastActivity TIMESTAMP DEFAULT CURRENT_TIMESTAMP",
+			"UPDATE Post SET lastActivity = COALESCE(lastReplyTimestamp, CURRENT_TIMESTAMP) "
+				+ "WHERE lastActivity IS NULL",
+			"CREATE INDEX IF NOT EXISTS idx_post_activity ON Post (isPinned, lastActivity)",
+			"CREATE TABLE IF NOT EXISTS PostArchive ("
+				+ "id INT PRIMARY KEY, "
+				+ "author VARCHAR(255) NOT NULL, "
+				+ "content VARCHAR(500) NOT NULL, "
+				+ "authorRole VARCHAR(10), "
+				+ "isPinned BOOLEAN DEFAULT FALSE, "
+				+ "pinnedBy VARCHAR(255), "
+				+ "hasUnreadReplies BOOLEAN DEFAULT FALSE, "
+				+ "lastReplyTimestamp TIMESTAMP, "
+				+ "replyCount INT DEFAULT 0 NOT NULL, "
+				+ "uniqueResponderCount INT DEFAULT 0 NOT NULL, "
+				+ "lastActivity TIMESTAMP, "
+				+ "archivedOn TIMESTAMP DEFAULT CURRENT_TIMESTAMP)",
+			"CREATE TABLE IF NOT EXISTS ReplyArchive ("
+				+ "id INT PRIMARY KEY, "
+				+ "postID INT NOT NULL, "
+				+ "author VARCHAR(255) NOT NULL, "
+				+ "content VARCHAR(500) NOT NULL, "
+				+ "authorRole VARCHAR(10))",
+			"CREATE INDEX IF NOT EXISTS idx_reply_archive_post ON ReplyArchive (postID, id)"),
+
+		new Migration(6, "Edit version on posts and replies for compare-and-set updates",
+			"ALTER TABLE Post ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL",
+			"ALTER TABLE Reply ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL",
+			"ALTER TABLE PostArchive ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL",
+			"ALTER TABLE ReplyArchive ADD COLUMN IF NOT EXISTS version INT DEFAULT 0 NOT NULL"),
+
+		// pinPost counted the pinned posts and then pinned one, so two admins pinning at once
+		// could both pass the count.  A pin now takes one of the numbered slots 1 to
+		// db.maxPinnedPosts, and the slot's primary key lets only one of them have it.  A
+		// deleted post gives its slot back through the foreign key.  The INSERT gives the posts
+		// already pinned their slots; it is a copy of Database.FILL_PINNED_SLOTS as it shipped
+		new Migration(7, "Pinned-post slots for an atomic pin limit",
+			"CREATE TABLE IF NOT EXISTS PinnedSlot ("
+				+ "slot INT PRIMARY KEY, "
+				+ "postID INT NOT NULL UNIQUE, "
+				+ "pinnedBy VARCHAR(255), "
+				+ "pinnedOn TIMESTAMP DEFAULT CURRENT_TIMESTAMP, "
+				+ "FOREIGN KEY (postID) REFERENCES Post(id) ON DELETE CASCADE)",
+			"INSERT INTO PinnedSlot (slot, postID, pinnedBy) "
+				+ "SELECT (SELECT COALESCE(MAX(slot), 0) FROM PinnedSlot) + ROW_NUMBER() OVER (ORDER BY id), "
+				+ "id, pinnedBy FROM Post WHERE isPinned = TRUE AND id NOT IN (SELECT postID FROM PinnedSlot)"),
+
+		// createReply and deleteReply now keep Post.lastReplyTimestamp in their own transaction,
+		// and deleteReply needs the time of the newest reply left to do it.  Existing replies
+		// are given their post's last-reply time, the best that is known of them
+		new Migration(8, "Posting time on replies for the last-reply time of their post",
+			"ALTER TABLE Reply ADD COLUMN IF NOT EXISTS postedOn TIMESTAMP DEFAULT CURRENT_TIMESTAMP",
+			"ALTER TABLE ReplyArchive ADD COLUMN IF NOT EXISTS postedOn TIMESTAMP DEFAULT CURRENT_TIMESTAMP",
+			"UPDATE Reply SET postedOn = (SELECT lastReplyTimestamp FROM Post WHERE Post.id = Reply.postID) "
+				+ "WHERE EXISTS (SELECT 1 FROM Post WHERE Post.id = Reply.postID AND lastReplyTimestamp IS NOT NULL)",
+			"UPDATE ReplyArchive SET postedOn = (SELECT lastReplyTimestamp FROM PostArchive "
+				+ "WHERE PostArchive.id = ReplyArchive.postID) WHERE EXISTS (SELECT 1 FROM PostArchive "
+				+ "WHERE PostArchive.id = ReplyArchive.postID AND lastReplyTimestamp IS NOT NULL)"),
+
+		// Migrations 5, 6, and 8 altered Post and Reply after migration 4 had put full-text
+		// triggers on them, which broke those triggers.  FT_DROP_ALL removes the triggers, the
+		// FT schema with its word and row tables, and H2's cached copy of them; FT_INIT and
+		// FT_CREATE_INDEX then index the current rows again from scratch
+		new Migration(9, "Rebuild the full-text index after the Post and Reply column changes",
+			"CALL FT_DROP_ALL()",
+			"CALL FT_INIT()",
+			"CALL FT_CREATE_INDEX('PUBLIC', 'POST', 'CONTENT')",
+			"CALL FT_CREATE_INDEX('PUBLIC', 'REPLY', 'CONTENT')")
+	);
+
+
+	/*******
+	 * <p> Method: int getLatestVersion() </p>
+	 *
+	 * @return the version the schema is at once every migration has been applied
+	 */
+	public static int getLatestVersion() {
+		return MIGRATIONS.get(MIGRATIONS.size() - 1).version;
+	}
+
+
+	/*******
+	 * <p> Method: int getCurrentVersion(Connection connection) </p>
+	 *
+	 * <p> Description: Read the highest applied migration version.  A database that has no
+	 * schema_version table yet (a brand new database, or one created before migrations existed)
+	 * is at version 0.</p>
+	 *
+	 * @param connection is the connection to check
+	 *
+	 * @return the current schema version
+	 */
+	public static int getCurrentVersion(Connection connection) {
+		try (Statement statement = connection.createStatement()) {
+			ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version");
+			return rs.next() ? rs.getInt(1) : 0;
+		} catch (SQLException e) {
+			return 0;	// No schema_version table yet
+		}
+	}
+
+
+	/*******
+	 * <p> Method: boolean isCurrent(Connection connection) </p>
+	 *
+	 * @param connection is the connection to check
+	 *
+	 * @return true if no migration needs to be applied
+	 */
+	public static boolean isCurrent(Connection connection) {
+		return getCurrentVersion(connection) >= getLatestVersion();
+	}
+
+
+	/*******
+	 * <p> Method: int migrate(Connection connection) </p>
+	 *
+	 * <p> Description: Apply every migration newer than the current version, in order, recording
+	 * each one in schema_version as it completes.</p>
+	 *
+	 * @param connection is the connection to migrate with
+	 *
+	 * @return the number of migrations applied
+	 *
+	 * @throws SQLException when a migration statement fails
+	 */
+	public static int migrate(Connection connection) throws SQLException {
+		int current = getCurrentVersion(connection);
+		int applied = 0;
+		try (Statement statement = connection.createStatement()) {
+			statement.execute(VERSION_TABLE);
+			for (Migration migration : MIGRATIONS) {
+				if (migration.version <= current) continue;
+				for (String sql : migration.statements) {
+					statement.execute(sql);
+				}
+				recordVersion(connection, migration);
+				applied++;
+			}
+		}
+		return applied;
+	}
+
+
+	/*
+	 * Record that a migration has been applied.  MERGE keeps this idempotent when two
+	 * Database instances in the same process migrate at the same time.
+	 */
+	private static void recordVersion(Connection connection, Migration migration)
+			throws SQLException {
+		String insert = "MERGE INTO schema_version (version, description) KEY (version) VALUES (?, ?)";
+		try (PreparedStatement pstmt = connection.prepareStatement(insert)) {
+			pstmt.setInt(1, migration.version);
+			pstmt.setString(2, migration.description);
+			pstmt.executeUpdate();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package database;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import entityClasses.UserContext;
+
+/*******
+ * <p> Title: SessionRegistry Class. </p>
+ *
+ * <p> Description: The logged-in sessions served by one Database.  Logging in opens a session
+ * for the user's UserContext and returns a session id; each page or worker then looks the
+ * context up by that id rather than reading shared "current user" state.  A user may have
+ * several sessions open at once.</p>
+ *
+ * <p> Contexts are immutable, so a session is changed by replacing its context.  The Database
+ * calls {@link #update} after each write to a user account so that every open session of that
+ * user sees the new roles, names, or email address.  All methods may be called from any
+ * thread.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class SessionRegistry {
+
+	private final ConcurrentHashMap<String, UserContext> sessions = new ConcurrentHashMap<>();
+
+
+	/*******
+	 * <p> Method: String open(UserContext context) </p>
+	 *
+	 * @param context is the account of the user who has just logged in
+	 *
+	 * @return the id of the new session
+	 */
+	public String open(UserContext context) {
+		if (context == null) throw new IllegalArgumentException("A session needs a user context");
+		String sessionID = UUID.randomUUID().toString();
+		sessions.put(sessionID, context);
+		return sessionID;
+	}
+
+
+	/*******
+	 * <p> Method: UserContext get(String sessionID) </p>
+	 *
+	 * @param sessionID is the id returned by open
+	 *
+	 * @return the session's current context, or null if the session is not open
+	 */
+	public UserContext get(String sessionID) {
+		return sessionID == null ? null : sessions.get(sessionID);
+	}
+
+
+	/*******
+	 * <p> Method: void close(String sessionID) </p>
+	 *
+	 * @param sessionID is the session to end; unknown or null ids are ignored
+	 */
+	public void close(String sessionID) {
+		if (sessionID != null) sessions.remove(sessionID);
+	}
+
+
+	/*******
+	 * <p> Method: void update(String username, UnaryOperator change) </p>
+	 *
+	 * <p> Description: Apply a write that has just been made to a user's account to every open
+	 * session of that user.</p>
+	 *
+	 * @param username is the user that was written
+	 *
+	 * @param change returns the context with the same change made to it
+	 */
+	public void update(String username, UnaryOperator<UserContext> change) {
+		sessions.replaceAll((id, context) ->
+				context.getUserName().equals(username) ? change.apply(context) : context);
+	}
+
+
+	/*******
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of open sessions
+	 */
+	public int size() {
+		return sessions.size();
+	}
+
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: End every session.</p>
+	 */
+	public void clear() {
+		sessions.clear();
+	}
+}
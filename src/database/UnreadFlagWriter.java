@@ -0,0 +1,260 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import entityClasses.Post;
+
+/*******
+ * <p> Title: UnreadFlagWriter Class. </p>
+ *
+ * <p> Description: A write-behind buffer for the hasUnreadReplies flag of each post.  Every new
+ * reply used to run an UPDATE on its post, and every time someone opened a thread another UPDATE
+ * cleared the flag, so a busy thread rewrote the same Post row over and over.  Instead, replies
+ * and reads are recorded here and coalesced per post: however many happen between two flushes,
+ * each post gets at most one UPDATE carrying its final state.</p>
+ *
+ * <p> A post that was archived after its change was recorded is no longer in Post, so a flush
+ * writes its flag to PostArchive instead, where the archived row now is.</p>
+ *
+ * <p> Only the flag is buffered.  A post's lastReplyTimestamp is written by createReply and
+ * deleteReply in the same transaction as the reply itself, so it cannot be lost.</p>
+ *
+ * <p> Pending changes are flushed in one JDBC batch on a short, fixed interval by a daemon thread,
+ * and whenever {@link #flush()} is called.  {@link #close()} stops the timer and flushes whatever
+ * is left, and Database.closeConnection() calls it before the pool is closed.  Reads that must see
+ * the latest state either overlay the pending changes ({@link #applyTo(Post)}) or flush first.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class UnreadFlagWriter {
+
+	private final ConnectionPool pool;
+	
+	// The flag each post will be written with at the next flush: the effect of its latest reply
+	// (true) or read (false)
+	private final Map<Integer, Boolean> pending = new ConcurrentHashMap<>();
+	
+	// The changes the current flush is writing, so readers still see them until they commit
+	private volatile Map<Integer, Boolean> writing = Map.of();
+	private final ScheduledExecutorService flusher;
+
+	// Serializes flushes so the timer and an explicit flush never write the same post twice
+	private final Object flushLock = new Object();
+
+
+	/*******
+	 * <p> Method: UnreadFlagWriter </p>
+	 *
+	 * @param pool is the pool the flush borrows its connection from
+	 *
+	 * @param flushIntervalMillis is how often pending changes are written
+	 */
+	public UnreadFlagWriter(ConnectionPool pool, long flushIntervalMillis) {
+		this.pool = pool;
+		this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "UnreadFlagWriter-flush");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis,
+				flushIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+
+	/*******
+	 * <p> Method: void recordReply(int postID) </p>
+	 *
+	 * <p> Description: Note that the post has just received a reply, so it has unread
+	 * replies.</p>
+	 *
+	 * @param postID is the post that was replied to
+	 */
+	public void recordReply(int postID) {
+		pending.put(postID, true);
+	}
+
+
+	/*******
+	 * <p> Method: void recordRead(int postID) </p>
+	 *
+	 * <p> Description: Note that the post's replies have just been read.</p>
+	 *
+	 * @param postID is the post whose replies were read
+	 */
+	public void recordRead(int postID) {
+		pending.put(postID, false);
+	}
+
+
+	/*******
+	 * <p> Method: Post applyTo(Post post) </p>
+	 *
+	 * <p> Description: Overlay any pending change onto a post just read from the database, so the
+	 * caller sees the same state it would see after a flush.</p>
+	 *
+	 * @param post is the post to update in place (may be null)
+	 *
+	 * @return the same post
+	 */
+	public Post applyTo(Post post) {
+		if (post == null) return null;
+		Boolean unread = unwritten(post.getPostID());
+		if (unread != null) post.setHasUnreadReplies(unread);
+		return post;
+	}
+
+
+	/*
+	 * The flag for a post that is not yet in the table: anything recorded since the current
+	 * flush began, or else what that flush is writing.  Null if there is none.
+	 */
+	private Boolean unwritten(int postID) {
+		Boolean unread = pending.get(postID);
+		return unread != null ? unread : writing.get(postID);
+	}
+
+
+	/*******
+	 * <p> Method: int getPendingCount() </p>
+	 *
+	 * @return the number of posts with a change waiting to be written
+	 */
+	public int getPendingCount() {
+		return pending.size();
+	}
+
+
+	/*******
+	 * <p> Method: int flush() </p>
+	 *
+	 * <p> Description: Write every pending change in one batch and one transaction.  Changes
+	 * recorded while the flush is running stay pending for the next one.  If the write fails the
+	 * changes are put back, merged under anything newer, and the exception is thrown.</p>
+	 *
+	 * @return the number of posts written
+	 *
+	 * @throws SQLException if the batch could not be written
+	 */
+	public int flush() throws SQLException {
+		synchronized (flushLock) {
+			if (pending.isEmpty()) return 0;
+
+			// Take each post's pending state out of the map so new changes start fresh
+			List<Integer> postIDs = new ArrayList<>();
+			List<Boolean> flags = new ArrayList<>();
+			Map<Integer, Boolean> taken = new ConcurrentHashMap<>();
+			writing = taken;
+			for (Integer postID : new ArrayList<>(pending.keySet())) {
+				Boolean flag = pending.get(postID);
+				if (flag == null) continue;
+				taken.put(postID, flag);
+				if (!pending.remove(postID, flag)) {
+					// A newer change arrived in between; take that instead
+					flag = pending.remove(postID);
+					if (flag == null) continue;
+					taken.put(postID, flag);
+				}
+				postIDs.add(postID);
+				flags.add(flag);
+			}
+
+			try (Connection connection = pool.getConnection()) {
+				connection.setAutoCommit(false);
+				int[] updated = writeFlags("Post", connection, postIDs, flags);
+				
+				// A post archived since its change was recorded has moved; the change goes with it
+				List<Integer> movedIDs = new ArrayList<>();
+				List<Boolean> movedFlags = new ArrayList<>();
+				for (int i = 0; i < updated.length; i++) {
+					if (updated[i] == 0) {
+						movedIDs.add(postIDs.get(i));
+						movedFlags.add(flags.get(i));
+					}
+				}
+				if (!movedIDs.isEmpty()) writeFlags("PostArchive", connection, movedIDs, movedFlags);
+				connection.commit();
+			} catch (SQLException e) {
+				// Put the changes back unless something newer has been recorded since
+				for (int i = 0; i < postIDs.size(); i++) {
+					pending.putIfAbsent(postIDs.get(i), flags.get(i));
+				}
+				throw e;
+			} finally {
+				writing = Map.of();
+			}
+			return postIDs.size();
+		}
+	}
+
+
+	/*
+	 * Write each post's flag to the given table in one batch, returning the rows each changed.
+	 */
+	private static int[] writeFlags(String table, Connection connection, List<Integer> postIDs,
+			List<Boolean> flags) throws SQLException {
+		try (PreparedStatement pstmt = connection.prepareStatement(
+				"UPDATE " + table + " SET hasUnreadReplies = ? WHERE id = ?")) {
+			for (int i = 0; i < postIDs.size(); i++) {
+				pstmt.setBoolean(1, flags.get(i));
+				pstmt.setInt(2, postIDs.get(i));
+				pstmt.addBatch();
+			}
+			return pstmt.executeBatch();
+		}
+	}
+
+
+	/*
+	 * Timer entry point: a failed flush is reported and retried on the next tick.
+	 */
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+	}
+
+
+	/*******
+	 * <p> Method: void discardPending() </p>
+	 *
+	 * <p> Description: Drop every pending change without writing it, for when the posts they
+	 * refer to have all been deleted.</p>
+	 */
+	public void discardPending() {
+		synchronized (flushLock) {
+			pending.clear();
+		}
+	}
+
+
+	/*******
+	 * <p> Method: void close() </p>
+	 *
+	 * <p> Description: Stop the timer and write everything still pending.  Must be called while
+	 * the connection pool is still open.</p>
+	 */
+	public void close() {
+		flusher.shutdown();
+		try {
+			flusher.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		flushQuietly();
+	}
+}
@@ -0,0 +1,129 @@
+package database;
+
+import java.util.function.UnaryOperator;
+
+import entityClasses.UserProfile;
+
+/*******
+ * <p> Title: UserProfileCache Class. </p>
+ *
+ * <p> Description: A bounded cache of user profiles by username, so showing a user's account
+ * details does not go back to H2 after the first load.  Profiles are immutable, so they are
+ * stored and returned as they are.  Each update the Database makes to a name or email field is
+ * written through to the cached profile ({@link #update}).</p>
+ *
+ * <p> As in PostCache, every write bumps a change counter, and {@link #putIfUnchanged} refuses
+ * to store a profile that was loaded before the latest write.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class UserProfileCache {
+
+	private final LruCache<String, UserProfile> profiles;
+
+	// Bumped by every write, so a load that raced with a write is not cached
+	private long changeCount = 0;
+
+
+	/*******
+	 * <p> Method: UserProfileCache </p>
+	 *
+	 * @param capacity is the largest number of profiles kept
+	 */
+	public UserProfileCache(int capacity) {
+		this.profiles = new LruCache<>(capacity);
+	}
+
+
+	/*******
+	 * <p> Method: UserProfile get(String username) </p>
+	 *
+	 * @param username is the user whose profile is wanted
+	 *
+	 * @return the cached profile, or null if it is not cached
+	 */
+	public UserProfile get(String username) {
+		return profiles.get(username);
+	}
+
+
+	/*******
+	 * <p> Method: long getChangeCount() </p>
+	 *
+	 * @return the current change counter, to be passed to putIfUnchanged after a load
+	 */
+	public synchronized long getChangeCount() {
+		return changeCount;
+	}
+
+
+	/*******
+	 * <p> Method: void putIfUnchanged(UserProfile profile, long changeCountBeforeLoad) </p>
+	 *
+	 * @param profile is the profile just loaded (null is ignored)
+	 *
+	 * @param changeCountBeforeLoad is getChangeCount() as it was before the load
+	 */
+	public synchronized void putIfUnchanged(UserProfile profile, long changeCountBeforeLoad) {
+		if (profile == null || changeCount != changeCountBeforeLoad) return;
+		profiles.put(profile.getUserName(), profile);
+	}
+
+
+	/*******
+	 * <p> Method: void update(String username, UnaryOperator change) </p>
+	 *
+	 * <p> Description: Apply a write that has just been made to the database to the cached
+	 * profile, if it is cached.</p>
+	 *
+	 * @param username is the user that was written
+	 *
+	 * @param change returns the profile with the same change made to it
+	 */
+	public synchronized void update(String username, UnaryOperator<UserProfile> change) {
+		changeCount++;
+		profiles.computeIfPresent(username, (name, cached) -> change.apply(cached));
+	}
+
+
+	/*******
+	 * <p> Method: void invalidate(String username) </p>
+	 *
+	 * @param username is the user whose cached profile is dropped
+	 */
+	public synchronized void invalidate(String username) {
+		changeCount++;
+		profiles.remove(username);
+	}
+
+
+	/*******
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Drop every cached profile.</p>
+	 */
+	public synchronized void clear() {
+		changeCount++;
+		profiles.clear();
+	}
+
+
+	/*******
+	 * <p> Method: long getHits() </p>
+	 *
+	 * @return the number of lookups answered from the cache
+	 */
+	public long getHits() { return profiles.getHits(); }
+
+
+	/*******
+	 * <p> Method: long getMisses() </p>
+	 *
+	 * @return the number of lookups that had to go to the database
+	 */
+	public long getMisses() { return profiles.getMisses(); }
+}
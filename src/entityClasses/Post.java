@@ -366,6 +366,21 @@ public class Post {
     private boolean hasUnreadReplies;
     
     private java.sql.Timestamp lastReplyTimestamp;
+    
+    /**
+     * Number of replies to this post, and number of different users who wrote them.  Both are
+     * kept in the Post row by Database.createReply() and Database.deleteReply(), so the feed can
+     * show how active each thread is without reading its replies.
+     */
+    private int replyCount;
+    private int uniqueResponderCount;
+    
+    /**
+     * How many times the content has been edited, as stored in the Post row.  An edit made with
+     * Database.updatePost(int, int, String) only succeeds if the row still has the version the
+     * editor read, so two people editing at once cannot silently overwrite each other.
+     */
+    private int version;
 
     
     // ==================== CONSTRUCTOR ====================
@@ -442,6 +457,24 @@ public class Post {
     this.lastReplyTimestamp = lastReplyTimestamp;
 }
     
+    /**
+     * Constructs a Post object that also carries its reply counters, as read from the Post row.
+     * 
+     * @param replyCount the number of replies to the post
+     * @param uniqueResponderCount the number of different users who have replied
+     * 
+     * @see #Post(int, String, String, String, boolean, String, boolean, java.sql.Timestamp)
+     */
+    public Post(int id, String author, String content, String authorRole, 
+            boolean isPinned, String pinnedBy, 
+            boolean hasUnreadReplies, java.sql.Timestamp lastReplyTimestamp,
+            int replyCount, int uniqueResponderCount) {
+        this(id, author, content, authorRole, isPinned, pinnedBy, hasUnreadReplies,
+                lastReplyTimestamp);
+        this.replyCount = replyCount;
+        this.uniqueResponderCount = uniqueResponderCount;
+    }
+    
     // ==================== GETTERS ====================
     
     /**
@@ -451,7 +484,7 @@ public class Post {
      * <ul>
      * <li><strong>US-02 (Edit Posts):</strong> 
      *     ControllerPosts.performEditPost() extracts ID from selected ListView item using
-     *     ModelPosts.getID(), then passes ID to Database.updatePost(id, newContent) to 
+     *     ModelPosts.getID(), then passes ID to Database.updatePost(id, version, newContent) to 
      *     update the correct post.</li>
      * 
      * <li><strong>US-03 (Delete Posts):</strong> 
@@ -476,7 +509,7 @@ public class Post {
      * @return the post's unique identifier (positive integer, always greater than 0). This
      *         is the permanent ID assigned by the database when the post was created.
      * 
-     * @see database.Database#updatePost(int, String)
+     * @see database.Database#updatePost(int, int, String)
      * @see database.Database#deletePost(int)
      * @see database.Database#getRepliesForPost(int)
      */
@@ -667,6 +700,18 @@ public class Post {
         return this.lastReplyTimestamp;
     }
     
+    public int getReplyCount() {
+        return this.replyCount;
+    }
+    
+    public int getUniqueResponderCount() {
+        return this.uniqueResponderCount;
+    }
+    
+    public int getVersion() {
+        return this.version;
+    }
+    
     
     // ==================== SETTERS ====================
     
@@ -720,6 +765,18 @@ public class Post {
         this.lastReplyTimestamp = lastReplyTimestamp;
     }
     
+    public void setReplyCount(int replyCount) {
+        this.replyCount = replyCount;
+    }
+    
+    public void setUniqueResponderCount(int uniqueResponderCount) {
+        this.uniqueResponderCount = uniqueResponderCount;
+    }
+    
+    public void setVersion(int version) {
+        this.version = version;
+    }
+    
     /**
      * Updates the content of this post.
      * 
@@ -762,7 +819,7 @@ public class Post {
      *    }
      * 5. Show edit dialog with current content pre-filled
      * 6. User modifies content and clicks OK
-     * 7. Controller calls: database.updatePost(postId, newContent)
+     * 7. Controller calls: database.updatePost(postId, post.getVersion(), newContent)
      * 8. Database calls: post.setContent(newContent)  ← THIS METHOD
      * 9. Content updated in memory and persisted to database
      * </pre>
@@ -802,7 +859,7 @@ public class Post {
      *                the existing content entirely. Validation must be performed by the caller
      *                before invoking this method.
      * 
-     * @see database.Database#updatePost(int, String)
+     * @see database.Database#updatePost(int, int, String)
      * @see guiPosts.ControllerPosts#performEditPost()
      */
     public void setContent(String content) {
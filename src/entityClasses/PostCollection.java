@@ -6,6 +6,7 @@ import java.util.List;
 public class PostCollection {
     
     private List<Post> posts;
+    private final TextIndex index = new TextIndex();	// Words of each post's content
     
     public PostCollection() {
         this.posts = new ArrayList<>();
@@ -13,20 +14,58 @@ public class PostCollection {
 
     public PostCollection(List<Post> posts) {
         this.posts = new ArrayList<>(posts);
+        for (Post post : posts) index.put(post.getPostID(), post.getContent());
     }
     
     public void addPost(Post post) {
         posts.add(post);
+        index.put(post.getPostID(), post.getContent());
     }
     
     public boolean removePost(Post post) {
-        return posts.remove(post);
+        boolean removed = posts.remove(post);
+        if (removed && getPostById(post.getPostID()) == null) index.remove(post.getPostID());
+        return removed;
     }
     
     public boolean removePostById(int postId) {
+        index.remove(postId);
         return posts.removeIf(p -> p.getPostID() == postId);
     }
     
+    /**
+     * Changes the content of a post in the collection and reindexes it.
+     * 
+     * @param postId the post to change
+     * @param content the new content
+     * @return true if the post is in the collection
+     */
+    public boolean updatePostContent(int postId, String content) {
+        Post post = getPostById(postId);
+        if (post == null) return false;
+        post.setContent(content);
+        index.put(postId, content);
+        return true;
+    }
+    
+    /**
+     * Returns the posts whose content matches the query, without going to the database.
+     * Words must all match, "OR" separates alternatives, and a trailing "*" matches any
+     * word with that prefix; see {@link TextIndex}.
+     * 
+     * @param query the words to look for
+     * @return the matching posts, in collection order
+     */
+    public List<Post> search(String query) {
+        int[] ids = index.search(query);
+        List<Post> matches = new ArrayList<>();
+        if (ids.length == 0) return matches;
+        for (Post post : posts) {
+            if (java.util.Arrays.binarySearch(ids, post.getPostID()) >= 0) matches.add(post);
+        }
+        return matches;
+    }
+    
     public List<Post> getAllPosts() {
         return new ArrayList<>(posts);
     }
@@ -50,6 +89,7 @@ public class PostCollection {
     
     public void clear() {
         posts.clear();
+        index.clear();
     }
     
     public String toString() {
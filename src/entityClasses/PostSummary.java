@@ -0,0 +1,100 @@
+package entityClasses;
+
+import java.sql.Timestamp;
+
+/*******
+ * <p> Title: PostSummary Class </p>
+ *
+ * <p> Description: The part of a post that the posts list shows: who wrote it, whether it is
+ * pinned, its reply activity, and the first PREVIEW_LENGTH characters of its content.  The
+ * feed reads these instead of whole Post objects, so a page of the feed moves and allocates
+ * only a short preview per post however long the posts are; the full Post is read when a
+ * thread is opened.</p>
+ *
+ * <p> A summary is immutable.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public final class PostSummary {
+
+	/** The most characters of content a summary carries */
+	public static final int PREVIEW_LENGTH = 80;
+
+	private final int postID;
+	private final String author;
+	private final String authorRole;
+	private final boolean pinned;
+	private final String preview;
+	private final boolean truncated;
+	private final int replyCount;
+	private final int uniqueResponderCount;
+	private final Timestamp lastReplyTimestamp;
+
+
+	/*****
+	 * <p> Method: PostSummary(...) </p>
+	 *
+	 * @param postID is the id of the post
+	 *
+	 * @param author is the username of the author
+	 *
+	 * @param authorRole is the role the author posted in (may be null for old posts)
+	 *
+	 * @param pinned is whether the post is pinned
+	 *
+	 * @param preview is the start of the content, at most PREVIEW_LENGTH characters
+	 *
+	 * @param truncated is whether the content is longer than the preview
+	 *
+	 * @param replyCount is the number of replies to the post
+	 *
+	 * @param uniqueResponderCount is the number of different users who replied
+	 *
+	 * @param lastReplyTimestamp is the time of the latest reply, or null if there is none
+	 */
+	public PostSummary(int postID, String author, String authorRole, boolean pinned,
+			String preview, boolean truncated, int replyCount, int uniqueResponderCount,
+			Timestamp lastReplyTimestamp) {
+		this.postID = postID;
+		this.author = author;
+		this.authorRole = authorRole;
+		this.pinned = pinned;
+		this.preview = preview;
+		this.truncated = truncated;
+		this.replyCount = replyCount;
+		this.uniqueResponderCount = uniqueResponderCount;
+		this.lastReplyTimestamp = lastReplyTimestamp;
+	}
+
+
+	/*****
+	 * <p> Method: PostSummary of(Post post) </p>
+	 *
+	 * @param post is a full post, for example one returned by a search
+	 *
+	 * @return the summary of that post
+	 */
+	public static PostSummary of(Post post) {
+		String content = post.getContent() == null ? "" : post.getContent();
+		boolean truncated = content.length() > PREVIEW_LENGTH;
+		return new PostSummary(post.getPostID(), post.getAuthor(), post.getAuthorRole(),
+				post.isPinned(), truncated ? content.substring(0, PREVIEW_LENGTH) : content,
+				truncated, post.getReplyCount(), post.getUniqueResponderCount(),
+				post.getLastReplyTimestamp());
+	}
+
+
+	public int getPostID() { return postID; }
+	public String getAuthor() { return author; }
+	public String getAuthorRole() { return authorRole; }
+	public boolean isPinned() { return pinned; }
+	public String getPreview() { return preview; }
+	public boolean isTruncated() { return truncated; }
+	public int getReplyCount() { return replyCount; }
+	public int getUniqueResponderCount() { return uniqueResponderCount; }
+	public Timestamp getLastReplyTimestamp() { return lastReplyTimestamp; }
+}
@@ -6,13 +6,19 @@ public class Reply {
     private String author;
     private String content;
     private String authorRole;
+    private int version;	// Edits made so far; see Database.updateReply(int, int, String)
 
     public Reply(int id, int postID, String author, String content, String authorRole) {
+        this(id, postID, author, content, authorRole, 0);
+    }
+
+    public Reply(int id, int postID, String author, String content, String authorRole, int version) {
         this.id = id;
         this.postID = postID;
         this.author = author;
         this.content = content;
         this.authorRole = authorRole;
+        this.version = version;
     }
 
     public int getReplyID() {  
@@ -35,6 +41,10 @@ public class Reply {
         return authorRole;
     }
     
+    public int getVersion() {
+        return version;
+    }
+    
     // Setters
     public void setReplyId(int id) {
         this.id = id;
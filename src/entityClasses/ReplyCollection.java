@@ -6,6 +6,7 @@ import java.util.List;
 public class ReplyCollection {
     
     private List<Reply> replies;
+    private final TextIndex index = new TextIndex();	// Words of each reply's content
     
     public ReplyCollection() {
         this.replies = new ArrayList<>();
@@ -13,20 +14,58 @@ public class ReplyCollection {
  
     public ReplyCollection(List<Reply> replies) {
         this.replies = new ArrayList<>(replies);
+        for (Reply reply : replies) index.put(reply.getReplyID(), reply.getContent());
     }
     
     public void addReply(Reply reply) {
         replies.add(reply);
+        index.put(reply.getReplyID(), reply.getContent());
     }
     
     public boolean removeReply(Reply reply) {
-        return replies.remove(reply);
+        boolean removed = replies.remove(reply);
+        if (removed && getReplyById(reply.getReplyID()) == null) index.remove(reply.getReplyID());
+        return removed;
     }
     
     public boolean removeReplyById(int replyId) {
+        index.remove(replyId);
         return replies.removeIf(r -> r.getReplyID() == replyId);
     }
     
+    /**
+     * Changes the content of a reply in the collection and reindexes it.
+     * 
+     * @param replyId the reply to change
+     * @param content the new content
+     * @return true if the reply is in the collection
+     */
+    public boolean updateReplyContent(int replyId, String content) {
+        Reply reply = getReplyById(replyId);
+        if (reply == null) return false;
+        reply.setContent(content);
+        index.put(replyId, content);
+        return true;
+    }
+    
+    /**
+     * Returns the replies whose content matches the query, without going to the database.
+     * Words must all match, "OR" separates alternatives, and a trailing "*" matches any
+     * word with that prefix; see {@link TextIndex}.
+     * 
+     * @param query the words to look for
+     * @return the matching replies, in collection order
+     */
+    public ReplyCollection search(String query) {
+        int[] ids = index.search(query);
+        ReplyCollection matches = new ReplyCollection();
+        if (ids.length == 0) return matches;
+        for (Reply reply : replies) {
+            if (java.util.Arrays.binarySearch(ids, reply.getReplyID()) >= 0) matches.addReply(reply);
+        }
+        return matches;
+    }
+    
     public List<Reply> getAllReplies() {
         return new ArrayList<>(replies);
     }
@@ -61,6 +100,7 @@ public class ReplyCollection {
     
     public void clear() {
         replies.clear();
+        index.clear();
     }
     
     public String toString() {
@@ -0,0 +1,345 @@
+package entityClasses;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/*******
+ * <p> Title: TextIndex Class </p>
+ *
+ * <p> Description: An in-memory inverted index from the words of a piece of text to the ids of
+ * the posts or replies that contain them.  It answers word, prefix, AND, and OR queries
+ * without going to the database, fast enough to filter as the user types.</p>
+ *
+ * <p> Each word's postings are its document ids in ascending order, stored as variable-length
+ * deltas in a byte array: a run of nearby ids takes one byte per id rather than four, and no
+ * Integer objects are made.  New posts and replies get increasing ids, so adding one appends
+ * to the end of each of its words' postings.  Removing or editing a document rewrites only the
+ * postings of the words that changed.  The index also remembers the words of each document so
+ * that a document can be removed by id alone.</p>
+ *
+ * <p> A query is a list of words, all of which must match.  "OR" between words starts another
+ * alternative, so "exam notes OR quiz" finds documents with both exam and notes, or with quiz.
+ * A word ending in "*" matches every word that starts with it.  Words are compared ignoring
+ * case, and punctuation separates words.</p>
+ *
+ * <p> The methods are synchronized, so one index may be shared between threads.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public class TextIndex {
+
+	private static final int[] NONE = new int[0];
+
+	/*
+	 * The sorted document ids for one word, as variable-length deltas.
+	 */
+	private static final class Postings {
+		final String word;
+		byte[] data = new byte[8];
+		int length = 0;		// Bytes of data in use
+		int count = 0;		// Number of ids
+		int last = 0;		// The largest id, so an append knows its delta
+
+		Postings(String word) {
+			this.word = word;
+		}
+
+		void add(int id) {
+			if (count > 0 && id <= last) {
+				int[] ids = decode();
+				int at = Arrays.binarySearch(ids, id);
+				if (at >= 0) return;
+				at = -at - 1;
+				int[] grown = new int[ids.length + 1];
+				System.arraycopy(ids, 0, grown, 0, at);
+				grown[at] = id;
+				System.arraycopy(ids, at, grown, at + 1, ids.length - at);
+				encode(grown, grown.length);
+				return;
+			}
+			append(count == 0 ? id : id - last);
+			last = id;
+			count++;
+		}
+
+		void remove(int id) {
+			int[] ids = decode();
+			int at = Arrays.binarySearch(ids, id);
+			if (at < 0) return;
+			System.arraycopy(ids, at + 1, ids, at, ids.length - at - 1);
+			encode(ids, ids.length - 1);
+		}
+
+		int[] decode() {
+			int[] ids = new int[count];
+			int value = 0;
+			int position = 0;
+			for (int i = 0; i < count; i++) {
+				int delta = 0;
+				int shift = 0;
+				byte b;
+				do {
+					b = data[position++];
+					delta |= (b & 0x7F) << shift;
+					shift += 7;
+				} while (b < 0);
+				value += delta;
+				ids[i] = value;
+			}
+			return ids;
+		}
+
+		private void encode(int[] ids, int n) {
+			length = 0;
+			count = 0;
+			last = 0;
+			for (int i = 0; i < n; i++) {
+				append(count == 0 ? ids[i] : ids[i] - last);
+				last = ids[i];
+				count++;
+			}
+			if (data.length > 4 * Math.max(length, 8)) data = Arrays.copyOf(data, length);
+		}
+
+		private void append(int delta) {
+			if (length + 5 > data.length) data = Arrays.copyOf(data, Math.max(data.length * 2, length + 5));
+			while ((delta & ~0x7F) != 0) {
+				data[length++] = (byte) ((delta & 0x7F) | 0x80);
+				delta >>>= 7;
+			}
+			data[length++] = (byte) delta;
+		}
+	}
+
+	private final TreeMap<String, Postings> words = new TreeMap<>();
+	private final Map<Integer, String[]> documents = new HashMap<>();
+
+
+	/*****
+	 * <p> Method: void put(int id, String text) </p>
+	 *
+	 * <p> Description: Index a document, replacing whatever was indexed for that id before.
+	 * Only the words that were added or dropped have their postings changed.</p>
+	 *
+	 * @param id is the post or reply id; ids are expected to be positive
+	 *
+	 * @param text is the content to index
+	 */
+	public synchronized void put(int id, String text) {
+		String[] before = documents.getOrDefault(id, new String[0]);
+		String[] after = distinctWords(text);
+		for (String word : before) {
+			if (Arrays.binarySearch(after, word) < 0) removePosting(word, id);
+		}
+		for (int i = 0; i < after.length; i++) {
+			if (Arrays.binarySearch(before, after[i]) >= 0) continue;
+			Postings postings = words.computeIfAbsent(after[i], Postings::new);
+			postings.add(id);
+			after[i] = postings.word;		// Share one String per word
+		}
+		documents.put(id, after);
+	}
+
+
+	/*****
+	 * <p> Method: boolean remove(int id) </p>
+	 *
+	 * @param id is the document to remove
+	 *
+	 * @return true if the document was in the index
+	 */
+	public synchronized boolean remove(int id) {
+		String[] before = documents.remove(id);
+		if (before == null) return false;
+		for (String word : before) removePosting(word, id);
+		return true;
+	}
+
+
+	/*****
+	 * <p> Method: int[] search(String query) </p>
+	 *
+	 * @param query is the words to look for, as described for the class
+	 *
+	 * @return the ids of the matching documents in ascending order; empty for a blank query
+	 */
+	public synchronized int[] search(String query) {
+		int[] result = NONE;
+		for (List<String> alternative : parse(query)) {
+			int[] matches = null;
+			for (String term : alternative) {
+				int[] ids = term.endsWith("*")
+						? prefixMatches(term.substring(0, term.length() - 1))
+						: wordMatches(term);
+				matches = matches == null ? ids : intersect(matches, ids);
+				if (matches.length == 0) break;
+			}
+			if (matches != null) result = union(result, matches);
+		}
+		return result;
+	}
+
+
+	/*****
+	 * <p> Method: boolean contains(int id) </p>
+	 *
+	 * @param id is a document id
+	 *
+	 * @return true if that document is indexed
+	 */
+	public synchronized boolean contains(int id) {
+		return documents.containsKey(id);
+	}
+
+
+	/*****
+	 * <p> Method: int size() </p>
+	 *
+	 * @return the number of documents indexed
+	 */
+	public synchronized int size() {
+		return documents.size();
+	}
+
+
+	/*****
+	 * <p> Method: int getWordCount() </p>
+	 *
+	 * @return the number of distinct words indexed
+	 */
+	public synchronized int getWordCount() {
+		return words.size();
+	}
+
+
+	/*****
+	 * <p> Method: void clear() </p>
+	 *
+	 * <p> Description: Remove every document.</p>
+	 */
+	public synchronized void clear() {
+		words.clear();
+		documents.clear();
+	}
+
+
+	/*****
+	 * <p> Method: List&lt;String&gt; words(String text) </p>
+	 *
+	 * @param text is any text
+	 *
+	 * @return the words of the text in lower case, in order, as the index sees them
+	 */
+	public static List<String> words(String text) {
+		List<String> result = new ArrayList<>();
+		if (text == null) return result;
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (letter && start < 0) start = i;
+			if (!letter && start >= 0) {
+				result.add(text.substring(start, i).toLowerCase());
+				start = -1;
+			}
+		}
+		return result;
+	}
+
+
+	/*
+	 * The distinct words of a text, sorted so two documents' words can be compared quickly.
+	 */
+	private static String[] distinctWords(String text) {
+		return words(text).stream().distinct().sorted().toArray(String[]::new);
+	}
+
+	/*
+	 * Split a query into its OR alternatives, each a list of terms that must all match.  A term
+	 * keeps a trailing "*" when it is a prefix.  Punctuation inside a typed word splits it into
+	 * several terms, and only the last of them keeps the "*".
+	 */
+	private static List<List<String>> parse(String query) {
+		List<List<String>> alternatives = new ArrayList<>();
+		List<String> current = new ArrayList<>();
+		if (query == null) return alternatives;
+		for (String token : query.trim().split("\\s+")) {
+			if (token.equals("OR")) {
+				if (!current.isEmpty()) alternatives.add(current);
+				current = new ArrayList<>();
+				continue;
+			}
+			boolean prefix = token.endsWith("*");
+			List<String> terms = words(prefix ? token.substring(0, token.length() - 1) : token);
+			for (int i = 0; i < terms.size(); i++) {
+				current.add(prefix && i == terms.size() - 1 ? terms.get(i) + "*" : terms.get(i));
+			}
+		}
+		if (!current.isEmpty()) alternatives.add(current);
+		return alternatives;
+	}
+
+	private int[] wordMatches(String word) {
+		Postings postings = words.get(word);
+		return postings == null ? NONE : postings.decode();
+	}
+
+	private int[] prefixMatches(String prefix) {
+		NavigableMap<String, Postings> matching =
+				words.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+		int[] result = NONE;
+		for (Postings postings : matching.values()) {
+			result = union(result, postings.decode());
+		}
+		return result;
+	}
+
+	private void removePosting(String word, int id) {
+		Postings postings = words.get(word);
+		if (postings == null) return;
+		postings.remove(id);
+		if (postings.count == 0) words.remove(word);
+	}
+
+	/*
+	 * The ids in both sorted arrays, in ascending order.
+	 */
+	private static int[] intersect(int[] a, int[] b) {
+		int[] result = new int[Math.min(a.length, b.length)];
+		int n = 0;
+		for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+			if (a[i] < b[j]) i++;
+			else if (a[i] > b[j]) j++;
+			else { result[n++] = a[i]; i++; j++; }
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	/*
+	 * The ids in either sorted array, in ascending order, each once.
+	 */
+	private static int[] union(int[] a, int[] b) {
+		if (a.length == 0) return b;
+		if (b.length == 0) return a;
+		int[] result = new int[a.length + b.length];
+		int n = 0;
+		int i = 0;
+		int j = 0;
+		while (i < a.length && j < b.length) {
+			if (a[i] < b[j]) result[n++] = a[i++];
+			else if (a[i] > b[j]) result[n++] = b[j++];
+			else { result[n++] = a[i++]; j++; }
+		}
+		while (i < a.length) result[n++] = a[i++];
+		while (j < b.length) result[n++] = b[j++];
+		return Arrays.copyOf(result, n);
+	}
+}
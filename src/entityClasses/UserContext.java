@@ -0,0 +1,119 @@
+package entityClasses;
+
+/*******
+ * <p> Title: UserContext Class </p>
+ *
+ * <p> Description: An immutable snapshot of one user account: the credentials, the name and
+ * email fields, and the roles the user plays.  The Database returns one of these from
+ * getUserContext instead of copying the account into "current user" fields of its own, so one
+ * Database can serve many logged-in users, and background threads, at the same time.  A change
+ * produces a new context with withRole or withProfile; the context itself never changes.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public final class UserContext {
+
+	/*
+	 * These are the private attributes for this entity object
+	 */
+	private final String password;
+	private final UserProfile profile;
+	private final boolean adminRole;
+	private final boolean newRole1;
+	private final boolean newRole2;
+
+
+	/*****
+	 * <p> Method: UserContext(String password, UserProfile profile, boolean adminRole,
+	 * 		boolean newRole1, boolean newRole2) </p>
+	 *
+	 * @param password specifies the account password
+	 *
+	 * @param profile specifies the username and the name and email fields
+	 *
+	 * @param adminRole specifies whether the user plays the Admin role
+	 *
+	 * @param newRole1 specifies whether the user plays the Student role
+	 *
+	 * @param newRole2 specifies whether the user plays the Reviewer role
+	 */
+	public UserContext(String password, UserProfile profile, boolean adminRole,
+			boolean newRole1, boolean newRole2) {
+		this.password = password;
+		this.profile = profile;
+		this.adminRole = adminRole;
+		this.newRole1 = newRole1;
+		this.newRole2 = newRole2;
+	}
+
+
+	public String getUserName() { return profile.getUserName(); }
+	public String getPassword() { return password; }
+	public UserProfile getProfile() { return profile; }
+	public boolean getAdminRole() { return adminRole; }
+	public boolean getNewRole1() { return newRole1; }
+	public boolean getNewRole2() { return newRole2; }
+
+
+	/*****
+	 * <p> Method: UserContext withProfile(UserProfile profile) </p>
+	 *
+	 * @param profile is the new name and email fields
+	 *
+	 * @return a copy of this context with the profile replaced
+	 */
+	public UserContext withProfile(UserProfile profile) {
+		return new UserContext(password, profile, adminRole, newRole1, newRole2);
+	}
+
+
+	/*****
+	 * <p> Method: UserContext withRole(String role, boolean value) </p>
+	 *
+	 * @param role is "Admin", "Role1", or "Role2"; any other name leaves the roles unchanged
+	 *
+	 * @param value is whether the user now plays that role
+	 *
+	 * @return a copy of this context with the one role changed
+	 */
+	public UserContext withRole(String role, boolean value) {
+		if (role.compareTo("Admin") == 0)
+			return new UserContext(password, profile, value, newRole1, newRole2);
+		if (role.compareTo("Role1") == 0)
+			return new UserContext(password, profile, adminRole, value, newRole2);
+		if (role.compareTo("Role2") == 0)
+			return new UserContext(password, profile, adminRole, newRole1, value);
+		return this;
+	}
+
+
+	/*****
+	 * <p> Method: UserContext fromUser(User user) </p>
+	 *
+	 * @param user is a User entity, for example one that has just been registered
+	 *
+	 * @return a context with the values of that User
+	 */
+	public static UserContext fromUser(User user) {
+		return new UserContext(user.getPassword(), new UserProfile(user.getUserName(),
+				user.getFirstName(), user.getMiddleName(), user.getLastName(),
+				user.getPreferredFirstName(), user.getEmailAddress()),
+				user.getAdminRole(), user.getNewRole1(), user.getNewRole2());
+	}
+
+
+	/*****
+	 * <p> Method: User toUser() </p>
+	 *
+	 * @return a new User entity with the values of this context, for the GUI pages
+	 */
+	public User toUser() {
+		return new User(profile.getUserName(), password, profile.getFirstName(),
+				profile.getMiddleName(), profile.getLastName(), profile.getPreferredFirstName(),
+				profile.getEmailAddress(), adminRole, newRole1, newRole2);
+	}
+}
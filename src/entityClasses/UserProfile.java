@@ -0,0 +1,111 @@
+package entityClasses;
+
+/*******
+ * <p> Title: UserProfile Class </p>
+ *
+ * <p> Description: An immutable snapshot of the name and email fields of one user account, loaded
+ * with a single query.  Pages that show or edit a user's account details read this rather than
+ * asking the database for each field separately.  Changing a field produces a new snapshot with
+ * one of the with... methods; the snapshot itself never changes, so it can be cached and shared
+ * freely.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ */
+public final class UserProfile {
+
+	/*
+	 * These are the private attributes for this entity object
+	 */
+	private final String userName;
+	private final String firstName;
+	private final String middleName;
+	private final String lastName;
+	private final String preferredFirstName;
+	private final String emailAddress;
+
+
+	/*****
+	 * <p> Method: UserProfile(String userName, String firstName, String middleName,
+	 * 		String lastName, String preferredFirstName, String emailAddress) </p>
+	 *
+	 * @param userName specifies the account userName the profile belongs to
+	 *
+	 * @param firstName specifies the first name
+	 *
+	 * @param middleName specifies the middle name
+	 *
+	 * @param lastName specifies the last name
+	 *
+	 * @param preferredFirstName specifies the preferred first name
+	 *
+	 * @param emailAddress specifies the email address
+	 */
+	public UserProfile(String userName, String firstName, String middleName, String lastName,
+			String preferredFirstName, String emailAddress) {
+		this.userName = userName;
+		this.firstName = firstName;
+		this.middleName = middleName;
+		this.lastName = lastName;
+		this.preferredFirstName = preferredFirstName;
+		this.emailAddress = emailAddress;
+	}
+
+
+	public String getUserName() { return userName; }
+	public String getFirstName() { return firstName; }
+	public String getMiddleName() { return middleName; }
+	public String getLastName() { return lastName; }
+	public String getPreferredFirstName() { return preferredFirstName; }
+	public String getEmailAddress() { return emailAddress; }
+
+
+	/*****
+	 * <p> Methods: with... </p>
+	 *
+	 * <p> Description: Each returns a copy of this profile with one field replaced.</p>
+	 */
+	public UserProfile withFirstName(String firstName) {
+		return new UserProfile(userName, firstName, middleName, lastName, preferredFirstName,
+				emailAddress);
+	}
+
+	public UserProfile withMiddleName(String middleName) {
+		return new UserProfile(userName, firstName, middleName, lastName, preferredFirstName,
+				emailAddress);
+	}
+
+	public UserProfile withLastName(String lastName) {
+		return new UserProfile(userName, firstName, middleName, lastName, preferredFirstName,
+				emailAddress);
+	}
+
+	public UserProfile withPreferredFirstName(String preferredFirstName) {
+		return new UserProfile(userName, firstName, middleName, lastName, preferredFirstName,
+				emailAddress);
+	}
+
+	public UserProfile withEmailAddress(String emailAddress) {
+		return new UserProfile(userName, firstName, middleName, lastName, preferredFirstName,
+				emailAddress);
+	}
+
+
+	/*****
+	 * <p> Method: void applyTo(User user) </p>
+	 *
+	 * <p> Description: Copy the profile's fields onto a User object.</p>
+	 *
+	 * @param user is the User to update
+	 */
+	public void applyTo(User user) {
+		user.setFirstName(firstName);
+		user.setMiddleName(middleName);
+		user.setLastName(lastName);
+		user.setPreferredFirstName(preferredFirstName);
+		user.setEmailAddress(emailAddress);
+	}
+}
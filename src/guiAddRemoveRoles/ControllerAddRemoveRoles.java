@@ -1,6 +1,8 @@
 package guiAddRemoveRoles;
 
+import database.AsyncDatabase;
 import database.Database;
+import entityClasses.UserContext;
 import javafx.collections.FXCollections;
 import javafx.geometry.Pos;
 import javafx.scene.control.ComboBox;
@@ -19,6 +21,9 @@ public class ControllerAddRemoveRoles {
 
 	// Reference for the in-memory database so this package has access
 	private static Database theDatabase = applicationMain.FoundationsMain.database;		
+	
+	// The same database, for queries that should not block the JavaFX thread
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 
 	
 	/**********
@@ -26,14 +31,19 @@ public class ControllerAddRemoveRoles {
 	 * 
 	 * <p> Description: This method uses the ComboBox widget, fetches which item in the ComboBox
 	 * was selected (a user in this case), and establishes that user and the current user, setting
-	 * easily accessible values without needing to do a query. </p>
+	 * easily accessible values without needing to do a query.  The user's details are fetched
+	 * off the JavaFX thread and the window is repainted when they arrive. </p>
 	 * 
 	 */
 	protected static void doSelectUser() {
 		ViewAddRemoveRoles.theSelectedUser = 
 				(String) ViewAddRemoveRoles.combobox_SelectUser.getValue();
-		theDatabase.getUserAccountDetails(ViewAddRemoveRoles.theSelectedUser);
-		setupSelectedUser();
+		theAsyncDatabase.getUserContext(ViewAddRemoveRoles.theSelectedUser)
+			.whenComplete((account, error) -> {
+				if (error != null) error.printStackTrace();
+				ViewAddRemoveRoles.theSelectedAccount = account;
+				setupSelectedUser();
+			});
 	}
 	
 	
@@ -96,27 +106,31 @@ public class ControllerAddRemoveRoles {
 	 */
 	private static void setupSelectedUser() {
 		System.out.println("*** Entering setupSelectedUser");
+		UserContext account = ViewAddRemoveRoles.theSelectedAccount;
+		boolean adminRole = account != null && account.getAdminRole();
+		boolean newRole1 = account != null && account.getNewRole1();
+		boolean newRole2 = account != null && account.getNewRole2();
 		
 		// Create the list of roles that could be added for the currently selected user (e.g., Do
 		// not show a role to add that the user already has!)
 		ViewAddRemoveRoles.addList.clear();
 		ViewAddRemoveRoles.addList.add("<Select a role>");
-		if (!theDatabase.getCurrentAdminRole())
+		if (!adminRole)
 			ViewAddRemoveRoles.addList.add("Admin");
-		if (!theDatabase.getCurrentNewRole1())
+		if (!newRole1)
 			ViewAddRemoveRoles.addList.add("Role1");
-		if (!theDatabase.getCurrentNewRole2())
+		if (!newRole2)
 			ViewAddRemoveRoles.addList.add("Role2");
 
 		// Create the list of roles that could be removed for the currently selected user (e.g., Do
 		// not show a role to remove that the user does not have!)
 		ViewAddRemoveRoles.removeList.clear();
 		ViewAddRemoveRoles.removeList.add("<Select a role>");
-		if (theDatabase.getCurrentAdminRole())
+		if (adminRole)
 			ViewAddRemoveRoles.removeList.add("Admin");
-		if (theDatabase.getCurrentNewRole1())
+		if (newRole1)
 			ViewAddRemoveRoles.removeList.add("Role1");
-		if (theDatabase.getCurrentNewRole2())
+		if (newRole2)
 			ViewAddRemoveRoles.removeList.add("Role2");
 		
 		// Create the list or roles that the user currently has with proper use of a comma between
@@ -125,13 +139,13 @@ public class ControllerAddRemoveRoles {
 		String theCurrentRoles = "";
 		
 		// Admin role - It can only be at the head of a list
-		if (theDatabase.getCurrentAdminRole()) {
+		if (adminRole) {
 			theCurrentRoles += "Admin";
 			notTheFirst = true;
 		}
 		
 		// Roles 1 - It could be at the head of the list or later in the list
-		if (theDatabase.getCurrentNewRole1()) {
+		if (newRole1) {
 			if (notTheFirst)
 				theCurrentRoles += ", Role1"; 
 			else {
@@ -141,7 +155,7 @@ public class ControllerAddRemoveRoles {
 		}
 
 		// Roles 2 - It could be at the head of the list or later in the list
-		if (theDatabase.getCurrentNewRole2()) {
+		if (newRole2) {
 			if (notTheFirst)
 				theCurrentRoles += ", Role2"; 
 			else {
@@ -189,14 +203,17 @@ public class ControllerAddRemoveRoles {
 		if (ViewAddRemoveRoles.theAddRole.compareTo("<Select a role>") != 0) {
 			
 			// If an actual role was selected, update the database entry for that user for the role
-			if (theDatabase.updateUserRole(ViewAddRemoveRoles.theSelectedUser,
-					ViewAddRemoveRoles.theAddRole, "true") ) {
-				ViewAddRemoveRoles.combobox_SelectRoleToAdd = new ComboBox <String>();
-				ViewAddRemoveRoles.combobox_SelectRoleToAdd.setItems(FXCollections.
-					observableArrayList(ViewAddRemoveRoles.addList));
-				ViewAddRemoveRoles.combobox_SelectRoleToAdd.getSelectionModel().clearAndSelect(0);		
-				setupSelectedUser();
-			}
+			theAsyncDatabase.updateUserRole(ViewAddRemoveRoles.theSelectedUser,
+					ViewAddRemoveRoles.theAddRole, "true").thenAccept(updated -> {
+				if (updated) {
+					ViewAddRemoveRoles.theSelectedAccount = withRole(ViewAddRemoveRoles.theAddRole, true);
+					ViewAddRemoveRoles.combobox_SelectRoleToAdd = new ComboBox <String>();
+					ViewAddRemoveRoles.combobox_SelectRoleToAdd.setItems(FXCollections.
+						observableArrayList(ViewAddRemoveRoles.addList));
+					ViewAddRemoveRoles.combobox_SelectRoleToAdd.getSelectionModel().clearAndSelect(0);		
+					setupSelectedUser();
+				}
+			});
 		}
 	}
 	
@@ -218,19 +235,31 @@ public class ControllerAddRemoveRoles {
 		if (ViewAddRemoveRoles.theRemoveRole.compareTo("<Select a role>") != 0) {
 			
 			// If an actual role was selected, update the database entry for that user for the role
-			if (theDatabase.updateUserRole(ViewAddRemoveRoles.theSelectedUser, 
-					ViewAddRemoveRoles.theRemoveRole, "false") ) {
-				ViewAddRemoveRoles.combobox_SelectRoleToRemove = new ComboBox <String>();
-				ViewAddRemoveRoles.combobox_SelectRoleToRemove.setItems(FXCollections.
-					observableArrayList(ViewAddRemoveRoles.addList));
-				ViewAddRemoveRoles.combobox_SelectRoleToRemove.getSelectionModel().
-					clearAndSelect(0);		
-				setupSelectedUser();
-			}				
+			theAsyncDatabase.updateUserRole(ViewAddRemoveRoles.theSelectedUser, 
+					ViewAddRemoveRoles.theRemoveRole, "false").thenAccept(updated -> {
+				if (updated) {
+					ViewAddRemoveRoles.theSelectedAccount = withRole(ViewAddRemoveRoles.theRemoveRole, false);
+					ViewAddRemoveRoles.combobox_SelectRoleToRemove = new ComboBox <String>();
+					ViewAddRemoveRoles.combobox_SelectRoleToRemove.setItems(FXCollections.
+						observableArrayList(ViewAddRemoveRoles.addList));
+					ViewAddRemoveRoles.combobox_SelectRoleToRemove.getSelectionModel().
+						clearAndSelect(0);		
+					setupSelectedUser();
+				}
+			});
 		}
 	}
 	
 	
+	/*
+	 * The selected user's account with one role changed, as it now is in the database
+	 */
+	private static UserContext withRole(String role, boolean value) {
+		UserContext account = ViewAddRemoveRoles.theSelectedAccount;
+		return account == null ? null : account.withRole(role, value);
+	}
+	
+	
 	/**********
 	 * <p> Method: performReturn() </p>
 	 * 
@@ -13,8 +13,9 @@ import javafx.scene.layout.Pane;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
-import database.Database;
+import database.AsyncDatabase;
 import entityClasses.User;
+import entityClasses.UserContext;
 
 /*******
  * <p> Title: GUIAddRemoveRolesPage Class. </p>
@@ -90,8 +91,8 @@ public class ViewAddRemoveRoles {
 	// These attributes are used to configure the page and populate it with this user's information
 	private static ViewAddRemoveRoles theView;	// Used to determine if instantiation of the class
 												// is needed
-	// Reference for the in-memory database so this package has access
-	private static Database theDatabase = applicationMain.FoundationsMain.database;		
+	// Reference for the database, queried off the JavaFX thread
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 
 	protected static Stage theStage;			// The Stage that JavaFX has established for us
 	protected static Pane theRootPane;			// The Pane that holds all the GUI widgets 
@@ -99,6 +100,7 @@ public class ViewAddRemoveRoles {
 	
 	public static Scene theAddRemoveRolesScene = null;	// The Scene each invocation populates
 	protected static String theSelectedUser = "";	// The user whose roles are being updated
+	protected static UserContext theSelectedAccount = null;	// That user's account, once fetched
 	protected static String theAddRole = "";		// The role being added
 	protected static String theRemoveRole = "";		// The roles being removed
 
@@ -187,12 +189,18 @@ public class ViewAddRemoveRoles {
 		setupLabelUI(label_SelectUser, "Arial", 20, 300, Pos.BASELINE_LEFT, 20, 130);
 		
 		setupComboBoxUI(combobox_SelectUser, "Dialog", 16, 250, 280, 125);
-		List<String> userList = theDatabase.getUserList();	
-		combobox_SelectUser.setItems(FXCollections.observableArrayList(userList));
-		combobox_SelectUser.getSelectionModel().select(0);
-		combobox_SelectUser.getSelectionModel().selectedItemProperty()
-    	.addListener((ObservableValue<? extends String> observable, 
-    		String oldvalue, String newValue) -> {ControllerAddRemoveRoles.doSelectUser();});
+		// The list arrives off the JavaFX thread; the listener is added once it is in place so
+		// that selecting the first entry does not count as choosing a user
+		theAsyncDatabase.getUserList().thenAccept(userList -> {
+			combobox_SelectUser.setItems(FXCollections.observableArrayList(userList));
+			combobox_SelectUser.getSelectionModel().select(0);
+			combobox_SelectUser.getSelectionModel().selectedItemProperty()
+	    	.addListener((ObservableValue<? extends String> observable, 
+	    		String oldvalue, String newValue) -> {ControllerAddRemoveRoles.doSelectUser();});
+		}).exceptionally(error -> {
+			error.printStackTrace();
+			return null;
+		});
 		
 		// GUI Area 2b
 		setupLabelUI(label_CurrentRoles, "Arial", 16, 300, Pos.BASELINE_LEFT, 50, 170);	
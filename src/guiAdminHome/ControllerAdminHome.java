@@ -1,5 +1,6 @@
 package guiAdminHome;
 
+import database.AsyncDatabase;
 import database.Database;
 
 /*******
@@ -39,6 +40,9 @@ public class ControllerAdminHome {
 
 	// Reference for the in-memory database so this package has access
 	private static Database theDatabase = applicationMain.FoundationsMain.database;
+	
+	// The same database, for queries that should not block the JavaFX thread
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 
 	/**********
 	 * <p> 
@@ -56,28 +60,47 @@ public class ControllerAdminHome {
 		}
 		
 		// Check to ensure that we are not sending a second message with a new invitation code to
-		// the same email address.  
-		if (theDatabase.emailaddressHasBeenUsed(emailAddress)) {
-			ViewAdminHome.alertEmailError.setContentText(
-					"An invitation has already been sent to this email address.");
-			ViewAdminHome.alertEmailError.showAndWait();
-			return;
-		}
-		
-		// Inform the user that the invitation has been sent and display the invitation code
+		// the same email address, and create the code, together on one worker thread.  A null
+		// code means the address already has an invitation.
 		String theSelectedRole = (String) ViewAdminHome.combobox_SelectRole.getValue();
-		String invitationCode = theDatabase.generateInvitationCode(emailAddress,
-				theSelectedRole);
-		String msg = "Code: " + invitationCode + " for role " + theSelectedRole + 
-				" was sent to: " + emailAddress;
-		System.out.println(msg);
-		ViewAdminHome.alertEmailSent.setContentText(msg);
-		ViewAdminHome.alertEmailSent.showAndWait();
-		
-		// Update the Admin Home pages status
-		ViewAdminHome.text_InvitationEmailAddress.setText("");
-		ViewAdminHome.label_NumberOfInvitations.setText("Number of outstanding invitations: " + 
-				theDatabase.getNumberOfInvitations());
+		theAsyncDatabase.submit(db -> db.emailaddressHasBeenUsed(emailAddress) ? null
+				: db.generateInvitationCode(emailAddress, theSelectedRole))
+			.thenAccept(invitationCode -> {
+				if (invitationCode == null) {
+					ViewAdminHome.alertEmailError.setContentText(
+							"An invitation has already been sent to this email address.");
+					ViewAdminHome.alertEmailError.showAndWait();
+					return;
+				}
+				
+				// Inform the user that the invitation has been sent and display the invitation code
+				String msg = "Code: " + invitationCode + " for role " + theSelectedRole + 
+						" was sent to: " + emailAddress;
+				System.out.println(msg);
+				ViewAdminHome.alertEmailSent.setContentText(msg);
+				ViewAdminHome.alertEmailSent.showAndWait();
+				
+				// Update the Admin Home pages status
+				ViewAdminHome.text_InvitationEmailAddress.setText("");
+				showNumberOfInvitations();
+			}).exceptionally(error -> {
+				error.printStackTrace();
+				return null;
+			});
+	}
+	
+	/**********
+	 * <p> 
+	 * 
+	 * Title: showNumberOfInvitations () Method. </p>
+	 * 
+	 * <p> Description: Protected method that counts the outstanding invitations off the JavaFX
+	 * thread and shows the count on the Admin Home page when it arrives. </p>
+	 */
+	protected static void showNumberOfInvitations () {
+		theAsyncDatabase.getNumberOfInvitations().thenAccept(count -> 
+				ViewAdminHome.label_NumberOfInvitations.setText(
+						"Number of outstanding invitations: " + count));
 	}
 	
 	/**********
@@ -116,6 +139,33 @@ public class ControllerAdminHome {
 	    guiPostsAdmin.ViewPostsAdmin.displayPostsAdmin(ViewAdminHome.theStage, ViewAdminHome.theUser);
 	}
 	
+	/**********
+	 * <p> 
+	 * 
+	 * Title: performBackup () Method. </p>
+	 * 
+	 * <p> Description: Protected method that takes a snapshot of the database in the
+	 * background and reports its size and duration when it is done.  The button is disabled
+	 * while the snapshot runs; everything else on the page stays usable.</p>
+	 */
+	protected static void performBackup() {
+		ViewAdminHome.button_BackupNow.setDisable(true);
+		theDatabase.openBackupService(javafx.application.Platform::runLater).backupNow()
+				.whenComplete((result, error) -> {
+			ViewAdminHome.button_BackupNow.setDisable(false);
+			ViewAdminHome.alertBackup.setTitle("Backup");
+			if (error != null) {
+				ViewAdminHome.alertBackup.setHeaderText("Backup failed");
+				ViewAdminHome.alertBackup.setContentText(error.getMessage());
+			} else {
+				ViewAdminHome.alertBackup.setHeaderText("Backup written");
+				ViewAdminHome.alertBackup.setContentText(result.getFile() + "\n" 
+						+ result.getBytes() + " bytes in " + result.getDurationMillis() + " ms");
+			}
+			ViewAdminHome.alertBackup.showAndWait();
+		});
+	}
+	
 	/**********
 	 * <p> 
 	 * 
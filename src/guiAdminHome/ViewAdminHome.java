@@ -16,7 +16,7 @@ import javafx.scene.layout.Pane;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
-import database.Database;
+import database.AsyncDatabase;
 import entityClasses.User;
 import guiUserUpdate.ViewUserUpdate;
 
@@ -104,6 +104,8 @@ public class ViewAdminHome {
 	protected static Button button_ListUsers = new Button("List All Users");
 	protected static Button button_AddRemoveRoles = new Button("Add/Remove Roles");
 	protected static Button button_ViewPost = new Button("View Posts");
+	protected static Button button_BackupNow = new Button("Back Up Now");
+	protected static Alert alertBackup = new Alert(AlertType.INFORMATION);
 	protected static Alert alertNotImplemented = new Alert(AlertType.INFORMATION);
 
 	// This is a separator and it is used to partition the GUI for various tasks
@@ -122,8 +124,8 @@ public class ViewAdminHome {
 	private static ViewAdminHome theView;		// Used to determine if instantiation of the class
 												// is needed
 
-	// Reference for the in-memory database so this package has access
-	private static Database theDatabase = applicationMain.FoundationsMain.database;
+	// Reference for the database, queried off the JavaFX thread
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 	
 	protected static Stage theStage;			// The Stage that JavaFX has established for us
 	private static Pane theRootPane;			// The Pane that holds all the GUI widgets 
@@ -170,7 +172,6 @@ public class ViewAdminHome {
 		
 		// Populate the dynamic aspects of the GUI with the data from the user and the current
 		// state of the system.
-		theDatabase.getUserAccountDetails(user.getUserName());		// Fetch this user's data
 		applicationMain.FoundationsMain.activeHomePage = theRole;	// Set this as the active Home																	// UserUpdate page
 
 		// Set the role for potential users to the default (No role selected)
@@ -214,15 +215,19 @@ public class ViewAdminHome {
 			
 		// GUI Area 2
 		setupLabelUI(label_NumberOfInvitations, "Arial", 20, 200, Pos.BASELINE_LEFT, 20, 105);
-		label_NumberOfInvitations.setText("Number of outstanding invitations: " + 
-				theDatabase.getNumberOfInvitations());
+		label_NumberOfInvitations.setText("Number of outstanding invitations: ");
+		ControllerAdminHome.showNumberOfInvitations();
 	
 		setupLabelUI(label_NumberOfUsers, "Arial", 20, 200, Pos.BASELINE_LEFT, 20, 135);
-		label_NumberOfUsers.setText("Number of users: " + 
-				theDatabase.getNumberOfUsers());
+		label_NumberOfUsers.setText("Number of users: ");
+		theAsyncDatabase.getNumberOfUsers().thenAccept(count -> 
+				label_NumberOfUsers.setText("Number of users: " + count));
 		
 		setupButtonUI(button_ViewPost, "Dialog", 16, 200, Pos.CENTER, 475, 370);
 		button_ViewPost.setOnAction((event) -> {ControllerAdminHome.performViewPost(); });
+		
+		setupButtonUI(button_BackupNow, "Dialog", 16, 200, Pos.CENTER, 475, 420);
+		button_BackupNow.setOnAction((event) -> {ControllerAdminHome.performBackup(); });
 	
 		// GUI Area 3
 		setupLabelUI(label_Invitations, "Arial", 20, width, Pos.BASELINE_LEFT, 20, 175);
@@ -290,7 +295,8 @@ public class ViewAdminHome {
     		line_Separator4, 
     		button_Logout,
     		button_Quit,
-    		button_ViewPost
+    		button_ViewPost,
+    		button_BackupNow
     		);
 		
 		// With theRootPane set up with the common widgets, it is up to displayAdminHome to show
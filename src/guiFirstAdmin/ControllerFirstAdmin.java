@@ -1,8 +1,9 @@
 package guiFirstAdmin;
 
-import java.sql.SQLException;
+import database.AsyncDatabase;
 import database.Database;
 import entityClasses.User;
+import entityClasses.UserContext;
 import javafx.stage.Stage;
 
 public class ControllerFirstAdmin {
@@ -20,6 +21,7 @@ public class ControllerFirstAdmin {
 	private static String adminPassword1 = "";
 	private static String adminPassword2 = "";		
 	protected static Database theDatabase = applicationMain.FoundationsMain.database;		
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 
 	/*-********************************************************************************************
 
@@ -86,19 +88,24 @@ public class ControllerFirstAdmin {
         	// Create the passwords and proceed to the user home page
         	User user = new User(adminUsername, adminPassword1, "", "", "", "", "", true, false, 
         			false);
-            try {
-            	// Create a new User object with admin role and register in the database
-            	theDatabase.register(user);
-            	}
-            catch (SQLException e) {
-                System.err.println("*** ERROR *** Database error trying to register a user: " + 
-                		e.getMessage());
-                e.printStackTrace();
-                System.exit(0);
-            }
-            
-            // User was established in the database, so navigate to the User Update Page
-        	guiUserUpdate.ViewUserUpdate.displayUserUpdate(ViewFirstAdmin.theStage, user);
+        	
+        	// Create a new User object with admin role and register in the database, off the
+        	// JavaFX thread
+        	theAsyncDatabase.register(user).whenComplete((done, error) -> {
+        		if (error != null) {
+        			System.err.println("*** ERROR *** Database error trying to register a user: " + 
+        					error.getMessage());
+        			error.printStackTrace();
+        			System.exit(0);
+        		}
+        		
+        		// The admin is now logged in, so open a session for this user
+        		applicationMain.FoundationsMain.sessionID =
+        				theDatabase.getSessions().open(UserContext.fromUser(user));
+        		
+        		// User was established in the database, so navigate to the User Update Page
+        		guiUserUpdate.ViewUserUpdate.displayUserUpdate(ViewFirstAdmin.theStage, user);
+        	});
 		}
 		else {
 			// The two passwords are NOT the same, so clear the passwords, explain the passwords
@@ -12,8 +12,10 @@ import javafx.scene.layout.Pane;
 import javafx.scene.shape.Line;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import database.AsyncDatabase;
 import database.Database;
 import entityClasses.User;
+import entityClasses.UserContext;
 
 /*******
  * <p> Title: GUIMultipleRoleDispatchPage Class. </p>
@@ -76,6 +78,9 @@ public class ViewMultipleRoleDispatch {
 
 	// Reference for the in-memory database so this package has access
 	private static Database theDatabase = applicationMain.FoundationsMain.database;
+	
+	// The same database, for queries that should not block the JavaFX thread
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 
 	protected static Stage theStage;			// The Stage that JavaFX has established for us
 	private static Pane theRootPane;			// The Pane that holds all the GUI widgets 
@@ -142,16 +147,16 @@ public class ViewMultipleRoleDispatch {
 
 		setupComboBoxUI(combobox_SelectRole, "Dialog", 16, 100, 305, 105);
 
-		List<String> list = new ArrayList<String>();	// Create a new list empty list
-		theDatabase.getUserAccountDetails(theUser.getUserName());
-
+		// The roles come from this user's session, which login has just opened; without one
+		// they are read from the database off the JavaFX thread
 		System.out.println("*** Getting multiple role details for user: " + theUser.getUserName());
-		list = new ArrayList<String>();
-		list.add("<Select a role>");
-		if (theDatabase.getCurrentAdminRole()) list.add("Admin");
-		if (theDatabase.getCurrentNewRole1()) list.add("Role1");
-		if (theDatabase.getCurrentNewRole2()) list.add("Role2");
-		combobox_SelectRole.setItems(FXCollections.observableArrayList(list));
+		UserContext account = theDatabase.getSessions().get(applicationMain.FoundationsMain.sessionID);
+		if (account != null) showRoles(account);
+		else {
+			showRoles(null);
+			theAsyncDatabase.getUserContext(theUser.getUserName()).thenAccept(
+					ViewMultipleRoleDispatch::showRoles);
+		}
 
 		setupButtonUI(button_PerformRole, "Dialog", 16, 100, Pos.CENTER, 495, 105);
 		button_PerformRole.setOnAction((event) -> 
@@ -189,6 +194,21 @@ public class ViewMultipleRoleDispatch {
 
 	 */
 
+	/**********
+	 * Private local method to list the roles an account may play in the role ComboBox
+	 * 
+	 * @param account	The account, or null to list none yet
+	 */
+	private static void showRoles(UserContext account) {
+		List<String> list = new ArrayList<String>();	// Create a new list empty list
+		list.add("<Select a role>");
+		if (account != null && account.getAdminRole()) list.add("Admin");
+		if (account != null && account.getNewRole1()) list.add("Role1");
+		if (account != null && account.getNewRole2()) list.add("Role2");
+		combobox_SelectRole.setItems(FXCollections.observableArrayList(list));
+	}
+
+
 	/**********
 	 * Private local method to initialize the standard fields for a label
 	 */
@@ -1,9 +1,9 @@
 package guiNewAccount;
 
-import java.sql.SQLException;
-
+import database.AsyncDatabase;
 import database.Database;
 import entityClasses.User;
+import entityClasses.UserContext;
 
 
 public class ControllerNewAccount {
@@ -22,6 +22,9 @@ public class ControllerNewAccount {
 	// Reference for the in-memory database so this package has access
 	private static Database theDatabase = applicationMain.FoundationsMain.database;
 	
+	// The same database, for writes that should not block the JavaFX thread
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
+	
 	/**********
 	 * <p> Method: public doCreateUser() </p>
 	 * 
@@ -81,27 +84,30 @@ public class ControllerNewAccount {
         	// Inform the system about which role will be played
 			applicationMain.FoundationsMain.activeHomePage = roleCode;
 			
-        	// Create the account based on user and proceed to the user account update page
-            try {
+        	// Create the account based on user and, once the account has been set, remove the
+        	// invitation from the system, both off the JavaFX thread
+        	User newUser = user;
+        	String invitation = ViewNewAccount.text_Invitation.getText();
+        	theAsyncDatabase.run(db -> {
             	// Create a new User object with the pre-set role and register in the database
-            	theDatabase.register(user);
-            } catch (SQLException e) {
-                System.err.println("*** ERROR *** Database error: " + e.getMessage());
-                e.printStackTrace();
-                System.exit(0);
-            }
-            
-            // The account has been set, so remove the invitation from the system
-            theDatabase.removeInvitationAfterUse(
-            		ViewNewAccount.text_Invitation.getText());
-            
-            // Set the database so it has this user and the current user
-            theDatabase.getUserAccountDetails(username);
-            
-            ViewNewAccount.resetValidation(); //Added to clear any previous inputs  TP1 ************************************
-
-            // Navigate to the Welcome Login Page
-            guiUserUpdate.ViewUserUpdate.displayUserUpdate(ViewNewAccount.theStage, user);
+        		db.register(newUser);
+        		db.removeInvitationAfterUse(invitation);
+        	}).whenComplete((done, error) -> {
+        		if (error != null) {
+        			System.err.println("*** ERROR *** Database error: " + error.getMessage());
+        			error.printStackTrace();
+        			System.exit(0);
+        		}
+        		
+        		// The new user is now logged in, so open a session for this user
+        		applicationMain.FoundationsMain.sessionID =
+        				theDatabase.getSessions().open(UserContext.fromUser(newUser));
+        		
+        		ViewNewAccount.resetValidation(); //Added to clear any previous inputs  TP1 ************************************
+        		
+        		// Navigate to the Welcome Login Page
+        		guiUserUpdate.ViewUserUpdate.displayUserUpdate(ViewNewAccount.theStage, newUser);
+        	});
 		}
 		else {
 			// The two passwords are NOT the same, so clear the passwords, explain the passwords
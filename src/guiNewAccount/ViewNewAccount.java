@@ -11,7 +11,7 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.scene.layout.Pane;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
-import database.Database;
+import database.AsyncDatabase;
 import entityClasses.User;
 
 /*******
@@ -71,8 +71,8 @@ public class ViewNewAccount {
 	// These attributes are used to configure the page and populate it with this user's information
 	private static ViewNewAccount theView;		// Is instantiation of the class needed?
 
-	// Reference for the in-memory database so this package has access
-	private static Database theDatabase = applicationMain.FoundationsMain.database;		
+	// Reference for the database, queried off the JavaFX thread
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 
 	protected static Stage theStage;			// The Stage that JavaFX has established for us
 	private static Pane theRootPane;			// The Pane that holds all the GUI widgets 
@@ -127,27 +127,37 @@ public class ViewNewAccount {
 		text_Password1.setText("");	// appear for a new user
 		text_Password2.setText("");
 		
-		// Fetch the role for this user
-		theRole = theDatabase.getRoleGivenAnInvitationCode(theInvitationCode);
-		
-		if (theRole.length() == 0) {// If there is an issue with the invitation code, display a
-			alertInvitationCodeIsInvalid.showAndWait();	// dialog box saying that are when it it
-			return;					// acknowledged, return so the proper code can be entered
-		}
-		
-		// Get the email address associated with the invitation code
-		emailAddress = theDatabase.getEmailAddressUsingCode(theInvitationCode);
-		
-    	// Place all of the established GUI elements into the pane
-    	theRootPane.getChildren().clear();
-    	theRootPane.getChildren().addAll(label_NewUserCreation, label_NewUserLine, text_Username,
-    			text_Password1, text_Password2, button_UserSetup, button_Quit,
-    			label_PasswordsDoNotMatch, label_UsernameValidation, label_PasswordValidation,label_UsernameDBValidation); //add lable_usernameDBvalidation   	
-
-		// Set the title for the window, display the page, and wait for the Admin to do something
-		theStage.setTitle("CSE 360 Foundation Code: New User Account Setup");	
-        theStage.setScene(theNewAccountScene);
-		theStage.show();
+		// Fetch the role for this user and the email address associated with the invitation
+		// code, together off the JavaFX thread; the page is shown when they arrive
+		String code = theInvitationCode;
+		theAsyncDatabase.submit(db -> {
+			String role = db.getRoleGivenAnInvitationCode(code);
+			String email = role.length() == 0 ? "" : db.getEmailAddressUsingCode(code);
+			return new String[] {role, email};
+		}).thenAccept(invitation -> {
+			theRole = invitation[0];
+			
+			if (theRole.length() == 0) {// If there is an issue with the invitation code, display a
+				alertInvitationCodeIsInvalid.showAndWait();	// dialog box saying that are when it it
+				return;					// acknowledged, return so the proper code can be entered
+			}
+			
+			emailAddress = invitation[1];
+			
+	    	// Place all of the established GUI elements into the pane
+	    	theRootPane.getChildren().clear();
+	    	theRootPane.getChildren().addAll(label_NewUserCreation, label_NewUserLine, text_Username,
+	    			text_Password1, text_Password2, button_UserSetup, button_Quit,
+	    			label_PasswordsDoNotMatch, label_UsernameValidation, label_PasswordValidation,label_UsernameDBValidation); //add lable_usernameDBvalidation   	
+	
+			// Set the title for the window, display the page, and wait for the Admin to do something
+			theStage.setTitle("CSE 360 Foundation Code: New User Account Setup");	
+	        theStage.setScene(theNewAccountScene);
+			theStage.show();
+		}).exceptionally(error -> {
+			error.printStackTrace();
+			return null;
+		});
 	}
 	
 	/**********
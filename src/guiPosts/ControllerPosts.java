@@ -1,9 +1,17 @@
 package guiPosts;
 
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import entityClasses.Post;
+import entityClasses.PostSummary;
 import entityClasses.Reply;
+import database.AsyncDatabase;
+import database.EditResult;
+import database.PostPage;
+import database.RoundTrips;
 
 /**
  * <p><strong>Title:</strong> ControllerPosts Class - Student Posts Controller</p>
@@ -73,8 +81,50 @@ import entityClasses.Reply;
  */
 public class ControllerPosts {
     
+    /**
+     * <p><strong>Method:</strong> perform(String action, Runnable work)</p>
+     * 
+     * <p><strong>Description:</strong> Runs one of the perform methods below, as the View's 
+     * event handlers do, inside a {@link RoundTrips} scope named after it. Every statement 
+     * the action sends to the database, including those from work it hands to the 
+     * AsyncDatabase, is counted, and an action that repeats one query many times is 
+     * reported as a possible N+1.</p>
+     * 
+     * @param action the name of the perform method, such as "performViewReplies"
+     * @param work the perform method itself
+     */
+    static void perform(String action, Runnable work) {
+        RoundTrips.Scope scope = RoundTrips.open("ControllerPosts." + action);
+        try {
+            work.run();
+        } finally {
+            scope.close();
+        }
+    }
+    
     // ===================== POSTS PANEL METHODS ===================
     
+    /** Number of posts fetched from the database per page of the feed */
+    private static final int FEED_PAGE_SIZE = 50;
+    
+    /** Where the next page of the feed starts (null for the first page) */
+    private static PostPage.Cursor feedCursor = null;
+    
+    /** False once the last page of the feed has been loaded */
+    private static boolean feedHasMore = true;
+    
+    /** True while a page is being fetched, so scrolling does not request it twice */
+    private static boolean feedLoading = false;
+    
+    /** Bumped each time the feed restarts, so a page requested before then is ignored */
+    private static int feedGeneration = 0;
+    
+    /** Most posts shown for one search */
+    private static final int SEARCH_LIMIT = 100;
+    
+    /** True while performFilter is waiting for the word index to load */
+    private static boolean indexLoading = false;
+    
     /**
      * Retrieves and displays all posts from the database.
      * 
@@ -82,10 +132,8 @@ public class ControllerPosts {
      * 
      * <p><strong>Process Flow:</strong></p>
      * <ol>
-     * <li>Query database for all posts via {@link database.Database#getAllPosts()}</li>
-     * <li>Clear existing ListView contents</li>
-     * <li>Format each post with role badge via {@link ModelPosts#formatPostForDisplay(Post)}</li>
-     * <li>Add formatted posts to ListView</li>
+     * <li>Clear existing ListView contents and reset the feed cursor</li>
+     * <li>Load the first page via {@link #performLoadMorePosts()}</li>
      * <li>Switch View to posts panel</li>
      * </ol>
      * 
@@ -96,38 +144,196 @@ public class ControllerPosts {
      * author's role at time of posting. This helps users quickly identify post context.</p>
      * 
      * <p><strong>User Story Satisfaction:</strong> US-04 requires students to view all posts 
-     * from classmates. This method retrieves ALL posts (no filtering) and displays them in 
-     * a formatted list with clear attribution and role identification.</p>
+     * from classmates. Every post (no filtering) is reachable by scrolling; posts are fetched 
+     * a page at a time so opening the screen stays fast however large the board grows.</p>
      * 
      * <p><strong>Error Handling:</strong> SQLException caught and printed to console. In 
      * production, should display user-friendly error dialog.</p>
      * 
      * @see ViewPosts#list_Posts
      * @see ViewPosts#showPostsPanel()
-     * @see database.Database#getAllPosts()
+     * @see database.Database#getPostSummariesPage(database.PostPage.Cursor, int)
      */
     public static void performViewPosts() {
-        try {    
-            // US-04: Get all posts from database
-            List<Post> allPosts = ViewPosts.theDatabase.getAllPosts();
-            
-            // Clear existing items in ListView
-            ViewPosts.list_Posts.getItems().clear();
+        // Clear existing items in ListView and start again from the top of the feed
+        ViewPosts.list_Posts.getItems().clear();
+        feedCursor = null;
+        feedHasMore = true;
+        feedLoading = false;
+        feedGeneration++;
+        
+        // US-04: Load the first page; later pages load as the user scrolls
+        performLoadMorePosts();
+        
+        // Switch to posts panel view
+        ViewPosts.showPostsPanel();
+    }
+    
+    /**
+     * <p><strong>Method:</strong> performLoadMorePosts()</p>
+     * 
+     * <p><strong>Description:</strong> Appends the next page of the feed to the posts 
+     * ListView. Called once by {@link #performViewPosts()} and then by the ListView's scroll 
+     * listener each time the user nears the bottom of the list. Does nothing once the last 
+     * page has been shown or while a page is still loading.</p>
+     * 
+     * <p><strong>Threading:</strong> The page is fetched off the JavaFX thread; the ListView is 
+     * updated when the result comes back on the JavaFX thread.</p>
+     * 
+     * @see database.AsyncDatabase#getPostSummariesPage(database.PostPage.Cursor, int)
+     */
+    protected static void performLoadMorePosts() {
+        if (!feedHasMore || feedLoading) return;
+        feedLoading = true;
+        int generation = feedGeneration;
+        
+        ViewPosts.theAsyncDatabase.getPostSummariesPage(feedCursor, FEED_PAGE_SIZE).whenComplete((page, error) -> {
+            // The feed was restarted while this page was loading
+            if (generation != feedGeneration) return;
+            feedLoading = false;
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
             
             // Format and add each post to the display
-            for (Post post : allPosts) { 
+            for (PostSummary post : page.getPosts()) { 
                 // Format includes role badge [Admin], [Role1], or [Role2]
                 String displayText = ModelPosts.formatPostForDisplay(post);
                 ViewPosts.list_Posts.getItems().add(displayText);
             }
             
-            // Switch to posts panel view
-            ViewPosts.showPostsPanel();
+            feedCursor = page.getNextCursor();
+            feedHasMore = page.hasMore();
+        });
+    }
+ 
+    /**
+     * <p><strong>Method:</strong> performSearch()</p>
+     * 
+     * <p><strong>Description:</strong> Replaces the feed with the posts whose content, or the 
+     * content of one of whose replies, contains every word in the search box. Posts that 
+     * match themselves come first, then the threads of matching replies. A blank search box 
+     * shows the whole feed again.</p>
+     * 
+     * <p><strong>Threading:</strong> Both searches run on one worker thread; the ListView is 
+     * filled when the results come back on the JavaFX thread. Scroll paging is switched off 
+     * until the feed is shown again.</p>
+     * 
+     * @see database.Database#searchPosts(String, int)
+     * @see database.Database#searchReplies(String, int)
+     * @see database.Database#getPosts(List)
+     */
+    protected static void performSearch() {
+        String query = ViewPosts.text_Search.getText();
+        if (query == null || query.isBlank()) {
+            performViewPosts();
+            return;
+        }
+        
+        showResults(db -> {
+            List<Post> posts = new ArrayList<>(db.searchPosts(query, SEARCH_LIMIT));
+            Set<Integer> shown = new HashSet<>();
+            for (Post post : posts) shown.add(post.getPostID());
             
-        } catch (SQLException e) {
-            e.printStackTrace();
+            // Add the thread of each matching reply, once, after the matching posts; the
+            // threads are read together rather than one query per reply
+            List<Integer> parents = new ArrayList<>();
+            for (Reply reply : db.searchReplies(query, SEARCH_LIMIT)) {
+                if (posts.size() + parents.size() >= SEARCH_LIMIT) break;
+                if (shown.add(reply.getPostID())) parents.add(reply.getPostID());
+            }
+            posts.addAll(db.getPosts(parents));
+            return posts;
+        });
+    }
+    
+    /**
+     * <p><strong>Method:</strong> performFilter()</p>
+     * 
+     * <p><strong>Description:</strong> Called on every change to the search box. Shows the 
+     * posts that contain every word typed so far, newest first, treating the word still being 
+     * typed as a prefix. The matches come from the in-memory word index rather than a database 
+     * query, so filtering keeps up with typing; only the posts to be shown are read, together 
+     * in one query, with cached posts taken from the post cache. An empty box shows the whole 
+     * feed again.</p>
+     * 
+     * <p>The word index is loaded in the background when the posts screen opens. If it is not 
+     * ready yet, the load is waited for off the JavaFX thread and the filter runs once it is 
+     * done; Enter runs a database search in the meantime.</p>
+     * 
+     * @see database.Database#filterPosts(String, int)
+     * @see database.Database#getPosts(List)
+     */
+    protected static void performFilter() {
+        String text = ViewPosts.text_Search.getText();
+        if (text == null || text.isBlank()) {
+            performViewPosts();
+            return;
+        }
+        if (!ViewPosts.theDatabase.isContentIndexLoaded()) {
+            // Filter whatever is in the box once the index is ready, without waiting here
+            if (indexLoading) return;
+            indexLoading = true;
+            ViewPosts.theAsyncDatabase.loadContentIndex().whenComplete((loaded, error) -> {
+                indexLoading = false;
+                if (error != null) {
+                    error.printStackTrace();
+                    return;
+                }
+                performFilter();
+            });
+            return;
+        }
+        
+        String query = Character.isWhitespace(text.charAt(text.length() - 1)) ? text : text + "*";
+        
+        showResults(db -> {
+            int[] ids = db.filterPosts(query, SEARCH_LIMIT);
+            return db.getPosts(java.util.Arrays.stream(ids).boxed().toList());
+        });
+    }
+    
+    /**
+     * <p><strong>Method:</strong> performClearSearch()</p>
+     * 
+     * <p><strong>Description:</strong> Empties the search box and shows the whole feed again.</p>
+     */
+    protected static void performClearSearch() {
+        if (ViewPosts.text_Search.getText().isEmpty()) {
+            performViewPosts();
+        } else {
+            // Emptying the box shows the feed through performFilter()
+            ViewPosts.text_Search.clear();
         }
     }
+    
+    /**
+     * Stops the feed and fills the posts ListView with the result of a search, which runs 
+     * on a worker thread. Results of an earlier search that arrive late are ignored.
+     * 
+     * @param search reads the posts to show
+     */
+    private static void showResults(AsyncDatabase.DatabaseCall<List<Post>> search) {
+        // Stop the feed: no more pages, and any page still loading is ignored
+        ViewPosts.list_Posts.getItems().clear();
+        feedHasMore = false;
+        feedLoading = false;
+        feedGeneration++;
+        int generation = feedGeneration;
+        
+        ViewPosts.theAsyncDatabase.submit(search).whenComplete((posts, error) -> {
+            // Another search, or the feed, was started while this one ran
+            if (generation != feedGeneration) return;
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
+            for (Post post : posts) {
+                ViewPosts.list_Posts.getItems().add(ModelPosts.formatPostForDisplay(post));
+            }
+        });
+    }
  
     /**
      * Prepares the create post interface for user input.
@@ -231,10 +437,13 @@ public class ControllerPosts {
      * <p><strong>Validation:</strong> Checks for null selection before attempting database 
      * operation to prevent NullPointerException.</p>
      * 
+     * <p><strong>Threading:</strong> The post is read and deleted off the JavaFX thread; the 
+     * ownership check, any dialog, and the refresh run back on the JavaFX thread.</p>
+     * 
      * @see ViewPosts#list_Posts
      * @see ModelPosts#getID(String)
-     * @see database.Database#getPost(int)
-     * @see database.Database#deletePost(int)
+     * @see database.AsyncDatabase#getPost(int)
+     * @see database.AsyncDatabase#deletePost(int)
      */
     protected static void performDeletePost() {
         // Get selected post display string
@@ -249,10 +458,8 @@ public class ControllerPosts {
         // Extract post ID from display string
         int id = ModelPosts.getID(p);
         
-        try {
-            // US-03 SECURITY CHECK: Get the full post object to check ownership
-            Post post = ViewPosts.theDatabase.getPost(id);
-            
+        // US-03 SECURITY CHECK: Get the full post object to check ownership
+        ViewPosts.theAsyncDatabase.getPost(id).thenAccept(post -> {
             // Compare post author with current user's username
             if (!post.getAuthor().equals(ViewPosts.theUser.getUserName())) {
                 // NOT the owner - deny access
@@ -274,15 +481,15 @@ public class ControllerPosts {
                 return;
             }
             
-            // If we get here, user IS the owner - allow delete
-            ViewPosts.theDatabase.deletePost(id);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        // Refresh the posts view
-        performViewPosts();
+            // If we get here, user IS the owner - allow delete, then refresh the posts view
+            ViewPosts.theAsyncDatabase.deletePost(id).whenComplete((deleted, error) -> {
+                if (error != null) error.printStackTrace();
+                performViewPosts();
+            });
+        }).exceptionally(error -> {
+            error.printStackTrace();
+            return null;
+        });
     }
     
     /**
@@ -323,8 +530,15 @@ public class ControllerPosts {
      * Pre-fills with current content for convenience. User can modify and submit, or 
      * cancel to abort the edit.</p>
      * 
+     * <p><strong>Concurrent Edits:</strong> The edit is saved with 
+     * {@link #saveEdit}, so an edit made by someone else in the meantime is merged 
+     * rather than overwritten.</p>
+     * 
+     * <p><strong>Threading:</strong> The post is read and saved off the JavaFX thread; the 
+     * dialogs run on the JavaFX thread between those steps.</p>
+     * 
      * @see ViewPosts#list_Posts
-     * @see database.Database#updatePost(int, String)
+     * @see database.AsyncDatabase#updatePost(int, int, String)
      */
     protected static void performEditPost() {
         String p = ViewPosts.list_Posts.getSelectionModel().getSelectedItem();
@@ -336,10 +550,8 @@ public class ControllerPosts {
         
         int id = ModelPosts.getID(p);
         
-        try {
-            // US-02 SECURITY CHECK: Verify ownership before allowing edit
-            Post post = ViewPosts.theDatabase.getPost(id);
-            
+        // US-02 SECURITY CHECK: Verify ownership before allowing edit
+        ViewPosts.theAsyncDatabase.getPost(id).thenAccept(post -> {
             // Compare authors
             if (!post.getAuthor().equals(ViewPosts.theUser.getUserName())) {
                 // NOT the owner - deny access
@@ -357,37 +569,31 @@ public class ControllerPosts {
                 return;
             }
             
-            // Owner verified - proceed with edit
+            // Owner verified - show edit dialog
+            javafx.scene.control.TextInputDialog dialog = new javafx.scene.control.TextInputDialog(post.getContent());
+            dialog.setTitle("Edit Post");
+            dialog.setHeaderText("Edit the post content:");
+            dialog.setContentText("New content:");
             
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return;  // Exit on database error
-        }
-       
-        // Show edit dialog
-        javafx.scene.control.TextInputDialog dialog = new javafx.scene.control.TextInputDialog();
-        dialog.setTitle("Edit Post");
-        dialog.setHeaderText("Edit the post content:");
-        dialog.setContentText("New content:");
-        
-        java.util.Optional<String> result = dialog.showAndWait();
-        
-        if (result.isPresent()) {
-            String newText = result.get().trim();
-            
-            if (newText.isEmpty()) {
-                System.out.println("New content cannot be empty"); 
-                return;
-            }
+            java.util.Optional<String> result = dialog.showAndWait();
             
-            try {
-                // Update post with new content
-                ViewPosts.theDatabase.updatePost(id, newText);
-                performViewPosts();
-            } catch (SQLException e) {
-                e.printStackTrace();
+            if (result.isPresent()) {
+                String newText = result.get().trim();
+                
+                if (newText.isEmpty()) {
+                    System.out.println("New content cannot be empty"); 
+                    return;
+                }
+                
+                // Save against the version that was read, merging with anyone else's edit
+                saveEdit("post", post.getContent(), post.getVersion(), newText,
+                        (version, content) -> ViewPosts.theAsyncDatabase.updatePost(id, version, content),
+                        Post::getContent, ControllerPosts::performViewPosts);
             }
-        }
+        }).exceptionally(error -> {
+            error.printStackTrace();
+            return null;
+        });
     }
     
     // ===================== CREATE POSTS PANEL METHODS ===================
@@ -434,7 +640,7 @@ public class ControllerPosts {
      * 
      * @see ViewPosts#theUser
      * @see ViewPosts#text_PostContent
-     * @see database.Database#createPost(String, String, String)
+     * @see database.AsyncDatabase#createPost(String, String, String)
      */
     protected static void performSubmitPost() {
         String a = ViewPosts.theUser.getUserName();
@@ -458,13 +664,11 @@ public class ControllerPosts {
             return;
         }
         
-        try {
-            ViewPosts.theDatabase.createPost(a, c, role);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        ControllerPosts.performViewPosts();
+        // Insert off the JavaFX thread, then show the feed with the new post in it
+        ViewPosts.theAsyncDatabase.createPost(a, c, role).whenComplete((postID, error) -> {
+            if (error != null) error.printStackTrace();
+            ControllerPosts.performViewPosts();
+        });
     }
     
     /**
@@ -551,28 +755,31 @@ public class ControllerPosts {
         
         int id = ModelPosts.getID(p);
         
-        try {
-            Post post = ViewPosts.theDatabase.getPost(id);
-            ViewPosts.text_PostInReply.setText(post.getContent());
-           
-            // Mark replies as read when viewing them
-            ViewPosts.theDatabase.markRepliesAsRead(id);
-            
-            List<Reply> postReplies = ViewPosts.theDatabase.getRepliesByPost(id);
-            
-            ViewPosts.list_Replies.getItems().clear();
-            
-            for (Reply reply : postReplies) {
-                String displayText = ModelPosts.formatReplyForDisplay(reply);
-                ViewPosts.list_Replies.getItems().add(displayText);
-            }
-            
-            ViewPosts.currentPostID = id;
-            ViewPosts.showRepliesPanel();
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        // Mark replies as read when viewing them
+        ViewPosts.theAsyncDatabase.markRepliesAsRead(id).exceptionally(error -> {
+            error.printStackTrace();
+            return null;
+        });
+        
+        // Fetch the post and its replies off the JavaFX thread, then show them together
+        ViewPosts.theAsyncDatabase.getPost(id)
+            .thenAcceptBoth(ViewPosts.theAsyncDatabase.getRepliesByPost(id), (post, postReplies) -> {
+                ViewPosts.text_PostInReply.setText(post.getContent());
+                
+                ViewPosts.list_Replies.getItems().clear();
+                
+                for (Reply reply : postReplies) {
+                    String displayText = ModelPosts.formatReplyForDisplay(reply);
+                    ViewPosts.list_Replies.getItems().add(displayText);
+                }
+                
+                ViewPosts.currentPostID = id;
+                ViewPosts.showRepliesPanel();
+            })
+            .exceptionally(error -> {
+                error.printStackTrace();
+                return null;
+            });
     }
     
     /**
@@ -587,8 +794,8 @@ public class ControllerPosts {
      * operates on Reply objects instead of Post objects. Prevents users from deleting 
      * others' replies.</p>
      * 
-     * @see database.Database#getReply(int)
-     * @see database.Database#deleteReply(int)
+     * @see database.AsyncDatabase#getReply(int)
+     * @see database.AsyncDatabase#deleteReply(int)
      */
     protected static void performDeleteReply() {
         String r = ViewPosts.list_Replies.getSelectionModel().getSelectedItem();
@@ -600,10 +807,8 @@ public class ControllerPosts {
         
         int id = ModelPosts.getID(r);
         
-        try {
-            // US-05 SECURITY CHECK: Verify ownership
-            Reply reply = ViewPosts.theDatabase.getReply(id);
-            
+        // US-05 SECURITY CHECK: Verify ownership
+        ViewPosts.theAsyncDatabase.getReply(id).thenAccept(reply -> {
             // Compare authors
             if (!reply.getAuthor().equals(ViewPosts.theUser.getUserName())) {
                 // NOT the owner - deny
@@ -619,15 +824,15 @@ public class ControllerPosts {
                 return;
             }
             
-            // Owner verified - allow delete
-            ViewPosts.theDatabase.deleteReply(id);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        // Refresh replies view
-        performViewReplies();
+            // Owner verified - allow delete, then refresh replies view
+            ViewPosts.theAsyncDatabase.deleteReply(id).whenComplete((deleted, error) -> {
+                if (error != null) error.printStackTrace();
+                performViewReplies();
+            });
+        }).exceptionally(error -> {
+            error.printStackTrace();
+            return null;
+        });
     }
     
     /**
@@ -641,7 +846,7 @@ public class ControllerPosts {
      * <p><strong>Permission Model:</strong> Identical to {@link #performEditPost()} but 
      * operates on Reply objects. Users can only edit their own replies.</p>
      * 
-     * @see database.Database#updateReply(int, String)
+     * @see database.AsyncDatabase#updateReply(int, int, String)
      */
     protected static void performEditReply() {
         String r = ViewPosts.list_Replies.getSelectionModel().getSelectedItem();
@@ -653,10 +858,8 @@ public class ControllerPosts {
        
         int id = ModelPosts.getID(r);
         
-        try {
-            // US-05 SECURITY CHECK: Verify ownership
-            Reply reply = ViewPosts.theDatabase.getReply(id);
-            
+        // US-05 SECURITY CHECK: Verify ownership
+        ViewPosts.theAsyncDatabase.getReply(id).thenAccept(reply -> {
             // Compare authors
             if (!reply.getAuthor().equals(ViewPosts.theUser.getUserName())) {
                 // NOT the owner - deny
@@ -672,37 +875,31 @@ public class ControllerPosts {
                 return;
             }
             
-            // Owner verified - proceed with edit
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-            return;
-        }
-        
-        // Show edit dialog
-        javafx.scene.control.TextInputDialog dialog = new javafx.scene.control.TextInputDialog();
-        dialog.setTitle("Edit Reply");
-        dialog.setHeaderText("Edit the reply content:");
-        dialog.setContentText("New content:");
-        
-        java.util.Optional<String> newContent = dialog.showAndWait();
-        
-        if (newContent.isPresent()) {
-            String newText = newContent.get().trim();
+            // Owner verified - show edit dialog
+            javafx.scene.control.TextInputDialog dialog = new javafx.scene.control.TextInputDialog(reply.getContent());
+            dialog.setTitle("Edit Reply");
+            dialog.setHeaderText("Edit the reply content:");
+            dialog.setContentText("New content:");
             
-            if (newText.isEmpty()) {
-                System.out.println("New content cannot be empty");
-                return;
-            }
+            java.util.Optional<String> newContent = dialog.showAndWait();
             
-            try {
-                // Update reply with new content
-                ViewPosts.theDatabase.updateReply(id, newText);
-                performViewReplies();
-            } catch (SQLException e) {
-                e.printStackTrace();
+            if (newContent.isPresent()) {
+                String newText = newContent.get().trim();
+                
+                if (newText.isEmpty()) {
+                    System.out.println("New content cannot be empty");
+                    return;
+                }
+                
+                // Save against the version that was read, merging with anyone else's edit
+                saveEdit("reply", reply.getContent(), reply.getVersion(), newText,
+                        (version, content) -> ViewPosts.theAsyncDatabase.updateReply(id, version, content),
+                        Reply::getContent, ControllerPosts::performViewReplies);
             }
-        }
+        }).exceptionally(error -> {
+            error.printStackTrace();
+            return null;
+        });
     }
     
     /**
@@ -749,7 +946,7 @@ public class ControllerPosts {
      * 
      * @see ViewPosts#currentPostID
      * @see ViewPosts#text_ReplyContent
-     * @see database.Database#createReply(int, String, String, String)
+     * @see database.AsyncDatabase#createReply(int, String, String, String)
      */
     protected static void performSubmitReply() {
         // Get author (current user)
@@ -773,16 +970,14 @@ public class ControllerPosts {
             return;
         }
         
-        try {
-            // Create reply with role tag
-            // Uses currentPostID to link reply to post
-            ViewPosts.theDatabase.createReply(ViewPosts.currentPostID, a, c, role);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        // Return to replies view
-        ControllerPosts.performViewReplies();
+        // Create reply with role tag off the JavaFX thread
+        // Uses currentPostID to link reply to post
+        ViewPosts.theAsyncDatabase.createReply(ViewPosts.currentPostID, a, c, role).whenComplete((replyID, error) -> {
+            if (error != null) error.printStackTrace();
+            
+            // Return to replies view
+            ControllerPosts.performViewReplies();
+        });
     }    
     
     /**
@@ -798,6 +993,106 @@ public class ControllerPosts {
         ControllerPosts.performViewReplies();
     }
     
+    // ===================== CONCURRENT EDIT METHODS ===================
+    
+    /** Times an edit is retried against a newer version before giving up */
+    private static final int MAX_EDIT_ATTEMPTS = 5;
+    
+    /**
+     * Starts writing an edit if the post or reply is still at the given version, as 
+     * {@link database.AsyncDatabase#updatePost(int, int, String)} and 
+     * {@link database.AsyncDatabase#updateReply(int, int, String)} do.
+     * 
+     * @param <T> Post or Reply
+     */
+    @FunctionalInterface
+    public interface VersionedWrite<T> {
+        CompletableFuture<EditResult<T>> write(int version, String content);
+    }
+    
+    /**
+     * <p><strong>Method:</strong> saveEdit(...)</p>
+     * 
+     * <p><strong>Description:</strong> Saves an edit of a post or reply without overwriting 
+     * an edit someone else saved after this one was opened. The write only succeeds if the 
+     * row is still at the version that was read. On a conflict the two edits are merged with 
+     * {@link ModelPosts#mergeEdits(String, String, String)} when they changed different parts 
+     * of the text; otherwise the user is shown the other edit and asked to combine them. 
+     * Either way the result is saved against the newer version, and the cycle repeats if 
+     * that one has moved on too.</p>
+     * 
+     * <p><strong>Threading:</strong> Each write runs off the JavaFX thread; the merge, any 
+     * dialog, and the saved callback run back on the JavaFX thread.</p>
+     * 
+     * @param <T> Post or Reply
+     * @param what "post" or "reply", for the dialogs
+     * @param original the content the user started editing
+     * @param version the version that content was read at
+     * @param edited the content the user saved
+     * @param write saves content against a version
+     * @param contentOf reads the content of the row returned with a conflict
+     * @param saved runs once the edit (or a merge including it) has been saved
+     */
+    public static <T> void saveEdit(String what, String original, int version, String edited,
+            VersionedWrite<T> write, java.util.function.Function<T, String> contentOf, Runnable saved) {
+        saveEdit(what, original, version, edited, write, contentOf, saved, 0);
+    }
+    
+    private static <T> void saveEdit(String what, String original, int version, String edited,
+            VersionedWrite<T> write, java.util.function.Function<T, String> contentOf, Runnable saved,
+            int attempt) {
+        if (attempt >= MAX_EDIT_ATTEMPTS) {
+            showEditProblem(what, "This " + what + " keeps being changed by someone else. Please try again.");
+            return;
+        }
+        write.write(version, edited).whenComplete((result, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
+            if (result.isUpdated()) {
+                saved.run();
+                return;
+            }
+            if (!result.isConflict()) {
+                showEditProblem(what, "This " + what + " has been deleted.");
+                return;
+            }
+            
+            // Someone else saved first: combine the two edits and try again on top of theirs
+            String theirs = contentOf.apply(result.getCurrent());
+            String merged = ModelPosts.mergeEdits(original, theirs, edited);
+            if (merged == null) merged = askToCombine(what, theirs, edited);
+            if (merged == null) return;	// The user kept the other edit
+            saveEdit(what, theirs, result.getVersion(), merged, write, contentOf, saved, attempt + 1);
+        });
+    }
+    
+    /*
+     * Show the other editor's text and let the user edit theirs to combine the two.  Returns
+     * the combined text, or null if the user cancels to keep the other edit.
+     */
+    private static String askToCombine(String what, String theirs, String mine) {
+        javafx.scene.control.TextInputDialog dialog = new javafx.scene.control.TextInputDialog(mine);
+        dialog.setTitle("Edit Conflict");
+        dialog.setHeaderText("Someone else changed this " + what + " while you were editing it:\n\n"
+                + theirs + "\n\nChange your text to keep what you want from both and save it, "
+                + "or cancel to keep theirs.");
+        dialog.setContentText("Your content:");
+        java.util.Optional<String> combined = dialog.showAndWait();
+        if (combined.isEmpty() || combined.get().trim().isEmpty()) return null;
+        return combined.get().trim();
+    }
+    
+    private static void showEditProblem(String what, String message) {
+        javafx.scene.control.Alert alert = new javafx.scene.control.Alert(
+            javafx.scene.control.Alert.AlertType.WARNING);
+        alert.setTitle("Edit Not Saved");
+        alert.setHeaderText("Cannot Save " + (what.equals("post") ? "Post" : "Reply"));
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+    
     // ===================== NAVIGATION METHODS ===================
     
     /**
@@ -1,6 +1,7 @@
 package guiPosts;
 
 import entityClasses.Post;
+import entityClasses.PostSummary;
 import entityClasses.Reply;
 
 /**
@@ -124,14 +125,14 @@ public class ModelPosts {
      * <p><strong>Implements:</strong> US-04 (View Posts) - Display formatting</p>
      * 
      * <p><strong>Output Format:</strong> 
-     * <code>"id: X author: username [Role] content: post text"</code></p>
+     * <code>"id: X author: username [Role] content: post text  (activity)"</code></p>
      * 
      * <p><strong>Example Outputs:</strong></p>
      * <pre>
-     * "id: 5 author: prof_smith [Admin] content: Assignment deadline extended"
-     * "id: 12 author: john_doe [Role1] content: How does recursion work?"
-     * "id: 8 author: jane_smith [Role2] content: Here's my solution approach..."
-     * "id: 3 author: legacy_user [Unknown] content: Old post from before roles"
+     * "id: 5 author: prof_smith [Admin] content: Assignment deadline extended  (no replies)"
+     * "id: 12 author: john_doe [Role1] content: How does recursion work?  (3 replies from 2 users, last Nov 10 14:02)"
+     * "id: 8 author: jane_smith [Role2] content: Here's my solution approach...  (1 reply from 1 user, last Nov 9 09:15)"
+     * "id: 3 author: legacy_user [Unknown] content: Old post from before roles  (no replies)"
      * </pre>
      * 
      * <p><strong>Role Badge Logic:</strong></p>
@@ -179,9 +180,69 @@ public class ModelPosts {
                "id: " + post.getPostID() +
                " author: " + post.getAuthor() +
                " [" + role + "] " +
-               "content: " + post.getContent();
+               "content: " + post.getContent() +
+               formatActivity(post);
     }
     
+    /**
+     * Formats a PostSummary from the feed in the same way as
+     * {@link #formatPostForDisplay(Post)}, showing the content preview. A preview that was cut 
+     * short ends with "...".
+     * 
+     * @param summary the summary of the post to format
+     * @return formatted display string with id, author, role badge, and content preview
+     * 
+     * @see database.Database#getPostSummariesPage(database.PostPage.Cursor, int)
+     */
+    public static String formatPostForDisplay(PostSummary summary) {
+        String role = summary.getAuthorRole() != null ? summary.getAuthorRole() : "Unknown";
+        String pinMarker = summary.isPinned() ? "📌 " : "";
+        return pinMarker +
+               "id: " + summary.getPostID() +
+               " author: " + summary.getAuthor() +
+               " [" + role + "] " +
+               "content: " + summary.getPreview() + (summary.isTruncated() ? "..." : "") +
+               formatActivity(summary.getReplyCount(), summary.getUniqueResponderCount(),
+                       summary.getLastReplyTimestamp());
+    }
+    
+    /**
+     * Formats the reply activity of a post, for example
+     * <code>"  (3 replies from 2 users, last Nov 10 14:02)"</code>.
+     * 
+     * <p>The counts and time are columns of the Post row itself, so showing them for the whole
+     * feed costs no queries beyond the ones that loaded the feed.</p>
+     * 
+     * @param post the Post whose activity is shown
+     * @return the activity suffix, starting with two spaces
+     */
+    public static String formatActivity(Post post) {
+        return formatActivity(post.getReplyCount(), post.getUniqueResponderCount(),
+                post.getLastReplyTimestamp());
+    }
+    
+    /**
+     * Formats reply activity from its parts; see {@link #formatActivity(Post)}.
+     * 
+     * @param replies the number of replies
+     * @param users the number of different users who replied
+     * @param lastReply the time of the latest reply, or null
+     * @return the activity suffix, starting with two spaces
+     */
+    public static String formatActivity(int replies, int users, java.sql.Timestamp lastReply) {
+        if (replies == 0) return "  (no replies)";
+        String activity = "  (" + replies + (replies == 1 ? " reply" : " replies") +
+                " from " + users + (users == 1 ? " user" : " users");
+        if (lastReply != null) {
+            activity += ", last " + ACTIVITY_TIME.format(lastReply.toLocalDateTime());
+        }
+        return activity + ")";
+    }
+    
+    // How the time of the latest reply is shown in the feed
+    private static final java.time.format.DateTimeFormatter ACTIVITY_TIME =
+            java.time.format.DateTimeFormatter.ofPattern("MMM d HH:mm");
+    
     /**
      * Formats a Reply object for display in the ListView with role badge.
      * 
@@ -232,4 +293,57 @@ public class ModelPosts {
                " [" + role + "] " +
                "content: " + reply.getContent();
     }
+    
+    /**
+     * Combines two edits of the same text when they changed different parts of it.
+     * 
+     * <p><strong>Used by:</strong> ControllerPosts when saving an edit finds that someone else 
+     * edited the same post or reply after it was opened. Each side's change is the stretch 
+     * between the longest prefix and suffix it shares with the original. If the two stretches 
+     * are apart, both changes are kept; if they overlap or touch, which one should win is a 
+     * question for the user, and null is returned.</p>
+     * 
+     * <p><strong>Example:</strong> original "Exam on Monday in room 4", theirs "Exam on 
+     * Tuesday in room 4", mine "Exam on Monday in room 12" merge to "Exam on Tuesday in 
+     * room 12".</p>
+     * 
+     * @param original the text both editors started from
+     * @param theirs the text the other editor saved
+     * @param mine the text this editor wants to save
+     * @return the merged text, or null if the edits cannot be combined automatically
+     */
+    public static String mergeEdits(String original, String theirs, String mine) {
+        if (theirs.equals(original) || theirs.equals(mine)) return mine;
+        if (mine.equals(original)) return theirs;
+        
+        int[] their = changedSpan(original, theirs);
+        int[] my = changedSpan(original, mine);
+        if (their[1] < my[0]) return splice(original, theirs, their, mine, my);
+        if (my[1] < their[0]) return splice(original, mine, my, theirs, their);
+        return null;
+    }
+    
+    /*
+     * The part of the original an edit replaced, as {start, end in original, end in edited}:
+     * original[start, end) became edited[start, editedEnd).
+     */
+    private static int[] changedSpan(String original, String edited) {
+        int limit = Math.min(original.length(), edited.length());
+        int prefix = 0;
+        while (prefix < limit && original.charAt(prefix) == edited.charAt(prefix)) prefix++;
+        int suffix = 0;
+        while (suffix < limit - prefix && original.charAt(original.length() - 1 - suffix)
+                == edited.charAt(edited.length() - 1 - suffix)) suffix++;
+        return new int[] { prefix, original.length() - suffix, edited.length() - suffix };
+    }
+    
+    /*
+     * Apply two changes to the original, the first one earlier in the text than the second.
+     */
+    private static String splice(String original, String firstText, int[] first,
+            String secondText, int[] second) {
+        return original.substring(0, first[0]) + firstText.substring(first[0], first[2])
+                + original.substring(first[1], second[0])
+                + secondText.substring(second[0], second[2]) + original.substring(second[1]);
+    }
 }
\ No newline at end of file
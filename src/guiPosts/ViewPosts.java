@@ -6,9 +6,11 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.Pane;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import database.AsyncDatabase;
 import database.Database;
 import entityClasses.User;
 
@@ -74,6 +76,7 @@ public class ViewPosts {
 	 * @see database.Database
 	 */
 	static Database theDatabase = applicationMain.FoundationsMain.database;
+	static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 	
 	/**
 	 * ID of post currently being viewed for replies. Used when creating new reply 
@@ -192,6 +195,16 @@ public class ViewPosts {
 	 */
 	protected static Button button_BackToPosts = new Button("Back To Posts");
 	
+	/**
+	 * Search button - shows the posts matching the words in the search box.
+	 */
+	protected static Button button_Search = new Button("Search");
+	
+	/**
+	 * Show All button - clears the search and returns to the full feed.
+	 */
+	protected static Button button_ShowAll = new Button("Show All Posts");
+	
 	// ==================== GUI COMPONENTS - LISTS ====================
 	
 	/**
@@ -223,6 +236,13 @@ public class ViewPosts {
 	 */
 	protected static TextArea text_ReplyContent = new TextArea();
 	
+	// ==================== GUI COMPONENTS - TEXT FIELDS ====================
+	
+	/**
+	 * TextField for the words to search post and reply content for.
+	 */
+	protected static TextField text_Search = new TextField();
+	
 	// ==================== SCENE AND PANEL STRUCTURE ====================
 	
 	
@@ -277,7 +297,7 @@ public class ViewPosts {
 		repliesPanel();
 		createReplyPanel();
 		postsPanel.setVisible(true);
-		ControllerPosts.performViewPosts();
+		ControllerPosts.perform("performViewPosts", ControllerPosts::performViewPosts);
 	}
 	
 	/**
@@ -299,36 +319,51 @@ public class ViewPosts {
 		setupLabelUI(label_ViewPostsTitle, "Arial", 32, width, Pos.CENTER, 0, 10);
 		
 		// US-04: Load all posts
-		ControllerPosts.performViewPosts();
+		ControllerPosts.perform("performViewPosts", ControllerPosts::performViewPosts);
 		setupListViewUI(list_Posts, "Dialog", 18, 450, 300, 20, 150 );
+		guiTools.ListViewPaging.installLoadMore(list_Posts,
+				() -> ControllerPosts.perform("performLoadMorePosts", ControllerPosts::performLoadMorePosts));
+		
+		// Search: typing filters from the in-memory word index, Enter or Search runs a ranked
+		// database search, and Show All Posts returns to the feed
+		setupTextFieldUI(text_Search, "Dialog", 18, 330, 20, 95);
+		text_Search.setPromptText("Search posts and replies");
+		text_Search.textProperty().addListener((observable, oldText, newText) -> {ControllerPosts.perform("performFilter", ControllerPosts::performFilter); });
+		theAsyncDatabase.loadContentIndex();	// Built in the background so filtering is instant
+		text_Search.setOnAction((event) -> {ControllerPosts.perform("performSearch", ControllerPosts::performSearch); });
+		setupButtonUI(button_Search, "Dialog", 18, 110, Pos.CENTER, 360, 93);
+		button_Search.setOnAction((event) -> {ControllerPosts.perform("performSearch", ControllerPosts::performSearch); });
+		setupButtonUI(button_ShowAll, "Dialog", 18, 250, Pos.CENTER, 500, 93);
+		button_ShowAll.setOnAction((event) -> {ControllerPosts.perform("performClearSearch", ControllerPosts::performClearSearch); });
 		
 		// US-01: Create Post
 		setupButtonUI(button_CreatePost, "Dialog", 18, 250, Pos.CENTER, 500, 150);
-        button_CreatePost.setOnAction((event) -> {ControllerPosts.performCreatePost(); });
+        button_CreatePost.setOnAction((event) -> {ControllerPosts.perform("performCreatePost", ControllerPosts::performCreatePost); });
         
         // US-05: View Replies
         setupButtonUI(button_viewReplies, "Dialog", 18, 250, Pos.CENTER, 500, 200);
-        button_viewReplies.setOnAction((event) -> {ControllerPosts.performViewReplies(); });
+        button_viewReplies.setOnAction((event) -> {ControllerPosts.perform("performViewReplies", ControllerPosts::performViewReplies); });
         
         // US-03: Delete Post (with ownership check)
         setupButtonUI(button_DeletePost, "Dialog", 18, 250, Pos.CENTER, 500, 250);
-        button_DeletePost.setOnAction((event) -> {ControllerPosts.performDeletePost(); });
+        button_DeletePost.setOnAction((event) -> {ControllerPosts.perform("performDeletePost", ControllerPosts::performDeletePost); });
         
         // US-02: Edit Post (with ownership check)
         setupButtonUI(button_EditPost, "Dialog", 18, 250, Pos.CENTER, 500, 300);
-        button_EditPost.setOnAction((event) -> {ControllerPosts.performEditPost(); });
+        button_EditPost.setOnAction((event) -> {ControllerPosts.perform("performEditPost", ControllerPosts::performEditPost); });
         
         setupButtonUI(button_back, "Dialog", 18, 250, Pos.CENTER, 500, 350);
-        button_back.setOnAction((event) -> {ControllerPosts.performBack(); });
+        button_back.setOnAction((event) -> {ControllerPosts.perform("performBack", ControllerPosts::performBack); });
         
         setupButtonUI(button_Logout, "Dialog", 18, 250, Pos.CENTER, 20, 540);
-        button_Logout.setOnAction((event) -> {ControllerPosts.performLogout(); });
+        button_Logout.setOnAction((event) -> {ControllerPosts.perform("performLogout", ControllerPosts::performLogout); });
         
         setupButtonUI(button_Quit, "Dialog", 18, 250, Pos.CENTER, 500, 540);
-        button_Quit.setOnAction((event) -> {ControllerPosts.performQuit(); });
+        button_Quit.setOnAction((event) -> {ControllerPosts.perform("performQuit", ControllerPosts::performQuit); });
         
         postsPanel.getChildren().addAll(button_Logout, button_Quit, button_viewReplies,button_DeletePost,
-        		button_EditPost, button_CreatePost,list_Posts, label_ViewPostsTitle, button_back);
+        		button_EditPost, button_CreatePost,list_Posts, label_ViewPostsTitle, button_back,
+        		text_Search, button_Search, button_ShowAll);
 		
 	}
 	
@@ -348,16 +383,16 @@ public class ViewPosts {
 		
 		// US-01: Submit creates post with role tracking
 		setupButtonUI(button_SubmitPost, "Dialog", 18, 250, Pos.CENTER, 500, 150);
-		button_SubmitPost.setOnAction((event) -> {ControllerPosts.performSubmitPost(); });
+		button_SubmitPost.setOnAction((event) -> {ControllerPosts.perform("performSubmitPost", ControllerPosts::performSubmitPost); });
 
         setupButtonUI(button_CancelPost, "Dialog", 18, 250, Pos.CENTER, 500, 250);
-        button_CancelPost.setOnAction((event) -> {ControllerPosts.performCancel(); });
+        button_CancelPost.setOnAction((event) -> {ControllerPosts.perform("performCancel", ControllerPosts::performCancel); });
         
         setupButtonUI(button_Logout, "Dialog", 18, 250, Pos.CENTER, 20, 540);
-        button_Logout.setOnAction((event) -> {ControllerPosts.performLogout(); });
+        button_Logout.setOnAction((event) -> {ControllerPosts.perform("performLogout", ControllerPosts::performLogout); });
         
         setupButtonUI(button_Quit, "Dialog", 18, 250, Pos.CENTER, 500, 540);
-        button_Quit.setOnAction((event) -> {ControllerPosts.performQuit(); });
+        button_Quit.setOnAction((event) -> {ControllerPosts.perform("performQuit", ControllerPosts::performQuit); });
         
         createPostPanel.getChildren().addAll(button_Logout, button_Quit,button_CancelPost,
         		label_PostsTitle,text_PostContent, button_SubmitPost);
@@ -385,25 +420,25 @@ public class ViewPosts {
 	    
 	    // US-05: Create Reply
 	    setupButtonUI(button_CreateReply, "Dialog", 18, 250, Pos.CENTER, 500, 150);
-	    button_CreateReply.setOnAction((event) -> {ControllerPosts.performCreateReply(); });
+	    button_CreateReply.setOnAction((event) -> {ControllerPosts.perform("performCreateReply", ControllerPosts::performCreateReply); });
 	   
 	    // US-05: Delete Reply (with ownership check)
 	    setupButtonUI(button_DeleteReply, "Dialog", 18, 250, Pos.CENTER, 500, 200);
-        button_DeleteReply.setOnAction((event) -> {ControllerPosts.performDeleteReply(); });
+        button_DeleteReply.setOnAction((event) -> {ControllerPosts.perform("performDeleteReply", ControllerPosts::performDeleteReply); });
         
         // US-05: Edit Reply (with ownership check)
         setupButtonUI(button_EditReply, "Dialog", 18, 250, Pos.CENTER, 500, 250);
-        button_EditReply.setOnAction((event) -> {ControllerPosts.performEditReply(); });
+        button_EditReply.setOnAction((event) -> {ControllerPosts.perform("performEditReply", ControllerPosts::performEditReply); });
         
         setupButtonUI(button_BackToPosts, "Dialog", 18, 250, Pos.CENTER, 500, 300);
-	    button_BackToPosts.setOnAction((event) -> {ControllerPosts.performBackToPosts(); });
+	    button_BackToPosts.setOnAction((event) -> {ControllerPosts.perform("performBackToPosts", ControllerPosts::performBackToPosts); });
         
 	   
 	    setupButtonUI(button_Logout, "Dialog", 18, 250, Pos.CENTER, 20, 540);
-	    button_Logout.setOnAction((event) -> {ControllerPosts.performLogout(); });
+	    button_Logout.setOnAction((event) -> {ControllerPosts.perform("performLogout", ControllerPosts::performLogout); });
 	    
 	    setupButtonUI(button_Quit, "Dialog", 18, 250, Pos.CENTER, 500, 540);
-	    button_Quit.setOnAction((event) -> {ControllerPosts.performQuit(); });
+	    button_Quit.setOnAction((event) -> {ControllerPosts.perform("performQuit", ControllerPosts::performQuit); });
 	   
 	    repliesPanel.getChildren().addAll(button_Logout, button_Quit, button_BackToPosts, button_CreateReply, 
 	            list_Replies, text_PostInReply, label_ViewReplyTitle,button_EditReply, button_DeleteReply);
@@ -425,17 +460,17 @@ public class ViewPosts {
 		
 		// US-05: Submit creates reply linked to currentPostID
 		setupButtonUI(button_SubmitReply, "Dialog", 18, 250, Pos.CENTER, 500, 150);
-		button_SubmitReply.setOnAction((event) -> {ControllerPosts.performSubmitReply(); });
+		button_SubmitReply.setOnAction((event) -> {ControllerPosts.perform("performSubmitReply", ControllerPosts::performSubmitReply); });
 
         setupButtonUI(button_CancelReply, "Dialog", 18, 250, Pos.CENTER, 500, 250);
-        button_CancelReply.setOnAction((event) -> {ControllerPosts.performReplyCancel(); });
+        button_CancelReply.setOnAction((event) -> {ControllerPosts.perform("performReplyCancel", ControllerPosts::performReplyCancel); });
         
         
         setupButtonUI(button_Logout, "Dialog", 18, 250, Pos.CENTER, 20, 540);
-        button_Logout.setOnAction((event) -> {ControllerPosts.performLogout(); });
+        button_Logout.setOnAction((event) -> {ControllerPosts.perform("performLogout", ControllerPosts::performLogout); });
         
         setupButtonUI(button_Quit, "Dialog", 18, 250, Pos.CENTER, 500, 540);
-        button_Quit.setOnAction((event) -> {ControllerPosts.performQuit(); });
+        button_Quit.setOnAction((event) -> {ControllerPosts.perform("performQuit", ControllerPosts::performQuit); });
         
         createReplyPanel.getChildren().addAll(button_Logout, button_Quit,button_CancelReply,
         		button_SubmitReply, label_ReplyTitle, text_ReplyContent);
@@ -531,6 +566,24 @@ public class ViewPosts {
 		t.setLayoutY(y);
 	}
 	
+	/**
+	 * Configures TextField with standard styling.
+	 * 
+	 * @param t TextField to configure
+	 * @param ff font family
+	 * @param f font size
+	 * @param w width
+	 * @param x X coordinate
+	 * @param y Y coordinate
+	 */
+	private static void setupTextFieldUI(TextField t, String ff, double f, double w, double x, double y) {
+		t.setFont(Font.font(ff, f));
+		t.setMinWidth(w);
+		t.setMaxWidth(w);
+		t.setLayoutX(x);
+		t.setLayoutY(y);
+	}
+	
 	/**
 	 * Configures ListView with standard styling. Used for displaying posts and replies 
 	 * with format: "id: X author: Y [Role] content: Z"
@@ -1,9 +1,14 @@
 package guiPostsAdmin;
 
-import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import entityClasses.Post;
+import entityClasses.PostSummary;
 import entityClasses.Reply;
+import database.AsyncDatabase;
+import database.PostPage;
 
 /*******
  * <p> Title: ControllerPostsAdmin Class </p>
@@ -32,33 +37,84 @@ public class ControllerPostsAdmin {
     
     // ===================== POSTS PANEL METHODS ===================
     
+    // Number of posts fetched from the database per page of the feed
+    private static final int FEED_PAGE_SIZE = 50;
+    
+    // Where the next page of the feed starts (null for the first page)
+    private static PostPage.Cursor feedCursor = null;
+    
+    // False once the last page of the feed has been loaded
+    private static boolean feedHasMore = true;
+    
+    // True while a page is being fetched, so scrolling does not request it twice
+    private static boolean feedLoading = false;
+    
+    // Bumped each time the feed restarts, so a page requested before then is ignored
+    private static int feedGeneration = 0;
+    
+    // Most posts shown for one search
+    private static final int SEARCH_LIMIT = 100;
+    
+    // True while performFilter is waiting for the word index to load
+    private static boolean indexLoading = false;
+    
     /*******
      * <p> Method: performViewPosts </p>
      * 
-     * <p> Description: Retrieves ALL posts from the database and displays them in the ListView.
+     * <p> Description: Displays the posts feed in the ListView, starting from the top.
      * This is the first thing users see when they open the posts page.</p>
      * 
      * <p>Process:
-     * 1. Query database for all posts
-     * 2. Clear the ListView to remove old data
-     * 3. Format each post for display (including role badge)
-     * 4. Add formatted strings to ListView
-     * 5. Show the posts panel
+     * 1. Clear the ListView to remove old data
+     * 2. Reset the feed cursor and load the first page
+     * 3. Show the posts panel
      * </p>
      * 
      * <p>Admin privilege: Gets ALL posts regardless of author.</p>
      */
     protected static void performViewPosts() {
-        try {
-            // Get all posts from the database as a List of Post objects
-            List<Post> allPosts = ViewPostsAdmin.theDatabase.getAllPosts();
-            
-            // Clear any existing items in the ListView
-            // This prevents duplicates if we're refreshing the view
-            ViewPostsAdmin.list_Posts.getItems().clear();
+        // Clear any existing items in the ListView
+        // This prevents duplicates if we're refreshing the view
+        ViewPostsAdmin.list_Posts.getItems().clear();
+        feedCursor = null;
+        feedHasMore = true;
+        feedLoading = false;
+        feedGeneration++;
+        
+        // Load the first page; the ListView asks for more as the user scrolls
+        performLoadMorePosts();
+        
+        // Make the posts panel visible (hide other panels)
+        ViewPostsAdmin.showPostsPanel();
+    }
+    
+    /*******
+     * <p> Method: performLoadMorePosts </p>
+     * 
+     * <p> Description: Appends the next page of the feed to the ListView.  Called by
+     * performViewPosts for the first page and by the ListView's scroll listener when the user
+     * nears the bottom of the list.  Does nothing once the last page has been shown or while a
+     * page is still loading.  The page is fetched off the JavaFX thread and added to the ListView
+     * when it comes back.</p>
+     */
+    protected static void performLoadMorePosts() {
+        if (!feedHasMore || feedLoading) return;
+        feedLoading = true;
+        int generation = feedGeneration;
+        
+        // Get the next page of posts, pinned posts first and then newest first
+        ViewPostsAdmin.theAsyncDatabase.getPostSummariesPage(feedCursor, FEED_PAGE_SIZE).whenComplete((page, error) -> {
+            // Ignore a page that was requested before the feed was restarted
+            if (generation != feedGeneration) return;
+            feedLoading = false;
+            if (error != null) {
+                // If database error occurs, print details for debugging
+                error.printStackTrace();
+                return;
+            }
             
-            // Loop through each Post object in our list
-            for (Post post : allPosts) {
+            // Loop through each Post object on this page
+            for (PostSummary post : page.getPosts()) {
                 // Format the post as a display string (includes role badge)
                 String displayText = ModelPostsAdmin.formatPostForDisplay(post);
                 
@@ -67,13 +123,122 @@ public class ControllerPostsAdmin {
                 ViewPostsAdmin.list_Posts.getItems().add(displayText);
             }
             
-            // Make the posts panel visible (hide other panels)
-            ViewPostsAdmin.showPostsPanel();
-            
-        } catch (SQLException e) {
-            // If database error occurs, print details for debugging
-            e.printStackTrace();
+            // Remember where the following page starts
+            feedCursor = page.getNextCursor();
+            feedHasMore = page.hasMore();
+        });
+    }
+ 
+    /*******
+     * <p> Method: performSearch </p>
+     * 
+     * <p> Description: Replaces the feed in the ListView with the posts that contain every
+     * word in the search box, followed by the posts that have a reply containing them.  A
+     * blank search box shows the whole feed again.</p>
+     * 
+     * <p>Both searches run on one worker thread, and the results are added to the ListView
+     * back on the JavaFX thread.  Scrolling does not load feed pages while search results are
+     * shown.</p>
+     */
+    protected static void performSearch() {
+        String query = ViewPostsAdmin.text_Search.getText();
+        if (query == null || query.isBlank()) {
+            performViewPosts();
+            return;
+        }
+        
+        showResults(db -> {
+            // Posts that match first, then the post of each matching reply (each post once)
+            List<Post> posts = new ArrayList<>(db.searchPosts(query, SEARCH_LIMIT));
+            Set<Integer> shown = new HashSet<>();
+            for (Post post : posts) shown.add(post.getPostID());
+            List<Integer> parents = new ArrayList<>();
+            for (Reply reply : db.searchReplies(query, SEARCH_LIMIT)) {
+                if (posts.size() + parents.size() >= SEARCH_LIMIT) break;
+                if (shown.add(reply.getPostID())) parents.add(reply.getPostID());
+            }
+            posts.addAll(db.getPosts(parents));	// One query for all of them
+            return posts;
+        });
+    }
+    
+    /*******
+     * <p> Method: performFilter </p>
+     * 
+     * <p> Description: Called on every change to the search box.  Shows the posts containing
+     * every word typed so far, newest first; the word still being typed matches as a prefix.
+     * The ids come from the in-memory word index, so no search query runs per keystroke;
+     * the posts shown are read together in one query, or from the post cache.  An empty box
+     * shows the feed.</p>
+     * 
+     * <p>If the word index is still loading in the background, the load is waited for on a
+     * worker thread and the filter runs when it is done; Enter still runs a database search.</p>
+     */
+    protected static void performFilter() {
+        String text = ViewPostsAdmin.text_Search.getText();
+        if (text == null || text.isBlank()) {
+            performViewPosts();
+            return;
         }
+        if (!ViewPostsAdmin.theDatabase.isContentIndexLoaded()) {
+            if (indexLoading) return;
+            indexLoading = true;
+            ViewPostsAdmin.theAsyncDatabase.loadContentIndex().whenComplete((loaded, error) -> {
+                indexLoading = false;
+                if (error != null) {
+                    error.printStackTrace();
+                    return;
+                }
+                performFilter();	// With whatever is in the box by now
+            });
+            return;
+        }
+        
+        // Treat the last word as a prefix unless the user has finished it with a space
+        String query = Character.isWhitespace(text.charAt(text.length() - 1)) ? text : text + "*";
+        
+        showResults(db -> {
+            int[] ids = db.filterPosts(query, SEARCH_LIMIT);
+            return db.getPosts(java.util.Arrays.stream(ids).boxed().toList());
+        });
+    }
+    
+    /*******
+     * <p> Method: performClearSearch </p>
+     * 
+     * <p> Description: Empties the search box and shows the whole feed again.</p>
+     */
+    protected static void performClearSearch() {
+        if (ViewPostsAdmin.text_Search.getText().isEmpty()) {
+            performViewPosts();
+        } else {
+            // performFilter shows the feed once the box is empty
+            ViewPostsAdmin.text_Search.clear();
+        }
+    }
+    
+    /*
+     * Stop the feed and fill the ListView with the posts read by search on a worker thread,
+     * ignoring the results if another search or the feed has been started since.
+     */
+    private static void showResults(AsyncDatabase.DatabaseCall<List<Post>> search) {
+        // Stop the feed so scrolling does not append pages to the search results
+        ViewPostsAdmin.list_Posts.getItems().clear();
+        feedHasMore = false;
+        feedLoading = false;
+        feedGeneration++;
+        int generation = feedGeneration;
+        
+        ViewPostsAdmin.theAsyncDatabase.submit(search).whenComplete((posts, error) -> {
+            if (generation != feedGeneration) return;
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
+            for (Post post : posts) {
+                ViewPostsAdmin.list_Posts.getItems().add(ModelPostsAdmin.formatPostForDisplay(post));
+            }
+        });
     }
  
     /*******
@@ -123,7 +288,8 @@ public class ControllerPostsAdmin {
      * 5. Refresh the view
      * </p>
      * 
-     * <p>Safety: Database.deletePost() handles cascading delete of replies.</p>
+     * <p>Safety: Database.deletePost() handles cascading delete of replies.  The delete runs
+     * off the JavaFX thread and the view is refreshed once it is done.</p>
      */
     protected static void performDeletePost() {
         // Get the currently selected item from the ListView
@@ -141,18 +307,15 @@ public class ControllerPostsAdmin {
         // Uses ModelPostsAdmin.getID() to parse "id: 5 author..." → 5
         int id = ModelPostsAdmin.getID(p);
         
-        try {
-            // Delete the post from the database
-            // This also deletes all associated replies (cascading delete)
-            ViewPostsAdmin.theDatabase.deletePost(id);
-            
-        } catch (SQLException e) {
+        // Delete the post from the database
+        // This also deletes all associated replies (cascading delete)
+        ViewPostsAdmin.theAsyncDatabase.deletePost(id).whenComplete((deleted, error) -> {
             // Print error if database operation fails
-            e.printStackTrace();
-        }
-        
-        // Refresh the posts list to show the post is gone
-        performViewPosts();
+            if (error != null) error.printStackTrace();
+            
+            // Refresh the posts list to show the post is gone
+            performViewPosts();
+        });
     }
     
     /*******
@@ -164,13 +327,15 @@ public class ControllerPostsAdmin {
      * <p>Process:
      * 1. Validate a post is selected
      * 2. Extract post ID
-     * 3. Show input dialog for new content
+     * 3. Read the post and show input dialog pre-filled with its content
      * 4. Validate new content isn't empty
-     * 5. Update database
+     * 5. Save against the version that was read, merging with any edit saved meanwhile
      * 6. Refresh view
      * </p>
      * 
      * <p>ADMIN PRIVILEGE: No ownership check - can edit anyone's post.</p>
+     * 
+     * @see guiPosts.ControllerPosts#saveEdit
      */
     protected static void performEditPost() {
         // Get the selected post string from the ListView
@@ -185,49 +350,56 @@ public class ControllerPostsAdmin {
         // Extract the post ID number from the display string
         int id = ModelPostsAdmin.getID(p);
        
-        // Create a dialog box for text input
-        // TextInputDialog is a JavaFX popup with a text field
-        javafx.scene.control.TextInputDialog dialog = new javafx.scene.control.TextInputDialog();
-        
-        // Set the dialog's title (shows in window title bar)
-        dialog.setTitle("Edit Post");
-        
-        // Set the header text (large text at top of dialog)
-        dialog.setHeaderText("Edit the post content:");
-        
-        // Set the label for the input field
-        dialog.setContentText("New content:");
-        
-        // Show the dialog and wait for user response
-        // Returns an Optional<String> - a container that may or may not have a value
-        // This is Java's way of handling "maybe null" situations safely
-        java.util.Optional<String> result = dialog.showAndWait();
-        
-        // Check if user entered something (clicked OK vs Cancel)
-        if (result.isPresent()) {
-            // Get the text the user entered and remove leading/trailing whitespace
-            String newText = result.get().trim();
-            
-            // Validate that the new content isn't empty
-            if (newText.isEmpty()) {
-                System.out.println("New content cannot be empty"); 
-                return;  // Exit without saving - empty posts not allowed
+        // Read the post first so the edit can be saved against the version shown
+        ViewPostsAdmin.theAsyncDatabase.getPost(id).thenAccept(post -> {
+            if (post == null) {
+                System.out.println("Post no longer exists");
+                performViewPosts();
+                return;
             }
             
-            try {
-                // Update the post in the database with the new content
-                // Note: Only content changes - author, role, ID stay the same
-                ViewPostsAdmin.theDatabase.updatePost(id, newText);
+            // Create a dialog box for text input, starting from the current content
+            // TextInputDialog is a JavaFX popup with a text field
+            javafx.scene.control.TextInputDialog dialog =
+                    new javafx.scene.control.TextInputDialog(post.getContent());
+            
+            // Set the dialog's title (shows in window title bar)
+            dialog.setTitle("Edit Post");
+            
+            // Set the header text (large text at top of dialog)
+            dialog.setHeaderText("Edit the post content:");
+            
+            // Set the label for the input field
+            dialog.setContentText("New content:");
+            
+            // Show the dialog and wait for user response
+            // Returns an Optional<String> - a container that may or may not have a value
+            // This is Java's way of handling "maybe null" situations safely
+            java.util.Optional<String> result = dialog.showAndWait();
+            
+            // Check if user entered something (clicked OK vs Cancel)
+            if (result.isPresent()) {
+                // Get the text the user entered and remove leading/trailing whitespace
+                String newText = result.get().trim();
                 
-                // Refresh the view so user sees the updated content
-                performViewPosts();
+                // Validate that the new content isn't empty
+                if (newText.isEmpty()) {
+                    System.out.println("New content cannot be empty"); 
+                    return;  // Exit without saving - empty posts not allowed
+                }
                 
-            } catch (SQLException e) {
-                // Print error if database update fails
-                e.printStackTrace();
+                // Save against the version that was read, merging with anyone else's edit
+                // Note: Only content changes - author, role, ID stay the same
+                guiPosts.ControllerPosts.saveEdit("post", post.getContent(), post.getVersion(), newText,
+                        (version, content) -> ViewPostsAdmin.theAsyncDatabase.updatePost(id, version, content),
+                        Post::getContent, ControllerPostsAdmin::performViewPosts);
             }
-        }
-        // If result is not present (user clicked Cancel), do nothing
+            // If result is not present (user clicked Cancel), do nothing
+        }).exceptionally(error -> {
+            // Print error if the post could not be read
+            error.printStackTrace();
+            return null;
+        });
     }
     
     // ===================== CREATE POSTS PANEL METHODS ===================
@@ -260,13 +432,10 @@ public class ControllerPostsAdmin {
             return;
         }
         
-        try {
-            ViewPostsAdmin.theDatabase.createPost(a, c, role);
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        ControllerPostsAdmin.performViewPosts();
+        ViewPostsAdmin.theAsyncDatabase.createPost(a, c, role).whenComplete((postID, error) -> {
+            if (error != null) error.printStackTrace();
+            ControllerPostsAdmin.performViewPosts();
+        });
     }
     
     /*******
@@ -329,40 +498,38 @@ public class ControllerPostsAdmin {
         // Extract the post ID from the display string
         int id = ModelPostsAdmin.getID(p);
         
-        try {
-            // Get the Post object from the database using the ID
-            Post post = ViewPostsAdmin.theDatabase.getPost(id);
-            
-            // Display the post's content in a read-only text area
-            // This shows users which post they're replying to
-            ViewPostsAdmin.text_PostInReply.setText(post.getContent());
-           
-            // Get all replies associated with this post ID
-            List<Reply> postReplies = ViewPostsAdmin.theDatabase.getRepliesByPost(id);
-            
-            // Clear any existing replies from the ListView
-            ViewPostsAdmin.list_Replies.getItems().clear();
-            
-            // Loop through each Reply object
-            for (Reply reply : postReplies) {
-                // Format the reply for display (includes role badge)
-                String displayText = ModelPostsAdmin.formatReplyForDisplay(reply);
+        // Get the Post object and all replies associated with this post ID from the
+        // database off the JavaFX thread; the display is updated once both have arrived
+        ViewPostsAdmin.theAsyncDatabase.getPost(id)
+            .thenAcceptBoth(ViewPostsAdmin.theAsyncDatabase.getRepliesByPost(id), (post, postReplies) -> {
+                // Display the post's content in a read-only text area
+                // This shows users which post they're replying to
+                ViewPostsAdmin.text_PostInReply.setText(post.getContent());
                 
-                // Add formatted reply to the ListView
-                ViewPostsAdmin.list_Replies.getItems().add(displayText);
-            }
-            
-            // Store the current post ID so we know which post to reply to
-            // This is used when user creates a new reply
-            ViewPostsAdmin.currentPostID = id;
-            
-            // Switch to the replies panel view
-            ViewPostsAdmin.showRepliesPanel();
-            
-        } catch (SQLException e) {
-            // Print error if database operations fail
-            e.printStackTrace();
-        }
+                // Clear any existing replies from the ListView
+                ViewPostsAdmin.list_Replies.getItems().clear();
+                
+                // Loop through each Reply object
+                for (Reply reply : postReplies) {
+                    // Format the reply for display (includes role badge)
+                    String displayText = ModelPostsAdmin.formatReplyForDisplay(reply);
+                    
+                    // Add formatted reply to the ListView
+                    ViewPostsAdmin.list_Replies.getItems().add(displayText);
+                }
+                
+                // Store the current post ID so we know which post to reply to
+                // This is used when user creates a new reply
+                ViewPostsAdmin.currentPostID = id;
+                
+                // Switch to the replies panel view
+                ViewPostsAdmin.showRepliesPanel();
+            })
+            .exceptionally(error -> {
+                // Print error if database operations fail
+                error.printStackTrace();
+                return null;
+            });
     }
     
     /*******
@@ -391,17 +558,14 @@ public class ControllerPostsAdmin {
         // Extract the reply ID from the display string
         int id = ModelPostsAdmin.getID(r);
         
-        try {
-            // Delete the reply from the database
-            // Note: This is simpler than deleting posts because replies have no children
-            ViewPostsAdmin.theDatabase.deleteReply(id);
+        // Delete the reply from the database
+        // Note: This is simpler than deleting posts because replies have no children
+        ViewPostsAdmin.theAsyncDatabase.deleteReply(id).whenComplete((deleted, error) -> {
+            if (error != null) error.printStackTrace();
             
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        // Refresh the replies view to show the reply is gone
-        performViewReplies();
+            // Refresh the replies view to show the reply is gone
+            performViewReplies();
+        });
     }
     
     /*******
@@ -413,6 +577,8 @@ public class ControllerPostsAdmin {
      * <p>ADMIN PRIVILEGE: No ownership check - can edit anyone's reply.</p>
      * 
      * <p>Process is identical to performEditPost but operates on replies.</p>
+     * 
+     * @see guiPosts.ControllerPosts#saveEdit
      */
     protected static void performEditReply() {
         // Get selected reply string
@@ -427,38 +593,45 @@ public class ControllerPostsAdmin {
         // Extract reply ID
         int id = ModelPostsAdmin.getID(r);
         
-        // Create and configure the input dialog
-        javafx.scene.control.TextInputDialog dialog = new javafx.scene.control.TextInputDialog();
-        dialog.setTitle("Edit Reply");
-        dialog.setHeaderText("Edit the reply content:");
-        dialog.setContentText("New content:");
-        
-        // Show dialog and get user input
-        java.util.Optional<String> newContent = dialog.showAndWait();
-        
-        // If user entered something (clicked OK)
-        if (newContent.isPresent()) {
-            // Get and trim the new text
-            String newText = newContent.get().trim();
-            
-            // Validate not empty
-            if (newText.isEmpty()) {
-                System.out.println("New content cannot be empty");
+        // Read the reply first so the edit can be saved against the version shown
+        ViewPostsAdmin.theAsyncDatabase.getReply(id).thenAccept(reply -> {
+            if (reply == null) {
+                System.out.println("Reply no longer exists");
+                performViewReplies();
                 return;
             }
             
-            try {
-                // Update the reply in the database
-                ViewPostsAdmin.theDatabase.updateReply(id, newText);
+            // Create and configure the input dialog, starting from the current content
+            javafx.scene.control.TextInputDialog dialog =
+                    new javafx.scene.control.TextInputDialog(reply.getContent());
+            dialog.setTitle("Edit Reply");
+            dialog.setHeaderText("Edit the reply content:");
+            dialog.setContentText("New content:");
+            
+            // Show dialog and get user input
+            java.util.Optional<String> newContent = dialog.showAndWait();
+            
+            // If user entered something (clicked OK)
+            if (newContent.isPresent()) {
+                // Get and trim the new text
+                String newText = newContent.get().trim();
                 
-                // Refresh the replies view
-                performViewReplies();
+                // Validate not empty
+                if (newText.isEmpty()) {
+                    System.out.println("New content cannot be empty");
+                    return;
+                }
                 
-            } catch (SQLException e) {
-                e.printStackTrace();
-                System.out.println("Error updating reply");
+                // Save against the version that was read, merging with anyone else's edit
+                guiPosts.ControllerPosts.saveEdit("reply", reply.getContent(), reply.getVersion(), newText,
+                        (version, content) -> ViewPostsAdmin.theAsyncDatabase.updateReply(id, version, content),
+                        Reply::getContent, ControllerPostsAdmin::performViewReplies);
             }
-        }
+        }).exceptionally(error -> {
+            error.printStackTrace();
+            System.out.println("Error updating reply");
+            return null;
+        });
     }
     
     /*******
@@ -507,18 +680,16 @@ public class ControllerPostsAdmin {
             return;
         }
         
-        try {
-            // Create the reply in the database
-            // Parameters: postID, author, content, role
-            // currentPostID was set when we viewed the post's replies
-            ViewPostsAdmin.theDatabase.createReply(ViewPostsAdmin.currentPostID, a, c, role);
-            
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        
-        // Return to the replies view (which now includes the new reply)
-        ControllerPostsAdmin.performViewReplies();
+        // Create the reply in the database
+        // Parameters: postID, author, content, role
+        // currentPostID was set when we viewed the post's replies
+        ViewPostsAdmin.theAsyncDatabase.createReply(ViewPostsAdmin.currentPostID, a, c, role)
+            .whenComplete((replyID, error) -> {
+                if (error != null) error.printStackTrace();
+                
+                // Return to the replies view (which now includes the new reply)
+                ControllerPostsAdmin.performViewReplies();
+            });
     }    
     
     /*******
@@ -539,28 +710,30 @@ public class ControllerPostsAdmin {
             return;
         }
         int id = ModelPostsAdmin.getID(p);
-        try {
-            Post post = ViewPostsAdmin.theDatabase.getPost(id);
+        String pinnedBy = ViewPostsAdmin.theUser.getUserName();
+        ViewPostsAdmin.theAsyncDatabase.submit(db -> {
+            Post post = db.getPost(id);
             if (post == null) {
                 System.out.println("Unable to load selected Post from database.");
-                return;
+                return null;
             }
             if (post.isPinned()) {
-                boolean success = ViewPostsAdmin.theDatabase.unpinPost(id);
+                boolean success = db.unpinPost(id);
                 if (!success) {
                     System.out.println("Unable to unpin post.");
                 }
             } else {
-                String pinnedBy = ViewPostsAdmin.theUser.getUserName();
-                boolean success = ViewPostsAdmin.theDatabase.pinPost(id, pinnedBy);
+                boolean success = db.pinPost(id, pinnedBy);
                 if (!success) {
-                    System.out.println("Cannot pin more than 3 posts at a time.");
+                    System.out.println("Cannot pin more than "
+                            + db.getMaxPinnedPosts() + " posts at a time.");
                 }
             }
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
-        performViewPosts();
+            return post;
+        }).whenComplete((post, error) -> {
+            if (error != null) error.printStackTrace();
+            if (post != null || error != null) performViewPosts();
+        });
     }
     
     // ===================== NAVIGATION METHODS ===================
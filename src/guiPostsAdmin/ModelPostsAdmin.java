@@ -1,6 +1,7 @@
 package guiPostsAdmin;
 
 import entityClasses.Post;
+import entityClasses.PostSummary;
 import entityClasses.Reply;
 
 /*******
@@ -74,7 +75,9 @@ public class ModelPostsAdmin {
      * <p> Description: Formats a Post object into a human-readable string for display
      * in the GUI ListView. Includes role information in brackets for easy identification.</p>
      * 
-     * <p>Display format: "id: X author: username [RoleName] content: post text"</p>
+     * <p>Display format: "id: X author: username [RoleName] content: post text  (activity)",
+     * where the activity is the post's reply count, number of users who replied, and time of
+     * the latest reply, all read from the Post row.</p>
      * 
      * <p>Why format posts?
      * - JavaFX ListView displays strings, not objects
@@ -96,7 +99,22 @@ public class ModelPostsAdmin {
 	           "id: " + post.getPostID() +
 	           " author: " + post.getAuthor() +
 	           " [" + role + "] " +
-	           "content: " + post.getContent();
+	           "content: " + post.getContent() +
+	           guiPosts.ModelPosts.formatActivity(post);
+	}
+	
+	/*******
+	 * <p> Method: formatPostForDisplay(PostSummary) </p>
+	 * 
+	 * <p> Description: Formats a feed summary the same way as a Post, showing the content 
+	 * preview followed by "..." when the content is longer than the preview.</p>
+	 * 
+	 * @param summary the PostSummary to format
+	 * 
+	 * @return a formatted String ready for display
+	 */
+	protected static String formatPostForDisplay(PostSummary summary) {
+		return guiPosts.ModelPosts.formatPostForDisplay(summary);
 	}
     
     /*******
@@ -6,9 +6,11 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextArea;
+import javafx.scene.control.TextField;
 import javafx.scene.layout.Pane;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
+import database.AsyncDatabase;
 import database.Database;
 import entityClasses.User;
 
@@ -52,6 +54,7 @@ public class ViewPostsAdmin {
 	
 	protected static User theUser;				// The currently logged-in admin user
 	static Database theDatabase = applicationMain.FoundationsMain.database;  // Database reference
+	static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;  // Off-FX-thread reads
 	static int currentPostID = -1; 				// ID of post currently being viewed (-1 = none)
 	
 	private static ViewPostsAdmin theView;		// Singleton instance of this view class
@@ -79,6 +82,8 @@ public class ViewPostsAdmin {
 	protected static Button button_DeletePost = new Button("Delete Post");
 	protected static Button button_EditPost = new Button("Edit Post");
 	protected static Button button_PinPost = new Button("Pin / Unpin Post");
+	protected static Button button_Search = new Button("Search");
+	protected static Button button_ShowAll = new Button("Show All Posts");
 	
 	// Create post panel buttons
 	protected static Button button_SubmitPost = new Button("Submit Post");
@@ -108,6 +113,10 @@ public class ViewPostsAdmin {
 	protected static TextArea text_PostInReply = new TextArea();       // Displays post being replied to
 	protected static TextArea text_ReplyContent = new TextArea();      // For creating new replies
 	
+	// ========== TEXT FIELDS ==========
+	
+	protected static TextField text_Search = new TextField();          // Words to search posts and replies for
+	
 	// ========== SCENE AND PANELS ==========
 	// The scene holds all panels, but only one panel is visible at a time
 	
@@ -228,6 +237,31 @@ public class ViewPostsAdmin {
 		// Parameters: widget, font, font size, width, height, x position, y position
 		setupListViewUI(list_Posts, "Dialog", 18, 450, 300, 20, 150);
 		
+		// Fetch the next page of posts whenever the user scrolls near the bottom
+		guiTools.ListViewPaging.installLoadMore(list_Posts, ControllerPostsAdmin::performLoadMorePosts);
+		
+		// Set up the search box: typing filters the posts from the in-memory word index, Enter or
+		// "Search" runs a ranked database search, and "Show All Posts" returns to the feed
+		setupTextFieldUI(text_Search, "Dialog", 18, 330, 20, 95);
+		text_Search.setPromptText("Search posts and replies");
+		text_Search.textProperty().addListener((observable, oldText, newText) -> {
+			ControllerPostsAdmin.performFilter();
+		});
+		// Read the board into the word index in the background so filtering is instant
+		theAsyncDatabase.loadContentIndex();
+		text_Search.setOnAction((event) -> {
+			ControllerPostsAdmin.performSearch();
+		});
+		setupButtonUI(button_Search, "Dialog", 18, 110, Pos.CENTER, 360, 93);
+		button_Search.setOnAction((event) -> {
+			ControllerPostsAdmin.performSearch();
+		});
+		setupButtonUI(button_ShowAll, "Dialog", 18, 250, Pos.CENTER, 500, 93);
+		button_ShowAll.setOnAction((event) -> {
+			// When clicked, clear the search and show the whole feed again
+			ControllerPostsAdmin.performClearSearch();
+		});
+		
 		// Set up "Create Post" button and attach event handler
 		setupButtonUI(button_CreatePost, "Dialog", 18, 250, Pos.CENTER, 500, 150);
         button_CreatePost.setOnAction((event) -> {
@@ -286,7 +320,8 @@ public class ViewPostsAdmin {
         // The order here doesn't affect visual layering (z-index is automatic)
         postsPanel.getChildren().addAll(
         		button_Logout, button_Quit, button_viewReplies, button_DeletePost,
-        		button_EditPost, button_CreatePost, list_Posts, label_ViewPostsTitle, button_back, button_PinPost
+        		button_EditPost, button_CreatePost, list_Posts, label_ViewPostsTitle, button_back, button_PinPost,
+        		text_Search, button_Search, button_ShowAll
         );
 	}
 	
@@ -612,6 +647,32 @@ public class ViewPostsAdmin {
 		t.setLayoutY(y);
 	}
 	
+	/*******
+	 * <p> Method: setupTextFieldUI </p>
+	 * 
+	 * <p> Description: Helper method to configure a single-line TextField widget.  The width
+	 * is fixed so the field does not grow as the user types.</p>
+	 * 
+	 * @param t the TextField to configure
+	 * @param ff font family name
+	 * @param f font size in points
+	 * @param w width
+	 * @param x x-coordinate
+	 * @param y y-coordinate
+	 */
+	private static void setupTextFieldUI(TextField t, String ff, double f, double w, double x, double y) {
+		// Set font
+		t.setFont(Font.font(ff, f));
+		
+		// Fix the width
+		t.setMinWidth(w);
+		t.setMaxWidth(w);
+		
+		// Set position on pane
+		t.setLayoutX(x);
+		t.setLayoutY(y);
+	}
+	
 	/*******
 	 * <p> Method: setupListViewUI </p>
 	 * 
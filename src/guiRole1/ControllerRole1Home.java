@@ -14,10 +14,11 @@ public class ControllerRole1Home {
 	}
 	
 	protected static void updateReplyAlert() {
-	    try {
-	        String username = ViewRole1Home.theUser.getUserName();
-	        int unreadCount = applicationMain.FoundationsMain.database.getUnreadReplyCount(username);
-	        
+	    String username = ViewRole1Home.theUser.getUserName();
+	    
+	    // Count off the JavaFX thread and show the alert when the count arrives
+	    applicationMain.FoundationsMain.asyncDatabase.getUnreadReplyCount(username)
+	        .thenAccept(unreadCount -> {
 	        if (unreadCount > 0) {
 	            String message = (unreadCount == 1) 
 	                ? "🔔 You have 1 new reply to your post" 
@@ -28,9 +29,10 @@ public class ControllerRole1Home {
 	        } else {
 	            ViewRole1Home.label_ReplyAlert.setVisible(false);
 	        }
-	    } catch (Exception e) {
+	    }).exceptionally(e -> {
 	        e.printStackTrace();
-	    }
+	        return null;
+	    });
 	}
 	
 	protected static void performLogout() {
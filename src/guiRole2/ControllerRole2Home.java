@@ -16,10 +16,11 @@ public class ControllerRole2Home {
 	}
 	
 	protected static void updateReplyAlert() {
-	    try {
-	        String username = ViewRole2Home.theUser.getUserName();
-	        int unreadCount = applicationMain.FoundationsMain.database.getUnreadReplyCount(username);
-	        
+	    String username = ViewRole2Home.theUser.getUserName();
+	    
+	    // Count off the JavaFX thread and show the alert when the count arrives
+	    applicationMain.FoundationsMain.asyncDatabase.getUnreadReplyCount(username)
+	        .thenAccept(unreadCount -> {
 	        if (unreadCount > 0) {
 	            String message = (unreadCount == 1) 
 	                ? "🔔 You have 1 new reply to your post" 
@@ -30,9 +31,10 @@ public class ControllerRole2Home {
 	        } else {
 	            ViewRole2Home.label_ReplyAlert.setVisible(false);
 	        }
-	    } catch (Exception e) {
+	    }).exceptionally(e -> {
 	        e.printStackTrace();
-	    }
+	        return null;
+	    });
 	}
 
 	protected static void performLogout() {
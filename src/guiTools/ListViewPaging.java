@@ -0,0 +1,80 @@
+package guiTools;
+
+import javafx.application.Platform;
+import javafx.geometry.Orientation;
+import javafx.scene.Node;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ScrollBar;
+
+
+/*******
+ * <p> Title: ListViewPaging Class. </p>
+ *
+ * <p> Description: Lets a ListView load its contents a page at a time.  The ListView already only
+ * creates cells for the rows that are on screen; this class watches the list's vertical scroll
+ * bar and asks the caller for the next page when the user scrolls close to the bottom, so the
+ * list itself only ever holds the rows the user has actually scrolled through.</p>
+ *
+ * <p> Copyright: Lynn Robert Carter © 2025 </p>
+ *
+ * @author Lynn Robert Carter
+ *
+ * @version 1.00		2025-11-10 Initial version
+ *
+ */
+
+public class ListViewPaging {
+
+	// How far down the list (as a fraction of the scroll range) the next page is requested
+	private static final double LOAD_MORE_THRESHOLD = 0.9;
+
+	// Marks a ListView that already has a paging listener, so it is never installed twice
+	private static final String INSTALLED_KEY = "ListViewPaging.installed";
+
+
+	/**********
+	 * <p> Method: installLoadMore(ListView list, Runnable loadMore) </p>
+	 *
+	 * <p> Description: Call loadMore on the JavaFX thread whenever the user scrolls the list past
+	 * the threshold.  The scroll bar belongs to the list's skin, which is only created once the
+	 * list is shown, so the listener is attached as soon as the skin appears.  loadMore is
+	 * expected to append rows (or do nothing when there are no more), which moves the scroll
+	 * position back above the threshold.</p>
+	 *
+	 * @param list specifies the ListView to page
+	 *
+	 * @param loadMore specifies the action that appends the next page to the list
+	 *
+	 */
+	public static void installLoadMore(ListView<?> list, Runnable loadMore) {
+		if (list.getProperties().containsKey(INSTALLED_KEY)) return;
+		list.getProperties().put(INSTALLED_KEY, Boolean.TRUE);
+
+		if (list.getSkin() != null) {
+			attachToScrollBar(list, loadMore);
+		} else {
+			list.skinProperty().addListener((observable, oldSkin, newSkin) -> {
+				if (newSkin != null) Platform.runLater(() -> attachToScrollBar(list, loadMore));
+			});
+		}
+	}
+
+
+	/*
+	 * Find the list's vertical scroll bar and load more when it nears the bottom.
+	 */
+	private static void attachToScrollBar(ListView<?> list, Runnable loadMore) {
+		for (Node node : list.lookupAll(".scroll-bar")) {
+			if (node instanceof ScrollBar && ((ScrollBar) node).getOrientation() == Orientation.VERTICAL) {
+				ScrollBar bar = (ScrollBar) node;
+				bar.valueProperty().addListener((observable, oldValue, newValue) -> {
+					double range = bar.getMax() - bar.getMin();
+					if (range > 0 && newValue.doubleValue() - bar.getMin() >= range * LOAD_MORE_THRESHOLD) {
+						loadMore.run();
+					}
+				});
+				return;
+			}
+		}
+	}
+}
@@ -1,7 +1,9 @@
 package guiUserLogin;
 
+import database.AsyncDatabase;
 import database.Database;
 import entityClasses.User;
+import entityClasses.UserContext;
 import javafx.stage.Stage;
 import validators.SQLInjectionDetector;
 
@@ -20,6 +22,9 @@ public class ControllerUserLogin {
 
 	// Reference for the in-memory database so this package has access
 	private static Database theDatabase = applicationMain.FoundationsMain.database;
+	
+	// The same database, for queries that should not block the JavaFX thread
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 
 	private static Stage theStage;	
 	
@@ -35,12 +40,14 @@ public class ControllerUserLogin {
 	 * 
 	 * SECURITY UPDATE: Added SQL Injection detection before database queries.
 	 * 
+	 * The account lookup and login check run off the JavaFX thread; the page changes once they
+	 * have come back.
+	 * 
 	 */	
 	protected static void doLogin(Stage ts) {
 		theStage = ts;
 		String username = ViewUserLogin.text_Username.getText();
 		String password = ViewUserLogin.text_Password.getText();
-    	boolean loginResult = false;
     	
     	// ========== NEW: Check for SQL Injection in Username ==========
     	String usernameError = SQLInjectionDetector.detectSQLInjection(username);
@@ -63,8 +70,51 @@ public class ControllerUserLogin {
     	// ========== NEW: Clear error label if no injection detected ==========
     	ViewUserLogin.label_SQLInjectionError.setText("");
     	
-		// Fetch the user and verify the username
-     	if (theDatabase.getUserAccountDetails(username) == false) {
+		// Fetch the user's account off the JavaFX thread
+		theAsyncDatabase.getUserContext(username).whenComplete((account, error) -> {
+			if (error != null) {
+				showLoginFailure(error);
+				return;
+			}
+			finishLogin(username, password, account);
+		});
+	}
+	
+	
+	/**********
+	 * <p> Method: showLoginFailure(Throwable error) </p>
+	 * 
+	 * <p> Description: Called on the JavaFX thread when a login step could not reach the
+	 * database.  Tells the user the login did not go through, so the page does not just sit
+	 * there, and logs the cause.</p>
+	 * 
+	 * @param error is what the database operation failed with
+	 * 
+	 */
+	private static Void showLoginFailure(Throwable error) {
+		error.printStackTrace();
+		ViewUserLogin.alertUsernamePasswordError.setContentText(
+				"Unable to log in right now. Please try again.");
+		ViewUserLogin.alertUsernamePasswordError.showAndWait();
+		return null;
+	}
+	
+	
+	/**********
+	 * <p> Method: finishLogin(String username, String password, UserContext account) </p>
+	 * 
+	 * <p> Description: Called on the JavaFX thread once the account has been fetched.  Checks the
+	 * password, opens a session for the user, and sends the user to the right home page.</p>
+	 * 
+	 * @param username is the username that was typed
+	 * 
+	 * @param password is the password that was typed
+	 * 
+	 * @param account is the stored account for username, or null if there is no such user
+	 * 
+	 */
+	private static void finishLogin(String username, String password, UserContext account) {
+     	if (account == null) {
      		// Don't provide too much information.  Don't say the username is invalid or the
      		// password is invalid.  Just say the pair is invalid.
     		ViewUserLogin.alertUsernamePasswordError.setContentText(
@@ -75,7 +125,7 @@ public class ControllerUserLogin {
 		System.out.println("*** Username is valid");
 		
 		// Check to see that the login password matches the account password
-    	String actualPassword = theDatabase.getCurrentPassword();
+    	String actualPassword = account.getPassword();
     	
     	if (password.compareTo(actualPassword) != 0) {
     		ViewUserLogin.alertUsernamePasswordError.setContentText(
@@ -85,12 +135,9 @@ public class ControllerUserLogin {
     	}
 		System.out.println("*** Password is valid for this user");
 		
-		// Establish this user's details
-    	User user = new User(username, password, theDatabase.getCurrentFirstName(), 
-    			theDatabase.getCurrentMiddleName(), theDatabase.getCurrentLastName(), 
-    			theDatabase.getCurrentPreferredFirstName(), theDatabase.getCurrentEmailAddress(), 
-    			theDatabase.getCurrentAdminRole(), 
-    			theDatabase.getCurrentNewRole1(), theDatabase.getCurrentNewRole2());
+		// Establish this user's details and session
+    	User user = account.toUser();
+    	applicationMain.FoundationsMain.sessionID = theDatabase.getSessions().open(account);
     	
     	// See which home page dispatch to use
 		int numberOfRoles = theDatabase.getNumberOfRoles(user);		
@@ -100,20 +147,23 @@ public class ControllerUserLogin {
 			
 			// Admin role
 			if (user.getAdminRole()) {
-				loginResult = theDatabase.loginAdmin(user);
-				if (loginResult) {
-					guiAdminHome.ViewAdminHome.displayAdminHome(theStage, user);
-				}
+				theAsyncDatabase.loginAdmin(user).thenAccept(loginResult -> {
+					if (loginResult) {
+						guiAdminHome.ViewAdminHome.displayAdminHome(theStage, user);
+					}
+				}).exceptionally(ControllerUserLogin::showLoginFailure);
 			} else if (user.getNewRole1()) {
-				loginResult = theDatabase.loginRole1(user);
-				if (loginResult) {
-					guiRole1.ViewRole1Home.displayRole1Home(theStage, user);
-				}
+				theAsyncDatabase.loginRole1(user).thenAccept(loginResult -> {
+					if (loginResult) {
+						guiRole1.ViewRole1Home.displayRole1Home(theStage, user);
+					}
+				}).exceptionally(ControllerUserLogin::showLoginFailure);
 			} else if (user.getNewRole2()) {
-				loginResult = theDatabase.loginRole2(user);
-				if (loginResult) {
-					guiRole2.ViewRole2Home.displayRole2Home(theStage, user);
-				}
+				theAsyncDatabase.loginRole2(user).thenAccept(loginResult -> {
+					if (loginResult) {
+						guiRole2.ViewRole2Home.displayRole2Home(theStage, user);
+					}
+				}).exceptionally(ControllerUserLogin::showLoginFailure);
 				// Other roles
 			} else {
 				System.out.println("***** UserLogin goToUserHome request has an invalid role");
@@ -76,8 +76,12 @@ public class ViewUserLogin {
 
 	public static void displayUserLogin(Stage ps) {
 		
-		// Establish the references to the GUI. There is no current user yet.
+		// Establish the references to the GUI. There is no current user yet, so end the session
+		// of whoever was logged in before.
 		theStage = ps;
+		applicationMain.FoundationsMain.database.getSessions().close(
+				applicationMain.FoundationsMain.sessionID);
+		applicationMain.FoundationsMain.sessionID = null;
 		
 		// If not yet established, populate the static aspects of the GUI
 		if (theView == null) theView = new ViewUserLogin();
@@ -2,7 +2,7 @@ package guiUserUpdate;
 
 import java.util.Optional;
 
-import database.Database;
+import database.AsyncDatabase;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -12,6 +12,7 @@ import javafx.scene.layout.Pane;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
 import entityClasses.User;
+import entityClasses.UserProfile;
 
 /*******
  * <p> Title: ViewUserUpdate Class. </p>
@@ -106,12 +107,13 @@ public class ViewUserUpdate {
 	private static ViewUserUpdate theView;	// Used to determine if instantiation of the class
 											// is needed
 
-	// This enables access to the application's database
-	private static Database theDatabase = applicationMain.FoundationsMain.database;
+	// This enables access to the application's database, off the JavaFX thread
+	private static AsyncDatabase theAsyncDatabase = applicationMain.FoundationsMain.asyncDatabase;
 
 	private static Stage theStage;				// The Stage that JavaFX has established for us	
 	private static Pane theRootPane;			// The Pane that holds all the GUI widgets
 	private static User theUser;				// The current user of the application
+	private static UserProfile theProfile;		// The name and email fields as last saved
 
 	public static Scene theUserUpdateScene = null;	// The Scene each invocation populates
 
@@ -169,25 +171,11 @@ public class ViewUserUpdate {
     	if (s == null || s.length() < 1)label_CurrentPassword.setText("<none>");
     	else label_CurrentPassword.setText(s);
     	
-		s = theUser.getFirstName();
-    	if (s == null || s.length() < 1)label_CurrentFirstName.setText("<none>");
-    	else label_CurrentFirstName.setText(s);
-       
-        s = theUser.getMiddleName();
-    	if (s == null || s.length() < 1)label_CurrentMiddleName.setText("<none>");
-    	else label_CurrentMiddleName.setText(s);
-        
-        s = theUser.getLastName();
-    	if (s == null || s.length() < 1)label_CurrentLastName.setText("<none>");
-    	else label_CurrentLastName.setText(s);
-        
-		s = theUser.getPreferredFirstName();
-    	if (s == null || s.length() < 1)label_CurrentPreferredFirstName.setText("<none>");
-    	else label_CurrentPreferredFirstName.setText(s);
-        
-		s = theUser.getEmailAddress();
-    	if (s == null || s.length() < 1)label_CurrentEmailAddress.setText("<none>");
-    	else label_CurrentEmailAddress.setText(s);
+		// Show the name and email fields held by the User now, then refresh them from the user's
+		// profile, loaded off the JavaFX thread in one query
+		theProfile = profileOf(theUser);
+		showProfile();
+		reloadProfile();
 
 		// Set the title for the window, display the page, and wait for the Admin to do something
     	theStage.setTitle("CSE 360 Foundation Code: Update User Account Details");
@@ -261,12 +249,7 @@ public class ViewUserUpdate {
         setupLabelUI(label_CurrentFirstName, "Arial", 18, 260, Pos.BASELINE_LEFT, 200, 200);
         setupButtonUI(button_UpdateFirstName, "Dialog", 18, 275, Pos.CENTER, 500, 193);
         button_UpdateFirstName.setOnAction((event) -> {result = dialogUpdateFirstName.showAndWait();
-        	result.ifPresent(name -> theDatabase.updateFirstName(theUser.getUserName(), result.get()));
-        	theDatabase.getUserAccountDetails(theUser.getUserName());
-         	String newName = theDatabase.getCurrentFirstName();
-           	theUser.setFirstName(newName);
-        	if (newName == null || newName.length() < 1)label_CurrentFirstName.setText("<none>");
-        	else label_CurrentFirstName.setText(newName);
+        	result.ifPresent(name -> saveProfile(theProfile.withFirstName(name)));
          	});
                
         // Middle Name
@@ -274,12 +257,7 @@ public class ViewUserUpdate {
         setupLabelUI(label_CurrentMiddleName, "Arial", 18, 260, Pos.BASELINE_LEFT, 200, 250);
         setupButtonUI(button_UpdateMiddleName, "Dialog", 18, 275, Pos.CENTER, 500, 243);
         button_UpdateMiddleName.setOnAction((event) -> {result = dialogUpdateMiddleName.showAndWait();
-    		result.ifPresent(name -> theDatabase.updateMiddleName(theUser.getUserName(), result.get()));
-    		theDatabase.getUserAccountDetails(theUser.getUserName());
-    		String newName = theDatabase.getCurrentMiddleName();
-           	theUser.setMiddleName(newName);
-        	if (newName == null || newName.length() < 1)label_CurrentMiddleName.setText("<none>");
-        	else label_CurrentMiddleName.setText(newName);
+    		result.ifPresent(name -> saveProfile(theProfile.withMiddleName(name)));
     		});
         
         // Last Name
@@ -287,12 +265,7 @@ public class ViewUserUpdate {
         setupLabelUI(label_CurrentLastName, "Arial", 18, 260, Pos.BASELINE_LEFT, 200, 300);
         setupButtonUI(button_UpdateLastName, "Dialog", 18, 275, Pos.CENTER, 500, 293);
         button_UpdateLastName.setOnAction((event) -> {result = dialogUpdateLastName.showAndWait();
-    		result.ifPresent(name -> theDatabase.updateLastName(theUser.getUserName(), result.get()));
-    		theDatabase.getUserAccountDetails(theUser.getUserName());
-    		String newName = theDatabase.getCurrentLastName();
-           	theUser.setLastName(newName);
-      	if (newName == null || newName.length() < 1)label_CurrentLastName.setText("<none>");
-        	else label_CurrentLastName.setText(newName);
+    		result.ifPresent(name -> saveProfile(theProfile.withLastName(name)));
     		});
         
         // Preferred First Name
@@ -304,12 +277,7 @@ public class ViewUserUpdate {
         button_UpdatePreferredFirstName.setOnAction((event) -> 
         	{result = dialogUpdatePreferredFirstName.showAndWait();
     		result.ifPresent(name -> 
-    		theDatabase.updatePreferredFirstName(theUser.getUserName(), result.get()));
-    		theDatabase.getUserAccountDetails(theUser.getUserName());
-    		String newName = theDatabase.getCurrentPreferredFirstName();
-           	theUser.setPreferredFirstName(newName);
-         	if (newName == null || newName.length() < 1)label_CurrentPreferredFirstName.setText("<none>");
-        	else label_CurrentPreferredFirstName.setText(newName);
+    		saveProfile(theProfile.withPreferredFirstName(name)));
      		});
         
         // Email Address
@@ -317,12 +285,7 @@ public class ViewUserUpdate {
         setupLabelUI(label_CurrentEmailAddress, "Arial", 18, 260, Pos.BASELINE_LEFT, 200, 400);
         setupButtonUI(button_UpdateEmailAddress, "Dialog", 18, 275, Pos.CENTER, 500, 393);
         button_UpdateEmailAddress.setOnAction((event) -> {result = dialogUpdateEmailAddresss.showAndWait();
-    		result.ifPresent(name -> theDatabase.updateEmailAddress(theUser.getUserName(), result.get()));
-    		theDatabase.getUserAccountDetails(theUser.getUserName());
-    		String newEmail = theDatabase.getCurrentEmailAddress();
-           	theUser.setEmailAddress(newEmail);
-        	if (newEmail == null || newEmail.length() < 1)label_CurrentEmailAddress.setText("<none>");
-        	else label_CurrentEmailAddress.setText(newEmail);
+    		result.ifPresent(email -> saveProfile(theProfile.withEmailAddress(email)));
  			});
         
         // Set up the button to proceed to this user's home page
@@ -353,6 +316,72 @@ public class ViewUserUpdate {
 
 	 */
 	
+	/**********
+	 * Private local method to save an edited profile.  The page shows the edit at once and the
+	 * write runs off the JavaFX thread; the profile saved is the one the labels show, so there
+	 * is nothing to read back.  If the write fails the page is refreshed from the database.
+	 * 
+	 * @param profile	The profile with one field changed
+	 */
+	private static void saveProfile(UserProfile profile) {
+		theProfile = profile;
+		profile.applyTo(theUser);
+		showProfile();
+		theAsyncDatabase.updateUserProfile(profile).thenAccept(updated -> {
+			if (!updated) reloadProfile();
+		}).exceptionally(error -> {
+			error.printStackTrace();
+			reloadProfile();
+			return null;
+		});
+	}
+	
+	
+	/*
+	 * Read the profile off the JavaFX thread and show what the database holds, unless the page
+	 * has moved on to another user or a newer edit by the time it arrives.
+	 */
+	private static void reloadProfile() {
+		UserProfile shown = theProfile;
+		theAsyncDatabase.getUserProfile(shown.getUserName()).thenAccept(profile -> {
+			if (profile == null || theProfile != shown) return;
+			theProfile = profile;
+			profile.applyTo(theUser);
+			showProfile();
+		}).exceptionally(error -> {
+			error.printStackTrace();
+			return null;
+		});
+	}
+	
+	
+	/*
+	 * The name and email fields the User object holds, as a profile.
+	 */
+	private static UserProfile profileOf(User user) {
+		return new UserProfile(user.getUserName(), user.getFirstName(), user.getMiddleName(),
+				user.getLastName(), user.getPreferredFirstName(), user.getEmailAddress());
+	}
+	
+	
+	/**********
+	 * Private local method to show the current user's name and email fields, with "<none>" for
+	 * any that are empty.
+	 */
+	private static void showProfile() {
+		showValue(label_CurrentFirstName, theUser.getFirstName());
+		showValue(label_CurrentMiddleName, theUser.getMiddleName());
+		showValue(label_CurrentLastName, theUser.getLastName());
+		showValue(label_CurrentPreferredFirstName, theUser.getPreferredFirstName());
+		showValue(label_CurrentEmailAddress, theUser.getEmailAddress());
+	}
+	
+	private static void showValue(Label l, String s) {
+    	if (s == null || s.length() < 1) l.setText("<none>");
+    	else l.setText(s);
+	}
+	
+	
 	/**********
 	 * Private local method to initialize the standard fields for a label
 	 * 
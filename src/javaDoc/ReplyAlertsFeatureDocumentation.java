@@ -138,7 +138,8 @@ package javaDoc;
  * <p><strong>Logic Flow:</strong></p>
  * <ol>
  *   <li>Get current user's username</li>
- *   <li>Call {@code database.getUnreadReplyCount(username)}</li>
+ *   <li>Call {@code asyncDatabase.getUnreadReplyCount(username)}; the steps below run when the
+ *       count arrives, so the JavaFX thread never waits for the query</li>
  *   <li>If count > 0: Show notification label with count</li>
  *   <li>If count == 0: Hide notification label</li>
  *   <li>Use singular/plural grammar based on count</li>
@@ -214,7 +215,7 @@ package javaDoc;
  *   ↓
  * ControllerRole1Home.updateReplyAlert() / ControllerRole2Home.updateReplyAlert()
  *   ↓
- * Database.getUnreadReplyCount(username)
+ * AsyncDatabase.getUnreadReplyCount(username) → Database.getUnreadReplyCount(username)
  *   ↓
  * SELECT COUNT(*) FROM Post WHERE author=? AND hasUnreadReplies=TRUE
  *   ↓
@@ -8,8 +8,7 @@ import java.util.Map;
 import java.util.Set;
 
 import database.Database;
-import entityClasses.Post;
-import entityClasses.Reply;
+import database.RoundTrips;
 
 
 public class ReplyStatisticsCalculator {
@@ -35,7 +34,21 @@ public class ReplyStatisticsCalculator {
     }
     
     
+    /**
+     * Analyzes one student, counting the database statements it takes in a
+     * RoundTrips scope so a per-post query loop shows up as a possible N+1.
+     */
     public Map<String, Integer> analyzeStudent(String username) throws SQLException {
+        RoundTrips.Scope scope = RoundTrips.open("ReplyStatisticsCalculator.analyzeStudent");
+        try {
+            return countRepliedAuthors(username);
+        } finally {
+            scope.close();
+        }
+    }
+    
+    
+    private Map<String, Integer> countRepliedAuthors(String username) throws SQLException {
     	
     	// VALIDATION: Check for null username
     	if (username == null) {
@@ -54,30 +67,15 @@ public class ReplyStatisticsCalculator {
         // If student replies to Alice 5 times, Alice only appears once in the Set
         Set<String> uniqueAuthors = new HashSet<>();
         
-        // Step 1: Get ALL replies created by this student
-        List<Reply> allReplies = database.getAllReplies();
-        
-        // Step 2: Filter to only replies by this specific student
-        for (Reply reply : allReplies) {
-            // Check if this reply was created by our target student
-            if (reply.getAuthor().equals(username)) {
-                
-                // Step 3: Get the post that this reply responded to
-                // We need to know WHO created the post (the post author)
-                int postID = reply.getPostID();
-                Post post = database.getPost(postID);
-                
-                // Step 4: Safety check - make sure post exists
-                // (It should always exist due to foreign key constraints, but defensive programming)
-                if (post != null) {
-                    String postAuthor = post.getAuthor();
-                    
-                    // Step 5: Add the post author to our Set
-                    // If postAuthor is "alice", and we add "alice" 5 times, Set still only has 1 "alice"
-                    uniqueAuthors.add(postAuthor);
-                }
-            }
-        }
+        // Steps 1-5: Stream the replies by this specific student, each joined in the
+        // query to the post it responded to, so we learn WHO created each post
+        // without reading the posts one at a time
+        database.forEachRepliedPostAuthor(username, postAuthor -> {
+            // Add the post author to our Set
+            // If postAuthor is "alice", and we add "alice" 5 times, Set still only has 1 "alice"
+            uniqueAuthors.add(postAuthor);
+            return true;	// Keep scanning
+        });
         
         // Step 6: CRITICAL - Remove self-replies
         // If student replied to their own posts, those don't count
@@ -103,6 +101,16 @@ public class ReplyStatisticsCalculator {
     
      // Analyzes ALL students in the system and returns their statistics.
     public Map<String, Map<String, Integer>> analyzeAllStudents() throws SQLException {
+        RoundTrips.Scope scope = RoundTrips.open("ReplyStatisticsCalculator.analyzeAllStudents");
+        try {
+            return analyzeEachStudent();
+        } finally {
+            scope.close();
+        }
+    }
+    
+    
+    private Map<String, Map<String, Integer>> analyzeEachStudent() throws SQLException {
         // This will store results for ALL students
         Map<String, Map<String, Integer>> allResults = new HashMap<>();
         